@@ -3,40 +3,171 @@ package ua.java;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.lettuce.core.RedisClient;
-import io.lettuce.core.RedisURI;
 import io.lettuce.core.api.StatefulRedisConnection;
 import io.lettuce.core.api.sync.RedisStringCommands;
+import org.apache.log4j.LogManager;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.java.boot.BootSequence;
+import ua.java.boot.Lifecycle;
+import ua.java.cache.NegativeCache;
+import ua.java.cache.NormalizedCityCache;
+import ua.java.cache.OffHeapCityCache;
 import ua.java.cache.RedisRepository;
+import ua.java.cache.RedisRepositoryFactory;
+import ua.java.cache.RedisSettings;
+import ua.java.cache.ResilientRedisRepository;
+import ua.java.cdc.CacheChangeApplier;
+import ua.java.cdc.ChangeEventConsumer;
+import ua.java.cdc.FileChangeEventSource;
+import ua.java.cdc.FileCheckpointStore;
 import ua.java.domain.entity.City;
-import ua.java.domain.entity.Country;
 import ua.java.domain.entity.CountryLanguage;
+import ua.java.limit.ConcurrencyLimiter;
+import ua.java.limit.VegasLimit;
+import ua.java.metrics.Metrics;
+import ua.java.metrics.PrometheusExporter;
+import ua.java.query.QueryAnalysis;
+import ua.java.rebuild.CacheRebuilder;
 import ua.java.redis.CityCountry;
-import ua.java.redis.Language;
 import ua.java.repository.CityRepository;
 import ua.java.repository.CountryRepository;
 import ua.java.service.CityService;
 import ua.java.service.CountryService;
+import ua.java.tracing.FlightRecorder;
+import ua.java.tracing.RecordingTracer;
+import ua.java.tracing.Tracing;
+import ua.java.transaction.TransactionTemplate;
 import ua.java.util.HibernateUtil;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class Main {
 
-    public static void main(String[] args) {
-        RedisClient redisClient = prepareRedisClient();
-        ObjectMapper mapper = new ObjectMapper();
-        SessionFactory sessionFactory = HibernateUtil.getSessionFactory();
-        RedisRepository redisRepository = new RedisRepository();
+    private static final Logger logger = LoggerFactory.getLogger(Main.class);
 
-        CountryRepository countryRepository = new CountryRepository(sessionFactory);
-        CityRepository repository = new CityRepository(sessionFactory);
+    public static void main(String[] args) throws IOException {
+        Lifecycle lifecycle = new Lifecycle().installShutdownHook();
+        lifecycle.register("logging", LogManager::shutdown);
+        FlightRecorder flightRecorder = new FlightRecorder(Integer.getInteger("tracing.recorder.size", 256));
+        Long slowRequestMs = Long.getLong("tracing.slow.ms");
+        if (slowRequestMs != null) {
+            double sampleRate = Double.parseDouble(System.getProperty("tracing.sample.rate", "0.01"));
+            Tracing.setTracer(new RecordingTracer(sampleRate, slowRequestMs, TimeUnit.MILLISECONDS, flightRecorder));
+        }
+        Long queryReportSeconds = Long.getLong("query.report.seconds");
+        if (queryReportSeconds != null) {
+            QueryAnalysis.analyzer().startReporting(queryReportSeconds, TimeUnit.SECONDS, 10);
+            lifecycle.register("queryAnalysis", QueryAnalysis.analyzer());
+        }
+        BootSequence boot = lifecycle.register("boot", new BootSequence(Metrics.registry()));
+        Integer metricsPort = Integer.getInteger("metrics.port");
+        if (metricsPort != null) {
+            lifecycle.register("metrics", new PrometheusExporter(Metrics.registry(), metricsPort))
+                    .addEndpoint("/debug/slow-requests", flightRecorder::dumpAsText)
+                    .addEndpoint("/debug/slow-queries", () -> QueryAnalysis.analyzer().report(20))
+                    .addProbe("/ready", boot.readiness()::isReady, boot.readiness()::describe)
+                    .start();
+        }
+        CompletableFuture<SessionFactory> hibernate = boot.start("hibernate", HibernateUtil::getSessionFactory);
+        RedisSettings redisSettings = RedisSettings.load();
+        CompletableFuture<RedisRepository> redis = boot.start("redis", () -> {
+            RedisRepository client = RedisRepositoryFactory.create(redisSettings);
+            try {
+                client.ping();
+            } catch (RuntimeException e) {
+                client.close();
+                throw new IllegalStateException("Redis is not reachable: " + e.getMessage(), e);
+            }
+            return new ResilientRedisRepository(client, redisSettings);
+        });
+        OffHeapCityCache nearCache = boot.run("nearCache", () -> new OffHeapCityCache(
+                Integer.getInteger("cache.near.capacityBytes", OffHeapCityCache.DEFAULT_CAPACITY_BYTES)));
+
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(
+                new VegasLimit(Integer.getInteger("db.limit.initial", 10), 2, Integer.getInteger("db.limit.max", 64)),
+                Integer.getInteger("db.limit.queue", 256), 0.5, 2_000, 500, 5_000, Metrics.registry());
+        SessionFactory sessionFactory;
+        RedisRepository redisRepository;
+        try {
+            sessionFactory = BootSequence.await(hibernate);
+            redisRepository = BootSequence.await(redis);
+        } catch (RuntimeException e) {
+            boot.failed(e);
+            throw e;
+        }
+        lifecycle.register("hibernate", HibernateUtil::shutdown);
+        lifecycle.register("redis", redisRepository);
+        if (HibernateUtil.getSchemaValidation() == HibernateUtil.SchemaValidation.BACKGROUND) {
+            boot.backgroundCritical("schemaValidation", HibernateUtil::validateSchema);
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(sessionFactory, Metrics.registry(), limiter);
+        CountryRepository countryRepository = new CountryRepository(transactionTemplate);
+        CityRepository repository = new CityRepository(transactionTemplate);
 
-        CountryService countryService = new CountryService(countryRepository, redisRepository);
-        CityService service = new CityService(repository, redisRepository);
+        NormalizedCityCache normalizedCache = redisSettings.isNormalized()
+                ? new NormalizedCityCache(redisRepository, redisSettings.getCountryLocalTtlMs(), TimeUnit.MILLISECONDS)
+                : null;
+        CountryService countryService = new CountryService(countryRepository, redisRepository, normalizedCache);
+        NegativeCache negativeCache = new NegativeCache("city", redisRepository, redisSettings.getNegativeTtlMs(),
+                TimeUnit.MILLISECONDS, redisSettings.getNegativeLocalMaxEntries());
+        CityService service = new CityService(repository, redisRepository, nearCache, normalizedCache, negativeCache);
+
+        String changeEventsFile = System.getProperty("cdc.events.file");
+        ChangeEventConsumer consumer = null;
+        if (changeEventsFile != null) {
+            RedisRepository cdcRedis = lifecycle.register("cdcRedis", RedisRepositoryFactory.create(redisSettings));
+            CacheChangeApplier applier = new CacheChangeApplier(cdcRedis,
+                    normalizedCache == null ? null : normalizedCache.withRepository(cdcRedis), repository, countryRepository,
+                    CacheChangeApplier.Mode.valueOf(System.getProperty("cdc.mode", "INVALIDATE")))
+                    .addListener(service);
+            ChangeEventConsumer changeEventConsumer = new ChangeEventConsumer(new FileChangeEventSource(Path.of(changeEventsFile)), applier,
+                    new FileCheckpointStore(Path.of(changeEventsFile + ".checkpoint")),
+                    Integer.getInteger("cdc.batch.size", 500), 200, Metrics.registry());
+            boot.run("cdc", () -> {
+                changeEventConsumer.start();
+                return changeEventConsumer;
+            });
+            consumer = changeEventConsumer;
+        }
+
+        Path snapshot = Path.of("city-cache.snapshot");
+        boot.run("snapshot", () -> service.restoreSnapshot(snapshot));
+        lifecycle.register("snapshot", () -> service.writeSnapshot(snapshot));
+        lifecycle.register("db", Lifecycle.drain(limiter::getInflight, Long.getLong("shutdown.drain.ms", 5_000), TimeUnit.MILLISECONDS));
+        // The id filter is built once and then trusted for misses, so it needs CDC to learn ids inserted by other instances.
+        if (Boolean.getBoolean("cache.negative.bloom") && consumer == null) {
+            logger.warn("cache.negative.bloom requires the CDC consumer (cdc.events.file), id filter disabled");
+        } else if (Boolean.getBoolean("cache.negative.bloom")) {
+            double falsePositiveRate = Double.parseDouble(System.getProperty("cache.negative.bloom.fpp", "0.01"));
+            boot.background("idFilter", () -> service.rebuildIdFilter(falsePositiveRate));
+        }
+        if (Boolean.getBoolean("cache.rebuild")) {
+            RedisRepository rebuildRedis = lifecycle.register("rebuildRedis", RedisRepositoryFactory.create(redisSettings));
+            Consumer<Collection<CityCountry>> rebuildWriter = normalizedCache == null
+                    ? rebuildRedis::cacheAllIfNewer
+                    : normalizedCache.withRepository(rebuildRedis)::putAll;
+            CacheRebuilder rebuilder = lifecycle.register("cacheRebuild", new CacheRebuilder(repository, rebuildWriter,
+                    new FileCheckpointStore(Path.of("cache-rebuild.checkpoint")),
+                    Integer.getInteger("rebuild.parallelism", Math.min(8, Runtime.getRuntime().availableProcessors())),
+                    Integer.getInteger("rebuild.partitionSize", 5_000), Integer.getInteger("rebuild.batch", 500),
+                    Double.parseDouble(System.getProperty("rebuild.rowsPerSecond", "0")), Metrics.registry()));
+            boot.background("cacheRebuild", rebuilder::rebuild);
+        }
+        if (consumer != null) {
+            lifecycle.register("cdc", consumer);
+        }
+        lifecycle.register("readiness", boot.readiness()::markStopping);
+        boot.ready();
 
         service.getById(3);
         service.getById(3);
@@ -69,8 +200,7 @@ public class Main {
 
         /*service.deleteById(0);*/
 
-        /*List<City> allCities = repository.getAll();
-        List<CityCountry> preparedData = transformData(allCities);
+        /*List<CityCountry> preparedData = repository.getAllCityCountries();
         pushToRedis(preparedData, redisClient, mapper);*/
         /*List<Integer> ids = new ArrayList<>(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
 
@@ -86,45 +216,6 @@ public class Main {
         System.out.printf("%s:\t%d ms\n", "MySQL", (stopMYSql - startMySql));*/
     }
 
-    private static List<CityCountry> transformData(List<City> cities) {
-        return cities.stream().map(city -> {
-            CityCountry res = new CityCountry();
-            res.setId(city.getId());
-            res.setName(city.getName());
-            res.setPopulation(city.getPopulation());
-            res.setDistrict(city.getDistrict());
-
-            Country country = city.getCountry();
-            res.setAlternativeCountryCode(country.getSecondCode());
-            res.setContinent(country.getContinent());
-            res.setCountryCode(country.getCode());
-            res.setCountryName(country.getName());
-            res.setCountryPopulation(country.getPopulation());
-            res.setCountryRegion(country.getRegion());
-            res.setCountrySurfaceArea(country.getSurfaceArea());
-
-            Set<CountryLanguage> countryLanguages = country.getLanguages();
-            Set<Language> languages = countryLanguages.stream().map(cl -> {
-                Language language = new Language();
-                language.setLanguage(cl.getLanguage());
-                language.setOfficial(cl.getOfficial());
-                language.setPercentage(cl.getPercentage());
-                return language;
-            }).collect(Collectors.toSet());
-            res.setLanguages(languages);
-
-            return res;
-        }).collect(Collectors.toList());
-    }
-
-    private static RedisClient prepareRedisClient() {
-        RedisClient redisClient = RedisClient.create(RedisURI.create("localhost", 6379));
-        try (StatefulRedisConnection<String, String> connection = redisClient.connect()) {
-            System.out.println("\nConnected to Redis\n");
-        }
-        return redisClient;
-    }
-
     private static void pushToRedis(List<CityCountry> data, RedisClient redisClient, ObjectMapper mapper) {
         try (StatefulRedisConnection<String, String> connection = redisClient.connect()) {
             RedisStringCommands<String, String> sync = connection.sync();
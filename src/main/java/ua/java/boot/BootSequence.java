@@ -0,0 +1,131 @@
+package ua.java.boot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.java.metrics.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class BootSequence implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BootSequence.class);
+
+    private final MeterRegistry registry;
+    private final long startedAt = System.nanoTime();
+    private final Map<String, Long> durations = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> order = new ConcurrentLinkedQueue<>();
+    private final Readiness readiness = new Readiness();
+    private final ExecutorService executor;
+
+    public BootSequence(MeterRegistry registry) {
+        this.registry = registry;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "boot-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public <T> CompletableFuture<T> start(String phase, Supplier<T> work) {
+        return CompletableFuture.supplyAsync(() -> run(phase, work), executor);
+    }
+
+    public void background(String phase, Runnable work) {
+        background(phase, work, false);
+    }
+
+    public void backgroundCritical(String phase, Runnable work) {
+        background(phase, work, true);
+    }
+
+    private void background(String phase, Runnable work, boolean critical) {
+        executor.execute(() -> {
+            try {
+                run(phase, () -> {
+                    work.run();
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                logger.error("Background boot phase {} failed", phase, e);
+                if (critical) {
+                    readiness.markFailed(e);
+                }
+            }
+        });
+    }
+
+    public <T> T run(String phase, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+    }
+
+    public Readiness readiness() {
+        return readiness;
+    }
+
+    public void ready() {
+        record("total", System.nanoTime() - startedAt);
+        readiness.markReady();
+        logger.info("Boot completed: {}", report());
+    }
+
+    public void failed(Throwable cause) {
+        readiness.markFailed(cause);
+        logger.error("Boot failed after {} ms: {}", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), report(), cause);
+    }
+
+    public Map<String, Long> getDurationsMs() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        order.forEach(phase -> result.put(phase, TimeUnit.NANOSECONDS.toMillis(durations.get(phase))));
+        return result;
+    }
+
+    public String report() {
+        StringBuilder out = new StringBuilder();
+        getDurationsMs().forEach((phase, ms) -> {
+            if (out.length() > 0) {
+                out.append(", ");
+            }
+            out.append(phase).append('=').append(ms).append("ms");
+        });
+        return out.toString();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private void record(String phase, long nanos) {
+        if (durations.putIfAbsent(phase, nanos) == null) {
+            order.add(phase);
+            registry.gauge("boot.phase.duration", () -> durations.get(phase) / 1e9, "phase", phase);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Boot phase {} took {} ms", phase, TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+    }
+}
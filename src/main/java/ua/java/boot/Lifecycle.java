@@ -0,0 +1,81 @@
+package ua.java.boot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
+
+public class Lifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(Lifecycle.class);
+    private static final long DRAIN_POLL_MS = 10;
+
+    private final Deque<Step> steps = new ArrayDeque<>();
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    private final AtomicBoolean hookInstalled = new AtomicBoolean();
+
+    public synchronized <T extends AutoCloseable> T register(String name, T resource) {
+        if (stopped.get()) {
+            throw new IllegalStateException("Cannot register " + name + " after shutdown");
+        }
+        steps.push(new Step(name, resource));
+        return resource;
+    }
+
+    public Lifecycle installShutdownHook() {
+        if (hookInstalled.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "lifecycle-shutdown"));
+        }
+        return this;
+    }
+
+    public boolean isStopped() {
+        return stopped.get();
+    }
+
+    public void shutdown() {
+        if (!stopped.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        Step step;
+        while ((step = nextStep()) != null) {
+            long stepStart = System.nanoTime();
+            try {
+                step.resource().close();
+                logger.info("Stopped {} in {} ms", step.name(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - stepStart));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while stopping {}", step.name());
+            } catch (Throwable e) {
+                logger.error("Failed to stop {}", step.name(), e);
+            }
+        }
+        logger.info("Shutdown completed in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    public static AutoCloseable drain(IntSupplier inflight, long timeout, TimeUnit unit) {
+        return () -> {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            int remaining;
+            while ((remaining = inflight.getAsInt()) > 0) {
+                if (System.nanoTime() - deadline >= 0) {
+                    logger.warn("Gave up waiting for {} in-flight operations after {} {}", remaining, timeout, unit);
+                    return;
+                }
+                Thread.sleep(DRAIN_POLL_MS);
+            }
+        };
+    }
+
+    private synchronized Step nextStep() {
+        return steps.poll();
+    }
+
+    private record Step(String name, AutoCloseable resource) {
+    }
+}
@@ -0,0 +1,62 @@
+package ua.java.boot;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class Readiness {
+
+    public enum State {
+        STARTING,
+        READY,
+        STOPPING,
+        FAILED
+    }
+
+    private final CountDownLatch settled = new CountDownLatch(1);
+    private volatile State state = State.STARTING;
+    private volatile String detail = "";
+
+    public void markReady() {
+        settle(State.READY, "");
+    }
+
+    public synchronized void markFailed(Throwable cause) {
+        if (state == State.READY) {
+            state = State.FAILED;
+            detail = String.valueOf(cause);
+            return;
+        }
+        settle(State.FAILED, String.valueOf(cause));
+    }
+
+    public synchronized void markStopping() {
+        if (state == State.READY) {
+            state = State.STOPPING;
+        }
+    }
+
+    public boolean isReady() {
+        return state == State.READY;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+        return settled.await(timeout, unit) && isReady();
+    }
+
+    public String describe() {
+        return detail.isEmpty() ? state.name() : state.name() + ": " + detail;
+    }
+
+    private synchronized void settle(State newState, String newDetail) {
+        if (state != State.STARTING) {
+            return;
+        }
+        detail = newDetail;
+        state = newState;
+        settled.countDown();
+    }
+}
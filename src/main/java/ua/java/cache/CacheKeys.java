@@ -0,0 +1,47 @@
+package ua.java.cache;
+
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+public final class CacheKeys {
+
+    public static final String CITY_NAME_PREFIX = "cityName:";
+    public static final String CITY_HASH_PREFIX = "cityHash:";
+
+    private CacheKeys() {
+    }
+
+    public static String cityName(String name) {
+        return CITY_NAME_PREFIX + name;
+    }
+
+    public static String cityHash(String name) {
+        return CITY_HASH_PREFIX + name;
+    }
+
+    public static String city(int id) {
+        return "city:" + id;
+    }
+
+    public static String country(int id) {
+        return "country:" + id;
+    }
+
+    public static String missing(String entity, int id) {
+        return "missing:" + entity + ":" + id;
+    }
+
+    public static String hashTag(String key) {
+        int open = key.indexOf('{');
+        if (open >= 0) {
+            int close = key.indexOf('}', open + 1);
+            if (close > open + 1) {
+                return key.substring(open + 1, close);
+            }
+        }
+        return key;
+    }
+
+    public static int slot(String key) {
+        return JedisClusterCRC16.getSlot(key);
+    }
+}
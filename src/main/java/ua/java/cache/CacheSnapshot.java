@@ -0,0 +1,211 @@
+package ua.java.cache;
+
+import ua.java.collection.IntIntMap;
+import ua.java.collection.IntObjectMap;
+import ua.java.redis.CityCountry;
+import ua.java.redis.CityCountryCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+public class CacheSnapshot {
+
+    private static final int MAGIC = 0x48524353;
+    private static final short VERSION = 4;
+    private static final int HEADER_SIZE = 64;
+    private static final short NULL_LENGTH = -1;
+    private static final int SEED_BATCH_SIZE = 500;
+
+    private final ByteBuffer body;
+    private final long createdAt;
+    private final long maxId;
+    private final long rowCount;
+    private final long versionSum;
+    private final int recordCount;
+    private final int statisticsCount;
+    private final int recordsLength;
+
+    private CacheSnapshot(ByteBuffer header, ByteBuffer body, int recordsLength) {
+        this.createdAt = header.getLong(8);
+        this.maxId = header.getLong(16);
+        this.rowCount = header.getLong(24);
+        this.recordCount = header.getInt(32);
+        this.statisticsCount = header.getInt(36);
+        this.versionSum = header.getLong(48);
+        this.body = body;
+        this.recordsLength = recordsLength;
+    }
+
+    public static void write(Path path, OffHeapCityCache nearCache, IntIntMap requestCounts,
+                             IntObjectMap<String> requestNames, long maxId, long rowCount, long versionSum) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel)), crc));
+
+            int[] recordCount = new int[1];
+            int recordsLength;
+            try {
+                nearCache.forEachEncoded((id, encoded) -> {
+                    try {
+                        out.writeInt(id);
+                        out.writeInt(encoded.remaining());
+                        byte[] bytes = new byte[encoded.remaining()];
+                        encoded.get(bytes);
+                        out.write(bytes);
+                        recordCount[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                recordsLength = out.size();
+
+                requestCounts.forEach((id, count) -> {
+                    try {
+                        out.writeInt(id);
+                        out.writeInt(count);
+                        String name = requestNames.get(id);
+                        if (name == null) {
+                            out.writeShort(NULL_LENGTH);
+                        } else {
+                            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                            out.writeShort(bytes.length);
+                            out.write(bytes);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC)
+                    .putShort(VERSION)
+                    .putShort((short) 0)
+                    .putLong(System.currentTimeMillis())
+                    .putLong(maxId)
+                    .putLong(rowCount)
+                    .putInt(recordCount[0])
+                    .putInt(requestCounts.size())
+                    .putInt(recordsLength)
+                    .putInt(out.size())
+                    .putLong(versionSum)
+                    .putLong(crc.getValue())
+                    .flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static CacheSnapshot map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Snapshot file is truncated: " + path);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            ByteBuffer header = mapped.slice(0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a cache snapshot: " + path);
+            }
+            if (header.getShort(4) != VERSION) {
+                throw new IOException("Unsupported snapshot version " + header.getShort(4));
+            }
+            int recordsLength = header.getInt(40);
+            int bodyLength = header.getInt(44);
+            if (channel.size() != (long) HEADER_SIZE + bodyLength) {
+                throw new IOException("Snapshot file is truncated: " + path);
+            }
+            ByteBuffer body = mapped.slice(HEADER_SIZE, bodyLength);
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            if (crc.getValue() != header.getLong(56)) {
+                throw new IOException("Snapshot checksum mismatch: " + path);
+            }
+            return new CacheSnapshot(header, body, recordsLength);
+        }
+    }
+
+    public boolean isCurrent(long maxId, long rowCount, long versionSum) {
+        return this.maxId == maxId && this.rowCount == rowCount && this.versionSum == versionSum;
+    }
+
+    public int seed(OffHeapCityCache nearCache) {
+        ByteBuffer records = body.slice(0, recordsLength);
+        int seeded = 0;
+        while (records.hasRemaining()) {
+            int id = records.getInt();
+            int length = records.getInt();
+            if (nearCache.putEncoded(id, records.slice(records.position(), length))) {
+                seeded++;
+            }
+            records.position(records.position() + length);
+        }
+        return seeded;
+    }
+
+    public int seed(RedisRepository redisRepository) {
+        ByteBuffer records = body.slice(0, recordsLength);
+        List<CityCountry> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        int seeded = 0;
+        while (records.hasRemaining()) {
+            records.getInt();
+            int length = records.getInt();
+            ByteBuffer record = records.slice(records.position(), length);
+            batch.add(CityCountryCodec.decode(record));
+            records.position(records.position() + length);
+            seeded++;
+            if (batch.size() == SEED_BATCH_SIZE) {
+                redisRepository.cacheAllIfNewer(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            redisRepository.cacheAllIfNewer(batch);
+        }
+        return seeded;
+    }
+
+    public void restoreStatistics(IntIntMap requestCounts, IntObjectMap<String> requestNames) {
+        ByteBuffer statistics = body.slice(recordsLength, body.limit() - recordsLength);
+        for (int i = 0; i < statisticsCount; i++) {
+            int id = statistics.getInt();
+            requestCounts.put(id, statistics.getInt());
+            short length = statistics.getShort();
+            if (length != NULL_LENGTH) {
+                byte[] bytes = new byte[length];
+                statistics.get(bytes);
+                requestNames.put(id, new String(bytes, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+}
@@ -0,0 +1,47 @@
+package ua.java.cache;
+
+import io.lettuce.core.api.StatefulConnection;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class FlushBatcher implements AutoCloseable {
+
+    private final StatefulConnection<?, ?> connection;
+    private final int maxBatch;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ExecutorService flusher;
+
+    FlushBatcher(StatefulConnection<?, ?> connection, int maxBatch) {
+        this.connection = connection;
+        this.maxBatch = maxBatch;
+        this.flusher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        connection.setAutoFlushCommands(false);
+    }
+
+    void commandQueued() {
+        int queued = pending.incrementAndGet();
+        if (queued == 1) {
+            flusher.execute(this::flush);
+        } else if (queued >= maxBatch) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (pending.getAndSet(0) > 0) {
+            connection.flushCommands();
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        flusher.shutdown();
+    }
+}
@@ -0,0 +1,684 @@
+package ua.java.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.ClusterPipeline;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.ConnectionFactory;
+import redis.clients.jedis.ConnectionPoolConfig;
+import redis.clients.jedis.DefaultJedisClientConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisClientConfig;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.commands.PipelineCommands;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.jedis.providers.ClusterConnectionProvider;
+import redis.clients.jedis.providers.ConnectionProvider;
+import redis.clients.jedis.providers.PooledConnectionProvider;
+import ua.java.metrics.Counter;
+import ua.java.metrics.DistributionSummary;
+import ua.java.metrics.MeterRegistry;
+import ua.java.metrics.Metrics;
+import ua.java.metrics.Timer;
+import ua.java.redis.CityCountry;
+import ua.java.redis.CityCountryField;
+import ua.java.redis.CityCountryHash;
+import ua.java.tracing.Span;
+import ua.java.tracing.Tracing;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class JedisRedisRepository implements RedisRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(JedisRedisRepository.class);
+
+    private final UnifiedJedis redisClient;
+    private final ConnectionProvider provider;
+    private final ClusterConnectionProvider clusterProvider;
+    private final boolean hashLayout;
+    private final ObjectMapper objectMapper;
+    private final Timer getTimer;
+    private final Timer setTimer;
+    private final Timer evictTimer;
+    private final DistributionSummary getPayloadSize;
+    private final DistributionSummary setPayloadSize;
+    private final Counter getErrors;
+    private final Counter setErrors;
+    private final Counter evictErrors;
+
+    public JedisRedisRepository(RedisSettings settings) {
+        this(settings, Metrics.registry());
+    }
+
+    public JedisRedisRepository(RedisSettings settings, MeterRegistry registry) {
+        this(createProvider(settings), settings, registry);
+    }
+
+    JedisRedisRepository(UnifiedJedis redisClient, MeterRegistry registry) {
+        this(redisClient, null, false, registry);
+    }
+
+    JedisRedisRepository(UnifiedJedis redisClient, boolean hashLayout, MeterRegistry registry) {
+        this(redisClient, null, hashLayout, registry);
+    }
+
+    private JedisRedisRepository(ConnectionProvider provider, RedisSettings settings, MeterRegistry registry) {
+        this(provider instanceof ClusterConnectionProvider cluster
+                        ? new JedisCluster(cluster, settings.getClusterMaxAttempts(),
+                        Duration.ofMillis((long) settings.getClusterMaxAttempts() * settings.getSocketTimeoutMs()))
+                        : new JedisPooled((PooledConnectionProvider) provider),
+                provider, "hash".equalsIgnoreCase(settings.getLayout()), registry);
+    }
+
+    private JedisRedisRepository(UnifiedJedis redisClient, ConnectionProvider provider, boolean hashLayout,
+                                 MeterRegistry registry) {
+        this.redisClient = redisClient;
+        this.provider = provider;
+        this.clusterProvider = provider instanceof ClusterConnectionProvider cluster ? cluster : null;
+        this.hashLayout = hashLayout;
+        this.objectMapper = new ObjectMapper();
+        this.getTimer = registry.timer("cache.redis.latency", "operation", "get");
+        this.setTimer = registry.timer("cache.redis.latency", "operation", "set");
+        this.evictTimer = registry.timer("cache.redis.latency", "operation", "del");
+        this.getPayloadSize = registry.summary("cache.redis.payload.size", "operation", "get");
+        this.setPayloadSize = registry.summary("cache.redis.payload.size", "operation", "set");
+        this.getErrors = registry.counter("cache.redis.errors", "operation", "get");
+        this.setErrors = registry.counter("cache.redis.errors", "operation", "set");
+        this.evictErrors = registry.counter("cache.redis.errors", "operation", "del");
+    }
+
+    @Override
+    public CityCountry getDataByName(String name) {
+        if (hashLayout) {
+            return getDataByName(name, CityCountryField.ALL);
+        }
+        String cityCountryKey = CacheKeys.cityName(name);
+        String cityJson;
+        Span span = Tracing.tracer().startSpan("redis.get");
+        long start = System.nanoTime();
+        try {
+            cityJson = redisClient.get(cityCountryKey);
+        } catch (RuntimeException e) {
+            getErrors.increment();
+            throw e;
+        } finally {
+            getTimer.recordSince(start);
+            span.end();
+        }
+        return read(cityCountryKey, cityJson);
+    }
+
+    @Override
+    public CityCountry getDataByName(String name, Set<CityCountryField> fields) {
+        if (!hashLayout) {
+            return getDataByName(name);
+        }
+        String[] hashFields = CityCountryHash.fieldNames(fields);
+        List<String> values;
+        Span span = Tracing.tracer().startSpan("redis.hmget").setAttribute("fields", hashFields.length);
+        long start = System.nanoTime();
+        try {
+            values = redisClient.hmget(CacheKeys.cityHash(name), hashFields);
+        } catch (RuntimeException e) {
+            getErrors.increment();
+            throw e;
+        } finally {
+            getTimer.recordSince(start);
+            span.end();
+        }
+        return readHash(CacheKeys.cityHash(name), hashFields, values);
+    }
+
+    @Override
+    public Map<String, CityCountry> getDataByNames(Collection<String> names) {
+        Map<String, CityCountry> result = new HashMap<>();
+        if (names.isEmpty()) {
+            return result;
+        }
+        Function<String, String> keyOf = hashLayout ? CacheKeys::cityHash : CacheKeys::cityName;
+        Map<String, String> namesByKey = new HashMap<>();
+        names.forEach(name -> namesByKey.put(keyOf.apply(name), name));
+        String[] hashFields = CityCountryHash.fieldNames(CityCountryField.ALL);
+        Span span = Tracing.tracer().startSpan("redis.mget").setAttribute("keys", names.size());
+        long start = System.nanoTime();
+        try {
+            Collection<List<String>> groups = groupByNode(namesByKey.keySet());
+            if (hashLayout) {
+                for (Map<String, List<String>> group : ParallelBatch.run(groups, keys -> fetchHashes(keys, hashFields))) {
+                    group.forEach((key, values) -> {
+                        CityCountry cityCountry = readHash(key, hashFields, values);
+                        if (cityCountry != null) {
+                            result.put(namesByKey.get(key), cityCountry);
+                        }
+                    });
+                }
+            } else {
+                for (Map<String, String> group : ParallelBatch.run(groups, this::fetch)) {
+                    group.forEach((key, cityJson) -> {
+                        CityCountry cityCountry = read(key, cityJson);
+                        if (cityCountry != null) {
+                            result.put(namesByKey.get(key), cityCountry);
+                        }
+                    });
+                }
+            }
+        } catch (RuntimeException e) {
+            getErrors.increment();
+            throw e;
+        } finally {
+            getTimer.recordSince(start);
+            span.end();
+        }
+        return result;
+    }
+
+    @Override
+    public void cacheData(CityCountry data) {
+        if (hashLayout) {
+            Map<String, String> hash = CityCountryHash.encode(data, CityCountryField.ALL);
+            recordHashSize(hash);
+            String cityHashKey = CacheKeys.cityHash(data.getName());
+            long start = System.nanoTime();
+            try {
+                redisClient.hset(cityHashKey, hash);
+            } catch (RuntimeException e) {
+                setErrors.increment();
+                throw e;
+            } finally {
+                setTimer.recordSince(start);
+            }
+            return;
+        }
+        String cityCountryKey = CacheKeys.cityName(data.getName());
+        String cityJson;
+        try {
+            cityJson = objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            setErrors.increment();
+            throw new RuntimeException("Could not serialize city");
+        }
+        setPayloadSize.record(cityJson.length());
+        long start = System.nanoTime();
+        try {
+            redisClient.set(cityCountryKey, cityJson);
+        } catch (RuntimeException e) {
+            setErrors.increment();
+            throw e;
+        } finally {
+            setTimer.recordSince(start);
+        }
+    }
+
+    @Override
+    public boolean cacheIfNewer(CityCountry data) {
+        List<String> args = new ArrayList<>();
+        args.add(VersionedScripts.id(data));
+        args.add(VersionedScripts.version(data));
+        args.add(VersionedScripts.countryVersion(data));
+        String key;
+        String script;
+        if (hashLayout) {
+            Map<String, String> hash = CityCountryHash.encode(data, CityCountryField.ALL);
+            recordHashSize(hash);
+            hash.forEach((field, value) -> {
+                args.add(field);
+                args.add(value);
+            });
+            key = CacheKeys.cityHash(data.getName());
+            script = VersionedScripts.HSET_IF_NEWER;
+        } else {
+            String cityJson;
+            try {
+                cityJson = objectMapper.writeValueAsString(data);
+            } catch (JsonProcessingException e) {
+                setErrors.increment();
+                throw new RuntimeException("Could not serialize city");
+            }
+            setPayloadSize.record(cityJson.length());
+            args.add(cityJson);
+            key = CacheKeys.cityName(data.getName());
+            script = VersionedScripts.SET_IF_NEWER;
+        }
+        long start = System.nanoTime();
+        try {
+            return Long.valueOf(1).equals(redisClient.eval(script, List.of(key), args));
+        } catch (RuntimeException e) {
+            setErrors.increment();
+            throw e;
+        } finally {
+            setTimer.recordSince(start);
+        }
+    }
+
+    @Override
+    public void updateFields(CityCountry data, Set<CityCountryField> fields) {
+        if (!hashLayout) {
+            cacheIfNewer(data);
+            return;
+        }
+        Map<String, String> hash = CityCountryHash.encode(data, fields);
+        if (hash.isEmpty()) {
+            return;
+        }
+        recordHashSize(hash);
+        List<String> args = new ArrayList<>(hash.size() * 2 + 3);
+        args.add(VersionedScripts.id(data));
+        args.add(VersionedScripts.version(data));
+        args.add(data.getCountryId() == null ? "" : String.valueOf(data.getCountryId()));
+        hash.forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        long start = System.nanoTime();
+        try {
+            redisClient.eval(VersionedScripts.HSET_FIELDS_IF_NEWER, List.of(CacheKeys.cityHash(data.getName())), args);
+        } catch (RuntimeException e) {
+            setErrors.increment();
+            throw e;
+        } finally {
+            setTimer.recordSince(start);
+        }
+    }
+
+    @Override
+    public void cacheAll(Collection<CityCountry> data) {
+        if (data.isEmpty()) {
+            return;
+        }
+        Map<String, String> entries = new LinkedHashMap<>();
+        Map<String, Map<String, String>> hashes = new LinkedHashMap<>();
+        for (CityCountry cityCountry : data) {
+            if (hashLayout) {
+                Map<String, String> hash = CityCountryHash.encode(cityCountry, CityCountryField.ALL);
+                recordHashSize(hash);
+                hashes.put(CacheKeys.cityHash(cityCountry.getName()), hash);
+                continue;
+            }
+            try {
+                String cityJson = objectMapper.writeValueAsString(cityCountry);
+                setPayloadSize.record(cityJson.length());
+                entries.put(CacheKeys.cityName(cityCountry.getName()), cityJson);
+            } catch (JsonProcessingException e) {
+                setErrors.increment();
+                throw new RuntimeException("Could not serialize city");
+            }
+        }
+        Span span = Tracing.tracer().startSpan("redis.mset").setAttribute("keys", data.size());
+        long start = System.nanoTime();
+        try {
+            if (hashLayout) {
+                ParallelBatch.run(groupByNode(hashes.keySet()), keys -> pipelined(keys,
+                        (pipeline, key) -> pipeline.hset(key, hashes.get(key)),
+                        key -> redisClient.hset(key, hashes.get(key))));
+            } else {
+                ParallelBatch.run(groupByNode(entries.keySet()), keys -> store(keys, entries));
+            }
+        } catch (RuntimeException e) {
+            setErrors.increment();
+            throw e;
+        } finally {
+            setTimer.recordSince(start);
+            span.end();
+        }
+    }
+
+    @Override
+    public void cacheAllIfNewer(Collection<CityCountry> data) {
+        if (data.isEmpty()) {
+            return;
+        }
+        Map<String, List<String>> args = new LinkedHashMap<>();
+        for (CityCountry cityCountry : data) {
+            List<String> scriptArgs = new ArrayList<>();
+            scriptArgs.add(VersionedScripts.id(cityCountry));
+            scriptArgs.add(VersionedScripts.version(cityCountry));
+            scriptArgs.add(VersionedScripts.countryVersion(cityCountry));
+            if (hashLayout) {
+                Map<String, String> hash = CityCountryHash.encode(cityCountry, CityCountryField.ALL);
+                recordHashSize(hash);
+                hash.forEach((field, value) -> {
+                    scriptArgs.add(field);
+                    scriptArgs.add(value);
+                });
+                args.put(CacheKeys.cityHash(cityCountry.getName()), scriptArgs);
+                continue;
+            }
+            try {
+                String cityJson = objectMapper.writeValueAsString(cityCountry);
+                setPayloadSize.record(cityJson.length());
+                scriptArgs.add(cityJson);
+                args.put(CacheKeys.cityName(cityCountry.getName()), scriptArgs);
+            } catch (JsonProcessingException e) {
+                setErrors.increment();
+                throw new RuntimeException("Could not serialize city");
+            }
+        }
+        if (hashLayout) {
+            evalAll(VersionedScripts.HSET_IF_NEWER, VersionedScripts.HSET_IF_NEWER_SHA, args);
+        } else {
+            evalAll(VersionedScripts.SET_IF_NEWER, VersionedScripts.SET_IF_NEWER_SHA, args);
+        }
+    }
+
+    @Override
+    public void evictAll(Collection<String> names) {
+        deleteValues(names.stream()
+                .map(hashLayout ? CacheKeys::cityHash : CacheKeys::cityName)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public Map<String, String> getValues(Collection<String> keys) {
+        Map<String, String> result = new HashMap<>();
+        if (keys.isEmpty()) {
+            return result;
+        }
+        Span span = Tracing.tracer().startSpan("redis.mget").setAttribute("keys", keys.size());
+        long start = System.nanoTime();
+        try {
+            for (Map<String, String> group : ParallelBatch.run(groupByNode(keys), this::fetch)) {
+                group.forEach((key, value) -> {
+                    if (value != null) {
+                        getPayloadSize.record(value.length());
+                        result.put(key, value);
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            getErrors.increment();
+            throw e;
+        } finally {
+            getTimer.recordSince(start);
+            span.end();
+        }
+        return result;
+    }
+
+    @Override
+    public void setValues(Map<String, String> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        entries.values().forEach(value -> setPayloadSize.record(value.length()));
+        Span span = Tracing.tracer().startSpan("redis.mset").setAttribute("keys", entries.size());
+        long start = System.nanoTime();
+        try {
+            ParallelBatch.run(groupByNode(entries.keySet()), keys -> store(keys, entries));
+        } catch (RuntimeException e) {
+            setErrors.increment();
+            throw e;
+        } finally {
+            setTimer.recordSince(start);
+            span.end();
+        }
+    }
+
+    @Override
+    public void setValuesIfNewer(Map<String, VersionedValue> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Map<String, List<String>> args = new LinkedHashMap<>();
+        entries.forEach((key, value) -> {
+            setPayloadSize.record(value.value().length());
+            args.put(key, List.of("", String.valueOf(value.version()), String.valueOf(value.countryVersion()), value.value()));
+        });
+        evalAll(VersionedScripts.SET_IF_NEWER, VersionedScripts.SET_IF_NEWER_SHA, args);
+    }
+
+    @Override
+    public void setValue(String key, String value, long ttlMs) {
+        setPayloadSize.record(value.length());
+        long start = System.nanoTime();
+        try {
+            redisClient.psetex(key, ttlMs, value);
+        } catch (RuntimeException e) {
+            setErrors.increment();
+            throw e;
+        } finally {
+            setTimer.recordSince(start);
+        }
+    }
+
+    @Override
+    public void deleteValues(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            if (clusterProvider == null) {
+                redisClient.del(keys.toArray(new String[0]));
+            } else {
+                ParallelBatch.run(groupByNode(keys), group -> pipelined(group, PipelineCommands::del, redisClient::del));
+            }
+        } catch (RuntimeException e) {
+            evictErrors.increment();
+            throw e;
+        } finally {
+            evictTimer.recordSince(start);
+        }
+    }
+
+    @Override
+    public void evictData(String name) {
+        long start = System.nanoTime();
+        try {
+            redisClient.del(hashLayout ? CacheKeys.cityHash(name) : CacheKeys.cityName(name));
+        } catch (RuntimeException e) {
+            evictErrors.increment();
+            throw e;
+        } finally {
+            evictTimer.recordSince(start);
+        }
+    }
+
+    @Override
+    public void ping() {
+        redisClient.sendCommand("ping", Protocol.Command.PING);
+    }
+
+    @Override
+    public void close() {
+        redisClient.close();
+    }
+
+    private CityCountry read(String cityCountryKey, String cityJson) {
+        if (cityJson == null) {
+            return null;
+        }
+        getPayloadSize.record(cityJson.length());
+        Span span = Tracing.tracer().startSpan("redis.deserialize").setAttribute("bytes", cityJson.length());
+        try {
+            return objectMapper.readValue(cityJson, CityCountry.class);
+        } catch (JsonProcessingException e) {
+            getErrors.increment();
+            logger.warn("Evicting unreadable cache entry {}: {}", cityCountryKey, e.getOriginalMessage());
+            redisClient.del(cityCountryKey);
+            return null;
+        } finally {
+            span.end();
+        }
+    }
+
+    private CityCountry readHash(String cityHashKey, String[] hashFields, List<String> values) {
+        int bytes = 0;
+        boolean present = false;
+        for (String value : values) {
+            if (value != null) {
+                present = true;
+                bytes += value.length();
+            }
+        }
+        if (!present) {
+            return null;
+        }
+        getPayloadSize.record(bytes);
+        Span span = Tracing.tracer().startSpan("redis.deserialize").setAttribute("bytes", bytes);
+        try {
+            return CityCountryHash.decode(hashFields, values);
+        } catch (IllegalArgumentException e) {
+            getErrors.increment();
+            logger.warn("Evicting unreadable cache entry {}: {}", cityHashKey, e.getMessage());
+            redisClient.del(cityHashKey);
+            return null;
+        } finally {
+            span.end();
+        }
+    }
+
+    private void recordHashSize(Map<String, String> hash) {
+        int bytes = 0;
+        for (String value : hash.values()) {
+            bytes += value.length();
+        }
+        setPayloadSize.record(bytes);
+    }
+
+    private Collection<List<String>> groupByNode(Collection<String> keys) {
+        if (clusterProvider == null) {
+            return List.of(new ArrayList<>(keys));
+        }
+        Map<HostAndPort, List<String>> groups = new HashMap<>();
+        for (String key : keys) {
+            groups.computeIfAbsent(clusterProvider.getNode(CacheKeys.slot(key)), node -> new ArrayList<>()).add(key);
+        }
+        return groups.values();
+    }
+
+    private Map<String, String> fetch(List<String> keys) {
+        Map<String, String> values = new HashMap<>();
+        List<String> replies = clusterProvider == null
+                ? redisClient.mget(keys.toArray(new String[0]))
+                : pipelined(keys, PipelineCommands::get, redisClient::get);
+        for (int i = 0; i < keys.size(); i++) {
+            values.put(keys.get(i), replies.get(i));
+        }
+        return values;
+    }
+
+    private Map<String, List<String>> fetchHashes(List<String> keys, String[] hashFields) {
+        Map<String, List<String>> values = new HashMap<>();
+        List<List<String>> replies = pipelined(keys,
+                (pipeline, key) -> pipeline.hmget(key, hashFields),
+                key -> redisClient.hmget(key, hashFields));
+        for (int i = 0; i < keys.size(); i++) {
+            values.put(keys.get(i), replies.get(i));
+        }
+        return values;
+    }
+
+    private Void store(List<String> keys, Map<String, String> entries) {
+        if (clusterProvider == null) {
+            String[] keysValues = new String[keys.size() * 2];
+            for (int i = 0; i < keys.size(); i++) {
+                keysValues[2 * i] = keys.get(i);
+                keysValues[2 * i + 1] = entries.get(keys.get(i));
+            }
+            redisClient.mset(keysValues);
+            return null;
+        }
+        pipelined(keys, (pipeline, key) -> pipeline.set(key, entries.get(key)), key -> redisClient.set(key, entries.get(key)));
+        return null;
+    }
+
+    private void evalAll(String script, String sha, Map<String, List<String>> args) {
+        Span span = Tracing.tracer().startSpan("redis.evalsha").setAttribute("keys", args.size());
+        long start = System.nanoTime();
+        try {
+            ParallelBatch.run(groupByNode(args.keySet()), keys -> pipelined(keys,
+                    (pipeline, key) -> pipeline.evalsha(sha, List.of(key), args.get(key)),
+                    key -> redisClient.eval(script, List.of(key), args.get(key))));
+        } catch (RuntimeException e) {
+            setErrors.increment();
+            throw e;
+        } finally {
+            setTimer.recordSince(start);
+            span.end();
+        }
+    }
+
+    private <T> List<T> pipelined(List<String> keys, BiFunction<PipelineCommands, String, Response<T>> queued,
+                                  Function<String, T> direct) {
+        List<T> values = new ArrayList<>(keys.size());
+        if (provider == null) {
+            keys.forEach(key -> values.add(direct.apply(key)));
+            return values;
+        }
+        List<Response<T>> responses = new ArrayList<>(keys.size());
+        if (clusterProvider != null) {
+            try (ClusterPipeline pipeline = new ClusterPipeline(clusterProvider)) {
+                keys.forEach(key -> responses.add(queued.apply(pipeline, key)));
+                pipeline.sync();
+            }
+        } else {
+            try (Connection connection = provider.getConnection(); Pipeline pipeline = new Pipeline(connection)) {
+                keys.forEach(key -> responses.add(queued.apply(pipeline, key)));
+                pipeline.sync();
+            }
+        }
+        boolean redirected = false;
+        for (int i = 0; i < keys.size(); i++) {
+            try {
+                values.add(responses.get(i).get());
+            } catch (JedisRedirectionException e) {
+                redirected = true;
+                values.add(direct.apply(keys.get(i)));
+            } catch (JedisNoScriptException e) {
+                values.add(direct.apply(keys.get(i)));
+            }
+        }
+        if (redirected) {
+            clusterProvider.renewSlotCache();
+        }
+        return values;
+    }
+
+    private static JedisClientConfig clientConfig(RedisSettings settings) {
+        return DefaultJedisClientConfig.builder()
+                .connectionTimeoutMillis(settings.getConnectTimeoutMs())
+                .socketTimeoutMillis(settings.getSocketTimeoutMs())
+                .build();
+    }
+
+    private static ConnectionPoolConfig poolConfig(RedisSettings settings) {
+        ConnectionPoolConfig poolConfig = new ConnectionPoolConfig();
+        poolConfig.setMaxTotal(settings.getPoolMaxTotal());
+        poolConfig.setMaxIdle(settings.getPoolMaxIdle());
+        poolConfig.setMaxWait(Duration.ofMillis(settings.getPoolMaxWaitMs()));
+        return poolConfig;
+    }
+
+    private static ConnectionProvider createProvider(RedisSettings settings) {
+        if (!"cluster".equalsIgnoreCase(settings.getMode())) {
+            return new PooledConnectionProvider(
+                    new ConnectionFactory(new HostAndPort(settings.getHost(), settings.getPort()), clientConfig(settings)),
+                    poolConfig(settings));
+        }
+        Set<HostAndPort> nodes = settings.getNodes().stream()
+                .map(HostAndPort::from)
+                .collect(Collectors.toSet());
+        if (nodes.isEmpty()) {
+            nodes = Set.of(new HostAndPort(settings.getHost(), settings.getPort()));
+        }
+        return new ClusterConnectionProvider(nodes, clientConfig(settings), poolConfig(settings));
+    }
+}
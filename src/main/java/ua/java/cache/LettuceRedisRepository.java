@@ -0,0 +1,417 @@
+package ua.java.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.java.metrics.Counter;
+import ua.java.metrics.DistributionSummary;
+import ua.java.metrics.MeterRegistry;
+import ua.java.metrics.Metrics;
+import ua.java.metrics.Timer;
+import ua.java.redis.CityCountry;
+import ua.java.tracing.Span;
+import ua.java.tracing.Tracing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class LettuceRedisRepository implements RedisRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(LettuceRedisRepository.class);
+    private static final int MAX_FLUSH_BATCH = 128;
+
+    private final RedisClient client;
+    private final StatefulRedisConnection<String, byte[]> connection;
+    private final RedisAsyncCommands<String, byte[]> commands;
+    private final FlushBatcher flushBatcher;
+    private final ObjectMapper objectMapper;
+    private final long commandTimeoutMs;
+    private final Timer getTimer;
+    private final Timer setTimer;
+    private final Timer evictTimer;
+    private final DistributionSummary getPayloadSize;
+    private final DistributionSummary setPayloadSize;
+    private final Counter getErrors;
+    private final Counter setErrors;
+    private final Counter evictErrors;
+
+    public LettuceRedisRepository(RedisSettings settings) {
+        this(settings, Metrics.registry());
+    }
+
+    public LettuceRedisRepository(RedisSettings settings, MeterRegistry registry) {
+        this.client = RedisClient.create(RedisURI.create(settings.getHost(), settings.getPort()));
+        this.client.setOptions(ClientOptions.builder()
+                .socketOptions(SocketOptions.builder()
+                        .connectTimeout(Duration.ofMillis(settings.getConnectTimeoutMs()))
+                        .build())
+                .timeoutOptions(TimeoutOptions.enabled(Duration.ofMillis(settings.getSocketTimeoutMs())))
+                .build());
+        this.connection = client.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
+        this.commands = connection.async();
+        this.flushBatcher = new FlushBatcher(connection, MAX_FLUSH_BATCH);
+        this.objectMapper = new ObjectMapper();
+        this.commandTimeoutMs = settings.getSocketTimeoutMs();
+        this.getTimer = registry.timer("cache.redis.latency", "operation", "get");
+        this.setTimer = registry.timer("cache.redis.latency", "operation", "set");
+        this.evictTimer = registry.timer("cache.redis.latency", "operation", "del");
+        this.getPayloadSize = registry.summary("cache.redis.payload.size", "operation", "get");
+        this.setPayloadSize = registry.summary("cache.redis.payload.size", "operation", "set");
+        this.getErrors = registry.counter("cache.redis.errors", "operation", "get");
+        this.setErrors = registry.counter("cache.redis.errors", "operation", "set");
+        this.evictErrors = registry.counter("cache.redis.errors", "operation", "del");
+    }
+
+    @Override
+    public CityCountry getDataByName(String name) {
+        Span span = Tracing.tracer().startSpan("redis.get");
+        try {
+            return await(getDataByNameAsync(name));
+        } finally {
+            span.end();
+        }
+    }
+
+    @Override
+    public void cacheData(CityCountry data) {
+        await(cacheDataAsync(data));
+    }
+
+    @Override
+    public boolean cacheIfNewer(CityCountry data) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(data);
+        } catch (JsonProcessingException e) {
+            setErrors.increment();
+            throw new RuntimeException("Could not serialize city");
+        }
+        setPayloadSize.record(payload.length);
+        long start = System.nanoTime();
+        CompletionStage<Long> reply = commands.eval(VersionedScripts.SET_IF_NEWER, ScriptOutputType.INTEGER,
+                new String[]{CacheKeys.cityName(data.getName())},
+                VersionedScripts.id(data).getBytes(StandardCharsets.UTF_8),
+                VersionedScripts.version(data).getBytes(StandardCharsets.UTF_8),
+                VersionedScripts.countryVersion(data).getBytes(StandardCharsets.UTF_8),
+                payload);
+        flushBatcher.commandQueued();
+        try {
+            return Long.valueOf(1).equals(await(reply));
+        } catch (RuntimeException e) {
+            setErrors.increment();
+            throw e;
+        } finally {
+            setTimer.recordSince(start);
+        }
+    }
+
+    @Override
+    public void evictData(String name) {
+        await(evictDataAsync(name));
+    }
+
+    @Override
+    public Map<String, CityCountry> getDataByNames(Collection<String> names) {
+        List<String> requested = new ArrayList<>(names);
+        List<CompletableFuture<CityCountry>> replies = new ArrayList<>(requested.size());
+        for (String name : requested) {
+            replies.add(getDataByNameAsync(name).toCompletableFuture());
+        }
+        await(CompletableFuture.allOf(replies.toArray(new CompletableFuture[0])));
+        Map<String, CityCountry> result = new HashMap<>();
+        for (int i = 0; i < requested.size(); i++) {
+            CityCountry cityCountry = replies.get(i).join();
+            if (cityCountry != null) {
+                result.put(requested.get(i), cityCountry);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void cacheAll(Collection<CityCountry> data) {
+        CompletableFuture<?>[] replies = data.stream()
+                .map(cityCountry -> cacheDataAsync(cityCountry).toCompletableFuture())
+                .toArray(CompletableFuture[]::new);
+        await(CompletableFuture.allOf(replies));
+    }
+
+    @Override
+    public void cacheAllIfNewer(Collection<CityCountry> data) {
+        if (data.isEmpty()) {
+            return;
+        }
+        Map<String, byte[][]> args = new HashMap<>();
+        for (CityCountry cityCountry : data) {
+            byte[] payload;
+            try {
+                payload = objectMapper.writeValueAsBytes(cityCountry);
+            } catch (JsonProcessingException e) {
+                setErrors.increment();
+                throw new RuntimeException("Could not serialize city");
+            }
+            setPayloadSize.record(payload.length);
+            args.put(CacheKeys.cityName(cityCountry.getName()), new byte[][]{
+                    VersionedScripts.id(cityCountry).getBytes(StandardCharsets.UTF_8),
+                    VersionedScripts.version(cityCountry).getBytes(StandardCharsets.UTF_8),
+                    VersionedScripts.countryVersion(cityCountry).getBytes(StandardCharsets.UTF_8),
+                    payload});
+        }
+        setAllIfNewer(args);
+    }
+
+    @Override
+    public Map<String, String> getValues(Collection<String> keys) {
+        Map<String, String> result = new HashMap<>();
+        if (keys.isEmpty()) {
+            return result;
+        }
+        long start = System.nanoTime();
+        CompletionStage<List<KeyValue<String, byte[]>>> reply = commands.mget(keys.toArray(new String[0]));
+        flushBatcher.commandQueued();
+        List<KeyValue<String, byte[]>> values;
+        try {
+            values = await(reply);
+        } catch (RuntimeException e) {
+            getErrors.increment();
+            throw e;
+        } finally {
+            getTimer.recordSince(start);
+        }
+        for (KeyValue<String, byte[]> value : values) {
+            if (value.hasValue()) {
+                getPayloadSize.record(value.getValue().length);
+                result.put(value.getKey(), new String(value.getValue(), StandardCharsets.UTF_8));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void setValues(Map<String, String> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Map<String, byte[]> payloads = new HashMap<>();
+        entries.forEach((key, value) -> {
+            byte[] payload = value.getBytes(StandardCharsets.UTF_8);
+            setPayloadSize.record(payload.length);
+            payloads.put(key, payload);
+        });
+        long start = System.nanoTime();
+        CompletionStage<String> reply = commands.mset(payloads);
+        flushBatcher.commandQueued();
+        try {
+            await(reply);
+        } catch (RuntimeException e) {
+            setErrors.increment();
+            throw e;
+        } finally {
+            setTimer.recordSince(start);
+        }
+    }
+
+    @Override
+    public void setValuesIfNewer(Map<String, VersionedValue> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Map<String, byte[][]> args = new HashMap<>();
+        entries.forEach((key, value) -> {
+            byte[] payload = value.value().getBytes(StandardCharsets.UTF_8);
+            setPayloadSize.record(payload.length);
+            args.put(key, new byte[][]{
+                    new byte[0],
+                    String.valueOf(value.version()).getBytes(StandardCharsets.UTF_8),
+                    String.valueOf(value.countryVersion()).getBytes(StandardCharsets.UTF_8),
+                    payload});
+        });
+        setAllIfNewer(args);
+    }
+
+    @Override
+    public void setValue(String key, String value, long ttlMs) {
+        byte[] payload = value.getBytes(StandardCharsets.UTF_8);
+        setPayloadSize.record(payload.length);
+        long start = System.nanoTime();
+        CompletionStage<String> reply = commands.psetex(key, ttlMs, payload);
+        flushBatcher.commandQueued();
+        try {
+            await(reply);
+        } catch (RuntimeException e) {
+            setErrors.increment();
+            throw e;
+        } finally {
+            setTimer.recordSince(start);
+        }
+    }
+
+    @Override
+    public void deleteValues(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        CompletionStage<Long> reply = commands.del(keys.toArray(new String[0]));
+        flushBatcher.commandQueued();
+        try {
+            await(reply);
+        } catch (RuntimeException e) {
+            evictErrors.increment();
+            throw e;
+        } finally {
+            evictTimer.recordSince(start);
+        }
+    }
+
+    @Override
+    public CompletionStage<CityCountry> getDataByNameAsync(String name) {
+        String cityCountryKey = CacheKeys.cityName(name);
+        long start = System.nanoTime();
+        CompletionStage<byte[]> reply = commands.get(cityCountryKey);
+        flushBatcher.commandQueued();
+        return reply.handle((payload, failure) -> {
+            getTimer.recordSince(start);
+            if (failure != null) {
+                getErrors.increment();
+                throw failure instanceof CompletionException completion ? completion : new CompletionException(failure);
+            }
+            if (payload == null) {
+                return null;
+            }
+            getPayloadSize.record(payload.length);
+            try {
+                return objectMapper.readValue(payload, CityCountry.class);
+            } catch (IOException e) {
+                getErrors.increment();
+                logger.warn("Evicting unreadable cache entry {}: {}", cityCountryKey, e.getMessage());
+                commands.del(cityCountryKey);
+                flushBatcher.commandQueued();
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public CompletionStage<Void> cacheDataAsync(CityCountry data) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(data);
+        } catch (JsonProcessingException e) {
+            setErrors.increment();
+            return CompletableFuture.failedFuture(new RuntimeException("Could not serialize city"));
+        }
+        setPayloadSize.record(payload.length);
+        long start = System.nanoTime();
+        CompletionStage<String> reply = commands.set(CacheKeys.cityName(data.getName()), payload);
+        flushBatcher.commandQueued();
+        return reply.handle((status, failure) -> {
+            setTimer.recordSince(start);
+            if (failure != null) {
+                setErrors.increment();
+                throw failure instanceof CompletionException completion ? completion : new CompletionException(failure);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public CompletionStage<Void> evictDataAsync(String name) {
+        long start = System.nanoTime();
+        CompletionStage<Long> reply = commands.del(CacheKeys.cityName(name));
+        flushBatcher.commandQueued();
+        return reply.handle((deleted, failure) -> {
+            evictTimer.recordSince(start);
+            if (failure != null) {
+                evictErrors.increment();
+                throw failure instanceof CompletionException completion ? completion : new CompletionException(failure);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void ping() {
+        CompletionStage<String> reply = commands.ping();
+        flushBatcher.commandQueued();
+        await(reply);
+    }
+
+    @Override
+    public void close() {
+        flushBatcher.close();
+        connection.close();
+        client.shutdown();
+    }
+
+    private void setAllIfNewer(Map<String, byte[][]> args) {
+        long start = System.nanoTime();
+        CompletableFuture<?>[] replies = args.entrySet().stream()
+                .map(entry -> setIfNewerAsync(entry.getKey(), entry.getValue()))
+                .toArray(CompletableFuture[]::new);
+        try {
+            await(CompletableFuture.allOf(replies));
+        } catch (RuntimeException e) {
+            setErrors.increment();
+            throw e;
+        } finally {
+            setTimer.recordSince(start);
+        }
+    }
+
+    private CompletableFuture<Long> setIfNewerAsync(String key, byte[][] args) {
+        String[] keys = {key};
+        CompletionStage<Long> reply = commands.evalsha(VersionedScripts.SET_IF_NEWER_SHA, ScriptOutputType.INTEGER, keys, args);
+        flushBatcher.commandQueued();
+        return reply.toCompletableFuture().exceptionallyCompose(failure -> {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+            if (!(cause instanceof RedisNoScriptException)) {
+                return CompletableFuture.failedFuture(cause);
+            }
+            CompletionStage<Long> retry = commands.eval(VersionedScripts.SET_IF_NEWER, ScriptOutputType.INTEGER, keys, args);
+            flushBatcher.commandQueued();
+            return retry;
+        });
+    }
+
+    private <T> T await(CompletionStage<T> stage) {
+        try {
+            return stage.toCompletableFuture().get(commandTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for Redis", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause() : e.getCause();
+            throw cause instanceof RuntimeException runtime ? runtime : new RuntimeException(cause);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Redis command timed out after " + commandTimeoutMs + " ms", e);
+        }
+    }
+}
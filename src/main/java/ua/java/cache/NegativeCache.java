@@ -0,0 +1,157 @@
+package ua.java.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.java.collection.ConcurrentIntIntMap;
+import ua.java.collection.IntBloomFilter;
+import ua.java.collection.IntIntMap;
+import ua.java.logging.RateLimitedLogger;
+import ua.java.metrics.Counter;
+import ua.java.metrics.MeterRegistry;
+import ua.java.metrics.Metrics;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+public class NegativeCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(NegativeCache.class);
+    private static final RateLimitedLogger rateLimitedLogger = new RateLimitedLogger(logger, 10, TimeUnit.SECONDS);
+    private static final String TOMBSTONE = "1";
+
+    private final String entity;
+    private final RedisRepository redisRepository;
+    private final long ttlMs;
+    private final int maxLocalEntries;
+    private final LongSupplier clock;
+    private final long origin;
+    private final IntIntMap local = new ConcurrentIntIntMap();
+    private final Counter bloomRejects;
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter tombstones;
+    private volatile IntBloomFilter knownIds;
+    private volatile IntIntMap addedDuringRebuild;
+
+    public NegativeCache(String entity, RedisRepository redisRepository, long ttl, TimeUnit unit, int maxLocalEntries) {
+        this(entity, redisRepository, ttl, unit, maxLocalEntries, System::currentTimeMillis, Metrics.registry());
+    }
+
+    NegativeCache(String entity, RedisRepository redisRepository, long ttl, TimeUnit unit, int maxLocalEntries,
+                  LongSupplier clock, MeterRegistry registry) {
+        if (ttl <= 0 || unit.toMillis(ttl) > Integer.MAX_VALUE / 2 || maxLocalEntries <= 0) {
+            throw new IllegalArgumentException("ttl and maxLocalEntries must be positive");
+        }
+        this.entity = entity;
+        this.redisRepository = redisRepository;
+        this.ttlMs = unit.toMillis(ttl);
+        this.maxLocalEntries = maxLocalEntries;
+        this.clock = clock;
+        this.origin = clock.getAsLong();
+        this.bloomRejects = registry.counter("cache.negative", "entity", entity, "result", "bloom");
+        this.localHits = registry.counter("cache.negative", "entity", entity, "result", "local");
+        this.redisHits = registry.counter("cache.negative", "entity", entity, "result", "redis");
+        this.tombstones = registry.counter("cache.negative.tombstones", "entity", entity);
+    }
+
+    public boolean isMissing(int id) {
+        IntBloomFilter filter = knownIds;
+        if (filter != null && !filter.mightContain(id)) {
+            bloomRejects.increment();
+            return true;
+        }
+        int deadline = local.get(id);
+        if (deadline != 0) {
+            if (deadline - now() > 0) {
+                localHits.increment();
+                return true;
+            }
+            local.remove(id, deadline);
+        }
+        if (redisRepository == null) {
+            return false;
+        }
+        String key = CacheKeys.missing(entity, id);
+        try {
+            if (redisRepository.getValues(List.of(key)).get(key) != null) {
+                redisHits.increment();
+                remember(id);
+                return true;
+            }
+        } catch (RuntimeException e) {
+            rateLimitedLogger.warn("Could not read tombstone {}: {}", key, e.getMessage());
+        }
+        return false;
+    }
+
+    public void markMissing(int id) {
+        tombstones.increment();
+        remember(id);
+        if (redisRepository == null) {
+            return;
+        }
+        try {
+            redisRepository.setValue(CacheKeys.missing(entity, id), TOMBSTONE, ttlMs);
+        } catch (RuntimeException e) {
+            rateLimitedLogger.warn("Could not write tombstone for {} {}: {}", entity, id, e.getMessage());
+        }
+    }
+
+    public void markPresent(int id) {
+        IntIntMap pending = addedDuringRebuild;
+        if (pending != null) {
+            pending.put(id, 1);
+        }
+        IntBloomFilter filter = knownIds;
+        if (filter != null) {
+            filter.add(id);
+        }
+        local.remove(id);
+        if (redisRepository == null) {
+            return;
+        }
+        try {
+            redisRepository.deleteValues(List.of(CacheKeys.missing(entity, id)));
+        } catch (RuntimeException e) {
+            rateLimitedLogger.warn("Could not delete tombstone for {} {}: {}", entity, id, e.getMessage());
+        }
+    }
+
+    public synchronized void rebuildKnownIds(Supplier<? extends Collection<Integer>> source, double falsePositiveRate) {
+        addedDuringRebuild = new ConcurrentIntIntMap();
+        try {
+            Collection<Integer> ids = source.get();
+            IntBloomFilter next = new IntBloomFilter(ids.size() + ids.size() / 4 + 1024, falsePositiveRate);
+            ids.forEach(next::add);
+            knownIds = next;
+            addedDuringRebuild.forEach((id, ignored) -> next.add(id));
+            logger.info("Rebuilt {} id filter from {} ids ({} bits, {} hashes)", entity, ids.size(),
+                    next.getBitCount(), next.getHashCount());
+        } finally {
+            addedDuringRebuild = null;
+        }
+    }
+
+    public boolean hasKnownIds() {
+        return knownIds != null;
+    }
+
+    public int getLocalSize() {
+        return local.size();
+    }
+
+    private void remember(int id) {
+        if (local.size() >= maxLocalEntries) {
+            local.clear();
+        }
+        int deadline = (int) (now() + ttlMs);
+        local.put(id, deadline == 0 ? 1 : deadline);
+    }
+
+    private int now() {
+        return (int) (clock.getAsLong() - origin);
+    }
+}
@@ -0,0 +1,256 @@
+package ua.java.cache;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.java.collection.ConcurrentIntObjectMap;
+import ua.java.collection.IntObjectMap;
+import ua.java.metrics.Counter;
+import ua.java.metrics.MeterRegistry;
+import ua.java.metrics.Metrics;
+import ua.java.redis.CityCountry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+public class NormalizedCityCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(NormalizedCityCache.class);
+
+    private final RedisRepository redisRepository;
+    private final ObjectMapper objectMapper;
+    private final IntObjectMap<LocalCountry> countries;
+    private final long countryTtlNanos;
+    private final LongSupplier clock;
+    private final Counter localCountryHits;
+    private final Counter localCountryMisses;
+
+    public NormalizedCityCache(RedisRepository redisRepository, long countryTtl, TimeUnit unit) {
+        this(redisRepository, countryTtl, unit, System::nanoTime, Metrics.registry());
+    }
+
+    NormalizedCityCache(RedisRepository redisRepository, long countryTtl, TimeUnit unit, LongSupplier clock,
+                        MeterRegistry registry) {
+        this.redisRepository = redisRepository;
+        this.objectMapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        this.countries = new ConcurrentIntObjectMap<>();
+        this.countryTtlNanos = unit.toNanos(countryTtl);
+        this.clock = clock;
+        this.localCountryHits = registry.counter("cache.normalized.country.local", "result", "hit");
+        this.localCountryMisses = registry.counter("cache.normalized.country.local", "result", "miss");
+    }
+
+    private NormalizedCityCache(NormalizedCityCache source, RedisRepository redisRepository) {
+        this.redisRepository = redisRepository;
+        this.objectMapper = source.objectMapper;
+        this.countries = source.countries;
+        this.countryTtlNanos = source.countryTtlNanos;
+        this.clock = source.clock;
+        this.localCountryHits = source.localCountryHits;
+        this.localCountryMisses = source.localCountryMisses;
+    }
+
+    public NormalizedCityCache withRepository(RedisRepository redisRepository) {
+        return new NormalizedCityCache(this, redisRepository);
+    }
+
+    public CityCountry getCity(int cityId) {
+        return getCities(List.of(cityId)).get(cityId);
+    }
+
+    public Map<Integer, CityCountry> getCities(Collection<Integer> cityIds) {
+        List<String> cityKeys = new ArrayList<>(cityIds.size());
+        cityIds.forEach(id -> cityKeys.add(CacheKeys.city(id)));
+        Map<String, String> cityValues = redisRepository.getValues(cityKeys);
+
+        List<CityCountry> cities = new ArrayList<>(cityValues.size());
+        Map<Integer, CityCountry> resolved = new HashMap<>();
+        List<String> countryKeys = new ArrayList<>();
+        cityValues.forEach((key, value) -> {
+            CityCountry city = read(key, value);
+            if (city == null || city.getCountryId() == null) {
+                return;
+            }
+            cities.add(city);
+            int countryId = city.getCountryId();
+            if (!resolved.containsKey(countryId)) {
+                CityCountry country = localCountry(countryId);
+                resolved.put(countryId, country);
+                if (country == null) {
+                    countryKeys.add(CacheKeys.country(countryId));
+                }
+            }
+        });
+        if (!countryKeys.isEmpty()) {
+            redisRepository.getValues(countryKeys).forEach((key, value) -> {
+                CityCountry country = read(key, value);
+                if (country != null && country.getCountryId() != null) {
+                    resolved.put(country.getCountryId(), country);
+                    remember(country);
+                }
+            });
+        }
+
+        Map<Integer, CityCountry> result = new HashMap<>();
+        for (CityCountry city : cities) {
+            CityCountry country = resolved.get(city.getCountryId());
+            if (country != null) {
+                result.put(city.getId(), assemble(city, country));
+            }
+        }
+        return result;
+    }
+
+    public CityCountry getCountry(int countryId) {
+        CityCountry country = localCountry(countryId);
+        if (country != null) {
+            return country;
+        }
+        String key = CacheKeys.country(countryId);
+        country = read(key, redisRepository.getValues(List.of(key)).get(key));
+        if (country != null) {
+            remember(country);
+        }
+        return country;
+    }
+
+    public void put(CityCountry cityCountry) {
+        putAll(List.of(cityCountry));
+    }
+
+    public void putAll(Collection<CityCountry> data) {
+        Map<String, VersionedValue> entries = new LinkedHashMap<>();
+        for (CityCountry cityCountry : data) {
+            if (cityCountry.getId() == null || cityCountry.getCountryId() == null) {
+                continue;
+            }
+            CityCountry city = cityPart(cityCountry);
+            entries.put(CacheKeys.city(cityCountry.getId()), VersionedValue.of(write(city), city));
+            String countryKey = CacheKeys.country(cityCountry.getCountryId());
+            if (!entries.containsKey(countryKey)) {
+                CityCountry country = countryPart(cityCountry);
+                entries.put(countryKey, VersionedValue.of(write(country), country));
+                remember(country);
+            }
+        }
+        redisRepository.setValuesIfNewer(entries);
+    }
+
+    public void putCountry(CityCountry cityCountry) {
+        if (cityCountry.getCountryId() == null) {
+            return;
+        }
+        CityCountry country = countryPart(cityCountry);
+        redisRepository.setValuesIfNewer(Map.of(CacheKeys.country(country.getCountryId()), VersionedValue.of(write(country), country)));
+        remember(country);
+    }
+
+    public void evictCity(int cityId) {
+        redisRepository.deleteValues(List.of(CacheKeys.city(cityId)));
+    }
+
+    public void evictCities(Collection<Integer> cityIds) {
+        List<String> keys = new ArrayList<>(cityIds.size());
+        cityIds.forEach(id -> keys.add(CacheKeys.city(id)));
+        redisRepository.deleteValues(keys);
+    }
+
+    public void evictCountry(int countryId) {
+        countries.remove(countryId);
+        redisRepository.deleteValues(List.of(CacheKeys.country(countryId)));
+    }
+
+    private CityCountry localCountry(int countryId) {
+        LocalCountry local = countries.get(countryId);
+        if (local != null && clock.getAsLong() - local.cachedAt < countryTtlNanos) {
+            localCountryHits.increment();
+            return local.country;
+        }
+        localCountryMisses.increment();
+        return null;
+    }
+
+    private void remember(CityCountry country) {
+        countries.put(country.getCountryId(), new LocalCountry(country, clock.getAsLong()));
+    }
+
+    private CityCountry read(String key, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(value, CityCountry.class);
+        } catch (JsonProcessingException e) {
+            logger.warn("Evicting unreadable cache entry {}: {}", key, e.getOriginalMessage());
+            redisRepository.deleteValues(List.of(key));
+            return null;
+        }
+    }
+
+    private String write(CityCountry value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize city");
+        }
+    }
+
+    private static CityCountry cityPart(CityCountry cityCountry) {
+        CityCountry city = new CityCountry();
+        city.setId(cityCountry.getId());
+        city.setName(cityCountry.getName());
+        city.setDistrict(cityCountry.getDistrict());
+        city.setPopulation(cityCountry.getPopulation());
+        city.setCountryId(cityCountry.getCountryId());
+        city.setVersion(cityCountry.getVersion());
+        return city;
+    }
+
+    private static CityCountry countryPart(CityCountry cityCountry) {
+        CityCountry country = new CityCountry();
+        country.setCountryId(cityCountry.getCountryId());
+        country.setCountryCode(cityCountry.getCountryCode());
+        country.setAlternativeCountryCode(cityCountry.getAlternativeCountryCode());
+        country.setCountryName(cityCountry.getCountryName());
+        country.setContinent(cityCountry.getContinent());
+        country.setCountryRegion(cityCountry.getCountryRegion());
+        country.setCountrySurfaceArea(cityCountry.getCountrySurfaceArea());
+        country.setCountryPopulation(cityCountry.getCountryPopulation());
+        country.setLanguages(cityCountry.getLanguages());
+        country.setCountryVersion(cityCountry.getCountryVersion());
+        return country;
+    }
+
+    private static CityCountry assemble(CityCountry city, CityCountry country) {
+        CityCountry res = cityPart(city);
+        res.setCountryCode(country.getCountryCode());
+        res.setAlternativeCountryCode(country.getAlternativeCountryCode());
+        res.setCountryName(country.getCountryName());
+        res.setContinent(country.getContinent());
+        res.setCountryRegion(country.getCountryRegion());
+        res.setCountrySurfaceArea(country.getCountrySurfaceArea());
+        res.setCountryPopulation(country.getCountryPopulation());
+        res.setLanguages(country.getLanguages());
+        res.setCountryVersion(country.getCountryVersion());
+        return res;
+    }
+
+    private static final class LocalCountry {
+
+        private final CityCountry country;
+        private final long cachedAt;
+
+        private LocalCountry(CityCountry country, long cachedAt) {
+            this.country = country;
+            this.cachedAt = cachedAt;
+        }
+    }
+}
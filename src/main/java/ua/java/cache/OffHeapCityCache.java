@@ -0,0 +1,220 @@
+package ua.java.cache;
+
+import ua.java.collection.IntIntHashMap;
+import ua.java.collection.IntIntMap;
+import ua.java.redis.CityCountry;
+import ua.java.redis.CityCountryCodec;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class OffHeapCityCache {
+
+    public static final int DEFAULT_CAPACITY_BYTES = 64 * 1024 * 1024;
+
+    private static final int NO_OFFSET = -1;
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES * 3;
+    private static final int COUNTRY_OFFSET = Integer.BYTES * 2;
+    private static final int DEFAULT_SEGMENT_COUNT = 16;
+    private static final int EXPECTED_RECORD_SIZE = 256;
+
+    private final ByteBuffer[] segments;
+    private final int segmentSize;
+    private final IntIntHashMap index;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int currentSegment;
+    private long evictions;
+
+    public OffHeapCityCache(int capacityBytes) {
+        this(capacityBytes, DEFAULT_SEGMENT_COUNT);
+    }
+
+    public OffHeapCityCache(int capacityBytes, int segmentCount) {
+        if (segmentCount < 2 || capacityBytes / segmentCount < RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("Capacity is too small for " + segmentCount + " segments");
+        }
+        this.segmentSize = capacityBytes / segmentCount;
+        this.segments = new ByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = ByteBuffer.allocateDirect(segmentSize);
+        }
+        this.index = new IntIntHashMap(capacityBytes / EXPECTED_RECORD_SIZE, NO_OFFSET);
+    }
+
+    public CityCountry get(int id) {
+        lock.readLock().lock();
+        try {
+            int offset = index.get(id);
+            if (offset == NO_OFFSET) {
+                return null;
+            }
+            ByteBuffer record = segments[offset / segmentSize].duplicate();
+            int position = offset % segmentSize;
+            int length = record.getInt(position + Integer.BYTES);
+            record.limit(position + RECORD_HEADER_SIZE + length).position(position + RECORD_HEADER_SIZE);
+            return CityCountryCodec.decode(record);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(int id) {
+        lock.readLock().lock();
+        try {
+            return index.get(id) != NO_OFFSET;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean put(CityCountry cityCountry) {
+        if (cityCountry == null || cityCountry.getId() == null) {
+            throw new IllegalArgumentException("CityCountry with id is required");
+        }
+        return putEncoded(cityCountry.getId(), CityCountryCodec.encode(cityCountry));
+    }
+
+    public boolean putEncoded(int id, ByteBuffer encoded) {
+        int recordSize = RECORD_HEADER_SIZE + encoded.remaining();
+        if (recordSize > segmentSize) {
+            return false;
+        }
+        int countryId = CityCountryCodec.countryIdOf(encoded);
+
+        lock.writeLock().lock();
+        try {
+            ByteBuffer segment = segments[currentSegment];
+            if (segment.remaining() < recordSize) {
+                currentSegment = (currentSegment + 1) % segments.length;
+                segment = segments[currentSegment];
+                evict(currentSegment);
+            }
+            int offset = currentSegment * segmentSize + segment.position();
+            segment.putInt(id);
+            segment.putInt(encoded.remaining());
+            segment.putInt(countryId);
+            segment.put(encoded);
+            index.put(id, offset);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void forEachEncoded(EncodedRecordConsumer consumer) {
+        lock.readLock().lock();
+        try {
+            for (int i = 1; i <= segments.length; i++) {
+                int segmentNumber = (currentSegment + i) % segments.length;
+                ByteBuffer segment = segments[segmentNumber];
+                int end = segment.position();
+                int position = 0;
+                while (position < end) {
+                    int id = segment.getInt(position);
+                    int length = segment.getInt(position + Integer.BYTES);
+                    if (index.get(id) == segmentNumber * segmentSize + position) {
+                        consumer.accept(id, segment.slice(position + RECORD_HEADER_SIZE, length));
+                    }
+                    position += RECORD_HEADER_SIZE + length;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void invalidate(int id) {
+        lock.writeLock().lock();
+        try {
+            index.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int invalidateCountry(int countryId) {
+        IntIntMap matches = new IntIntHashMap(16, NO_OFFSET);
+        lock.readLock().lock();
+        try {
+            index.forEach((id, offset) -> {
+                if (segments[offset / segmentSize].getInt(offset % segmentSize + COUNTRY_OFFSET) == countryId) {
+                    matches.put(id, offset);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (matches.size() == 0) {
+            return 0;
+        }
+        int[] removed = new int[1];
+        lock.writeLock().lock();
+        try {
+            matches.forEach((id, offset) -> {
+                if (index.remove(id, offset)) {
+                    removed[0]++;
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return removed[0];
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (ByteBuffer segment : segments) {
+                segment.clear();
+            }
+            index.clear();
+            currentSegment = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getEvictions() {
+        lock.readLock().lock();
+        try {
+            return evictions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getCapacityBytes() {
+        return (long) segmentSize * segments.length;
+    }
+
+    private void evict(int segmentNumber) {
+        ByteBuffer segment = segments[segmentNumber];
+        int end = segment.position();
+        int position = 0;
+        while (position < end) {
+            int id = segment.getInt(position);
+            int length = segment.getInt(position + Integer.BYTES);
+            if (index.remove(id, segmentNumber * segmentSize + position)) {
+                evictions++;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        segment.clear();
+    }
+
+    @FunctionalInterface
+    public interface EncodedRecordConsumer {
+        void accept(int id, ByteBuffer encoded);
+    }
+}
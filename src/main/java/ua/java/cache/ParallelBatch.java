@@ -0,0 +1,45 @@
+package ua.java.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+final class ParallelBatch {
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+                Thread thread = new Thread(runnable, "redis-batch-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private ParallelBatch() {
+    }
+
+    static <G, R> List<R> run(Collection<G> groups, Function<G, R> work) {
+        List<R> results = new ArrayList<>(groups.size());
+        if (groups.size() == 1) {
+            results.add(work.apply(groups.iterator().next()));
+            return results;
+        }
+        List<CompletableFuture<R>> futures = new ArrayList<>(groups.size());
+        for (G group : groups) {
+            futures.add(CompletableFuture.supplyAsync(() -> work.apply(group), executor));
+        }
+        try {
+            for (CompletableFuture<R> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+        return results;
+    }
+}
@@ -1,40 +1,84 @@
 package ua.java.cache;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import redis.clients.jedis.Jedis;
 import ua.java.redis.CityCountry;
+import ua.java.redis.CityCountryField;
 
-public class RedisRepository {
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
-    private final Jedis redisClient;
-    private final ObjectMapper objectMapper;
+public interface RedisRepository extends AutoCloseable {
 
-    public RedisRepository() {
-        this.redisClient = new Jedis("localhost", 6379);
-        this.objectMapper = new ObjectMapper();
+    CityCountry getDataByName(String name);
+
+    void cacheData(CityCountry data);
+
+    void evictData(String name);
+
+    Map<String, String> getValues(Collection<String> keys);
+
+    void setValues(Map<String, String> entries);
+
+    void setValuesIfNewer(Map<String, VersionedValue> entries);
+
+    void setValue(String key, String value, long ttlMs);
+
+    void deleteValues(Collection<String> keys);
+
+    void ping();
+
+    default boolean cacheIfNewer(CityCountry data) {
+        cacheData(data);
+        return true;
+    }
+
+    default void evictAll(Collection<String> names) {
+        names.forEach(this::evictData);
+    }
+
+    default CityCountry getDataByName(String name, Set<CityCountryField> fields) {
+        return getDataByName(name);
     }
 
-    public CityCountry getDataByName(String name) {
-        String cityCountryKey = "cityName:" + name;
-        String cityJson = redisClient.get(cityCountryKey);
-        if (cityJson != null) {
-            try {
-                return objectMapper.readValue(cityJson, CityCountry.class);
-            } catch (JsonProcessingException e) {
-                throw new RuntimeException("Could not deserialize city");
+    default void updateFields(CityCountry data, Set<CityCountryField> fields) {
+        cacheIfNewer(data);
+    }
+
+    default Map<String, CityCountry> getDataByNames(Collection<String> names) {
+        Map<String, CityCountry> result = new HashMap<>();
+        for (String name : names) {
+            CityCountry cityCountry = getDataByName(name);
+            if (cityCountry != null) {
+                result.put(name, cityCountry);
             }
         }
-        return null;
+        return result;
     }
 
-    public void cacheData(CityCountry data) {
-        String cityCountryKey = "cityName:" + data.getName();
-        try {
-            String cityJson = objectMapper.writeValueAsString(data);
-            redisClient.set(cityCountryKey, cityJson);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("Could not serialize city");
-        }
+    default void cacheAll(Collection<CityCountry> data) {
+        data.forEach(this::cacheData);
+    }
+
+    default void cacheAllIfNewer(Collection<CityCountry> data) {
+        data.forEach(this::cacheIfNewer);
+    }
+
+    default CompletionStage<CityCountry> getDataByNameAsync(String name) {
+        return CompletableFuture.supplyAsync(() -> getDataByName(name));
+    }
+
+    default CompletionStage<Void> cacheDataAsync(CityCountry data) {
+        return CompletableFuture.runAsync(() -> cacheData(data));
+    }
+
+    default CompletionStage<Void> evictDataAsync(String name) {
+        return CompletableFuture.runAsync(() -> evictData(name));
+    }
+
+    @Override
+    default void close() {
     }
 }
@@ -0,0 +1,61 @@
+package ua.java.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public final class RedisRepositoryFactory {
+
+    private RedisRepositoryFactory() {
+    }
+
+    public static RedisRepository create(RedisSettings settings) {
+        String mode = settings.getMode();
+        return switch (mode.toLowerCase(Locale.ROOT)) {
+            case "standalone" -> createClient(settings);
+            case "cluster" -> createCluster(settings);
+            case "sharded" -> createSharded(settings);
+            default -> throw new IllegalArgumentException("Unknown redis.mode: " + mode);
+        };
+    }
+
+    public static RedisRepository createResilient(RedisSettings settings) {
+        return new ResilientRedisRepository(create(settings), settings);
+    }
+
+    private static RedisRepository createClient(RedisSettings settings) {
+        String client = settings.getClient();
+        if (!"json".equalsIgnoreCase(settings.getLayout()) && !"jedis".equalsIgnoreCase(client)) {
+            throw new IllegalArgumentException("redis.layout=" + settings.getLayout() + " is only supported with redis.client=jedis");
+        }
+        return switch (client.toLowerCase(Locale.ROOT)) {
+            case "jedis" -> new JedisRedisRepository(settings);
+            case "lettuce" -> new LettuceRedisRepository(settings);
+            default -> throw new IllegalArgumentException("Unknown redis.client: " + client);
+        };
+    }
+
+    private static RedisRepository createCluster(RedisSettings settings) {
+        if (!"jedis".equalsIgnoreCase(settings.getClient())) {
+            throw new IllegalArgumentException("redis.mode=cluster is only supported with redis.client=jedis");
+        }
+        return new JedisRedisRepository(settings);
+    }
+
+    private static RedisRepository createSharded(RedisSettings settings) {
+        List<String> shardSpecs = settings.getShards();
+        if (shardSpecs.isEmpty()) {
+            throw new IllegalArgumentException("redis.mode=sharded requires redis.shards");
+        }
+        List<ShardedRedisRepository.Shard> shards = new ArrayList<>(shardSpecs.size());
+        for (String spec : shardSpecs) {
+            String[] nodes = spec.split("\\+");
+            List<RedisRepository> replicas = new ArrayList<>(nodes.length - 1);
+            for (int i = 1; i < nodes.length; i++) {
+                replicas.add(createClient(settings.withNode(nodes[i].trim())));
+            }
+            shards.add(new ShardedRedisRepository.Shard(nodes[0].trim(), createClient(settings.withNode(nodes[0].trim())), replicas));
+        }
+        return new ShardedRedisRepository(shards, settings.getShardVirtualNodes());
+    }
+}
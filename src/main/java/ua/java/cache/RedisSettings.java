@@ -0,0 +1,174 @@
+package ua.java.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+public class RedisSettings {
+
+    private static final String RESOURCE = "redis.properties";
+
+    private final Properties properties;
+
+    public RedisSettings(Properties properties) {
+        this.properties = properties;
+    }
+
+    public static RedisSettings load() {
+        Properties properties = new Properties();
+        try (InputStream in = RedisSettings.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + RESOURCE, e);
+        }
+        System.getProperties().stringPropertyNames().stream()
+                .filter(key -> key.startsWith("redis."))
+                .forEach(key -> properties.setProperty(key, System.getProperty(key)));
+        return new RedisSettings(properties);
+    }
+
+    public String getClient() {
+        return properties.getProperty("redis.client", "jedis");
+    }
+
+    public String getMode() {
+        return properties.getProperty("redis.mode", "standalone");
+    }
+
+    public String getLayout() {
+        return properties.getProperty("redis.layout", "json");
+    }
+
+    public boolean isNormalized() {
+        return Boolean.parseBoolean(properties.getProperty("redis.normalized", "false"));
+    }
+
+    public long getCountryLocalTtlMs() {
+        return getInt("redis.normalized.countryLocalTtlMs", 30000);
+    }
+
+    public long getNegativeTtlMs() {
+        return getInt("redis.negative.ttlMs", 30000);
+    }
+
+    public int getNegativeLocalMaxEntries() {
+        return getInt("redis.negative.localMax", 100000);
+    }
+
+    public List<String> getNodes() {
+        return getList("redis.nodes", ",");
+    }
+
+    public List<String> getShards() {
+        return getList("redis.shards", ",");
+    }
+
+    public int getShardVirtualNodes() {
+        return getInt("redis.shards.virtualNodes", 160);
+    }
+
+    public int getClusterMaxAttempts() {
+        return getInt("redis.cluster.maxAttempts", 5);
+    }
+
+    public RedisSettings withNode(String hostAndPort) {
+        int separator = hostAndPort.lastIndexOf(':');
+        Properties node = new Properties();
+        node.putAll(properties);
+        node.setProperty("redis.mode", "standalone");
+        node.setProperty("redis.host", separator < 0 ? hostAndPort : hostAndPort.substring(0, separator));
+        if (separator >= 0) {
+            node.setProperty("redis.port", hostAndPort.substring(separator + 1));
+        }
+        return new RedisSettings(node);
+    }
+
+    public String getHost() {
+        return properties.getProperty("redis.host", "localhost");
+    }
+
+    public int getPort() {
+        return getInt("redis.port", 6379);
+    }
+
+    public int getConnectTimeoutMs() {
+        return getInt("redis.connectTimeoutMs", 200);
+    }
+
+    public int getSocketTimeoutMs() {
+        return getInt("redis.socketTimeoutMs", 250);
+    }
+
+    public int getPoolMaxTotal() {
+        return getInt("redis.pool.maxTotal", 16);
+    }
+
+    public int getPoolMaxIdle() {
+        return getInt("redis.pool.maxIdle", 16);
+    }
+
+    public long getPoolMaxWaitMs() {
+        return getInt("redis.pool.maxWaitMs", 50);
+    }
+
+    public long getGetTimeoutMs() {
+        return getInt("redis.timeout.getMs", 50);
+    }
+
+    public long getSetTimeoutMs() {
+        return getInt("redis.timeout.setMs", 100);
+    }
+
+    public long getBatchTimeoutMs() {
+        return getInt("redis.timeout.batchMs", 500);
+    }
+
+    public long getDelTimeoutMs() {
+        return getInt("redis.timeout.delMs", 100);
+    }
+
+    public int getBulkheadMaxConcurrent() {
+        return getInt("redis.bulkhead.maxConcurrent", 16);
+    }
+
+    public int getBreakerFailureThreshold() {
+        return getInt("redis.breaker.failureThreshold", 5);
+    }
+
+    public long getBreakerOpenMs() {
+        return getInt("redis.breaker.openMs", 5000);
+    }
+
+    public String get(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue);
+    }
+
+    public List<String> getList(String key, String separator) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(value.split(Pattern.quote(separator)))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .toList();
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package ua.java.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.java.logging.RateLimitedLogger;
+import ua.java.metrics.Counter;
+import ua.java.metrics.MeterRegistry;
+import ua.java.metrics.Metrics;
+import ua.java.redis.CityCountry;
+import ua.java.redis.CityCountryField;
+import ua.java.tracing.Span;
+import ua.java.tracing.Tracing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+public class ResilientRedisRepository implements RedisRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResilientRedisRepository.class);
+    private static final RateLimitedLogger rateLimitedLogger = new RateLimitedLogger(logger, 10, TimeUnit.SECONDS);
+    private static final int MAX_PENDING_EVICTIONS = 100_000;
+    private static final int REPLAY_BATCH = 500;
+
+    private final RedisRepository delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final ThreadPoolExecutor bulkhead;
+    private final Semaphore permits;
+    private final long getTimeoutMs;
+    private final long setTimeoutMs;
+    private final long delTimeoutMs;
+    private final long batchTimeoutMs;
+    private final Counter shortCircuited;
+    private final Counter rejected;
+    private final Counter timeouts;
+    private final Counter failures;
+    private final Counter deferredEvictions;
+    private final Counter droppedEvictions;
+    private final Map<String, Long> pendingNames = new ConcurrentHashMap<>();
+    private final Map<String, Long> pendingKeys = new ConcurrentHashMap<>();
+    private final AtomicLong deferrals = new AtomicLong();
+    private final AtomicBoolean replaying = new AtomicBoolean();
+
+    public ResilientRedisRepository(RedisRepository delegate, RedisSettings settings) {
+        this(delegate, new CircuitBreaker("redis", settings.getBreakerFailureThreshold(), settings.getBreakerOpenMs(), TimeUnit.MILLISECONDS),
+                settings.getBulkheadMaxConcurrent(), settings.getGetTimeoutMs(), settings.getSetTimeoutMs(), settings.getDelTimeoutMs(),
+                settings.getBatchTimeoutMs(), Metrics.registry());
+    }
+
+    public ResilientRedisRepository(RedisRepository delegate, CircuitBreaker circuitBreaker, int maxConcurrent,
+                                    long getTimeoutMs, long setTimeoutMs, long delTimeoutMs, MeterRegistry registry) {
+        this(delegate, circuitBreaker, maxConcurrent, getTimeoutMs, setTimeoutMs, delTimeoutMs,
+                Math.max(getTimeoutMs, setTimeoutMs), registry);
+    }
+
+    public ResilientRedisRepository(RedisRepository delegate, CircuitBreaker circuitBreaker, int maxConcurrent,
+                                    long getTimeoutMs, long setTimeoutMs, long delTimeoutMs, long batchTimeoutMs,
+                                    MeterRegistry registry) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.getTimeoutMs = getTimeoutMs;
+        this.setTimeoutMs = setTimeoutMs;
+        this.delTimeoutMs = delTimeoutMs;
+        this.batchTimeoutMs = batchTimeoutMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.permits = new Semaphore(maxConcurrent);
+        this.bulkhead = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "redis-bulkhead-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.bulkhead.allowCoreThreadTimeOut(true);
+        this.shortCircuited = registry.counter("cache.redis.fallbacks", "reason", "circuit_open");
+        this.rejected = registry.counter("cache.redis.fallbacks", "reason", "bulkhead_full");
+        this.timeouts = registry.counter("cache.redis.fallbacks", "reason", "timeout");
+        this.failures = registry.counter("cache.redis.fallbacks", "reason", "error");
+        this.deferredEvictions = registry.counter("cache.redis.evictions", "result", "deferred");
+        this.droppedEvictions = registry.counter("cache.redis.evictions", "result", "dropped");
+        registry.gauge("cache.redis.evictions.pending", () -> pendingNames.size() + pendingKeys.size());
+        registry.gauge("cache.redis.breaker.state", () -> circuitBreaker.getState().ordinal());
+    }
+
+    @Override
+    public CityCountry getDataByName(String name) {
+        return call("get", getTimeoutMs, () -> delegate.getDataByName(name));
+    }
+
+    @Override
+    public CityCountry getDataByName(String name, Set<CityCountryField> fields) {
+        return call("get", getTimeoutMs, () -> delegate.getDataByName(name, fields));
+    }
+
+    @Override
+    public void cacheData(CityCountry data) {
+        if (!run("set", setTimeoutMs, () -> delegate.cacheData(data))) {
+            defer(pendingNames, List.of(data.getName()));
+        }
+    }
+
+    @Override
+    public boolean cacheIfNewer(CityCountry data) {
+        Boolean written = call("set", setTimeoutMs, () -> delegate.cacheIfNewer(data));
+        if (written == null) {
+            defer(pendingNames, List.of(data.getName()));
+        }
+        return Boolean.TRUE.equals(written);
+    }
+
+    @Override
+    public void updateFields(CityCountry data, Set<CityCountryField> fields) {
+        if (!run("set", setTimeoutMs, () -> delegate.updateFields(data, fields))) {
+            defer(pendingNames, List.of(data.getName()));
+        }
+    }
+
+    @Override
+    public void evictData(String name) {
+        if (!run("del", delTimeoutMs, () -> delegate.evictData(name))) {
+            defer(pendingNames, List.of(name));
+        }
+    }
+
+    @Override
+    public Map<String, CityCountry> getDataByNames(Collection<String> names) {
+        Map<String, CityCountry> result = call("mget", batchTimeoutMs, () -> delegate.getDataByNames(names));
+        return result == null ? Map.of() : result;
+    }
+
+    @Override
+    public void cacheAll(Collection<CityCountry> data) {
+        if (!run("mset", batchTimeoutMs, () -> delegate.cacheAll(data))) {
+            defer(pendingNames, data.stream().map(CityCountry::getName).toList());
+        }
+    }
+
+    @Override
+    public void cacheAllIfNewer(Collection<CityCountry> data) {
+        if (!run("mset", batchTimeoutMs, () -> delegate.cacheAllIfNewer(data))) {
+            defer(pendingNames, data.stream().map(CityCountry::getName).toList());
+        }
+    }
+
+    @Override
+    public void evictAll(Collection<String> names) {
+        if (!run("del", batchTimeoutMs, () -> delegate.evictAll(names))) {
+            defer(pendingNames, names);
+        }
+    }
+
+    @Override
+    public Map<String, String> getValues(Collection<String> keys) {
+        Map<String, String> result = call("mget", batchTimeoutMs, () -> delegate.getValues(keys));
+        return result == null ? Map.of() : result;
+    }
+
+    @Override
+    public void setValues(Map<String, String> entries) {
+        if (!run("mset", batchTimeoutMs, () -> delegate.setValues(entries))) {
+            defer(pendingKeys, entries.keySet());
+        }
+    }
+
+    @Override
+    public void setValuesIfNewer(Map<String, VersionedValue> entries) {
+        if (!run("mset", batchTimeoutMs, () -> delegate.setValuesIfNewer(entries))) {
+            defer(pendingKeys, entries.keySet());
+        }
+    }
+
+    @Override
+    public void setValue(String key, String value, long ttlMs) {
+        run("set", setTimeoutMs, () -> delegate.setValue(key, value, ttlMs));
+    }
+
+    @Override
+    public void deleteValues(Collection<String> keys) {
+        if (!run("del", delTimeoutMs, () -> delegate.deleteValues(keys))) {
+            defer(pendingKeys, keys);
+        }
+    }
+
+    @Override
+    public void ping() {
+        delegate.ping();
+    }
+
+    @Override
+    public void close() {
+        bulkhead.shutdown();
+        try {
+            if (!bulkhead.awaitTermination(batchTimeoutMs, TimeUnit.MILLISECONDS)) {
+                logger.warn("Redis calls still running after {} ms, closing client anyway", batchTimeoutMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delegate.close();
+    }
+
+    public boolean isDegraded() {
+        return circuitBreaker.getState() != CircuitBreaker.State.CLOSED;
+    }
+
+    public CircuitBreaker.State getBreakerState() {
+        return circuitBreaker.getState();
+    }
+
+    public int getPendingEvictions() {
+        return pendingNames.size() + pendingKeys.size();
+    }
+
+    private boolean run(String operation, long timeoutMs, Runnable work) {
+        return call(operation, timeoutMs, () -> {
+            work.run();
+            return Boolean.TRUE;
+        }) != null;
+    }
+
+    private void defer(Map<String, Long> pending, Collection<String> keys) {
+        for (String key : keys) {
+            if (pending.size() >= MAX_PENDING_EVICTIONS && !pending.containsKey(key)) {
+                droppedEvictions.increment();
+                rateLimitedLogger.error("Too many deferred Redis evictions, dropping {}", key);
+                continue;
+            }
+            pending.put(key, deferrals.incrementAndGet());
+            deferredEvictions.increment();
+        }
+    }
+
+    private void replayEvictions() {
+        if (pendingNames.isEmpty() && pendingKeys.isEmpty() || !replaying.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            replay(pendingNames, delegate::evictAll);
+            replay(pendingKeys, delegate::deleteValues);
+        } finally {
+            replaying.set(false);
+        }
+    }
+
+    private void replay(Map<String, Long> pending, Consumer<List<String>> evict) {
+        List<Map.Entry<String, Long>> snapshot = new ArrayList<>(pending.entrySet());
+        for (int from = 0; from < snapshot.size(); from += REPLAY_BATCH) {
+            List<Map.Entry<String, Long>> batch = snapshot.subList(from, Math.min(snapshot.size(), from + REPLAY_BATCH));
+            List<String> keys = batch.stream().map(Map.Entry::getKey).toList();
+            if (!run("del", batchTimeoutMs, () -> evict.accept(keys))) {
+                return;
+            }
+            batch.forEach(entry -> pending.remove(entry.getKey(), entry.getValue()));
+            logger.info("Replayed {} deferred Redis evictions", keys.size());
+        }
+    }
+
+    private <T> T call(String operation, long timeoutMs, Callable<T> work) {
+        if (!circuitBreaker.tryAcquire()) {
+            shortCircuited.increment();
+            return null;
+        }
+        Span span = Tracing.tracer().startSpan("redis.call").setAttribute("operation", operation);
+        try {
+            return submit(operation, timeoutMs, work);
+        } finally {
+            span.end();
+        }
+    }
+
+    private <T> T submit(String operation, long timeoutMs, Callable<T> work) {
+        if (!permits.tryAcquire()) {
+            return reject(operation);
+        }
+        BulkheadTask<T> task = new BulkheadTask<>(work, new Permit());
+        try {
+            bulkhead.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.permit.release();
+            return reject(operation);
+        }
+        try {
+            T result = task.get(timeoutMs, TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess();
+            replayEvictions();
+            return result;
+        } catch (TimeoutException e) {
+            task.cancel(false);
+            timeouts.increment();
+            circuitBreaker.onFailure();
+            rateLimitedLogger.warn("Redis {} timed out after {} ms", operation, timeoutMs);
+        } catch (ExecutionException e) {
+            failures.increment();
+            circuitBreaker.onFailure();
+            rateLimitedLogger.warn("Redis {} failed: {}", operation, String.valueOf(e.getCause()));
+        } catch (InterruptedException e) {
+            task.cancel(false);
+            circuitBreaker.release();
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private <T> T reject(String operation) {
+        rejected.increment();
+        circuitBreaker.release();
+        rateLimitedLogger.warn("Redis bulkhead full, skipping {}", operation);
+        return null;
+    }
+
+    private final class Permit {
+
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    private final class BulkheadTask<T> extends FutureTask<T> {
+
+        private final Permit permit;
+
+        private BulkheadTask(Callable<T> work, Permit permit) {
+            super(() -> {
+                permit.started.set(true);
+                try {
+                    return work.call();
+                } finally {
+                    permit.release();
+                }
+            });
+            this.permit = permit;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled() && !permit.started.get()) {
+                permit.release();
+            }
+        }
+    }
+}
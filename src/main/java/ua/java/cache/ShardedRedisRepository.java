@@ -0,0 +1,245 @@
+package ua.java.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.java.logging.RateLimitedLogger;
+import ua.java.redis.CityCountry;
+import ua.java.redis.CityCountryField;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public class ShardedRedisRepository implements RedisRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedRedisRepository.class);
+    private static final RateLimitedLogger rateLimitedLogger = new RateLimitedLogger(logger, 10, TimeUnit.SECONDS);
+
+    private final TreeMap<Long, Shard> ring = new TreeMap<>();
+    private final List<Shard> shards;
+
+    public ShardedRedisRepository(List<Shard> shards, int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        for (Shard shard : shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(shard.getName() + "#" + i), shard);
+            }
+        }
+    }
+
+    @Override
+    public CityCountry getDataByName(String name) {
+        return shardFor(name).read(replica -> replica.getDataByName(name));
+    }
+
+    @Override
+    public CityCountry getDataByName(String name, Set<CityCountryField> fields) {
+        return shardFor(name).read(replica -> replica.getDataByName(name, fields));
+    }
+
+    @Override
+    public void cacheData(CityCountry data) {
+        shardFor(data.getName()).primary.cacheData(data);
+    }
+
+    @Override
+    public boolean cacheIfNewer(CityCountry data) {
+        return shardFor(data.getName()).primary.cacheIfNewer(data);
+    }
+
+    @Override
+    public void updateFields(CityCountry data, Set<CityCountryField> fields) {
+        shardFor(data.getName()).primary.updateFields(data, fields);
+    }
+
+    @Override
+    public void evictData(String name) {
+        shardFor(name).primary.evictData(name);
+    }
+
+    @Override
+    public Map<String, CityCountry> getDataByNames(Collection<String> names) {
+        Map<Shard, List<String>> groups = new LinkedHashMap<>();
+        for (String name : names) {
+            groups.computeIfAbsent(shardFor(name), shard -> new ArrayList<>()).add(name);
+        }
+        Map<String, CityCountry> result = new HashMap<>();
+        ParallelBatch.run(groups.entrySet(), group -> group.getKey().read(replica -> replica.getDataByNames(group.getValue())))
+                .forEach(result::putAll);
+        return result;
+    }
+
+    @Override
+    public void cacheAll(Collection<CityCountry> data) {
+        Map<Shard, List<CityCountry>> groups = new LinkedHashMap<>();
+        for (CityCountry cityCountry : data) {
+            groups.computeIfAbsent(shardFor(cityCountry.getName()), shard -> new ArrayList<>()).add(cityCountry);
+        }
+        ParallelBatch.run(groups.entrySet(), group -> {
+            group.getKey().primary.cacheAll(group.getValue());
+            return null;
+        });
+    }
+
+    @Override
+    public void cacheAllIfNewer(Collection<CityCountry> data) {
+        Map<Shard, List<CityCountry>> groups = new LinkedHashMap<>();
+        for (CityCountry cityCountry : data) {
+            groups.computeIfAbsent(shardFor(cityCountry.getName()), shard -> new ArrayList<>()).add(cityCountry);
+        }
+        ParallelBatch.run(groups.entrySet(), group -> {
+            group.getKey().primary.cacheAllIfNewer(group.getValue());
+            return null;
+        });
+    }
+
+    @Override
+    public void evictAll(Collection<String> names) {
+        Map<Shard, List<String>> groups = new LinkedHashMap<>();
+        for (String name : names) {
+            groups.computeIfAbsent(shardFor(name), shard -> new ArrayList<>()).add(name);
+        }
+        groups.forEach((shard, shardNames) -> shard.primary.evictAll(shardNames));
+    }
+
+    @Override
+    public Map<String, String> getValues(Collection<String> keys) {
+        Map<String, String> result = new HashMap<>();
+        ParallelBatch.run(groupKeys(keys).entrySet(), group -> group.getKey().read(replica -> replica.getValues(group.getValue())))
+                .forEach(result::putAll);
+        return result;
+    }
+
+    @Override
+    public void setValues(Map<String, String> entries) {
+        Map<Shard, Map<String, String>> groups = new LinkedHashMap<>();
+        entries.forEach((key, value) -> groups.computeIfAbsent(shardForKey(key), shard -> new HashMap<>()).put(key, value));
+        ParallelBatch.run(groups.entrySet(), group -> {
+            group.getKey().primary.setValues(group.getValue());
+            return null;
+        });
+    }
+
+    @Override
+    public void setValuesIfNewer(Map<String, VersionedValue> entries) {
+        Map<Shard, Map<String, VersionedValue>> groups = new LinkedHashMap<>();
+        entries.forEach((key, value) -> groups.computeIfAbsent(shardForKey(key), shard -> new HashMap<>()).put(key, value));
+        ParallelBatch.run(groups.entrySet(), group -> {
+            group.getKey().primary.setValuesIfNewer(group.getValue());
+            return null;
+        });
+    }
+
+    @Override
+    public void setValue(String key, String value, long ttlMs) {
+        shardForKey(key).primary.setValue(key, value, ttlMs);
+    }
+
+    @Override
+    public void deleteValues(Collection<String> keys) {
+        groupKeys(keys).forEach((shard, shardKeys) -> shard.primary.deleteValues(shardKeys));
+    }
+
+    @Override
+    public void ping() {
+        shards.forEach(shard -> shard.primary.ping());
+    }
+
+    @Override
+    public void close() {
+        shards.forEach(Shard::close);
+    }
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    Shard shardFor(String name) {
+        return shardForKey(CacheKeys.cityName(name));
+    }
+
+    private Shard shardForKey(String key) {
+        long hash = hash(CacheKeys.hashTag(key));
+        SortedMap<Long, Shard> tail = ring.tailMap(hash);
+        return tail.isEmpty() ? ring.firstEntry().getValue() : tail.get(tail.firstKey());
+    }
+
+    private Map<Shard, List<String>> groupKeys(Collection<String> keys) {
+        Map<Shard, List<String>> groups = new LinkedHashMap<>();
+        for (String key : keys) {
+            groups.computeIfAbsent(shardForKey(key), shard -> new ArrayList<>()).add(key);
+        }
+        return groups;
+    }
+
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    public static final class Shard {
+
+        private final String name;
+        private final RedisRepository primary;
+        private final List<RedisRepository> replicas;
+        private final AtomicInteger nextReplica = new AtomicInteger();
+
+        public Shard(String name, RedisRepository primary, List<RedisRepository> replicas) {
+            this.name = name;
+            this.primary = primary;
+            this.replicas = List.copyOf(replicas);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        <T> T read(Function<RedisRepository, T> operation) {
+            if (replicas.isEmpty()) {
+                return operation.apply(primary);
+            }
+            RedisRepository replica = replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+            try {
+                return operation.apply(replica);
+            } catch (RuntimeException e) {
+                rateLimitedLogger.warn("Replica read on shard {} failed, using primary: {}", name, e.getMessage());
+                return operation.apply(primary);
+            }
+        }
+
+        void close() {
+            for (RedisRepository replica : replicas) {
+                closeQuietly(replica);
+            }
+            closeQuietly(primary);
+        }
+
+        private void closeQuietly(RedisRepository node) {
+            try {
+                node.close();
+            } catch (RuntimeException e) {
+                logger.warn("Could not close a node of shard {}: {}", name, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ua.java.cache;
+
+import ua.java.redis.CityCountry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public final class VersionedScripts {
+
+    public static final long NO_VERSION = -1;
+
+    private static final String IS_NEWER =
+            "local function same(id) return ARGV[1] == '' or tostring(id) == ARGV[1] end " +
+            "local function newer(version, countryVersion) " +
+            "local v = tonumber(ARGV[2]) local cv = tonumber(ARGV[3]) " +
+            "return v >= version and cv >= countryVersion and (v > version or cv > countryVersion) end ";
+
+    public static final String SET_IF_NEWER = IS_NEWER +
+            "local current = redis.call('GET', KEYS[1]) " +
+            "if current then " +
+            "local ok, cached = pcall(cjson.decode, current) " +
+            "if ok and type(cached) == 'table' and same(cached.id) " +
+            "and not newer(tonumber(cached.version) or -1, tonumber(cached.countryVersion) or -1) then " +
+            "return 0 end end " +
+            "redis.call('SET', KEYS[1], ARGV[4]) return 1";
+
+    public static final String HSET_IF_NEWER = IS_NEWER +
+            "local cached = redis.call('HMGET', KEYS[1], 'id', 'version', 'countryVersion') " +
+            "if redis.call('EXISTS', KEYS[1]) == 1 then " +
+            "if not same(cached[1]) then redis.call('DEL', KEYS[1]) " +
+            "elseif not newer(tonumber(cached[2]) or -1, tonumber(cached[3]) or -1) then return 0 end end " +
+            "redis.call('HSET', KEYS[1], unpack(ARGV, 4)) return 1";
+
+    public static final String HSET_FIELDS_IF_NEWER =
+            "local cached = redis.call('HMGET', KEYS[1], 'id', 'version', 'countryId') " +
+            "if redis.call('EXISTS', KEYS[1]) == 0 or cached[1] ~= ARGV[1] then return 0 end " +
+            "if cached[3] ~= ARGV[3] then redis.call('DEL', KEYS[1]) return 0 end " +
+            "if tonumber(ARGV[2]) <= (tonumber(cached[2]) or -1) then return 0 end " +
+            "redis.call('HSET', KEYS[1], unpack(ARGV, 4)) return 1";
+
+    public static final String SET_IF_NEWER_SHA = sha1(SET_IF_NEWER);
+
+    public static final String HSET_IF_NEWER_SHA = sha1(HSET_IF_NEWER);
+
+    private VersionedScripts() {
+    }
+
+    public static boolean isNewer(long version, long countryVersion, long cachedVersion, long cachedCountryVersion) {
+        return version >= cachedVersion && countryVersion >= cachedCountryVersion
+                && (version > cachedVersion || countryVersion > cachedCountryVersion);
+    }
+
+    static String id(CityCountry cityCountry) {
+        return cityCountry.getId() == null ? "" : String.valueOf(cityCountry.getId());
+    }
+
+    static String version(CityCountry cityCountry) {
+        return String.valueOf(cityCountry.getVersion() == null ? NO_VERSION : cityCountry.getVersion());
+    }
+
+    static String countryVersion(CityCountry cityCountry) {
+        return String.valueOf(cityCountry.getCountryVersion() == null ? NO_VERSION : cityCountry.getCountryVersion());
+    }
+
+    static String sha1(String script) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+}
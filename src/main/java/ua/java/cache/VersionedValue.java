@@ -0,0 +1,12 @@
+package ua.java.cache;
+
+import ua.java.redis.CityCountry;
+
+public record VersionedValue(String value, long version, long countryVersion) {
+
+    public static VersionedValue of(String value, CityCountry cityCountry) {
+        return new VersionedValue(value,
+                cityCountry.getVersion() == null ? VersionedScripts.NO_VERSION : cityCountry.getVersion(),
+                cityCountry.getCountryVersion() == null ? VersionedScripts.NO_VERSION : cityCountry.getCountryVersion());
+    }
+}
@@ -0,0 +1,173 @@
+package ua.java.cdc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.java.cache.NormalizedCityCache;
+import ua.java.cache.RedisRepository;
+import ua.java.redis.CityCountry;
+import ua.java.repository.CityRepository;
+import ua.java.repository.CountryRepository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+public class CacheChangeApplier {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheChangeApplier.class);
+
+    public enum Mode {
+        INVALIDATE,
+        REFRESH
+    }
+
+    private final RedisRepository redisRepository;
+    private final NormalizedCityCache normalizedCache;
+    private final CityRepository cityRepository;
+    private final CountryRepository countryRepository;
+    private final Mode mode;
+    private final List<CacheChangeListener> listeners = new ArrayList<>();
+
+    public CacheChangeApplier(RedisRepository redisRepository, NormalizedCityCache normalizedCache,
+                              CityRepository cityRepository, CountryRepository countryRepository, Mode mode) {
+        this.redisRepository = redisRepository;
+        this.normalizedCache = normalizedCache;
+        this.cityRepository = cityRepository;
+        this.countryRepository = countryRepository;
+        this.mode = mode;
+    }
+
+    public CacheChangeApplier addListener(CacheChangeListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    public void apply(List<ChangeEvent> events) {
+        Changes changes = coalesce(events);
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (normalizedCache != null) {
+            applyNormalized(changes);
+        } else {
+            applyDenormalized(changes);
+        }
+        for (CacheChangeListener listener : listeners) {
+            changes.changedCities.forEach(listener::cityChanged);
+            changes.deletedCities.forEach(listener::cityChanged);
+            changes.changedCountries.forEach(listener::countryChanged);
+            changes.deletedCountries.forEach(listener::countryChanged);
+        }
+    }
+
+    Changes coalesce(List<ChangeEvent> events) {
+        Changes changes = new Changes();
+        for (ChangeEvent event : events) {
+            switch (event.table()) {
+                case "city" -> {
+                    int id = event.intValue("id");
+                    addName(changes.staleNames, event.previousValue("name"));
+                    addName(changes.staleNames, event.value("name"));
+                    if (event.operation() == ChangeEvent.Operation.DELETE) {
+                        changes.changedCities.remove(id);
+                        changes.deletedCities.add(id);
+                    } else {
+                        changes.deletedCities.remove(id);
+                        changes.changedCities.add(id);
+                    }
+                }
+                case "country" -> {
+                    int id = event.intValue("id");
+                    if (event.operation() == ChangeEvent.Operation.DELETE) {
+                        changes.changedCountries.remove(id);
+                        changes.deletedCountries.add(id);
+                    } else {
+                        changes.deletedCountries.remove(id);
+                        changes.changedCountries.add(id);
+                    }
+                }
+                case "country_language" -> {
+                    int countryId = event.intValue("country_id");
+                    if (!changes.deletedCountries.contains(countryId)) {
+                        changes.changedCountries.add(countryId);
+                    }
+                }
+                default -> {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Ignoring change on table {}", event.table());
+                    }
+                }
+            }
+        }
+        return changes;
+    }
+
+    private void applyDenormalized(Changes changes) {
+        Set<Integer> countries = new LinkedHashSet<>(changes.changedCountries);
+        countries.addAll(changes.deletedCountries);
+        Set<String> stale = new LinkedHashSet<>(changes.staleNames);
+        if (!countries.isEmpty()) {
+            stale.addAll(cityRepository.getNamesByCountryIds(countries));
+        }
+        if (mode == Mode.REFRESH) {
+            List<CityCountry> fresh = new ArrayList<>();
+            if (!changes.changedCities.isEmpty()) {
+                fresh.addAll(cityRepository.getCityCountriesByIds(changes.changedCities));
+            }
+            if (!changes.changedCountries.isEmpty()) {
+                fresh.addAll(cityRepository.getCityCountriesByCountryIds(changes.changedCountries));
+            }
+            fresh.forEach(cityCountry -> stale.remove(cityCountry.getName()));
+            redisRepository.evictAll(stale);
+            redisRepository.cacheAllIfNewer(fresh);
+        } else {
+            redisRepository.evictAll(stale);
+        }
+    }
+
+    private void applyNormalized(Changes changes) {
+        normalizedCache.evictCities(changes.deletedCities);
+        changes.deletedCountries.forEach(normalizedCache::evictCountry);
+        if (mode == Mode.REFRESH) {
+            if (!changes.changedCities.isEmpty()) {
+                List<CityCountry> fresh = cityRepository.getCityCountriesByIds(changes.changedCities);
+                Set<Integer> missing = new LinkedHashSet<>(changes.changedCities);
+                fresh.forEach(cityCountry -> missing.remove(cityCountry.getId()));
+                normalizedCache.evictCities(missing);
+                normalizedCache.putAll(fresh);
+            }
+            for (Integer countryId : changes.changedCountries) {
+                CityCountry capital = countryRepository.getCapitalCityCountry(countryId);
+                if (capital != null) {
+                    normalizedCache.putCountry(capital);
+                } else {
+                    normalizedCache.evictCountry(countryId);
+                }
+            }
+        } else {
+            normalizedCache.evictCities(changes.changedCities);
+            changes.changedCountries.forEach(normalizedCache::evictCountry);
+        }
+    }
+
+    private static void addName(Set<String> names, String name) {
+        if (name != null) {
+            names.add(name);
+        }
+    }
+
+    static final class Changes {
+
+        final Set<Integer> changedCities = new LinkedHashSet<>();
+        final Set<Integer> deletedCities = new LinkedHashSet<>();
+        final Set<Integer> changedCountries = new LinkedHashSet<>();
+        final Set<Integer> deletedCountries = new LinkedHashSet<>();
+        final Set<String> staleNames = new LinkedHashSet<>();
+
+        boolean isEmpty() {
+            return changedCities.isEmpty() && deletedCities.isEmpty()
+                    && changedCountries.isEmpty() && deletedCountries.isEmpty();
+        }
+    }
+}
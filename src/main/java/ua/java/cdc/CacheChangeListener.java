@@ -0,0 +1,8 @@
+package ua.java.cdc;
+
+public interface CacheChangeListener {
+
+    void cityChanged(int cityId);
+
+    void countryChanged(int countryId);
+}
@@ -0,0 +1,29 @@
+package ua.java.cdc;
+
+import java.util.Map;
+
+public record ChangeEvent(long position, long timestamp, String table, Operation operation,
+                          Map<String, String> before, Map<String, String> after) {
+
+    public enum Operation {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    public String value(String column) {
+        if (after != null && after.containsKey(column)) {
+            return after.get(column);
+        }
+        return before == null ? null : before.get(column);
+    }
+
+    public String previousValue(String column) {
+        return before == null ? null : before.get(column);
+    }
+
+    public Integer intValue(String column) {
+        String value = value(column);
+        return value == null ? null : Integer.valueOf(value);
+    }
+}
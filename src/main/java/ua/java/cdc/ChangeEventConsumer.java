@@ -0,0 +1,122 @@
+package ua.java.cdc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.java.metrics.Counter;
+import ua.java.metrics.MeterRegistry;
+import ua.java.metrics.Timer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ChangeEventConsumer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeEventConsumer.class);
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final ChangeEventSource source;
+    private final CacheChangeApplier applier;
+    private final CheckpointStore checkpoints;
+    private final int batchSize;
+    private final long pollTimeoutMs;
+    private final Counter events;
+    private final Counter failures;
+    private final Timer batchTimer;
+    private volatile long position = CheckpointStore.NONE;
+    private volatile long lastEventTimestamp;
+    private volatile boolean running;
+    private Thread worker;
+
+    public ChangeEventConsumer(ChangeEventSource source, CacheChangeApplier applier, CheckpointStore checkpoints,
+                               int batchSize, long pollTimeoutMs, MeterRegistry registry) {
+        this.source = source;
+        this.applier = applier;
+        this.checkpoints = checkpoints;
+        this.batchSize = batchSize;
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.events = registry.counter("cdc.events");
+        this.failures = registry.counter("cdc.failures");
+        this.batchTimer = registry.timer("cdc.batch.duration");
+        registry.gauge("cdc.position", () -> position);
+        registry.gauge("cdc.lag.ms", () -> lastEventTimestamp == 0 ? 0 : System.currentTimeMillis() - lastEventTimestamp);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        rewind();
+        running = true;
+        worker = new Thread(this::run, "cdc-consumer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    int pollOnce() throws InterruptedException {
+        List<ChangeEvent> batch = source.poll(batchSize, pollTimeoutMs, TimeUnit.MILLISECONDS);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        applier.apply(batch);
+        batchTimer.recordSince(start);
+        ChangeEvent last = batch.get(batch.size() - 1);
+        checkpoints.save(last.position());
+        position = last.position();
+        lastEventTimestamp = last.timestamp();
+        events.increment(batch.size());
+        return batch.size();
+    }
+
+    void rewind() {
+        position = checkpoints.load();
+        source.seek(position);
+    }
+
+    private void run() {
+        long backoffMs = 100;
+        while (running) {
+            try {
+                pollOnce();
+                backoffMs = 100;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                failures.increment();
+                logger.warn("Applying change events after position {} failed, retrying in {} ms: {}", position, backoffMs, e.toString());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMs = Math.min(MAX_BACKOFF_MS, backoffMs * 2);
+                rewind();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        Thread current;
+        synchronized (this) {
+            running = false;
+            current = worker;
+            worker = null;
+        }
+        if (current != null) {
+            current.interrupt();
+            try {
+                current.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        source.close();
+    }
+}
@@ -0,0 +1,15 @@
+package ua.java.cdc;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public interface ChangeEventSource extends AutoCloseable {
+
+    void seek(long position);
+
+    List<ChangeEvent> poll(int maxEvents, long timeout, TimeUnit unit) throws InterruptedException;
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,10 @@
+package ua.java.cdc;
+
+public interface CheckpointStore {
+
+    long NONE = -1;
+
+    long load();
+
+    void save(long position);
+}
@@ -0,0 +1,96 @@
+package ua.java.cdc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class FileChangeEventSource implements ChangeEventSource {
+
+    private static final int READ_CHUNK = 64 * 1024;
+    private static final long IDLE_SLEEP_MS = 50;
+
+    private final Path path;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] pending = new byte[READ_CHUNK];
+    private int pendingLength;
+    private long offset;
+    private long skipUpTo = -1;
+
+    public FileChangeEventSource(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public void seek(long position) {
+        offset = 0;
+        pendingLength = 0;
+        skipUpTo = position;
+    }
+
+    @Override
+    public List<ChangeEvent> poll(int maxEvents, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        List<ChangeEvent> events = new ArrayList<>();
+        while (true) {
+            readLines(maxEvents, events);
+            if (!events.isEmpty() || System.nanoTime() >= deadline) {
+                return events;
+            }
+            TimeUnit.MILLISECONDS.sleep(Math.min(IDLE_SLEEP_MS, Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()))));
+        }
+    }
+
+    private void readLines(int maxEvents, List<ChangeEvent> events) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r")) {
+            while (events.size() < maxEvents) {
+                int newline = indexOfNewline();
+                if (newline < 0) {
+                    if (pendingLength == pending.length) {
+                        pending = Arrays.copyOf(pending, pending.length * 2);
+                    }
+                    file.seek(offset + pendingLength);
+                    int read = file.read(pending, pendingLength, pending.length - pendingLength);
+                    if (read <= 0) {
+                        return;
+                    }
+                    pendingLength += read;
+                    continue;
+                }
+                String line = new String(pending, 0, newline, StandardCharsets.UTF_8);
+                System.arraycopy(pending, newline + 1, pending, 0, pendingLength - newline - 1);
+                pendingLength -= newline + 1;
+                offset += newline + 1;
+                if (line.isBlank()) {
+                    continue;
+                }
+                ChangeEvent event = objectMapper.readValue(line, ChangeEvent.class);
+                if (event.position() > skipUpTo) {
+                    events.add(event);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read change events from " + path, e);
+        }
+    }
+
+    private int indexOfNewline() {
+        for (int i = 0; i < pendingLength; i++) {
+            if (pending[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,41 @@
+package ua.java.cdc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+public class FileCheckpointStore implements CheckpointStore {
+
+    private final Path path;
+
+    public FileCheckpointStore(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public long load() {
+        if (!Files.exists(path)) {
+            return NONE;
+        }
+        try {
+            String value = Files.readString(path, StandardCharsets.UTF_8).trim();
+            return value.isEmpty() ? NONE : Long.parseLong(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read checkpoint " + path, e);
+        }
+    }
+
+    @Override
+    public void save(long position) {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.writeString(temp, Long.toString(position), StandardCharsets.UTF_8);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write checkpoint " + path, e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ua.java.cdc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class QueueChangeEventSource implements ChangeEventSource {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private final List<ChangeEvent> log = new ArrayList<>();
+    private int cursor;
+
+    public void publish(ChangeEvent event) {
+        lock.lock();
+        try {
+            if (!log.isEmpty() && event.position() <= log.get(log.size() - 1).position()) {
+                throw new IllegalArgumentException("Event positions must increase: " + event.position());
+            }
+            log.add(event);
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void seek(long position) {
+        lock.lock();
+        try {
+            cursor = 0;
+            while (cursor < log.size() && log.get(cursor).position() <= position) {
+                cursor++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<ChangeEvent> poll(int maxEvents, long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (cursor >= log.size()) {
+                if (remaining <= 0) {
+                    return List.of();
+                }
+                remaining = published.awaitNanos(remaining);
+            }
+            int end = Math.min(log.size(), cursor + maxEvents);
+            List<ChangeEvent> events = new ArrayList<>(log.subList(cursor, end));
+            cursor = end;
+            return events;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
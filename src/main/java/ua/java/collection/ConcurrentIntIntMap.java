@@ -0,0 +1,291 @@
+package ua.java.collection;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+public class ConcurrentIntIntMap implements IntIntMap {
+
+    private static final int DEFAULT_STRIPES = 16;
+    private static final long EMPTY = 0L;
+    private static final long TOMBSTONE = 1L;
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+    private final int missingValue;
+    private volatile long zeroEntry = EMPTY;
+
+    public ConcurrentIntIntMap() {
+        this(DEFAULT_STRIPES, Hashing.MIN_CAPACITY, 0);
+    }
+
+    public ConcurrentIntIntMap(int stripeCount, int expectedSize, int missingValue) {
+        int count = Integer.highestOneBit(Math.max(1, stripeCount) - 1) << 1;
+        this.stripes = new Stripe[Math.max(2, count)];
+        this.stripeShift = Integer.SIZE - Integer.numberOfTrailingZeros(stripes.length);
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(Hashing.capacityFor(expectedSize / stripes.length));
+        }
+        this.missingValue = missingValue;
+    }
+
+    @Override
+    public int get(int key) {
+        if (key == 0) {
+            long entry = zeroEntry;
+            return entry == EMPTY ? missingValue : (int) entry;
+        }
+        int hash = Hashing.mix(key);
+        long[] table = stripes[hash >>> stripeShift].table;
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        long entry;
+        while ((entry = (long) SLOTS.getAcquire(table, slot)) != EMPTY) {
+            if (keyOf(entry) == key) {
+                return (int) entry;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        if (key == 0) {
+            return zeroEntry != EMPTY;
+        }
+        int hash = Hashing.mix(key);
+        long[] table = stripes[hash >>> stripeShift].table;
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        long entry;
+        while ((entry = (long) SLOTS.getAcquire(table, slot)) != EMPTY) {
+            if (keyOf(entry) == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    @Override
+    public int put(int key, int value) {
+        if (key == 0) {
+            synchronized (this) {
+                long previous = zeroEntry;
+                zeroEntry = pack(0, value);
+                return previous == EMPTY ? missingValue : (int) previous;
+            }
+        }
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            int slot = stripe.find(key);
+            if (slot >= 0) {
+                long previous = stripe.table[slot];
+                SLOTS.setRelease(stripe.table, slot, pack(key, value));
+                return (int) previous;
+            }
+            stripe.insert(key, value);
+            return missingValue;
+        }
+    }
+
+    @Override
+    public int addAndGet(int key, int delta) {
+        if (key == 0) {
+            synchronized (this) {
+                long previous = zeroEntry;
+                int value = (previous == EMPTY ? missingValue : (int) previous) + delta;
+                zeroEntry = pack(0, value);
+                return value;
+            }
+        }
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            int slot = stripe.find(key);
+            if (slot >= 0) {
+                int value = (int) stripe.table[slot] + delta;
+                SLOTS.setRelease(stripe.table, slot, pack(key, value));
+                return value;
+            }
+            int value = missingValue + delta;
+            stripe.insert(key, value);
+            return value;
+        }
+    }
+
+    @Override
+    public int remove(int key) {
+        if (key == 0) {
+            synchronized (this) {
+                long previous = zeroEntry;
+                zeroEntry = EMPTY;
+                return previous == EMPTY ? missingValue : (int) previous;
+            }
+        }
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            int slot = stripe.find(key);
+            if (slot < 0) {
+                return missingValue;
+            }
+            int previous = (int) stripe.table[slot];
+            stripe.delete(slot);
+            return previous;
+        }
+    }
+
+    @Override
+    public boolean remove(int key, int expectedValue) {
+        if (key == 0) {
+            synchronized (this) {
+                if (zeroEntry == EMPTY || (int) zeroEntry != expectedValue) {
+                    return false;
+                }
+                zeroEntry = EMPTY;
+                return true;
+            }
+        }
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            int slot = stripe.find(key);
+            if (slot < 0 || (int) stripe.table[slot] != expectedValue) {
+                return false;
+            }
+            stripe.delete(slot);
+            return true;
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = zeroEntry == EMPTY ? 0 : 1;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        synchronized (this) {
+            zeroEntry = EMPTY;
+        }
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.reset(Hashing.MIN_CAPACITY);
+            }
+        }
+    }
+
+    @Override
+    public void forEach(IntIntConsumer consumer) {
+        long zero = zeroEntry;
+        if (zero != EMPTY) {
+            consumer.accept(0, (int) zero);
+        }
+        for (Stripe stripe : stripes) {
+            long[] table = stripe.table;
+            for (int i = 0; i < table.length; i++) {
+                long entry = (long) SLOTS.getAcquire(table, i);
+                if (keyOf(entry) != 0) {
+                    consumer.accept(keyOf(entry), (int) entry);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getMissingValue() {
+        return missingValue;
+    }
+
+    private Stripe stripe(int key) {
+        return stripes[Hashing.mix(key) >>> stripeShift];
+    }
+
+    private static long pack(int key, int value) {
+        return ((long) key << 32) | (value & 0xFFFFFFFFL);
+    }
+
+    private static int keyOf(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    private static final class Stripe {
+
+        private volatile long[] table;
+        private int size;
+        private int used;
+        private int resizeThreshold;
+
+        private Stripe(int capacity) {
+            reset(capacity);
+        }
+
+        private int find(int key) {
+            long[] table = this.table;
+            int mask = table.length - 1;
+            int slot = Hashing.mix(key) & mask;
+            long entry;
+            while ((entry = table[slot]) != EMPTY) {
+                if (keyOf(entry) == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void insert(int key, int value) {
+            long[] table = this.table;
+            int mask = table.length - 1;
+            int slot = Hashing.mix(key) & mask;
+            long entry;
+            while ((entry = table[slot]) != EMPTY && entry != TOMBSTONE) {
+                slot = (slot + 1) & mask;
+            }
+            if (entry == EMPTY) {
+                used++;
+            }
+            SLOTS.setRelease(table, slot, pack(key, value));
+            size++;
+            if (used > resizeThreshold) {
+                rehash();
+            }
+        }
+
+        private void delete(int slot) {
+            SLOTS.setRelease(table, slot, TOMBSTONE);
+            size--;
+        }
+
+        private void rehash() {
+            long[] oldTable = table;
+            long[] newTable = new long[Hashing.capacityFor(size + size / 2 + 1)];
+            int mask = newTable.length - 1;
+            for (long entry : oldTable) {
+                int key = keyOf(entry);
+                if (key != 0) {
+                    int slot = Hashing.mix(key) & mask;
+                    while (newTable[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    newTable[slot] = entry;
+                }
+            }
+            used = size;
+            resizeThreshold = (int) (newTable.length * Hashing.LOAD_FACTOR);
+            table = newTable;
+        }
+
+        private void reset(int capacity) {
+            size = 0;
+            used = 0;
+            resizeThreshold = (int) (capacity * Hashing.LOAD_FACTOR);
+            table = new long[capacity];
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package ua.java.collection;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+
+public class ConcurrentIntObjectMap<V> implements IntObjectMap<V> {
+
+    private static final int DEFAULT_STRIPES = 16;
+    private static final Entry<?> TOMBSTONE = new Entry<>(0, null);
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Entry[].class);
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+
+    public ConcurrentIntObjectMap() {
+        this(DEFAULT_STRIPES, Hashing.MIN_CAPACITY);
+    }
+
+    public ConcurrentIntObjectMap(int stripeCount, int expectedSize) {
+        int count = Integer.highestOneBit(Math.max(1, stripeCount) - 1) << 1;
+        this.stripes = new Stripe[Math.max(2, count)];
+        this.stripeShift = Integer.SIZE - Integer.numberOfTrailingZeros(stripes.length);
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(Hashing.capacityFor(expectedSize / stripes.length));
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int hash = Hashing.mix(key);
+        Entry<?>[] table = stripes[hash >>> stripeShift].table;
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        Entry<?> entry;
+        while ((entry = (Entry<?>) SLOTS.getAcquire(table, slot)) != null) {
+            if (entry.key == key && entry != TOMBSTONE) {
+                return (V) entry.value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "Null values are not supported");
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            int slot = stripe.find(key);
+            if (slot >= 0) {
+                V previous = (V) stripe.table[slot].value;
+                SLOTS.setRelease(stripe.table, slot, new Entry<>(key, value));
+                return previous;
+            }
+            stripe.insert(new Entry<>(key, value));
+            return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            int slot = stripe.find(key);
+            if (slot < 0) {
+                return null;
+            }
+            V previous = (V) stripe.table[slot].value;
+            SLOTS.setRelease(stripe.table, slot, TOMBSTONE);
+            stripe.size--;
+            return previous;
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.reset(Hashing.MIN_CAPACITY);
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(IntObjectConsumer<? super V> consumer) {
+        for (Stripe stripe : stripes) {
+            Entry<?>[] table = stripe.table;
+            for (int i = 0; i < table.length; i++) {
+                Entry<?> entry = (Entry<?>) SLOTS.getAcquire(table, i);
+                if (entry != null && entry != TOMBSTONE) {
+                    consumer.accept(entry.key, (V) entry.value);
+                }
+            }
+        }
+    }
+
+    private Stripe stripe(int key) {
+        return stripes[Hashing.mix(key) >>> stripeShift];
+    }
+
+    private record Entry<V>(int key, V value) {
+    }
+
+    private static final class Stripe {
+
+        private volatile Entry<?>[] table;
+        private int size;
+        private int used;
+        private int resizeThreshold;
+
+        private Stripe(int capacity) {
+            reset(capacity);
+        }
+
+        private int find(int key) {
+            Entry<?>[] table = this.table;
+            int mask = table.length - 1;
+            int slot = Hashing.mix(key) & mask;
+            Entry<?> entry;
+            while ((entry = table[slot]) != null) {
+                if (entry.key == key && entry != TOMBSTONE) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void insert(Entry<?> inserted) {
+            Entry<?>[] table = this.table;
+            int mask = table.length - 1;
+            int slot = Hashing.mix(inserted.key) & mask;
+            Entry<?> entry;
+            while ((entry = table[slot]) != null && entry != TOMBSTONE) {
+                slot = (slot + 1) & mask;
+            }
+            if (entry == null) {
+                used++;
+            }
+            SLOTS.setRelease(table, slot, inserted);
+            size++;
+            if (used > resizeThreshold) {
+                rehash();
+            }
+        }
+
+        private void rehash() {
+            Entry<?>[] newTable = new Entry<?>[Hashing.capacityFor(size + size / 2 + 1)];
+            int mask = newTable.length - 1;
+            for (Entry<?> entry : table) {
+                if (entry != null && entry != TOMBSTONE) {
+                    int slot = Hashing.mix(entry.key) & mask;
+                    while (newTable[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    newTable[slot] = entry;
+                }
+            }
+            used = size;
+            resizeThreshold = (int) (newTable.length * Hashing.LOAD_FACTOR);
+            table = newTable;
+        }
+
+        private void reset(int capacity) {
+            size = 0;
+            used = 0;
+            resizeThreshold = (int) (capacity * Hashing.LOAD_FACTOR);
+            table = new Entry<?>[capacity];
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ua.java.collection;
+
+final class Hashing {
+
+    static final float LOAD_FACTOR = 0.5f;
+    static final int MIN_CAPACITY = 16;
+
+    private Hashing() {
+    }
+
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int capacityFor(int expectedSize) {
+        int required = Math.max(MIN_CAPACITY, (int) Math.ceil(expectedSize / LOAD_FACTOR));
+        return Integer.highestOneBit(required - 1) << 1;
+    }
+}
@@ -0,0 +1,7 @@
+package ua.java.collection;
+
+@FunctionalInterface
+public interface IntIntConsumer {
+
+    void accept(int key, int value);
+}
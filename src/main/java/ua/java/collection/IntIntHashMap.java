@@ -0,0 +1,229 @@
+package ua.java.collection;
+
+import java.util.Arrays;
+
+public class IntIntHashMap implements IntIntMap {
+
+    private static final int FREE_KEY = 0;
+
+    private final int missingValue;
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    private boolean hasFreeKey;
+    private int freeKeyValue;
+
+    public IntIntHashMap() {
+        this(Hashing.MIN_CAPACITY, 0);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        this(expectedSize, 0);
+    }
+
+    public IntIntHashMap(int expectedSize, int missingValue) {
+        this.missingValue = missingValue;
+        allocate(Hashing.capacityFor(expectedSize));
+    }
+
+    @Override
+    public int get(int key) {
+        if (key == FREE_KEY) {
+            return hasFreeKey ? freeKeyValue : missingValue;
+        }
+        int slot = Hashing.mix(key) & mask;
+        int current;
+        while ((current = keys[slot]) != FREE_KEY) {
+            if (current == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        if (key == FREE_KEY) {
+            return hasFreeKey;
+        }
+        return find(key) >= 0;
+    }
+
+    @Override
+    public int put(int key, int value) {
+        if (key == FREE_KEY) {
+            int previous = hasFreeKey ? freeKeyValue : missingValue;
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeKeyValue = value;
+            return previous;
+        }
+        int slot = Hashing.mix(key) & mask;
+        int current;
+        while ((current = keys[slot]) != FREE_KEY) {
+            if (current == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return missingValue;
+    }
+
+    @Override
+    public int addAndGet(int key, int delta) {
+        if (key == FREE_KEY) {
+            int value = (hasFreeKey ? freeKeyValue : missingValue) + delta;
+            put(FREE_KEY, value);
+            return value;
+        }
+        int slot = Hashing.mix(key) & mask;
+        int current;
+        while ((current = keys[slot]) != FREE_KEY) {
+            if (current == key) {
+                values[slot] += delta;
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        int value = missingValue + delta;
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return value;
+    }
+
+    @Override
+    public int remove(int key) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                return missingValue;
+            }
+            hasFreeKey = false;
+            size--;
+            return freeKeyValue;
+        }
+        int slot = find(key);
+        if (slot < 0) {
+            return missingValue;
+        }
+        int previous = values[slot];
+        shiftBack(slot);
+        size--;
+        return previous;
+    }
+
+    @Override
+    public boolean remove(int key, int expectedValue) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey || freeKeyValue != expectedValue) {
+                return false;
+            }
+            hasFreeKey = false;
+            size--;
+            return true;
+        }
+        int slot = find(key);
+        if (slot < 0 || values[slot] != expectedValue) {
+            return false;
+        }
+        shiftBack(slot);
+        size--;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        hasFreeKey = false;
+        size = 0;
+    }
+
+    @Override
+    public void forEach(IntIntConsumer consumer) {
+        if (hasFreeKey) {
+            consumer.accept(FREE_KEY, freeKeyValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE_KEY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    @Override
+    public int getMissingValue() {
+        return missingValue;
+    }
+
+    private int find(int key) {
+        int slot = Hashing.mix(key) & mask;
+        int current;
+        while ((current = keys[slot]) != FREE_KEY) {
+            if (current == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void shiftBack(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        int current;
+        while ((current = keys[next]) != FREE_KEY) {
+            int home = Hashing.mix(current) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = current;
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = FREE_KEY;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int slot = Hashing.mix(key) & mask;
+                while (keys[slot] != FREE_KEY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * Hashing.LOAD_FACTOR);
+    }
+}
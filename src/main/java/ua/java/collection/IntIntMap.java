@@ -0,0 +1,24 @@
+package ua.java.collection;
+
+public interface IntIntMap {
+
+    int get(int key);
+
+    boolean containsKey(int key);
+
+    int put(int key, int value);
+
+    int addAndGet(int key, int delta);
+
+    int remove(int key);
+
+    boolean remove(int key, int expectedValue);
+
+    int size();
+
+    void clear();
+
+    void forEach(IntIntConsumer consumer);
+
+    int getMissingValue();
+}
@@ -0,0 +1,7 @@
+package ua.java.collection;
+
+@FunctionalInterface
+public interface IntObjectConsumer<V> {
+
+    void accept(int key, V value);
+}
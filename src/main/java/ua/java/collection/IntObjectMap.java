@@ -0,0 +1,18 @@
+package ua.java.collection;
+
+public interface IntObjectMap<V> {
+
+    V get(int key);
+
+    boolean containsKey(int key);
+
+    V put(int key, V value);
+
+    V remove(int key);
+
+    int size();
+
+    void clear();
+
+    void forEach(IntObjectConsumer<? super V> consumer);
+}
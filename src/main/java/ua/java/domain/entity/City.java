@@ -1,5 +1,6 @@
 package ua.java.domain.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -7,6 +8,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
 @Table(name = "city", schema = "world")
@@ -26,6 +28,10 @@ public class City {
 
     private Integer population;
 
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "int default 0")
+    private Integer version;
+
     public Integer getId() {
         return id;
     }
@@ -65,4 +71,12 @@ public class City {
     public void setPopulation(Integer population) {
         this.population = population;
     }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
 }
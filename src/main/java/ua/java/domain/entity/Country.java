@@ -10,6 +10,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import ua.java.domain.enums.Continent;
 
 import java.math.BigDecimal;
@@ -69,6 +70,10 @@ public class Country {
     @JoinColumn(name = "country_id")
     private Set<CountryLanguage> languages;
 
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "int default 0")
+    private Integer version;
+
     public Integer getId() {
         return id;
     }
@@ -204,4 +209,12 @@ public class Country {
     public void setLanguages(Set<CountryLanguage> languages) {
         this.languages = languages;
     }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
 }
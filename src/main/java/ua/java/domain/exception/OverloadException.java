@@ -0,0 +1,8 @@
+package ua.java.domain.exception;
+
+public class OverloadException extends RuntimeException {
+
+    public OverloadException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,89 @@
+package ua.java.generator;
+
+import ua.java.cache.NormalizedCityCache;
+import ua.java.cache.RedisRepository;
+import ua.java.redis.CityCountry;
+import ua.java.redis.Language;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public class CacheWorldSink implements WorldSink {
+
+    private final Consumer<Collection<CityCountry>> writer;
+    private final int batchSize;
+    private final Map<Integer, CountryRow> countries = new HashMap<>();
+    private final Map<Integer, Set<Language>> languages = new HashMap<>();
+    private List<CityCountry> batch;
+
+    public CacheWorldSink(Consumer<Collection<CityCountry>> writer, int batchSize) {
+        this.writer = writer;
+        this.batchSize = batchSize;
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    public static CacheWorldSink toRedis(RedisRepository redisRepository, int batchSize) {
+        return new CacheWorldSink(redisRepository::cacheAllIfNewer, batchSize);
+    }
+
+    public static CacheWorldSink toNormalized(NormalizedCityCache normalizedCache, int batchSize) {
+        return new CacheWorldSink(normalizedCache::putAll, batchSize);
+    }
+
+    @Override
+    public void country(CountryRow country) {
+        countries.put(country.id(), country);
+    }
+
+    @Override
+    public void language(LanguageRow row) {
+        Language language = new Language();
+        language.setLanguage(row.language());
+        language.setOfficial(row.official());
+        language.setPercentage(row.percentage());
+        languages.computeIfAbsent(row.countryId(), key -> new HashSet<>()).add(language);
+    }
+
+    @Override
+    public void city(CityRow city) {
+        CountryRow country = countries.get(city.countryId());
+        CityCountry cityCountry = new CityCountry();
+        cityCountry.setId(city.id());
+        cityCountry.setName(city.name());
+        cityCountry.setDistrict(city.district());
+        cityCountry.setPopulation(city.population());
+        cityCountry.setCountryId(country.id());
+        cityCountry.setCountryCode(country.code());
+        cityCountry.setAlternativeCountryCode(country.secondCode());
+        cityCountry.setCountryName(country.name());
+        cityCountry.setContinent(country.continent());
+        cityCountry.setCountryRegion(country.region());
+        cityCountry.setCountrySurfaceArea(country.surfaceArea());
+        cityCountry.setCountryPopulation(country.population());
+        cityCountry.setLanguages(Collections.unmodifiableSet(languages.getOrDefault(country.id(), Set.of())));
+        batch.add(cityCountry);
+        if (batch.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public void finish() {
+        flush();
+    }
+
+    private void flush() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        writer.accept(batch);
+        batch = new ArrayList<>(batchSize);
+    }
+}
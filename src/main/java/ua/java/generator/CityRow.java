@@ -0,0 +1,4 @@
+package ua.java.generator;
+
+public record CityRow(int id, String name, String district, int countryId, int population) {
+}
@@ -0,0 +1,10 @@
+package ua.java.generator;
+
+import ua.java.domain.enums.Continent;
+
+import java.math.BigDecimal;
+
+public record CountryRow(int id, String code, String secondCode, String name, Continent continent, String region,
+                         BigDecimal surfaceArea, Short independenceYear, int population, BigDecimal lifeExpectancy,
+                         BigDecimal gnp, String localName, String governmentForm, String headOfState, int capitalId) {
+}
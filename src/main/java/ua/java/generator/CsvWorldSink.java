@@ -0,0 +1,147 @@
+package ua.java.generator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class CsvWorldSink implements WorldSink {
+
+    static final String COUNTRY_FILE = "country.csv";
+    static final String CITY_FILE = "city.csv";
+    static final String LANGUAGE_FILE = "country_language.csv";
+    static final String SCRIPT_FILE = "load.sql";
+    private static final String NULL = "\\N";
+
+    private final Path directory;
+    private final Writer countries;
+    private final Writer languages;
+    private final Writer cities;
+    private final StringBuilder line = new StringBuilder(256);
+
+    public CsvWorldSink(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            this.countries = open(COUNTRY_FILE);
+            this.languages = open(LANGUAGE_FILE);
+            this.cities = open(CITY_FILE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create CSV files in " + directory, e);
+        }
+    }
+
+    @Override
+    public void country(CountryRow country) {
+        line.setLength(0);
+        append(country.id()).append(',');
+        append(country.code()).append(',');
+        append(country.secondCode()).append(',');
+        append(country.name()).append(',');
+        append(country.continent().ordinal()).append(',');
+        append(country.region()).append(',');
+        append(country.surfaceArea()).append(',');
+        append(country.independenceYear()).append(',');
+        append(country.population()).append(',');
+        append(country.lifeExpectancy()).append(',');
+        append(country.gnp()).append(',');
+        append(country.localName()).append(',');
+        append(country.governmentForm()).append(',');
+        append(country.headOfState()).append(',');
+        append(country.capitalId());
+        write(countries);
+    }
+
+    @Override
+    public void language(LanguageRow language) {
+        line.setLength(0);
+        append(language.id()).append(',');
+        append(language.countryId()).append(',');
+        append(language.language()).append(',');
+        append(language.official() ? 1 : 0).append(',');
+        append(language.percentage());
+        write(languages);
+    }
+
+    @Override
+    public void city(CityRow city) {
+        line.setLength(0);
+        append(city.id()).append(',');
+        append(city.name()).append(',');
+        append(city.district()).append(',');
+        append(city.countryId()).append(',');
+        append(city.population());
+        write(cities);
+    }
+
+    @Override
+    public void finish() {
+        String script = "SET FOREIGN_KEY_CHECKS = 0;\n" +
+                loadData(COUNTRY_FILE, "world.country", "id, code, code_2, name, continent, region, surface_area, indep_year, " +
+                        "population, life_expectancy, gnp, local_name, government_form, head_of_state, capital") +
+                loadData(LANGUAGE_FILE, "world.country_language", "id, country_id, language, is_official, percentage") +
+                loadData(CITY_FILE, "world.city", "id, name, district, country_id, population") +
+                "SET FOREIGN_KEY_CHECKS = 1;\n";
+        try {
+            Files.writeString(directory.resolve(SCRIPT_FILE), script, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + SCRIPT_FILE, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        IOException failure = null;
+        for (Writer writer : new Writer[]{countries, languages, cities}) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Could not close CSV files in " + directory, failure);
+        }
+    }
+
+    private String loadData(String file, String table, String columns) {
+        String path = directory.resolve(file).toAbsolutePath().toString().replace("\\", "\\\\").replace("'", "\\'");
+        return "LOAD DATA LOCAL INFILE '" + path + "' INTO TABLE " + table + " CHARACTER SET utf8mb4\n" +
+                "    FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY '\\\\'\n" +
+                "    LINES TERMINATED BY '\\n'\n" +
+                "    (" + columns + ");\n";
+    }
+
+    private Writer open(String file) throws IOException {
+        return new BufferedWriter(Files.newBufferedWriter(directory.resolve(file), StandardCharsets.UTF_8), 256 * 1024);
+    }
+
+    private StringBuilder append(Object value) {
+        if (value == null) {
+            return line.append(NULL);
+        }
+        if (value instanceof String text) {
+            line.append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"' || c == '\\') {
+                    line.append('\\');
+                }
+                line.append(c);
+            }
+            return line.append('"');
+        }
+        return line.append(value);
+    }
+
+    private void write(Writer writer) {
+        try {
+            writer.append(line).append('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write CSV row", e);
+        }
+    }
+}
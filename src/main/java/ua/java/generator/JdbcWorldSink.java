@@ -0,0 +1,171 @@
+package ua.java.generator;
+
+import ua.java.domain.exception.DatabaseOperationException;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JdbcWorldSink implements WorldSink {
+
+    private static final String COUNTRY_COLUMNS = "id, code, code_2, name, continent, region, surface_area, indep_year, " +
+            "population, life_expectancy, gnp, local_name, government_form, head_of_state";
+    private static final String CITY_COLUMNS = "id, name, district, country_id, population";
+    private static final String LANGUAGE_COLUMNS = "id, country_id, language, is_official, percentage";
+
+    private final Connection connection;
+    private final int rowsPerInsert;
+    private final boolean autoCommit;
+    private final List<CountryRow> countries = new ArrayList<>();
+    private final List<LanguageRow> languages = new ArrayList<>();
+    private final List<CityRow> cities = new ArrayList<>();
+    private final List<int[]> capitals = new ArrayList<>();
+
+    public JdbcWorldSink(Connection connection, int rowsPerInsert) {
+        this.connection = connection;
+        this.rowsPerInsert = rowsPerInsert;
+        try {
+            this.autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Could not start generator load", e);
+        }
+    }
+
+    @Override
+    public void country(CountryRow country) {
+        countries.add(country);
+        capitals.add(new int[]{country.id(), country.capitalId()});
+        if (countries.size() >= rowsPerInsert) {
+            flushCountries();
+        }
+    }
+
+    @Override
+    public void language(LanguageRow language) {
+        flushCountries();
+        languages.add(language);
+        if (languages.size() >= rowsPerInsert) {
+            flushLanguages();
+        }
+    }
+
+    @Override
+    public void city(CityRow city) {
+        flushCountries();
+        flushLanguages();
+        cities.add(city);
+        if (cities.size() >= rowsPerInsert) {
+            flushCities();
+        }
+    }
+
+    @Override
+    public void finish() {
+        flushCountries();
+        flushLanguages();
+        flushCities();
+        try (PreparedStatement statement = connection.prepareStatement("update world.country set capital = ? where id = ?")) {
+            for (int[] capital : capitals) {
+                statement.setInt(1, capital[1]);
+                statement.setInt(2, capital[0]);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            throw failure("Could not link country capitals", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            connection.setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Could not restore auto-commit", e);
+        }
+    }
+
+    private void flushCountries() {
+        insert("world.country", COUNTRY_COLUMNS, 14, countries, (statement, index, country) -> {
+            statement.setInt(index, country.id());
+            statement.setString(index + 1, country.code());
+            statement.setString(index + 2, country.secondCode());
+            statement.setString(index + 3, country.name());
+            statement.setInt(index + 4, country.continent().ordinal());
+            statement.setString(index + 5, country.region());
+            statement.setBigDecimal(index + 6, country.surfaceArea());
+            if (country.independenceYear() == null) {
+                statement.setNull(index + 7, Types.SMALLINT);
+            } else {
+                statement.setShort(index + 7, country.independenceYear());
+            }
+            statement.setInt(index + 8, country.population());
+            statement.setBigDecimal(index + 9, country.lifeExpectancy());
+            statement.setBigDecimal(index + 10, country.gnp());
+            statement.setString(index + 11, country.localName());
+            statement.setString(index + 12, country.governmentForm());
+            statement.setString(index + 13, country.headOfState());
+        });
+    }
+
+    private void flushLanguages() {
+        insert("world.country_language", LANGUAGE_COLUMNS, 5, languages, (statement, index, language) -> {
+            statement.setInt(index, language.id());
+            statement.setInt(index + 1, language.countryId());
+            statement.setString(index + 2, language.language());
+            statement.setInt(index + 3, language.official() ? 1 : 0);
+            statement.setBigDecimal(index + 4, language.percentage() == null ? BigDecimal.ZERO : language.percentage());
+        });
+    }
+
+    private void flushCities() {
+        insert("world.city", CITY_COLUMNS, 5, cities, (statement, index, city) -> {
+            statement.setInt(index, city.id());
+            statement.setString(index + 1, city.name());
+            statement.setString(index + 2, city.district());
+            statement.setInt(index + 3, city.countryId());
+            statement.setInt(index + 4, city.population());
+        });
+    }
+
+    private <T> void insert(String table, String columns, int columnCount, List<T> rows, RowBinder<T> binder) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder("insert into ").append(table).append(" (").append(columns).append(") values ");
+        String placeholders = "(" + "?, ".repeat(columnCount - 1) + "?)";
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(placeholders);
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < rows.size(); i++) {
+                binder.bind(statement, i * columnCount + 1, rows.get(i));
+            }
+            statement.executeUpdate();
+            connection.commit();
+        } catch (SQLException e) {
+            throw failure("Could not insert into " + table, e);
+        }
+        rows.clear();
+    }
+
+    private DatabaseOperationException failure(String message, SQLException e) {
+        try {
+            connection.rollback();
+        } catch (SQLException rollback) {
+            e.addSuppressed(rollback);
+        }
+        return new DatabaseOperationException(message, e);
+    }
+
+    private interface RowBinder<T> {
+
+        void bind(PreparedStatement statement, int index, T row) throws SQLException;
+    }
+}
@@ -0,0 +1,6 @@
+package ua.java.generator;
+
+import java.math.BigDecimal;
+
+public record LanguageRow(int id, int countryId, String language, boolean official, BigDecimal percentage) {
+}
@@ -0,0 +1,211 @@
+package ua.java.generator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.java.domain.enums.Continent;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+public class WorldGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorldGenerator.class);
+
+    public static final int BASE_CITIES = 4079;
+    public static final int BASE_COUNTRIES = 239;
+    private static final int NAME_POOL_SIZE = 20_000;
+    private static final int MIN_CITY_POPULATION = 1_000;
+    private static final double CITY_POPULATION_ALPHA = 1.1;
+    private static final double COUNTRY_WEIGHT_ALPHA = 0.9;
+    private static final int MAX_LANGUAGES = 12;
+    private static final String[] SYLLABLES = {"ka", "bul", "san", "ta", "mar", "ri", "lo", "vo", "gra", "den",
+            "ber", "lin", "mos", "kov", "ham", "il", "ton", "por", "to", "ne", "va", "sta", "bad", "ur", "ga", "sk",
+            "dor", "fe", "li", "ya", "zel", "hu", "an", "chi", "en", "go", "pa", "ra", "ti", "mu"};
+    private static final String[] PREFIXES = {"San ", "New ", "Port ", "São ", "Nový ", "Saint-", "Al-", "Bad "};
+    private static final String[] LANGUAGES = {"English", "Arabic", "Spanish", "French", "Portuguese", "Russian",
+            "German", "Chinese", "Hindi", "Swahili", "Malay", "Bengali", "Japanese", "Turkish", "Persian", "Italian",
+            "Ukrainian", "Polish", "Dutch", "Korean", "Vietnamese", "Tamil", "Urdu", "Thai", "Hausa", "Yoruba",
+            "Amharic", "Greek", "Czech", "Hungarian", "Romanian", "Swedish", "Serbo-Croatian", "Kurdish", "Pashto",
+            "Quechua", "Guaraní", "Berber", "Somali", "Zulu"};
+    private static final String[] GOVERNMENT_FORMS = {"Republic", "Constitutional Monarchy", "Federal Republic",
+            "Dependent Territory", "Monarchy", "Parliamentary Democracy"};
+    private static final Continent[] CONTINENTS = Continent.values();
+
+    private final double scale;
+    private final long seed;
+    private final double duplicateNameShare;
+
+    public WorldGenerator(double scale, long seed) {
+        this(scale, seed, 0.08);
+    }
+
+    public WorldGenerator(double scale, long seed, double duplicateNameShare) {
+        if (scale <= 0) {
+            throw new IllegalArgumentException("scale must be positive");
+        }
+        if (duplicateNameShare < 0 || duplicateNameShare > 1) {
+            throw new IllegalArgumentException("duplicateNameShare must be between 0 and 1");
+        }
+        this.scale = scale;
+        this.seed = seed;
+        this.duplicateNameShare = duplicateNameShare;
+    }
+
+    public int getCountryCount() {
+        return Math.max(1, Math.min(BASE_COUNTRIES, (int) Math.round(BASE_COUNTRIES * scale)));
+    }
+
+    public int getCityCount() {
+        return Math.max(getCountryCount(), (int) Math.round(BASE_CITIES * scale));
+    }
+
+    public Summary generate(WorldSink sink) {
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        int countryCount = getCountryCount();
+        int cityCount = getCityCount();
+
+        double[] countryWeights = new double[countryCount];
+        int[] districtCounts = new int[countryCount];
+        for (int i = 0; i < countryCount; i++) {
+            countryWeights[i] = pareto(random, COUNTRY_WEIGHT_ALPHA);
+            districtCounts[i] = 1 + (int) Math.min(60, countryWeights[i] * 4);
+        }
+        double[] cumulativeWeights = cumulative(countryWeights);
+
+        int languages = 0;
+        for (int i = 0; i < countryCount; i++) {
+            int countryId = i + 1;
+            sink.country(country(random, countryId, countryWeights[i]));
+            languages += languages(random, sink, countryId, languages);
+        }
+
+        List<String> namePool = new ArrayList<>();
+        for (int countryId = 1; countryId <= countryCount; countryId++) {
+            int population = Math.max(MIN_CITY_POPULATION * 100, Math.min(30_000_000,
+                    (int) (pareto(random, CITY_POPULATION_ALPHA) * MIN_CITY_POPULATION * 200)));
+            sink.city(new CityRow(countryId, cityName(random, namePool), district(random, countryId, 1), countryId, population));
+        }
+        for (int id = countryCount + 1; id <= cityCount; id++) {
+            int countryIndex = pick(cumulativeWeights, random.nextDouble());
+            int population = (int) Math.min(20_000_000, pareto(random, CITY_POPULATION_ALPHA) * MIN_CITY_POPULATION);
+            sink.city(new CityRow(id, cityName(random, namePool), district(random, countryIndex + 1, districtCounts[countryIndex]),
+                    countryIndex + 1, population));
+        }
+        sink.finish();
+
+        Summary summary = new Summary(countryCount, cityCount, languages, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        logger.info("Generated {} countries, {} cities and {} languages in {} ms",
+                summary.countries(), summary.cities(), summary.languages(), summary.elapsedMs());
+        return summary;
+    }
+
+    private CountryRow country(SplittableRandom random, int id, double weight) {
+        String code = code(id, 3);
+        String name = capitalize(syllables(random, 2 + random.nextInt(2)));
+        int population = (int) Math.min(1_400_000_000L, (long) (weight * 2_000_000) + random.nextInt(50_000));
+        BigDecimal surfaceArea = BigDecimal.valueOf(weight * 40_000 + random.nextInt(1_000) + 1).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal gnp = BigDecimal.valueOf(weight * 9_000 + random.nextInt(500)).setScale(2, RoundingMode.HALF_UP);
+        return new CountryRow(id, code, code(id, 2), name, CONTINENTS[random.nextInt(CONTINENTS.length)],
+                "Region " + (1 + random.nextInt(25)), surfaceArea,
+                random.nextInt(10) == 0 ? null : (short) (1200 + random.nextInt(800)), population,
+                BigDecimal.valueOf(45 + random.nextDouble() * 40).setScale(1, RoundingMode.HALF_UP), gnp,
+                name, GOVERNMENT_FORMS[random.nextInt(GOVERNMENT_FORMS.length)],
+                random.nextInt(5) == 0 ? null : capitalize(syllables(random, 2)) + " " + capitalize(syllables(random, 3)),
+                id);
+    }
+
+    private static int languages(SplittableRandom random, WorldSink sink, int countryId, int generated) {
+        int count = 1;
+        while (count < MAX_LANGUAGES && random.nextDouble() < 0.55) {
+            count++;
+        }
+        boolean[] used = new boolean[LANGUAGES.length];
+        double remaining = 100;
+        for (int i = 0; i < count; i++) {
+            int language = (int) (LANGUAGES.length * Math.pow(random.nextDouble(), 2.5));
+            while (used[language]) {
+                language = (language + 1) % LANGUAGES.length;
+            }
+            used[language] = true;
+            double share = i == count - 1 ? remaining * random.nextDouble() : remaining * (0.5 + random.nextDouble() * 0.45);
+            remaining -= share;
+            boolean official = i == 0 || (i == 1 && random.nextInt(4) == 0);
+            sink.language(new LanguageRow(generated + i + 1, countryId, LANGUAGES[language], official,
+                    BigDecimal.valueOf(share).setScale(1, RoundingMode.DOWN)));
+        }
+        return count;
+    }
+
+    private String cityName(SplittableRandom random, List<String> namePool) {
+        if (!namePool.isEmpty() && random.nextDouble() < duplicateNameShare) {
+            return namePool.get((int) (namePool.size() * Math.pow(random.nextDouble(), 3)));
+        }
+        String name = capitalize(syllables(random, 2 + random.nextInt(3)));
+        if (random.nextInt(12) == 0) {
+            name = PREFIXES[random.nextInt(PREFIXES.length)] + name;
+        }
+        if (namePool.size() < NAME_POOL_SIZE) {
+            namePool.add(name);
+        }
+        return name;
+    }
+
+    private static String district(SplittableRandom random, int countryId, int districtCount) {
+        int district = (int) (districtCount * Math.pow(random.nextDouble(), 2));
+        return "District " + code(countryId, 3) + "-" + (district + 1);
+    }
+
+    private static String syllables(SplittableRandom random, int count) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            out.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return out.toString();
+    }
+
+    private static String capitalize(String value) {
+        return value.substring(0, 1).toUpperCase(Locale.ROOT) + value.substring(1);
+    }
+
+    private static double pareto(SplittableRandom random, double alpha) {
+        return Math.pow(1 - random.nextDouble(), -1 / alpha);
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double[] cumulative = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            cumulative[i] = total;
+        }
+        for (int i = 0; i < weights.length; i++) {
+            cumulative[i] /= total;
+        }
+        return cumulative;
+    }
+
+    private static int pick(double[] cumulative, double value) {
+        int index = Arrays.binarySearch(cumulative, value);
+        return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+    }
+
+    static String code(int id, int length) {
+        char[] code = new char[length];
+        int value = id;
+        for (int i = length - 1; i >= 0; i--) {
+            code[i] = (char) ('A' + value % 26);
+            value /= 26;
+        }
+        return new String(code);
+    }
+
+    public record Summary(int countries, int cities, int languages, long elapsedMs) {
+    }
+}
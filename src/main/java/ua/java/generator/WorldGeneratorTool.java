@@ -0,0 +1,55 @@
+package ua.java.generator;
+
+import org.hibernate.Session;
+import ua.java.cache.NormalizedCityCache;
+import ua.java.cache.RedisRepository;
+import ua.java.cache.RedisRepositoryFactory;
+import ua.java.cache.RedisSettings;
+import ua.java.util.HibernateUtil;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+public final class WorldGeneratorTool {
+
+    private WorldGeneratorTool() {
+    }
+
+    public static void main(String[] args) {
+        WorldGenerator generator = new WorldGenerator(
+                Double.parseDouble(System.getProperty("gen.scale", "10")),
+                Long.getLong("gen.seed", 42L),
+                Double.parseDouble(System.getProperty("gen.duplicateNames", "0.08")));
+        int batchSize = Integer.getInteger("gen.batch", 1_000);
+        String target = System.getProperty("gen.target", "csv").toLowerCase(Locale.ROOT);
+        switch (target) {
+            case "csv" -> {
+                try (CsvWorldSink sink = new CsvWorldSink(Path.of(System.getProperty("gen.dir", "world-data")))) {
+                    generator.generate(sink);
+                }
+            }
+            case "jdbc" -> {
+                try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+                    session.doWork(connection -> {
+                        try (JdbcWorldSink sink = new JdbcWorldSink(connection, batchSize)) {
+                            generator.generate(sink);
+                        }
+                    });
+                } finally {
+                    HibernateUtil.shutdown();
+                }
+            }
+            case "redis", "normalized" -> {
+                RedisSettings settings = RedisSettings.load();
+                try (RedisRepository redisRepository = RedisRepositoryFactory.create(settings)) {
+                    generator.generate("redis".equals(target)
+                            ? CacheWorldSink.toRedis(redisRepository, batchSize)
+                            : CacheWorldSink.toNormalized(new NormalizedCityCache(redisRepository,
+                            settings.getCountryLocalTtlMs(), TimeUnit.MILLISECONDS), batchSize));
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown gen.target: " + target + " (csv, jdbc, redis, normalized)");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package ua.java.generator;
+
+public interface WorldSink extends AutoCloseable {
+
+    void country(CountryRow country);
+
+    void language(LanguageRow language);
+
+    void city(CityRow city);
+
+    default void finish() {
+    }
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,8 @@
+package ua.java.limit;
+
+public interface AdaptiveLimit {
+
+    int getLimit();
+
+    void onSample(long rttNanos, int inflight, boolean dropped);
+}
@@ -0,0 +1,220 @@
+package ua.java.limit;
+
+import ua.java.domain.exception.OverloadException;
+import ua.java.metrics.Counter;
+import ua.java.metrics.MeterRegistry;
+import ua.java.metrics.Timer;
+
+import java.sql.SQLTransientException;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+public class ConcurrencyLimiter {
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final AdaptiveLimit limit;
+    private final int maxQueuePerLane;
+    private final double bulkShare;
+    private final long[] maxWaitNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Waiter>[] lanes;
+    private final Counter[] rejectedQueueFull;
+    private final Counter[] rejectedDeadline;
+    private final Timer[] queueWait;
+    private int inflight;
+    private volatile double averageRttNanos;
+
+    @SuppressWarnings("unchecked")
+    public ConcurrencyLimiter(AdaptiveLimit limit, int maxQueuePerLane, double bulkShare,
+                              long criticalWaitMs, long normalWaitMs, long bulkWaitMs, MeterRegistry registry) {
+        this.limit = limit;
+        this.maxQueuePerLane = maxQueuePerLane;
+        this.bulkShare = bulkShare;
+        this.maxWaitNanos = new long[]{
+                TimeUnit.MILLISECONDS.toNanos(criticalWaitMs),
+                TimeUnit.MILLISECONDS.toNanos(normalWaitMs),
+                TimeUnit.MILLISECONDS.toNanos(bulkWaitMs)};
+        this.lanes = new ArrayDeque[PRIORITIES.length];
+        this.rejectedQueueFull = new Counter[PRIORITIES.length];
+        this.rejectedDeadline = new Counter[PRIORITIES.length];
+        this.queueWait = new Timer[PRIORITIES.length];
+        for (Priority priority : PRIORITIES) {
+            String lane = priority.name().toLowerCase(Locale.ROOT);
+            lanes[priority.ordinal()] = new ArrayDeque<>();
+            rejectedQueueFull[priority.ordinal()] = registry.counter("db.limiter.rejected", "priority", lane, "reason", "queue_full");
+            rejectedDeadline[priority.ordinal()] = registry.counter("db.limiter.rejected", "priority", lane, "reason", "deadline");
+            queueWait[priority.ordinal()] = registry.timer("db.limiter.queue.wait", "priority", lane);
+        }
+        registry.gauge("db.limiter.limit", limit::getLimit);
+        registry.gauge("db.limiter.inflight", this::getInflight);
+    }
+
+    public <T> T call(Priority priority, Supplier<T> work) {
+        return call(priority, System.nanoTime() + maxWaitNanos[priority.ordinal()], work);
+    }
+
+    public <T> T call(Priority priority, long deadlineNanos, Supplier<T> work) {
+        acquire(priority, deadlineNanos);
+        long start = System.nanoTime();
+        boolean dropped = false;
+        try {
+            return work.get();
+        } catch (RuntimeException e) {
+            dropped = isOverloadSignal(e);
+            throw e;
+        } finally {
+            release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    public int getInflight() {
+        lock.lock();
+        try {
+            return inflight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued(Priority priority) {
+        lock.lock();
+        try {
+            return lanes[priority.ordinal()].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acquire(Priority priority, long deadlineNanos) {
+        int lane = priority.ordinal();
+        long enqueuedAt = System.nanoTime();
+        Waiter waiter;
+        lock.lock();
+        try {
+            if (!hasWaitersAtOrAbove(lane) && canGrant(lane)) {
+                inflight++;
+                return;
+            }
+            long remaining = deadlineNanos - enqueuedAt;
+            if (remaining <= 0 || estimatedWait() > remaining) {
+                rejectedDeadline[lane].increment();
+                throw new OverloadException("Database busy: " + priority + " request would miss its deadline");
+            }
+            if (lanes[lane].size() >= maxQueuePerLane) {
+                rejectedQueueFull[lane].increment();
+                throw new OverloadException("Database busy: " + priority + " queue is full");
+            }
+            waiter = new Waiter(Thread.currentThread());
+            lanes[lane].addLast(waiter);
+        } finally {
+            lock.unlock();
+        }
+
+        boolean interrupted = false;
+        while (!waiter.granted) {
+            if (Thread.interrupted()) {
+                interrupted = true;
+                break;
+            }
+            long remaining = deadlineNanos - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            LockSupport.parkNanos(this, remaining);
+        }
+        if (!waiter.granted) {
+            lock.lock();
+            try {
+                if (!waiter.granted) {
+                    lanes[lane].remove(waiter);
+                    if (interrupted) {
+                        Thread.currentThread().interrupt();
+                        throw new OverloadException("Database busy: " + priority + " request interrupted in queue");
+                    }
+                    rejectedDeadline[lane].increment();
+                    throw new OverloadException("Database busy: " + priority + " request timed out in queue");
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        queueWait[lane].recordSince(enqueuedAt);
+    }
+
+    private void release(long rttNanos, boolean dropped) {
+        lock.lock();
+        try {
+            limit.onSample(rttNanos, inflight, dropped);
+            inflight--;
+            double average = averageRttNanos;
+            averageRttNanos = average == 0 ? rttNanos : average * 0.9 + rttNanos * 0.1;
+            for (int lane = 0; lane < lanes.length; lane++) {
+                ArrayDeque<Waiter> waiters = lanes[lane];
+                while (!waiters.isEmpty() && canGrant(lane)) {
+                    Waiter next = waiters.pollFirst();
+                    inflight++;
+                    next.granted = true;
+                    LockSupport.unpark(next.thread);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canGrant(int lane) {
+        int current = limit.getLimit();
+        if (lane == Priority.BULK.ordinal()) {
+            return inflight < Math.max(1, (int) (current * bulkShare));
+        }
+        return inflight < current;
+    }
+
+    private boolean hasWaitersAtOrAbove(int lane) {
+        for (int i = 0; i <= lane; i++) {
+            if (!lanes[i].isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long estimatedWait() {
+        int queued = 0;
+        for (ArrayDeque<Waiter> waiters : lanes) {
+            queued += waiters.size();
+        }
+        return (long) ((queued + 1) * averageRttNanos / Math.max(1, limit.getLimit()));
+    }
+
+    private static boolean isOverloadSignal(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Waiter {
+
+        private final Thread thread;
+        private volatile boolean granted;
+
+        private Waiter(Thread thread) {
+            this.thread = thread;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package ua.java.limit;
+
+public class FixedLimit implements AdaptiveLimit {
+
+    private final int limit;
+
+    public FixedLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        this.limit = limit;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public void onSample(long rttNanos, int inflight, boolean dropped) {
+    }
+}
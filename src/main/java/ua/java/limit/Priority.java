@@ -0,0 +1,5 @@
+package ua.java.limit;
+
+public enum Priority {
+    CRITICAL, NORMAL, BULK
+}
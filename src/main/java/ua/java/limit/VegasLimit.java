@@ -0,0 +1,75 @@
+package ua.java.limit;
+
+public class VegasLimit implements AdaptiveLimit {
+
+    private static final int PROBE_MULTIPLIER = 30;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private volatile double limit;
+    private long rttNoLoad;
+    private long samplesUntilProbe;
+
+    public VegasLimit(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, 1.0);
+    }
+
+    public VegasLimit(int initialLimit, int minLimit, int maxLimit, double smoothing) {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 0 < minLimit <= initialLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.limit = initialLimit;
+        this.samplesUntilProbe = nextProbe(initialLimit);
+    }
+
+    @Override
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inflight, boolean dropped) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        double current = limit;
+        if (--samplesUntilProbe <= 0) {
+            samplesUntilProbe = nextProbe(current);
+            rttNoLoad = rttNanos;
+            return;
+        }
+        if (rttNoLoad == 0 || rttNanos < rttNoLoad) {
+            rttNoLoad = rttNanos;
+            return;
+        }
+
+        double log = Math.max(1, Math.log10(current));
+        double next;
+        if (dropped) {
+            next = current - log;
+        } else if (inflight * 2 < current) {
+            return;
+        } else {
+            double queueSize = Math.ceil(current * (1 - (double) rttNoLoad / rttNanos));
+            if (queueSize <= log) {
+                next = current + 6 * log;
+            } else if (queueSize < 3 * log) {
+                next = current + log;
+            } else if (queueSize > 6 * log) {
+                next = current - log;
+            } else {
+                return;
+            }
+        }
+        next = Math.max(minLimit, Math.min(maxLimit, next));
+        limit = (1 - smoothing) * current + smoothing * next;
+    }
+
+    private static long nextProbe(double limit) {
+        return (long) (PROBE_MULTIPLIER * Math.max(1, limit));
+    }
+}
@@ -0,0 +1,98 @@
+package ua.java.logging;
+
+import org.slf4j.Logger;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+public class RateLimitedLogger {
+
+    private static final int MAX_TRACKED_MESSAGES = 1024;
+
+    private final Logger delegate;
+    private final long intervalNanos;
+    private final LongSupplier clock;
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    public RateLimitedLogger(Logger delegate, long interval, TimeUnit unit) {
+        this(delegate, interval, unit, System::nanoTime);
+    }
+
+    RateLimitedLogger(Logger delegate, long interval, TimeUnit unit, LongSupplier clock) {
+        this.delegate = delegate;
+        this.intervalNanos = unit.toNanos(interval);
+        this.clock = clock;
+    }
+
+    public void info(String format, Object... args) {
+        if (delegate.isInfoEnabled()) {
+            long suppressed = acquire(format);
+            if (suppressed >= 0) {
+                delegate.info(decorate(format, suppressed), withSuppressed(args, suppressed));
+            }
+        }
+    }
+
+    public void warn(String format, Object... args) {
+        if (delegate.isWarnEnabled()) {
+            long suppressed = acquire(format);
+            if (suppressed >= 0) {
+                delegate.warn(decorate(format, suppressed), withSuppressed(args, suppressed));
+            }
+        }
+    }
+
+    public void error(String format, Object... args) {
+        if (delegate.isErrorEnabled()) {
+            long suppressed = acquire(format);
+            if (suppressed >= 0) {
+                delegate.error(decorate(format, suppressed), withSuppressed(args, suppressed));
+            }
+        }
+    }
+
+    private long acquire(String format) {
+        Window window = windows.get(format);
+        if (window == null) {
+            if (windows.size() >= MAX_TRACKED_MESSAGES) {
+                windows.clear();
+            }
+            window = windows.computeIfAbsent(format, key -> new Window());
+        }
+        long now = clock.getAsLong();
+        long next = window.nextAllowed.get();
+        if (now - next >= 0 && window.nextAllowed.compareAndSet(next, now + intervalNanos)) {
+            return window.suppressed.getAndSet(0);
+        }
+        window.suppressed.incrementAndGet();
+        return -1;
+    }
+
+    private static String decorate(String format, long suppressed) {
+        return suppressed == 0 ? format : format + " ({} similar messages suppressed)";
+    }
+
+    private static Object[] withSuppressed(Object[] args, long suppressed) {
+        if (suppressed == 0) {
+            return args;
+        }
+        Object[] result = Arrays.copyOf(args, args.length + 1);
+        if (args.length > 0 && args[args.length - 1] instanceof Throwable) {
+            result[args.length - 1] = suppressed;
+            result[args.length] = args[args.length - 1];
+        } else {
+            result[args.length] = suppressed;
+        }
+        return result;
+    }
+
+    private final class Window {
+
+        private final AtomicLong nextAllowed = new AtomicLong(clock.getAsLong());
+        private final AtomicLong suppressed = new AtomicLong();
+    }
+}
@@ -0,0 +1,267 @@
+package ua.java.logging;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.Layout;
+import org.apache.log4j.Priority;
+import org.apache.log4j.helpers.LogLog;
+import org.apache.log4j.helpers.OnlyOnceErrorHandler;
+import org.apache.log4j.spi.ErrorHandler;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
+import org.apache.log4j.spi.OptionHandler;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class RingBufferAppender implements Appender, OptionHandler {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile MpscRingBuffer<LoggingEvent> buffer;
+    private volatile boolean closed;
+    private volatile Thread consumer;
+    private String name;
+    private Layout layout;
+    private Priority threshold;
+    private Filter headFilter;
+    private Filter tailFilter;
+    private ErrorHandler errorHandler = new OnlyOnceErrorHandler();
+    private int bufferSize = 8192;
+    private String file;
+    private boolean blocking;
+    private Writer writer;
+
+    @Override
+    public void activateOptions() {
+        if (layout == null) {
+            errorHandler.error("No layout set for the appender named [" + name + "].");
+            return;
+        }
+        try {
+            writer = new BufferedWriter(file == null
+                    ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                    : new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8), 64 * 1024);
+        } catch (IOException e) {
+            errorHandler.error("Could not open " + file, e, 0);
+            return;
+        }
+        buffer = new MpscRingBuffer<>(bufferSize);
+        Thread thread = new Thread(this::drainLoop, "log-ring-" + name);
+        thread.setDaemon(true);
+        consumer = thread;
+        thread.start();
+    }
+
+    @Override
+    public void doAppend(LoggingEvent event) {
+        MpscRingBuffer<LoggingEvent> ring = buffer;
+        if (closed || ring == null) {
+            return;
+        }
+        if (threshold != null && !event.getLevel().isGreaterOrEqual(threshold)) {
+            return;
+        }
+        for (Filter filter = headFilter; filter != null; filter = filter.getNext()) {
+            int decision = filter.decide(event);
+            if (decision == Filter.DENY) {
+                return;
+            }
+            if (decision == Filter.ACCEPT) {
+                break;
+            }
+        }
+        event.getThreadName();
+        event.getNDC();
+        event.getMDCCopy();
+        if (layout.ignoresThrowable()) {
+            event.getThrowableStrRep();
+        }
+        while (!ring.offer(event)) {
+            if (!blocking || closed) {
+                dropped.incrementAndGet();
+                return;
+            }
+            LockSupport.unpark(consumer);
+            Thread.onSpinWait();
+        }
+    }
+
+    private void drainLoop() {
+        MpscRingBuffer<LoggingEvent> ring = buffer;
+        while (true) {
+            LoggingEvent event = ring.poll();
+            if (event != null) {
+                write(event);
+                continue;
+            }
+            reportDropped();
+            flush();
+            if (closed && ring.isEmpty()) {
+                return;
+            }
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+    }
+
+    private void write(LoggingEvent event) {
+        try {
+            writer.write(layout.format(event));
+            if (layout.ignoresThrowable()) {
+                String[] throwable = event.getThrowableStrRep();
+                if (throwable != null) {
+                    for (String line : throwable) {
+                        writer.write(line);
+                        writer.write(Layout.LINE_SEP);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            errorHandler.error("Could not write log event", e, 0, event);
+        }
+    }
+
+    private void reportDropped() {
+        long count = dropped.getAndSet(0);
+        if (count > 0) {
+            try {
+                writer.write("Log ring buffer [" + name + "] full, dropped " + count + " events" + Layout.LINE_SEP);
+            } catch (IOException e) {
+                errorHandler.error("Could not write log event", e, 0);
+            }
+        }
+    }
+
+    private void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            errorHandler.error("Could not flush log writer", e, 0);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Thread thread = consumer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (writer != null && file != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                LogLog.warn("Could not close " + file, e);
+            }
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public boolean isBlocking() {
+        return blocking;
+    }
+
+    public void setBlocking(boolean blocking) {
+        this.blocking = blocking;
+    }
+
+    public Priority getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(Priority threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void addFilter(Filter filter) {
+        if (headFilter == null) {
+            headFilter = filter;
+        } else {
+            tailFilter.setNext(filter);
+        }
+        tailFilter = filter;
+    }
+
+    @Override
+    public Filter getFilter() {
+        return headFilter;
+    }
+
+    @Override
+    public void clearFilters() {
+        headFilter = null;
+        tailFilter = null;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public ErrorHandler getErrorHandler() {
+        return errorHandler;
+    }
+
+    @Override
+    public void setErrorHandler(ErrorHandler errorHandler) {
+        if (errorHandler != null) {
+            this.errorHandler = errorHandler;
+        }
+    }
+
+    @Override
+    public Layout getLayout() {
+        return layout;
+    }
+
+    @Override
+    public void setLayout(Layout layout) {
+        this.layout = layout;
+    }
+
+    @Override
+    public boolean requiresLayout() {
+        return true;
+    }
+}
@@ -0,0 +1,30 @@
+package ua.java.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter implements Meter {
+
+    private final MeterId id;
+    private final LongAdder count = new LongAdder();
+
+    public Counter(MeterId id) {
+        this.id = id;
+    }
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void increment(long amount) {
+        count.add(amount);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    @Override
+    public MeterId getId() {
+        return id;
+    }
+}
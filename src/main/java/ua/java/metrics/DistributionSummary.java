@@ -0,0 +1,36 @@
+package ua.java.metrics;
+
+public class DistributionSummary implements Meter {
+
+    private final MeterId id;
+    private final Histogram histogram = new Histogram();
+
+    public DistributionSummary(MeterId id) {
+        this.id = id;
+    }
+
+    public void record(long amount) {
+        histogram.record(amount);
+    }
+
+    public long count() {
+        return histogram.count();
+    }
+
+    public long totalAmount() {
+        return histogram.sum();
+    }
+
+    public long max() {
+        return histogram.max();
+    }
+
+    public long percentile(double quantile) {
+        return histogram.percentile(quantile);
+    }
+
+    @Override
+    public MeterId getId() {
+        return id;
+    }
+}
@@ -0,0 +1,23 @@
+package ua.java.metrics;
+
+import java.util.function.DoubleSupplier;
+
+public class Gauge implements Meter {
+
+    private final MeterId id;
+    private final DoubleSupplier value;
+
+    public Gauge(MeterId id, DoubleSupplier value) {
+        this.id = id;
+        this.value = value;
+    }
+
+    public double value() {
+        return value.getAsDouble();
+    }
+
+    @Override
+    public MeterId getId() {
+        return id;
+    }
+}
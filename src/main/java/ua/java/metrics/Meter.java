@@ -0,0 +1,6 @@
+package ua.java.metrics;
+
+public interface Meter {
+
+    MeterId getId();
+}
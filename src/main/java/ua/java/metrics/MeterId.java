@@ -0,0 +1,55 @@
+package ua.java.metrics;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+public final class MeterId {
+
+    private final String name;
+    private final String[] tags;
+
+    public MeterId(String name, String... tags) {
+        if (tags.length % 2 != 0) {
+            throw new IllegalArgumentException("Tags must be key/value pairs: " + Arrays.toString(tags));
+        }
+        this.name = Objects.requireNonNull(name);
+        this.tags = tags.clone();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getTagCount() {
+        return tags.length / 2;
+    }
+
+    public String getTagKey(int index) {
+        return tags[index * 2];
+    }
+
+    public String getTagValue(int index) {
+        return tags[index * 2 + 1];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MeterId other)) {
+            return false;
+        }
+        return name.equals(other.name) && Arrays.equals(tags, other.tags);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * name.hashCode() + Arrays.hashCode(tags);
+    }
+
+    @Override
+    public String toString() {
+        return name + Arrays.toString(tags);
+    }
+}
@@ -0,0 +1,17 @@
+package ua.java.metrics;
+
+import java.util.Collection;
+import java.util.function.DoubleSupplier;
+
+public interface MeterRegistry {
+
+    Counter counter(String name, String... tags);
+
+    Timer timer(String name, String... tags);
+
+    DistributionSummary summary(String name, String... tags);
+
+    Gauge gauge(String name, DoubleSupplier value, String... tags);
+
+    Collection<Meter> getMeters();
+}
@@ -0,0 +1,19 @@
+package ua.java.metrics;
+
+import java.util.Objects;
+
+public final class Metrics {
+
+    private static volatile MeterRegistry registry = new SimpleMeterRegistry();
+
+    private Metrics() {
+    }
+
+    public static MeterRegistry registry() {
+        return registry;
+    }
+
+    public static void setRegistry(MeterRegistry meterRegistry) {
+        registry = Objects.requireNonNull(meterRegistry);
+    }
+}
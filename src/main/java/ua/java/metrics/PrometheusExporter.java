@@ -0,0 +1,198 @@
+package ua.java.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+public class PrometheusExporter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrometheusExporter.class);
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final MeterRegistry registry;
+    private final int port;
+    private final Map<String, Supplier<String>> endpoints = new LinkedHashMap<>();
+    private final Map<String, Probe> probes = new LinkedHashMap<>();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public PrometheusExporter(MeterRegistry registry, int port) {
+        this.registry = registry;
+        this.port = port;
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> respond(exchange, scrape()));
+        endpoints.forEach((path, body) -> server.createContext(path, exchange -> respond(exchange, body.get())));
+        probes.forEach((path, probe) -> server.createContext(path, exchange ->
+                respond(exchange, probe.healthy().getAsBoolean() ? 200 : 503, probe.detail().get() + "\n")));
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "prometheus-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+        logger.info("Prometheus metrics exposed on http://localhost:{}/metrics", server.getAddress().getPort());
+    }
+
+    public PrometheusExporter addEndpoint(String path, Supplier<String> body) {
+        if (server != null) {
+            throw new IllegalStateException("Endpoints must be added before the exporter is started");
+        }
+        endpoints.put(path, body);
+        return this;
+    }
+
+    public PrometheusExporter addProbe(String path, BooleanSupplier healthy, Supplier<String> detail) {
+        if (server != null) {
+            throw new IllegalStateException("Probes must be added before the exporter is started");
+        }
+        probes.put(path, new Probe(healthy, detail));
+        return this;
+    }
+
+    public int getPort() {
+        return server == null ? port : server.getAddress().getPort();
+    }
+
+    public String scrape() {
+        List<Meter> meters = new ArrayList<>(registry.getMeters());
+        meters.sort(Comparator.comparing((Meter meter) -> meter.getId().getName()).thenComparing(meter -> meter.getId().toString()));
+
+        StringBuilder out = new StringBuilder();
+        StringBuilder maxes = new StringBuilder();
+        String lastType = null;
+        String lastMaxType = null;
+        for (Meter meter : meters) {
+            if (meter instanceof Counter counter) {
+                String name = sanitize(meter.getId().getName()) + "_total";
+                lastType = writeType(out, lastType, name, "counter");
+                writeSample(out, name, meter.getId(), null, counter.count());
+            } else if (meter instanceof Gauge gauge) {
+                String name = sanitize(meter.getId().getName());
+                lastType = writeType(out, lastType, name, "gauge");
+                writeSample(out, name, meter.getId(), null, gauge.value());
+            } else if (meter instanceof Timer timer) {
+                String name = sanitize(meter.getId().getName()) + "_seconds";
+                lastType = writeType(out, lastType, name, "summary");
+                for (double quantile : QUANTILES) {
+                    writeSample(out, name, meter.getId(), quantile, timer.percentile(quantile, TimeUnit.SECONDS));
+                }
+                writeSample(out, name + "_count", meter.getId(), null, timer.count());
+                writeSample(out, name + "_sum", meter.getId(), null, timer.totalTime(TimeUnit.SECONDS));
+                lastMaxType = writeType(maxes, lastMaxType, name + "_max", "gauge");
+                writeSample(maxes, name + "_max", meter.getId(), null, timer.max(TimeUnit.SECONDS));
+            } else if (meter instanceof DistributionSummary summary) {
+                String name = sanitize(meter.getId().getName());
+                lastType = writeType(out, lastType, name, "summary");
+                for (double quantile : QUANTILES) {
+                    writeSample(out, name, meter.getId(), quantile, summary.percentile(quantile));
+                }
+                writeSample(out, name + "_count", meter.getId(), null, summary.count());
+                writeSample(out, name + "_sum", meter.getId(), null, summary.totalAmount());
+                lastMaxType = writeType(maxes, lastMaxType, name + "_max", "gauge");
+                writeSample(maxes, name + "_max", meter.getId(), null, summary.max());
+            }
+        }
+        return out.append(maxes).toString();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                if (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    logger.warn("Prometheus exporter thread did not stop within 1 s");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+    }
+
+    private static void respond(HttpExchange exchange, String text) throws IOException {
+        respond(exchange, 200, text);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String writeType(StringBuilder out, String lastType, String name, String type) {
+        if (!name.equals(lastType)) {
+            out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        }
+        return name;
+    }
+
+    private static void writeSample(StringBuilder out, String name, MeterId id, Double quantile, double value) {
+        out.append(name);
+        if (id.getTagCount() > 0 || quantile != null) {
+            out.append('{');
+            for (int i = 0; i < id.getTagCount(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(sanitize(id.getTagKey(i))).append("=\"").append(escape(id.getTagValue(i))).append('"');
+            }
+            if (quantile != null) {
+                if (id.getTagCount() > 0) {
+                    out.append(',');
+                }
+                out.append("quantile=\"").append(quantile).append('"');
+            }
+            out.append('}');
+        }
+        out.append(' ').append(format(value)).append('\n');
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%.9f", value);
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^a-zA-Z0-9_:]", "_");
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private record Probe(BooleanSupplier healthy, Supplier<String> detail) {
+    }
+}
@@ -0,0 +1,46 @@
+package ua.java.metrics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+
+public class SimpleMeterRegistry implements MeterRegistry {
+
+    private final Map<MeterId, Meter> meters = new ConcurrentHashMap<>();
+
+    @Override
+    public Counter counter(String name, String... tags) {
+        return register(new MeterId(name, tags), Counter.class, Counter::new);
+    }
+
+    @Override
+    public Timer timer(String name, String... tags) {
+        return register(new MeterId(name, tags), Timer.class, Timer::new);
+    }
+
+    @Override
+    public DistributionSummary summary(String name, String... tags) {
+        return register(new MeterId(name, tags), DistributionSummary.class, DistributionSummary::new);
+    }
+
+    @Override
+    public Gauge gauge(String name, DoubleSupplier value, String... tags) {
+        return register(new MeterId(name, tags), Gauge.class, id -> new Gauge(id, value));
+    }
+
+    @Override
+    public Collection<Meter> getMeters() {
+        return Collections.unmodifiableCollection(meters.values());
+    }
+
+    private <M extends Meter> M register(MeterId id, Class<M> type, Function<MeterId, M> factory) {
+        Meter meter = meters.computeIfAbsent(id, factory);
+        if (!type.isInstance(meter)) {
+            throw new IllegalStateException("Meter " + id + " is already registered as " + meter.getClass().getSimpleName());
+        }
+        return type.cast(meter);
+    }
+}
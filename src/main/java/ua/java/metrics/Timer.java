@@ -0,0 +1,52 @@
+package ua.java.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public class Timer implements Meter {
+
+    private final MeterId id;
+    private final Histogram histogram = new Histogram();
+
+    public Timer(MeterId id) {
+        this.id = id;
+    }
+
+    public void record(long nanos) {
+        histogram.record(nanos);
+    }
+
+    public void recordSince(long startNanos) {
+        histogram.record(System.nanoTime() - startNanos);
+    }
+
+    public <T> T record(Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            recordSince(start);
+        }
+    }
+
+    public long count() {
+        return histogram.count();
+    }
+
+    public double totalTime(TimeUnit unit) {
+        return histogram.sum() / (double) unit.toNanos(1);
+    }
+
+    public double max(TimeUnit unit) {
+        return histogram.max() / (double) unit.toNanos(1);
+    }
+
+    public double percentile(double quantile, TimeUnit unit) {
+        return histogram.percentile(quantile) / (double) unit.toNanos(1);
+    }
+
+    @Override
+    public MeterId getId() {
+        return id;
+    }
+}
@@ -0,0 +1,38 @@
+package ua.java.query;
+
+import java.util.Objects;
+
+public final class QueryAnalysis {
+
+    private static final ThreadLocal<String> origin = new ThreadLocal<>();
+    private static volatile SlowQueryAnalyzer analyzer = new SlowQueryAnalyzer();
+
+    private QueryAnalysis() {
+    }
+
+    public static SlowQueryAnalyzer analyzer() {
+        return analyzer;
+    }
+
+    public static void setAnalyzer(SlowQueryAnalyzer slowQueryAnalyzer) {
+        analyzer = Objects.requireNonNull(slowQueryAnalyzer);
+    }
+
+    public static String enter(String queryOrigin) {
+        String previous = origin.get();
+        origin.set(queryOrigin);
+        return previous;
+    }
+
+    public static void exit(String previous) {
+        if (previous == null) {
+            origin.remove();
+        } else {
+            origin.set(previous);
+        }
+    }
+
+    static String currentOrigin() {
+        return origin.get();
+    }
+}
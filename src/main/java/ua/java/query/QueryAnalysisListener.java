@@ -0,0 +1,30 @@
+package ua.java.query;
+
+import com.p6spy.engine.common.ConnectionInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+
+import java.sql.SQLException;
+
+public class QueryAnalysisListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        QueryAnalysis.analyzer().record(statementInformation, timeElapsedNanos);
+    }
+
+    @Override
+    public void onAfterCommit(ConnectionInformation connectionInformation, long timeElapsedNanos, SQLException e) {
+        QueryAnalysis.analyzer().endUnitOfWork(connectionInformation.getConnectionId());
+    }
+
+    @Override
+    public void onAfterRollback(ConnectionInformation connectionInformation, long timeElapsedNanos, SQLException e) {
+        QueryAnalysis.analyzer().endUnitOfWork(connectionInformation.getConnectionId());
+    }
+
+    @Override
+    public void onAfterConnectionClose(ConnectionInformation connectionInformation, SQLException e) {
+        QueryAnalysis.analyzer().endUnitOfWork(connectionInformation.getConnectionId());
+    }
+}
@@ -0,0 +1,190 @@
+package ua.java.query;
+
+import com.p6spy.engine.common.StatementInformation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.java.logging.RateLimitedLogger;
+import ua.java.metrics.Counter;
+import ua.java.metrics.MeterRegistry;
+import ua.java.metrics.Metrics;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+public class SlowQueryAnalyzer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryAnalyzer.class);
+    private static final RateLimitedLogger rateLimitedLogger = new RateLimitedLogger(logger, 30, TimeUnit.SECONDS);
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\?(?:\\s*,\\s*\\?)+\\)");
+    private static final int MAX_STATEMENTS = 1024;
+
+    private final long slowThresholdNanos;
+    private final int nPlusOneThreshold;
+    private final boolean explainEnabled;
+    private final ConcurrentMap<String, StatementStats> statements = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Map<String, int[]>> unitsOfWork = new ConcurrentHashMap<>();
+    private final ThreadLocal<Boolean> explaining = new ThreadLocal<>();
+    private final Counter slowStatements;
+    private final Counter nPlusOnePatterns;
+    private ScheduledExecutorService reporter;
+
+    public SlowQueryAnalyzer() {
+        this(Long.getLong("query.slow.ms", 100), TimeUnit.MILLISECONDS,
+                Integer.getInteger("query.nplusone.threshold", 10),
+                Boolean.getBoolean("query.explain"), Metrics.registry());
+    }
+
+    public SlowQueryAnalyzer(long slowThreshold, TimeUnit unit, int nPlusOneThreshold, boolean explainEnabled,
+                             MeterRegistry registry) {
+        this.slowThresholdNanos = unit.toNanos(slowThreshold);
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.explainEnabled = explainEnabled;
+        this.slowStatements = registry.counter("repository.sql.slow");
+        this.nPlusOnePatterns = registry.counter("repository.sql.n_plus_one");
+    }
+
+    public void record(StatementInformation statementInformation, long elapsedNanos) {
+        String sql = statementInformation.getSql();
+        if (sql == null || sql.isEmpty() || explaining.get() != null) {
+            return;
+        }
+        record(statementInformation.getConnectionInformation().getConnectionId(), sql, elapsedNanos,
+                statementInformation.getConnectionInformation().getConnection(), statementInformation::getSqlWithValues);
+    }
+
+    void record(int connectionId, String sql, long elapsedNanos, Connection connection, Supplier<String> sqlWithValues) {
+        String key = normalize(sql);
+        StatementStats stats = statements.get(key);
+        if (stats == null) {
+            if (statements.size() >= MAX_STATEMENTS) {
+                return;
+            }
+            stats = statements.computeIfAbsent(key, StatementStats::new);
+        }
+        stats.record(elapsedNanos, QueryAnalysis.currentOrigin());
+
+        if (elapsedNanos >= slowThresholdNanos) {
+            stats.markSlow();
+            slowStatements.increment();
+            rateLimitedLogger.warn("Slow statement ({} ms) from {}: {}",
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), stats.getOrigin(), key);
+            if (explainEnabled && stats.getPlan() == null && connection != null && isSelect(key)) {
+                stats.setPlan(explain(connection, sqlWithValues.get()));
+            }
+        }
+
+        if (isSelect(key)) {
+            int[] count = unitsOfWork.computeIfAbsent(connectionId, id -> new HashMap<>())
+                    .computeIfAbsent(key, k -> new int[1]);
+            if (++count[0] == nPlusOneThreshold) {
+                stats.markNPlusOne();
+                nPlusOnePatterns.increment();
+                rateLimitedLogger.warn("Possible N+1: statement from {} executed {} times in one transaction: {}",
+                        stats.getOrigin(), nPlusOneThreshold, key);
+            }
+        }
+    }
+
+    public void endUnitOfWork(int connectionId) {
+        unitsOfWork.remove(connectionId);
+    }
+
+    public List<StatementStats> getStatements() {
+        return new ArrayList<>(statements.values());
+    }
+
+    public List<StatementStats> topByTotalTime(int limit) {
+        return statements.values().stream()
+                .sorted(Comparator.comparingDouble((StatementStats stats) -> stats.getTotalTime(TimeUnit.NANOSECONDS)).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public String report(int limit) {
+        StringBuilder out = new StringBuilder("Top ").append(limit).append(" statements by total time:\n");
+        for (StatementStats stats : topByTotalTime(limit)) {
+            out.append(String.format(Locale.ROOT, "  %-32s count=%d total=%.1fms p50=%.2fms p99=%.2fms max=%.2fms slow=%d n+1=%d%n    %s%n",
+                    stats.getOrigin(), stats.getCount(), stats.getTotalTime(TimeUnit.MILLISECONDS),
+                    stats.getPercentile(0.5, TimeUnit.MILLISECONDS), stats.getPercentile(0.99, TimeUnit.MILLISECONDS),
+                    stats.getMaxTime(TimeUnit.MILLISECONDS), stats.getSlowCount(), stats.getNPlusOneCount(), stats.getSql()));
+            if (stats.getPlan() != null) {
+                out.append("    plan: ").append(stats.getPlan()).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    public synchronized void startReporting(long period, TimeUnit unit, int limit) {
+        if (reporter != null) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "slow-query-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> {
+            if (!statements.isEmpty()) {
+                logger.info("{}", report(limit));
+            }
+        }, period, period, unit);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+
+    private String explain(Connection connection, String sql) {
+        explaining.set(Boolean.TRUE);
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("EXPLAIN " + sql)) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            StringBuilder plan = new StringBuilder();
+            while (resultSet.next()) {
+                plan.append('[');
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    if (i > 1) {
+                        plan.append(", ");
+                    }
+                    plan.append(metaData.getColumnLabel(i)).append('=').append(resultSet.getString(i));
+                }
+                plan.append(']');
+            }
+            return plan.toString();
+        } catch (SQLException e) {
+            logger.debug("Could not explain statement: {}", e.getMessage());
+            return "unavailable: " + e.getMessage();
+        } finally {
+            explaining.remove();
+        }
+    }
+
+    private static boolean isSelect(String sql) {
+        return sql.regionMatches(true, 0, "select", 0, 6);
+    }
+
+    static String normalize(String sql) {
+        String trimmed = sql.strip();
+        return trimmed.contains("?,") ? PARAMETER_LIST.matcher(trimmed).replaceAll("(?...)") : trimmed;
+    }
+}
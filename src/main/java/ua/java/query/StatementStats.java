@@ -0,0 +1,75 @@
+package ua.java.query;
+
+import ua.java.metrics.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class StatementStats {
+
+    private final String sql;
+    private final Histogram latency = new Histogram();
+    private final LongAdder slowCount = new LongAdder();
+    private final LongAdder nPlusOneCount = new LongAdder();
+    private volatile String origin;
+    private volatile String plan;
+
+    StatementStats(String sql) {
+        this.sql = sql;
+    }
+
+    void record(long nanos, String origin) {
+        latency.record(nanos);
+        if (origin != null) {
+            this.origin = origin;
+        }
+    }
+
+    void markSlow() {
+        slowCount.increment();
+    }
+
+    void markNPlusOne() {
+        nPlusOneCount.increment();
+    }
+
+    void setPlan(String plan) {
+        this.plan = plan;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public String getPlan() {
+        return plan;
+    }
+
+    public long getCount() {
+        return latency.count();
+    }
+
+    public long getSlowCount() {
+        return slowCount.sum();
+    }
+
+    public long getNPlusOneCount() {
+        return nPlusOneCount.sum();
+    }
+
+    public double getTotalTime(TimeUnit unit) {
+        return (double) latency.sum() / unit.toNanos(1);
+    }
+
+    public double getMaxTime(TimeUnit unit) {
+        return (double) latency.max() / unit.toNanos(1);
+    }
+
+    public double getPercentile(double quantile, TimeUnit unit) {
+        return (double) latency.percentile(quantile) / unit.toNanos(1);
+    }
+}
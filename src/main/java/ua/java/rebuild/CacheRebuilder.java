@@ -0,0 +1,232 @@
+package ua.java.rebuild;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.java.cache.RedisRepository;
+import ua.java.cdc.CheckpointStore;
+import ua.java.metrics.Counter;
+import ua.java.metrics.MeterRegistry;
+import ua.java.metrics.Timer;
+import ua.java.redis.CityCountry;
+import ua.java.repository.CityRepository;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+public class CacheRebuilder implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheRebuilder.class);
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MS = 200;
+
+    private final CityRepository repository;
+    private final Consumer<Collection<CityCountry>> writer;
+    private final CheckpointStore checkpoints;
+    private final int parallelism;
+    private final int partitionSize;
+    private final int writeBatchSize;
+    private final RebuildThrottle throttle;
+    private final Counter rowsWritten;
+    private final Counter partitionRetries;
+    private final Timer partitionTimer;
+    private final AtomicLong completedPartitions = new AtomicLong();
+    private final AtomicLong totalPartitions = new AtomicLong();
+    private volatile boolean cancelled;
+
+    public CacheRebuilder(CityRepository repository, RedisRepository redisRepository, CheckpointStore checkpoints,
+                          int parallelism, int partitionSize, int writeBatchSize, double rowsPerSecond, MeterRegistry registry) {
+        this(repository, redisRepository::cacheAllIfNewer, checkpoints, parallelism, partitionSize, writeBatchSize, rowsPerSecond, registry);
+    }
+
+    public CacheRebuilder(CityRepository repository, Consumer<Collection<CityCountry>> writer, CheckpointStore checkpoints,
+                          int parallelism, int partitionSize, int writeBatchSize, double rowsPerSecond, MeterRegistry registry) {
+        if (parallelism <= 0 || partitionSize <= 0 || writeBatchSize <= 0) {
+            throw new IllegalArgumentException("parallelism, partitionSize and writeBatchSize must be positive");
+        }
+        this.repository = repository;
+        this.writer = writer;
+        this.checkpoints = checkpoints;
+        this.parallelism = parallelism;
+        this.partitionSize = partitionSize;
+        this.writeBatchSize = writeBatchSize;
+        this.throttle = new RebuildThrottle(rowsPerSecond);
+        this.rowsWritten = registry.counter("rebuild.rows");
+        this.partitionRetries = registry.counter("rebuild.partition.retries");
+        this.partitionTimer = registry.timer("rebuild.partition.duration");
+        registry.gauge("rebuild.progress", () -> totalPartitions.get() == 0 ? 0 : (double) completedPartitions.get() / totalPartitions.get());
+    }
+
+    public Result rebuild() {
+        long start = System.nanoTime();
+        int minId = repository.getMinId();
+        int maxId = repository.getMaxId();
+        long checkpoint = checkpoints.load();
+        int firstId = checkpoint == CheckpointStore.NONE ? minId : (int) Math.max(minId, checkpoint);
+        if (maxId == 0 || firstId > maxId) {
+            checkpoints.save(CheckpointStore.NONE);
+            return new Result(firstId, 0, 0, true, 0);
+        }
+        int partitions = (int) (((long) maxId - firstId) / partitionSize + 1);
+        totalPartitions.set(partitions);
+        completedPartitions.set(0);
+        long rowsBefore = rowsWritten.count();
+        if (checkpoint != CheckpointStore.NONE) {
+            logger.info("Resuming cache rebuild from city id {}", firstId);
+        }
+        logger.info("Rebuilding cache for city ids {}..{} in {} partitions with parallelism {}", firstId, maxId, partitions, parallelism);
+
+        Progress progress = new Progress(firstId, maxId, partitions);
+        ForkJoinPool pool = new ForkJoinPool(parallelism, new WorkerFactory(), null, false);
+        try {
+            pool.invoke(new PartitionTask(progress, 0, partitions));
+        } finally {
+            pool.shutdownNow();
+        }
+        boolean completed = !cancelled && progress.isComplete();
+        if (completed) {
+            checkpoints.save(CheckpointStore.NONE);
+        }
+        Result result = new Result(firstId, partitions, rowsWritten.count() - rowsBefore, completed,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        logger.info("Cache rebuild {}: {} rows from {} partitions in {} ms",
+                completed ? "finished" : "stopped", result.rows(), result.partitions(), result.elapsedMs());
+        return result;
+    }
+
+    public double getProgress() {
+        return totalPartitions.get() == 0 ? 0 : (double) completedPartitions.get() / totalPartitions.get();
+    }
+
+    @Override
+    public void close() {
+        cancelled = true;
+    }
+
+    private void rebuildPartition(Progress progress, int index) {
+        if (cancelled || progress.failed) {
+            return;
+        }
+        int fromId = progress.fromId(index);
+        int toId = progress.toId(index);
+        long start = System.nanoTime();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                throttle.acquire(toId - fromId);
+                List<CityCountry> rows = repository.getCityCountriesByIdRange(fromId, toId);
+                for (int from = 0; from < rows.size(); from += writeBatchSize) {
+                    writer.accept(rows.subList(from, Math.min(rows.size(), from + writeBatchSize)));
+                }
+                rowsWritten.increment(rows.size());
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= MAX_ATTEMPTS || cancelled) {
+                    progress.failed = true;
+                    throw e;
+                }
+                partitionRetries.increment();
+                logger.warn("Rebuild of city ids {}..{} failed (attempt {}), retrying: {}", fromId, toId - 1, attempt, e.getMessage());
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MS * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    cancelled = true;
+                    return;
+                }
+            }
+        }
+        partitionTimer.recordSince(start);
+        completedPartitions.incrementAndGet();
+        progress.complete(index);
+    }
+
+    private final class PartitionTask extends RecursiveAction {
+
+        private final Progress progress;
+        private final int from;
+        private final int to;
+
+        private PartitionTask(Progress progress, int from, int to) {
+            this.progress = progress;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                rebuildPartition(progress, from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PartitionTask(progress, from, middle), new PartitionTask(progress, middle, to));
+        }
+    }
+
+    private final class Progress {
+
+        private final int firstId;
+        private final int maxId;
+        private final int partitions;
+        private final BitSet done;
+        private int watermark;
+        private volatile boolean failed;
+
+        private Progress(int firstId, int maxId, int partitions) {
+            this.firstId = firstId;
+            this.maxId = maxId;
+            this.partitions = partitions;
+            this.done = new BitSet(partitions);
+        }
+
+        private int fromId(int index) {
+            return firstId + index * partitionSize;
+        }
+
+        private int toId(int index) {
+            return (int) Math.min((long) maxId + 1, (long) fromId(index) + partitionSize);
+        }
+
+        private synchronized void complete(int index) {
+            done.set(index);
+            int before = watermark;
+            while (watermark < partitions && done.get(watermark)) {
+                watermark++;
+            }
+            if (watermark != before) {
+                checkpoints.save(watermark == partitions ? (long) maxId + 1 : fromId(watermark));
+            }
+        }
+
+        private synchronized boolean isComplete() {
+            return watermark == partitions;
+        }
+    }
+
+    private static final class WorkerFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("cache-rebuild-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    public record Result(int firstId, int partitions, long rows, boolean completed, long elapsedMs) {
+    }
+}
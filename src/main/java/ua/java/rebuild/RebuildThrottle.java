@@ -0,0 +1,30 @@
+package ua.java.rebuild;
+
+import java.util.concurrent.TimeUnit;
+
+final class RebuildThrottle {
+
+    private final double nanosPerRow;
+    private long nextFreeNanos;
+
+    RebuildThrottle(double rowsPerSecond) {
+        this.nanosPerRow = rowsPerSecond <= 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / rowsPerSecond;
+        this.nextFreeNanos = System.nanoTime();
+    }
+
+    void acquire(int rows) throws InterruptedException {
+        long wait = reserve(rows, System.nanoTime());
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    synchronized long reserve(int rows, long now) {
+        if (nanosPerRow == 0) {
+            return 0;
+        }
+        long start = Math.max(now, nextFreeNanos);
+        nextFreeNanos = start + (long) (rows * nanosPerRow);
+        return start - now;
+    }
+}
@@ -15,6 +15,8 @@ public class CityCountry {
 
     private Integer population;
 
+    private Integer countryId;
+
     private String countryCode;
 
     private String alternativeCountryCode;
@@ -31,6 +33,10 @@ public class CityCountry {
 
     private Set<Language> languages;
 
+    private Integer version;
+
+    private Integer countryVersion;
+
     public Integer getId() {
         return id;
     }
@@ -63,6 +69,14 @@ public class CityCountry {
         this.population = population;
     }
 
+    public Integer getCountryId() {
+        return countryId;
+    }
+
+    public void setCountryId(Integer countryId) {
+        this.countryId = countryId;
+    }
+
     public String getCountryCode() {
         return countryCode;
     }
@@ -126,4 +140,20 @@ public class CityCountry {
     public void setLanguages(Set<Language> languages) {
         this.languages = languages;
     }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    public Integer getCountryVersion() {
+        return countryVersion;
+    }
+
+    public void setCountryVersion(Integer countryVersion) {
+        this.countryVersion = countryVersion;
+    }
 }
@@ -0,0 +1,172 @@
+package ua.java.redis;
+
+import ua.java.domain.enums.Continent;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+public final class CityCountryCodec {
+
+    private static final int INITIAL_SCRATCH_SIZE = 1024;
+    private static final int NULL_LENGTH = -1;
+    private static final ThreadLocal<ByteBuffer> scratch =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_SCRATCH_SIZE));
+
+    private CityCountryCodec() {
+    }
+
+    public static ByteBuffer encode(CityCountry cityCountry) {
+        ByteBuffer buffer = scratch.get();
+        while (true) {
+            buffer.clear();
+            try {
+                write(cityCountry, buffer);
+                buffer.flip();
+                return buffer;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                scratch.set(buffer);
+            }
+        }
+    }
+
+    public static void write(CityCountry cityCountry, ByteBuffer buffer) {
+        writeInteger(buffer, cityCountry.getId());
+        writeString(buffer, cityCountry.getName());
+        writeString(buffer, cityCountry.getDistrict());
+        writeInteger(buffer, cityCountry.getPopulation());
+        writeInteger(buffer, cityCountry.getCountryId());
+        writeString(buffer, cityCountry.getCountryCode());
+        writeString(buffer, cityCountry.getAlternativeCountryCode());
+        writeString(buffer, cityCountry.getCountryName());
+        buffer.put(cityCountry.getContinent() == null ? -1 : (byte) cityCountry.getContinent().ordinal());
+        writeString(buffer, cityCountry.getCountryRegion());
+        writeDecimal(buffer, cityCountry.getCountrySurfaceArea());
+        writeInteger(buffer, cityCountry.getCountryPopulation());
+        writeInteger(buffer, cityCountry.getVersion());
+        writeInteger(buffer, cityCountry.getCountryVersion());
+
+        Set<Language> languages = cityCountry.getLanguages();
+        if (languages == null) {
+            buffer.putShort((short) NULL_LENGTH);
+            return;
+        }
+        buffer.putShort((short) languages.size());
+        for (Language language : languages) {
+            writeString(buffer, language.getLanguage());
+            buffer.put(language.getOfficial() == null ? -1 : (byte) (language.getOfficial() ? 1 : 0));
+            writeDecimal(buffer, language.getPercentage());
+        }
+    }
+
+    public static int countryIdOf(ByteBuffer encoded) {
+        ByteBuffer buffer = encoded.duplicate();
+        readInteger(buffer);
+        skipString(buffer);
+        skipString(buffer);
+        readInteger(buffer);
+        Integer countryId = readInteger(buffer);
+        return countryId == null ? 0 : countryId;
+    }
+
+    public static CityCountry decode(ByteBuffer buffer) {
+        CityCountry res = new CityCountry();
+        res.setId(readInteger(buffer));
+        res.setName(readString(buffer));
+        res.setDistrict(readString(buffer));
+        res.setPopulation(readInteger(buffer));
+        res.setCountryId(readInteger(buffer));
+        res.setCountryCode(readString(buffer));
+        res.setAlternativeCountryCode(readString(buffer));
+        res.setCountryName(readString(buffer));
+        byte continent = buffer.get();
+        res.setContinent(continent < 0 ? null : Continent.values()[continent]);
+        res.setCountryRegion(readString(buffer));
+        res.setCountrySurfaceArea(readDecimal(buffer));
+        res.setCountryPopulation(readInteger(buffer));
+        res.setVersion(readInteger(buffer));
+        res.setCountryVersion(readInteger(buffer));
+
+        short languageCount = buffer.getShort();
+        if (languageCount == NULL_LENGTH) {
+            return res;
+        }
+        Set<Language> languages = new HashSet<>(languageCount * 2);
+        for (int i = 0; i < languageCount; i++) {
+            Language language = new Language();
+            language.setLanguage(readString(buffer));
+            byte official = buffer.get();
+            language.setOfficial(official < 0 ? null : official == 1);
+            language.setPercentage(readDecimal(buffer));
+            languages.add(language);
+        }
+        res.setLanguages(languages);
+        return res;
+    }
+
+    private static void writeInteger(ByteBuffer buffer, Integer value) {
+        if (value == null) {
+            buffer.put((byte) 0);
+            return;
+        }
+        buffer.put((byte) 1);
+        buffer.putInt(value);
+    }
+
+    private static Integer readInteger(ByteBuffer buffer) {
+        return buffer.get() == 0 ? null : buffer.getInt();
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static void skipString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length != NULL_LENGTH) {
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDecimal(ByteBuffer buffer, BigDecimal value) {
+        if (value == null) {
+            buffer.put((byte) NULL_LENGTH);
+            return;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        buffer.put((byte) unscaled.length);
+        buffer.put(unscaled);
+        buffer.putInt(value.scale());
+    }
+
+    private static BigDecimal readDecimal(ByteBuffer buffer) {
+        byte length = buffer.get();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] unscaled = new byte[length];
+        buffer.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), buffer.getInt());
+    }
+}
@@ -0,0 +1,51 @@
+package ua.java.redis;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+public enum CityCountryField {
+    ID("id"),
+    NAME("name"),
+    DISTRICT("district"),
+    POPULATION("population"),
+    COUNTRY_ID("countryId"),
+    COUNTRY_CODE("countryCode"),
+    ALTERNATIVE_COUNTRY_CODE("alternativeCountryCode"),
+    COUNTRY_NAME("countryName"),
+    CONTINENT("continent"),
+    COUNTRY_REGION("countryRegion"),
+    COUNTRY_SURFACE_AREA("countrySurfaceArea"),
+    COUNTRY_POPULATION("countryPopulation"),
+    LANGUAGES("languages"),
+    VERSION("version"),
+    COUNTRY_VERSION("countryVersion");
+
+    public static final Set<CityCountryField> CITY =
+            Collections.unmodifiableSet(EnumSet.of(ID, NAME, DISTRICT, POPULATION, VERSION));
+    public static final Set<CityCountryField> COUNTRY =
+            Collections.unmodifiableSet(EnumSet.of(ID, COUNTRY_ID, COUNTRY_CODE, ALTERNATIVE_COUNTRY_CODE, COUNTRY_NAME, CONTINENT,
+                    COUNTRY_REGION, COUNTRY_SURFACE_AREA, COUNTRY_POPULATION, COUNTRY_VERSION));
+    public static final Set<CityCountryField> ALL = Collections.unmodifiableSet(EnumSet.allOf(CityCountryField.class));
+
+    private static final CityCountryField[] VALUES = values();
+
+    private final String hashField;
+
+    CityCountryField(String hashField) {
+        this.hashField = hashField;
+    }
+
+    public String getHashField() {
+        return hashField;
+    }
+
+    public static CityCountryField fromHashField(String hashField) {
+        for (CityCountryField field : VALUES) {
+            if (field.hashField.equals(hashField)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown hash field: " + hashField);
+    }
+}
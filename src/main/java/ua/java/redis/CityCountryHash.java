@@ -0,0 +1,138 @@
+package ua.java.redis;
+
+import ua.java.domain.enums.Continent;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public final class CityCountryHash {
+
+    private static final char LANGUAGE_SEPARATOR = '\u001E';
+    private static final char VALUE_SEPARATOR = '\u001F';
+
+    private CityCountryHash() {
+    }
+
+    public static String[] fieldNames(Set<CityCountryField> fields) {
+        String[] names = new String[fields.size()];
+        int i = 0;
+        for (CityCountryField field : fields) {
+            names[i++] = field.getHashField();
+        }
+        return names;
+    }
+
+    public static Map<String, String> encode(CityCountry cityCountry, Set<CityCountryField> fields) {
+        Map<String, String> hash = new LinkedHashMap<>();
+        for (CityCountryField field : fields) {
+            hash.put(field.getHashField(), encode(cityCountry, field));
+        }
+        return hash;
+    }
+
+    public static CityCountry decode(String[] hashFields, List<String> values) {
+        CityCountry cityCountry = new CityCountry();
+        for (int i = 0; i < hashFields.length; i++) {
+            String value = values.get(i);
+            if (value != null && !value.isEmpty()) {
+                decode(cityCountry, CityCountryField.fromHashField(hashFields[i]), value);
+            }
+        }
+        return cityCountry;
+    }
+
+    private static String encode(CityCountry cityCountry, CityCountryField field) {
+        Object value = switch (field) {
+            case ID -> cityCountry.getId();
+            case NAME -> cityCountry.getName();
+            case DISTRICT -> cityCountry.getDistrict();
+            case POPULATION -> cityCountry.getPopulation();
+            case COUNTRY_ID -> cityCountry.getCountryId();
+            case COUNTRY_CODE -> cityCountry.getCountryCode();
+            case ALTERNATIVE_COUNTRY_CODE -> cityCountry.getAlternativeCountryCode();
+            case COUNTRY_NAME -> cityCountry.getCountryName();
+            case CONTINENT -> cityCountry.getContinent() == null ? null : cityCountry.getContinent().name();
+            case COUNTRY_REGION -> cityCountry.getCountryRegion();
+            case COUNTRY_SURFACE_AREA -> cityCountry.getCountrySurfaceArea() == null
+                    ? null : cityCountry.getCountrySurfaceArea().toPlainString();
+            case COUNTRY_POPULATION -> cityCountry.getCountryPopulation();
+            case LANGUAGES -> encodeLanguages(cityCountry.getLanguages());
+            case VERSION -> cityCountry.getVersion();
+            case COUNTRY_VERSION -> cityCountry.getCountryVersion();
+        };
+        return value == null ? "" : value.toString();
+    }
+
+    private static void decode(CityCountry cityCountry, CityCountryField field, String value) {
+        switch (field) {
+            case ID -> cityCountry.setId(Integer.valueOf(value));
+            case NAME -> cityCountry.setName(value);
+            case DISTRICT -> cityCountry.setDistrict(value);
+            case POPULATION -> cityCountry.setPopulation(Integer.valueOf(value));
+            case COUNTRY_ID -> cityCountry.setCountryId(Integer.valueOf(value));
+            case COUNTRY_CODE -> cityCountry.setCountryCode(value);
+            case ALTERNATIVE_COUNTRY_CODE -> cityCountry.setAlternativeCountryCode(value);
+            case COUNTRY_NAME -> cityCountry.setCountryName(value);
+            case CONTINENT -> cityCountry.setContinent(Continent.valueOf(value));
+            case COUNTRY_REGION -> cityCountry.setCountryRegion(value);
+            case COUNTRY_SURFACE_AREA -> cityCountry.setCountrySurfaceArea(new BigDecimal(value));
+            case COUNTRY_POPULATION -> cityCountry.setCountryPopulation(Integer.valueOf(value));
+            case LANGUAGES -> cityCountry.setLanguages(decodeLanguages(value));
+            case VERSION -> cityCountry.setVersion(Integer.valueOf(value));
+            case COUNTRY_VERSION -> cityCountry.setCountryVersion(Integer.valueOf(value));
+        }
+    }
+
+    private static String encodeLanguages(Set<Language> languages) {
+        if (languages == null) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Language language : languages) {
+            if (builder.length() > 0) {
+                builder.append(LANGUAGE_SEPARATOR);
+            }
+            builder.append(language.getLanguage() == null ? "" : language.getLanguage())
+                    .append(VALUE_SEPARATOR)
+                    .append(language.getOfficial() == null ? "" : language.getOfficial() ? "1" : "0")
+                    .append(VALUE_SEPARATOR)
+                    .append(language.getPercentage() == null ? "" : language.getPercentage().toPlainString());
+        }
+        return builder.length() == 0 ? String.valueOf(LANGUAGE_SEPARATOR) : builder.toString();
+    }
+
+    private static Set<Language> decodeLanguages(String value) {
+        Set<Language> languages = new HashSet<>();
+        int start = 0;
+        while (start < value.length()) {
+            int end = value.indexOf(LANGUAGE_SEPARATOR, start);
+            if (end < 0) {
+                end = value.length();
+            }
+            if (end > start) {
+                languages.add(decodeLanguage(value.substring(start, end)));
+            }
+            start = end + 1;
+        }
+        return languages;
+    }
+
+    private static Language decodeLanguage(String value) {
+        int first = value.indexOf(VALUE_SEPARATOR);
+        int second = first < 0 ? -1 : value.indexOf(VALUE_SEPARATOR, first + 1);
+        if (second < 0) {
+            throw new IllegalArgumentException("Malformed language entry: " + value);
+        }
+        Language language = new Language();
+        language.setLanguage(first == 0 ? null : value.substring(0, first));
+        String official = value.substring(first + 1, second);
+        language.setOfficial(official.isEmpty() ? null : "1".equals(official));
+        String percentage = value.substring(second + 1);
+        language.setPercentage(percentage.isEmpty() ? null : new BigDecimal(percentage));
+        return language;
+    }
+}
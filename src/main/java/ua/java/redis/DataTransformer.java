@@ -3,21 +3,29 @@ package ua.java.redis;
 import ua.java.domain.entity.City;
 import ua.java.domain.entity.Country;
 import ua.java.domain.entity.CountryLanguage;
+import ua.java.metrics.Metrics;
+import ua.java.metrics.Timer;
 
 import java.util.Set;
 import java.util.stream.Collectors;
 
 public class DataTransformer {
 
-    public static CityCountry transformDataToJson(City city) {
+    private static final Timer toCityCountryTimer = Metrics.registry().timer("transformer.duration", "operation", "toCityCountry");
+    private static final Timer toCityTimer = Metrics.registry().timer("transformer.duration", "operation", "toCity");
+    private static final Timer toCountryTimer = Metrics.registry().timer("transformer.duration", "operation", "toCountry");
 
+    public static CityCountry transformDataToJson(City city) {
+        long start = System.nanoTime();
         CityCountry res = new CityCountry();
         res.setId(city.getId());
         res.setName(city.getName());
         res.setPopulation(city.getPopulation());
         res.setDistrict(city.getDistrict());
+        res.setVersion(city.getVersion());
 
         Country country = city.getCountry();
+        res.setCountryId(country.getId());
         res.setAlternativeCountryCode(country.getSecondCode());
         res.setContinent(country.getContinent());
         res.setCountryCode(country.getCode());
@@ -25,6 +33,7 @@ public class DataTransformer {
         res.setCountryPopulation(country.getPopulation());
         res.setCountryRegion(country.getRegion());
         res.setCountrySurfaceArea(country.getSurfaceArea());
+        res.setCountryVersion(country.getVersion());
 
         Set<CountryLanguage> countryLanguages = country.getLanguages();
         Set<Language> languages = countryLanguages.stream().map(cl -> {
@@ -36,21 +45,26 @@ public class DataTransformer {
         }).collect(Collectors.toSet());
         res.setLanguages(languages);
 
+        toCityCountryTimer.recordSince(start);
         return res;
     }
 
     public static City fromJsonToCityEntity(CityCountry cityCountry) {
+        long start = System.nanoTime();
         City city = new City();
         city.setId(cityCountry.getId());
         city.setName(cityCountry.getName());
         city.setPopulation(cityCountry.getPopulation());
         city.setDistrict(cityCountry.getDistrict());
+        city.setVersion(cityCountry.getVersion());
+        toCityTimer.recordSince(start);
         return city;
     }
 
     public static Country fromJsonToCountryEntity(CityCountry cityCountry) {
+        long start = System.nanoTime();
         Country country = new Country();
-        country.setId(cityCountry.getId());
+        country.setId(cityCountry.getCountryId() != null ? cityCountry.getCountryId() : cityCountry.getId());
         country.setCode(cityCountry.getCountryCode());
         country.setName(cityCountry.getCountryName());
         country.setContinent(cityCountry.getContinent());
@@ -58,6 +72,8 @@ public class DataTransformer {
         country.setSurfaceArea(cityCountry.getCountrySurfaceArea());
         country.setPopulation(cityCountry.getCountryPopulation());
         country.setSecondCode(cityCountry.getAlternativeCountryCode());
+        country.setVersion(cityCountry.getCountryVersion());
+        toCountryTimer.recordSince(start);
         return country;
     }
 }
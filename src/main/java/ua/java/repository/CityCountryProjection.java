@@ -0,0 +1,80 @@
+package ua.java.repository;
+
+import org.hibernate.Session;
+import ua.java.domain.enums.Continent;
+import ua.java.redis.CityCountry;
+import ua.java.redis.Language;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+final class CityCountryProjection {
+
+    static final String SELECT = "select c.id, c.name, c.district, c.population, co.id, co.code, co.secondCode, " +
+            "co.name, co.continent, co.region, co.surfaceArea, co.population, c.version, co.version from City c join c.country co";
+
+    private static final String LANGUAGES = "select cl.country.id, cl.language, cl.official, cl.percentage " +
+            "from CountryLanguage cl";
+
+    private CityCountryProjection() {
+    }
+
+    static List<CityCountry> map(Session session, List<Object[]> rows, boolean allCountries) {
+        Map<Integer, List<CityCountry>> byCountry = new HashMap<>();
+        List<CityCountry> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            CityCountry res = new CityCountry();
+            res.setId((Integer) row[0]);
+            res.setName((String) row[1]);
+            res.setDistrict((String) row[2]);
+            res.setPopulation((Integer) row[3]);
+            res.setCountryId((Integer) row[4]);
+            res.setCountryCode((String) row[5]);
+            res.setAlternativeCountryCode((String) row[6]);
+            res.setCountryName((String) row[7]);
+            res.setContinent((Continent) row[8]);
+            res.setCountryRegion((String) row[9]);
+            res.setCountrySurfaceArea((BigDecimal) row[10]);
+            res.setCountryPopulation((Integer) row[11]);
+            res.setVersion((Integer) row[12]);
+            res.setCountryVersion((Integer) row[13]);
+            res.setLanguages(Collections.emptySet());
+            byCountry.computeIfAbsent((Integer) row[4], key -> new ArrayList<>()).add(res);
+            result.add(res);
+        }
+        if (!byCountry.isEmpty()) {
+            attachLanguages(session, byCountry, allCountries);
+        }
+        return result;
+    }
+
+    private static void attachLanguages(Session session, Map<Integer, List<CityCountry>> byCountry, boolean allCountries) {
+        List<Object[]> rows = allCountries
+                ? session.createQuery(LANGUAGES, Object[].class).list()
+                : session.createQuery(LANGUAGES + " where cl.country.id in (:IDS)", Object[].class)
+                        .setParameterList("IDS", byCountry.keySet())
+                        .list();
+
+        Map<Integer, Set<Language>> languagesByCountry = new HashMap<>();
+        for (Object[] row : rows) {
+            Language language = new Language();
+            language.setLanguage((String) row[1]);
+            language.setOfficial((Boolean) row[2]);
+            language.setPercentage((BigDecimal) row[3]);
+            languagesByCountry.computeIfAbsent((Integer) row[0], key -> new HashSet<>()).add(language);
+        }
+        languagesByCountry.forEach((countryId, languages) -> {
+            List<CityCountry> cities = byCountry.get(countryId);
+            if (cities != null) {
+                Set<Language> shared = Collections.unmodifiableSet(languages);
+                cities.forEach(cityCountry -> cityCountry.setLanguages(shared));
+            }
+        });
+    }
+}
@@ -1,103 +1,251 @@
 package ua.java.repository;
 
+import jakarta.persistence.OptimisticLockException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ua.java.domain.entity.City;
+import ua.java.domain.entity.Country;
+import ua.java.redis.CityCountry;
+import ua.java.transaction.TransactionTemplate;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public class CityRepository implements CrudRepository<City, Integer> {
 
     Logger logger = LoggerFactory.getLogger(CityRepository.class);
-    private final SessionFactory sessionFactory;
+    private final TransactionTemplate transactionTemplate;
 
     public CityRepository(SessionFactory sessionFactory) {
-        this.sessionFactory = sessionFactory;
+        this(new TransactionTemplate(sessionFactory));
+    }
+
+    public CityRepository(TransactionTemplate transactionTemplate) {
+        this.transactionTemplate = transactionTemplate;
     }
 
     @Override
     public List<City> getAll() {
-        try (Session session = sessionFactory.getCurrentSession()) {
-            session.beginTransaction();
-            List<City> result = session.createQuery("select c from City c", City.class).list();
-            session.getTransaction().commit();
-            return result;
-        }
+        return QueryMetrics.record("city", "getAll", () ->
+                transactionTemplate.executeBulkReadOnly(session ->
+                        session.createQuery("select c from City c", City.class).list()));
     }
 
     @Override
     public City getById(Integer id) {
-        try (Session session = sessionFactory.getCurrentSession()) {
-            session.beginTransaction();
-            City result = sessionFactory.getCurrentSession().createQuery("select c from City c join fetch c.country where c.id = :ID", City.class)
-                    .setParameter("ID", id)
-                    .getSingleResult();
-            session.getTransaction().commit();
-            return result;
-        }
+        return QueryMetrics.record("city", "getById", () ->
+                transactionTemplate.executeReadOnly(session ->
+                        session.createQuery("select c from City c join fetch c.country where c.id = :ID", City.class)
+                                .setParameter("ID", id)
+                                .getSingleResult()));
+    }
+
+    @Override
+    public Optional<City> findById(Integer id) {
+        return QueryMetrics.record("city", "findById", () ->
+                transactionTemplate.executeReadOnly(session ->
+                        session.createQuery("select c from City c join fetch c.country where c.id = :ID", City.class)
+                                .setParameter("ID", id)
+                                .uniqueResultOptional()));
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        return QueryMetrics.record("city", "existsById", () ->
+                transactionTemplate.executeReadOnly(session -> exists(session, id)));
+    }
+
+    public CityCountry getCityCountryById(Integer id) {
+        List<CityCountry> result = QueryMetrics.record("city", "getCityCountryById", () ->
+                transactionTemplate.executeReadOnly(session ->
+                        CityCountryProjection.map(session, session.createQuery(CityCountryProjection.SELECT + " where c.id = :ID", Object[].class)
+                                .setParameter("ID", id)
+                                .list(), false)));
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    public List<CityCountry> getAllCityCountries() {
+        return QueryMetrics.record("city", "getAllCityCountries", () ->
+                transactionTemplate.executeBulkReadOnly(session ->
+                        CityCountryProjection.map(session, session.createQuery(CityCountryProjection.SELECT, Object[].class)
+                                .setFetchSize(1000)
+                                .list(), true)));
+    }
+
+    public List<CityCountry> getCityCountriesByIds(Collection<Integer> ids) {
+        return QueryMetrics.record("city", "getCityCountriesByIds", () ->
+                transactionTemplate.executeBulkReadOnly(session ->
+                        CityCountryProjection.map(session, session.createQuery(CityCountryProjection.SELECT + " where c.id in (:IDS)", Object[].class)
+                                .setParameterList("IDS", ids)
+                                .list(), false)));
+    }
+
+    public List<CityCountry> getCityCountriesByCountryIds(Collection<Integer> countryIds) {
+        return QueryMetrics.record("city", "getCityCountriesByCountryIds", () ->
+                transactionTemplate.executeBulkReadOnly(session ->
+                        CityCountryProjection.map(session, session.createQuery(CityCountryProjection.SELECT + " where co.id in (:IDS)", Object[].class)
+                                .setParameterList("IDS", countryIds)
+                                .list(), false)));
+    }
+
+    public List<String> getNamesByCountryIds(Collection<Integer> countryIds) {
+        return QueryMetrics.record("city", "getNamesByCountryIds", () ->
+                transactionTemplate.executeBulkReadOnly(session ->
+                        session.createQuery("select c.name from City c where c.country.id in (:IDS)", String.class)
+                                .setParameterList("IDS", countryIds)
+                                .list()));
+    }
+
+    public List<CityCountry> getCityCountriesByIdRange(int fromInclusive, int toExclusive) {
+        return QueryMetrics.record("city", "getCityCountriesByIdRange", () ->
+                transactionTemplate.executeBulkReadOnly(session ->
+                        CityCountryProjection.map(session, session.createQuery(CityCountryProjection.SELECT +
+                                        " where c.id >= :FROM and c.id < :TO", Object[].class)
+                                .setParameter("FROM", fromInclusive)
+                                .setParameter("TO", toExclusive)
+                                .setFetchSize(1000)
+                                .list(), false)));
+    }
+
+    public List<CityCountry> getCityCountryItems(int offset, int limit) {
+        return QueryMetrics.record("city", "getCityCountryItems", () ->
+                transactionTemplate.executeBulkReadOnly(session ->
+                        CityCountryProjection.map(session, session.createQuery(CityCountryProjection.SELECT + " order by c.id", Object[].class)
+                                .setFirstResult(offset)
+                                .setMaxResults(limit)
+                                .list(), false)));
     }
 
     @Override
     public City save(City entity) {
-        try (Session session = sessionFactory.getCurrentSession()) {
-            session.beginTransaction();
-            session.persist(entity);
-            session.getTransaction().commit();
-            logger.info("City entity saved");
-            return entity;
-        }
+        QueryMetrics.run("city", "save", () -> transactionTemplate.executeWithoutResult(session -> session.persist(entity)));
+        logger.debug("City entity saved");
+        return entity;
+    }
+
+    public List<City> saveAll(List<City> entities) {
+        QueryMetrics.run("city", "saveAll", () -> transactionTemplate.executeWithoutResult(session -> entities.forEach(session::persist)));
+        logger.debug("{} City entities saved", entities.size());
+        return entities;
     }
 
     @Override
-    public void deleteById(Integer id) {
-        try (Session session = sessionFactory.getCurrentSession()) {
-            session.beginTransaction();
-            session.createQuery("delete from City where id = :ID")
-                    .setParameter("ID", id)
-                    .executeUpdate();
-            session.getTransaction().commit();
-        }
+    public boolean deleteById(Integer id) {
+        return QueryMetrics.record("city", "deleteById", () ->
+                transactionTemplate.execute(session ->
+                        session.createQuery("delete from City where id = :ID")
+                                .setParameter("ID", id)
+                                .executeUpdate() > 0));
+    }
+
+    public int deleteAllById(Collection<Integer> ids) {
+        return QueryMetrics.record("city", "deleteAllById", () ->
+                transactionTemplate.execute(session ->
+                        session.createQuery("delete from City where id in (:IDS)")
+                                .setParameterList("IDS", ids)
+                                .executeUpdate()));
     }
 
     @Override
     public void delete(City entity) {
-        try (Session session = sessionFactory.getCurrentSession()) {
-            session.beginTransaction();
-            session.delete(entity);
-            session.getTransaction().commit();
-        }
+        QueryMetrics.run("city", "delete", () -> transactionTemplate.executeWithoutResult(session -> session.delete(entity)));
     }
 
     @Override
     public void update(City entity) {
-        try(Session session = sessionFactory.getCurrentSession()) {
-            session.beginTransaction();
-            session.update(entity);
-            session.getTransaction().commit();
+        if (entity.getVersion() == null) {
+            throw new IllegalArgumentException("City version is required for an optimistic update");
         }
+        QueryMetrics.run("city", "update", () -> transactionTemplate.executeWithoutResult(session -> session.update(entity)));
+    }
+
+    @Override
+    public boolean updateById(Integer id, City entity) {
+        return QueryMetrics.record("city", "updateById", () ->
+                transactionTemplate.execute(session -> {
+                    Query<?> query = session.createQuery("update versioned City c set c.name = :name, c.district = :district, " +
+                                    "c.population = :population, c.country = :country where c.id = :ID" +
+                                    (entity.getVersion() == null ? "" : " and c.version = :version"))
+                            .setParameter("name", entity.getName())
+                            .setParameter("district", entity.getDistrict())
+                            .setParameter("population", entity.getPopulation())
+                            .setParameter("country", entity.getCountry() == null
+                                    ? null : session.getReference(Country.class, entity.getCountry().getId()))
+                            .setParameter("ID", id);
+                    if (entity.getVersion() != null) {
+                        query.setParameter("version", entity.getVersion());
+                    }
+                    if (query.executeUpdate() > 0) {
+                        return true;
+                    }
+                    if (entity.getVersion() != null && exists(session, id)) {
+                        throw new OptimisticLockException("City with id " + id + " was modified concurrently, expected version " + entity.getVersion());
+                    }
+                    return false;
+                }));
     }
 
     @Override
     public List<City> getItems(int offset, int limit) {
-        try (Session session = sessionFactory.getCurrentSession()) {
-            session.beginTransaction();
-            List<City> result = session.createQuery("select c from City c", City.class)
-                    .setFirstResult(offset)
-                    .setMaxResults(limit)
-                    .list();
-            session.getTransaction().commit();
-            return result;
-        }
+        return QueryMetrics.record("city", "getItems", () ->
+                transactionTemplate.executeBulkReadOnly(session ->
+                        session.createQuery("select c from City c", City.class)
+                                .setFirstResult(offset)
+                                .setMaxResults(limit)
+                                .list()));
     }
 
     public int getCount() {
-        try(Session session = sessionFactory.getCurrentSession()) {
-            session.beginTransaction();
-            Long result = session.createQuery("select count(c) from City c", Long.class).uniqueResult();
-            session.getTransaction().commit();
-            return Math.toIntExact(result);
-        }
+        Long result = QueryMetrics.record("city", "getCount", () ->
+                transactionTemplate.executeReadOnly(session ->
+                        session.createQuery("select count(c) from City c", Long.class).uniqueResult()));
+        return Math.toIntExact(result);
+    }
+
+    public List<Integer> getAllIds() {
+        return QueryMetrics.record("city", "getAllIds", () ->
+                transactionTemplate.executeBulkReadOnly(session ->
+                        session.createQuery("select c.id from City c", Integer.class)
+                                .setFetchSize(1000)
+                                .list()));
+    }
+
+    public int getMinId() {
+        Integer result = QueryMetrics.record("city", "getMinId", () ->
+                transactionTemplate.executeReadOnly(session ->
+                        session.createQuery("select min(c.id) from City c", Integer.class).uniqueResult()));
+        return result == null ? 0 : result;
+    }
+
+    public int getMaxId() {
+        Integer result = QueryMetrics.record("city", "getMaxId", () ->
+                transactionTemplate.executeReadOnly(session ->
+                        session.createQuery("select max(c.id) from City c", Integer.class).uniqueResult()));
+        return result == null ? 0 : result;
+    }
+
+    public long getVersionSum() {
+        Long result = QueryMetrics.record("city", "getVersionSum", () ->
+                transactionTemplate.executeReadOnly(session -> {
+                    Long cities = session.createQuery("select coalesce(sum(c.version), 0) from City c", Long.class).uniqueResult();
+                    Long countries = session.createQuery("select coalesce(sum(c.version), 0) from Country c", Long.class).uniqueResult();
+                    return cities + countries;
+                }));
+        return result == null ? 0 : result;
+    }
+
+    private static boolean exists(Session session, Integer id) {
+        return session.createQuery("select 1 from City c where c.id = :ID", Integer.class)
+                .setParameter("ID", id)
+                .setMaxResults(1)
+                .uniqueResult() != null;
+    }
+
+    public TransactionTemplate getTransactionTemplate() {
+        return transactionTemplate;
     }
-}
\ No newline at end of file
+}
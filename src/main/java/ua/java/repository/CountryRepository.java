@@ -1,116 +1,177 @@
 package ua.java.repository;
 
+import jakarta.persistence.OptimisticLockException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ua.java.domain.entity.City;
 import ua.java.domain.entity.Country;
+import ua.java.redis.CityCountry;
+import ua.java.transaction.TransactionTemplate;
 
 import java.util.List;
+import java.util.Optional;
 
 public class CountryRepository implements CrudRepository<Country, Integer> {
 
     Logger logger = LoggerFactory.getLogger(CountryRepository.class);
-    private final SessionFactory sessionFactory;
+    private final TransactionTemplate transactionTemplate;
 
     public CountryRepository(SessionFactory sessionFactory) {
-        this.sessionFactory = sessionFactory;
+        this(new TransactionTemplate(sessionFactory));
+    }
+
+    public CountryRepository(TransactionTemplate transactionTemplate) {
+        this.transactionTemplate = transactionTemplate;
     }
 
     @Override
     public List<Country> getAll() {
-        try(Session session = sessionFactory.getCurrentSession()) {
-            List<Country> result;
-            session.beginTransaction();
-            result = session.createQuery("select c from Country c join fetch c.languages", Country.class).list();
-            session.getTransaction().commit();
-            return result;
-        }
+        return QueryMetrics.record("country", "getAll", () ->
+                transactionTemplate.executeBulkReadOnly(session ->
+                        session.createQuery("select c from Country c join fetch c.languages", Country.class).list()));
     }
 
     @Override
     public Country getById(Integer id) {
-        try (Session session = sessionFactory.getCurrentSession()) {
-            session.beginTransaction();
-            Country result = sessionFactory.getCurrentSession().createQuery("select c from Country c join fetch c.languages where c.id = :ID", Country.class)
-                    .setParameter("ID", id)
-                    .getSingleResult();
-            session.getTransaction().commit();
-            return result;
-        }
+        return QueryMetrics.record("country", "getById", () ->
+                transactionTemplate.executeReadOnly(session ->
+                        session.createQuery("select c from Country c join fetch c.languages where c.id = :ID", Country.class)
+                                .setParameter("ID", id)
+                                .getSingleResult()));
+    }
+
+    @Override
+    public Optional<Country> findById(Integer id) {
+        return QueryMetrics.record("country", "findById", () ->
+                transactionTemplate.executeReadOnly(session ->
+                        session.createQuery("select c from Country c join fetch c.languages where c.id = :ID", Country.class)
+                                .setParameter("ID", id)
+                                .uniqueResultOptional()));
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        return QueryMetrics.record("country", "existsById", () ->
+                transactionTemplate.executeReadOnly(session -> exists(session, id)));
     }
 
     @Override
     public Country save(Country entity) {
-        try (Session session = sessionFactory.getCurrentSession()) {
-            session.beginTransaction();
-            session.persist(entity);
-            session.getTransaction().commit();
-            logger.info("City entity saved");
-            return entity;
-        }
+        QueryMetrics.run("country", "save", () -> transactionTemplate.executeWithoutResult(session -> session.persist(entity)));
+        logger.debug("Country entity saved");
+        return entity;
     }
 
     @Override
-    public void deleteById(Integer id) {
-        try (Session session = sessionFactory.getCurrentSession()) {
-            session.beginTransaction();
-            session.createQuery("delete from Country c where c.id = :ID")
-                    .setParameter("ID", id);
-            session.getTransaction().commit();
-        }
+    public boolean deleteById(Integer id) {
+        return QueryMetrics.record("country", "deleteById", () ->
+                transactionTemplate.execute(session ->
+                        session.createQuery("delete from Country c where c.id = :ID")
+                                .setParameter("ID", id)
+                                .executeUpdate() > 0));
     }
 
     @Override
     public void delete(Country entity) {
-        try (Session session = sessionFactory.getCurrentSession()) {
-            session.beginTransaction();
-            session.delete(entity);
-            session.getTransaction().commit();
-        }
+        QueryMetrics.run("country", "delete", () -> transactionTemplate.executeWithoutResult(session -> session.delete(entity)));
     }
 
     @Override
     public void update(Country entity) {
-        try(Session session = sessionFactory.getCurrentSession()) {
-            session.beginTransaction();
-            session.update(entity);
-            session.getTransaction().commit();
+        if (entity.getVersion() == null) {
+            throw new IllegalArgumentException("Country version is required for an optimistic update");
         }
+        QueryMetrics.run("country", "update", () -> transactionTemplate.executeWithoutResult(session -> session.update(entity)));
+    }
+
+    @Override
+    public boolean updateById(Integer id, Country entity) {
+        return QueryMetrics.record("country", "updateById", () ->
+                transactionTemplate.execute(session -> {
+                    Query<?> query = session.createQuery("update versioned Country c set c.code = :code, c.secondCode = :secondCode, " +
+                                    "c.name = :name, c.continent = :continent, c.region = :region, " +
+                                    "c.surfaceArea = :surfaceArea, c.independenceYear = :independenceYear, " +
+                                    "c.population = :population, c.lifeExpectancy = :lifeExpectancy, c.gnp = :gnp, " +
+                                    "c.gnpoId = :gnpoId, c.localName = :localName, c.governmentForm = :governmentForm, " +
+                                    "c.headOfState = :headOfState, c.capital = :capital where c.id = :ID" +
+                                    (entity.getVersion() == null ? "" : " and c.version = :version"))
+                            .setParameter("code", entity.getCode())
+                            .setParameter("secondCode", entity.getSecondCode())
+                            .setParameter("name", entity.getName())
+                            .setParameter("continent", entity.getContinent())
+                            .setParameter("region", entity.getRegion())
+                            .setParameter("surfaceArea", entity.getSurfaceArea())
+                            .setParameter("independenceYear", entity.getIndependenceYear())
+                            .setParameter("population", entity.getPopulation())
+                            .setParameter("lifeExpectancy", entity.getLifeExpectancy())
+                            .setParameter("gnp", entity.getGnp())
+                            .setParameter("gnpoId", entity.getGnpoId())
+                            .setParameter("localName", entity.getLocalName())
+                            .setParameter("governmentForm", entity.getGovernmentForm())
+                            .setParameter("headOfState", entity.getHeadOfState())
+                            .setParameter("capital", entity.getCapital() == null
+                                    ? null : session.getReference(City.class, entity.getCapital().getId()))
+                            .setParameter("ID", id);
+                    if (entity.getVersion() != null) {
+                        query.setParameter("version", entity.getVersion());
+                    }
+                    if (query.executeUpdate() > 0) {
+                        return true;
+                    }
+                    if (entity.getVersion() != null && exists(session, id)) {
+                        throw new OptimisticLockException("Country with id " + id + " was modified concurrently, expected version " + entity.getVersion());
+                    }
+                    return false;
+                }));
     }
 
     @Override
     public List<Country> getItems(int offset, int limit) {
-        try (Session session = sessionFactory.getCurrentSession()) {
-            session.beginTransaction();
-            List<Country> result = session.createQuery("select c from Country c", Country.class)
-                    .setFirstResult(offset)
-                    .setMaxResults(limit)
-                    .list();
-            session.getTransaction().commit();
-            return result;
-        }
+        return QueryMetrics.record("country", "getItems", () ->
+                transactionTemplate.executeBulkReadOnly(session ->
+                        session.createQuery("select c from Country c", Country.class)
+                                .setFirstResult(offset)
+                                .setMaxResults(limit)
+                                .list()));
     }
 
     public City getCityByCountryId(Integer countryId) {
-        try (Session session = sessionFactory.getCurrentSession()) {
-            session.beginTransaction();
-            Country country = session.createQuery("select c from Country c left join fetch c.capital where c.id = :countryId", Country.class)
-                    .setParameter("countryId", countryId)
-                    .getSingleResult();
-            session.getTransaction().commit();
-            return country.getCapital();
-        }
+        return QueryMetrics.record("country", "getCityByCountryId", () ->
+                transactionTemplate.executeReadOnly(session ->
+                        session.createQuery("select c from Country c left join fetch c.capital where c.id = :countryId", Country.class)
+                                .setParameter("countryId", countryId)
+                                .getSingleResult()
+                                .getCapital()));
     }
 
+    public CityCountry getCapitalCityCountry(Integer countryId) {
+        List<CityCountry> result = QueryMetrics.record("country", "getCapitalCityCountry", () ->
+                transactionTemplate.executeReadOnly(session ->
+                        CityCountryProjection.map(session, session.createQuery(CityCountryProjection.SELECT +
+                                        " where c.id = (select cc.capital.id from Country cc where cc.id = :countryId)", Object[].class)
+                                .setParameter("countryId", countryId)
+                                .list(), false)));
+        return result.isEmpty() ? null : result.get(0);
+    }
 
     public int getCount() {
-        try(Session session = sessionFactory.getCurrentSession()) {
-            session.beginTransaction();
-            Long result = session.createQuery("select count(c) from Country c", Long.class).uniqueResult();
-            session.getTransaction().commit();
-            return Math.toIntExact(result);
-        }
+        Long result = QueryMetrics.record("country", "getCount", () ->
+                transactionTemplate.executeReadOnly(session ->
+                        session.createQuery("select count(c) from Country c", Long.class).uniqueResult()));
+        return Math.toIntExact(result);
+    }
+
+    private static boolean exists(Session session, Integer id) {
+        return session.createQuery("select 1 from Country c where c.id = :ID", Integer.class)
+                .setParameter("ID", id)
+                .setMaxResults(1)
+                .uniqueResult() != null;
+    }
+
+    public TransactionTemplate getTransactionTemplate() {
+        return transactionTemplate;
     }
 }
@@ -1,6 +1,7 @@
 package ua.java.repository;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface CrudRepository<T, I> {
 
@@ -8,13 +9,19 @@ public interface CrudRepository<T, I> {
 
     T getById(I id);
 
+    Optional<T> findById(I id);
+
+    boolean existsById(I id);
+
     T save(T entity);
 
-    void deleteById(I id);
+    boolean deleteById(I id);
 
     void delete(T entity);
 
     void update(T entity);
 
+    boolean updateById(I id, T entity);
+
     List<T> getItems(int offset, int limit);
 }
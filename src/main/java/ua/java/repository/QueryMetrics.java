@@ -0,0 +1,90 @@
+package ua.java.repository;
+
+import ua.java.metrics.DistributionSummary;
+import ua.java.metrics.MeterRegistry;
+import ua.java.metrics.Metrics;
+import ua.java.metrics.Timer;
+import ua.java.query.QueryAnalysis;
+import ua.java.tracing.Span;
+import ua.java.tracing.Tracing;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+final class QueryMetrics {
+
+    private static final Map<String, Map<String, QueryMeters>> meters = new ConcurrentHashMap<>();
+
+    private QueryMetrics() {
+    }
+
+    static void run(String entity, String query, Runnable work) {
+        record(entity, query, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    static <T> T record(String entity, String query, Supplier<T> work) {
+        QueryMeters queryMeters = meters(entity, query);
+        Span span = Tracing.tracer().startSpan("db.query").setAttribute("entity", entity).setAttribute("query", query);
+        String previousOrigin = QueryAnalysis.enter(queryMeters.origin);
+        long start = System.nanoTime();
+        try {
+            T result = work.get();
+            if (result instanceof Collection<?> rows) {
+                queryMeters.rows().record(rows.size());
+                span.setAttribute("rows", rows.size());
+            }
+            return result;
+        } catch (RuntimeException e) {
+            queryMeters.registry.counter("repository.query.errors", "entity", entity, "query", query).increment();
+            span.setAttribute("error", e.getClass().getSimpleName());
+            throw e;
+        } finally {
+            queryMeters.duration.recordSince(start);
+            span.end();
+            QueryAnalysis.exit(previousOrigin);
+        }
+    }
+
+    private static QueryMeters meters(String entity, String query) {
+        MeterRegistry registry = Metrics.registry();
+        Map<String, QueryMeters> byQuery = meters.computeIfAbsent(entity, key -> new ConcurrentHashMap<>());
+        QueryMeters queryMeters = byQuery.get(query);
+        if (queryMeters == null || queryMeters.registry != registry) {
+            queryMeters = new QueryMeters(registry, entity, query);
+            byQuery.put(query, queryMeters);
+        }
+        return queryMeters;
+    }
+
+    private static final class QueryMeters {
+
+        private final MeterRegistry registry;
+        private final String entity;
+        private final String query;
+        private final String origin;
+        private final Timer duration;
+        private volatile DistributionSummary rows;
+
+        private QueryMeters(MeterRegistry registry, String entity, String query) {
+            this.registry = registry;
+            this.entity = entity;
+            this.query = query;
+            this.origin = entity + "." + query;
+            this.duration = registry.timer("repository.query.duration", "entity", entity, "query", query);
+        }
+
+        private DistributionSummary rows() {
+            DistributionSummary summary = rows;
+            if (summary == null) {
+                summary = registry.summary("repository.query.rows", "entity", entity, "query", query);
+                rows = summary;
+            }
+            return summary;
+        }
+    }
+}
@@ -1,33 +1,83 @@
 package ua.java.service;
 
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.StaleStateException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ua.java.cache.CacheSnapshot;
+import ua.java.cache.NegativeCache;
+import ua.java.cache.NormalizedCityCache;
+import ua.java.cache.OffHeapCityCache;
 import ua.java.cache.RedisRepository;
+import ua.java.cdc.CacheChangeListener;
+import ua.java.collection.ConcurrentIntIntMap;
+import ua.java.collection.ConcurrentIntObjectMap;
+import ua.java.collection.IntIntMap;
+import ua.java.collection.IntObjectMap;
 import ua.java.domain.entity.City;
 import ua.java.domain.exception.DatabaseOperationException;
+import ua.java.domain.exception.OverloadException;
+import ua.java.logging.RateLimitedLogger;
+import ua.java.metrics.Counter;
+import ua.java.metrics.MeterRegistry;
+import ua.java.metrics.Metrics;
 import ua.java.redis.CityCountry;
+import ua.java.redis.CityCountryField;
 import ua.java.redis.DataTransformer;
 import ua.java.repository.CityRepository;
+import ua.java.tracing.Span;
+import ua.java.tracing.Tracer;
+import ua.java.tracing.Tracing;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Objects.isNull;
 
-public class CityService {
+public class CityService implements CacheChangeListener {
 
     private static final Logger logger = LoggerFactory.getLogger(CityService.class);
+    private static final RateLimitedLogger rateLimitedLogger = new RateLimitedLogger(logger, 10, TimeUnit.SECONDS);
     private final CityRepository repository;
     private final RedisRepository redisRepository;
-    private final Map<Integer, Integer> requestCountMap = new HashMap<>();
-    private final Map<Integer, String> requestNameMap = new HashMap<>();
+    private final OffHeapCityCache nearCache;
+    private final NormalizedCityCache normalizedCache;
+    private final NegativeCache negativeCache;
+    private final Counter nearCacheHits;
+    private final Counter redisHits;
+    private final Counter misses;
+    private final Counter admissions;
+    private final IntIntMap requestCountMap = new ConcurrentIntIntMap();
+    private final IntObjectMap<String> requestNameMap = new ConcurrentIntObjectMap<>();
     private final int CACHE_THRESHOLD = 2;
 
-    public CityService(CityRepository repository, RedisRepository redisRepository) {
+    public CityService(CityRepository repository, RedisRepository redisRepository, OffHeapCityCache nearCache) {
+        this(repository, redisRepository, nearCache, null);
+    }
+
+    public CityService(CityRepository repository, RedisRepository redisRepository, OffHeapCityCache nearCache,
+                       NormalizedCityCache normalizedCache) {
+        this(repository, redisRepository, nearCache, normalizedCache, null);
+    }
+
+    public CityService(CityRepository repository, RedisRepository redisRepository, OffHeapCityCache nearCache,
+                       NormalizedCityCache normalizedCache, NegativeCache negativeCache) {
         this.repository = repository;
         this.redisRepository = redisRepository;
+        this.nearCache = nearCache;
+        this.normalizedCache = normalizedCache;
+        this.negativeCache = negativeCache;
+        MeterRegistry registry = Metrics.registry();
+        this.nearCacheHits = registry.counter("cache.requests", "entity", "city", "result", "near_cache");
+        this.redisHits = registry.counter("cache.requests", "entity", "city", "result", "redis");
+        this.misses = registry.counter("cache.requests", "entity", "city", "result", "miss");
+        this.admissions = registry.counter("cache.admissions", "entity", "city");
     }
 
     public List<City> getAll() {
@@ -35,42 +85,165 @@ public class CityService {
     }
 
     public City getById(Integer id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("City with id " + id + " not found"));
+    }
+
+    public Optional<City> findById(Integer id) {
         if (isNull(id) || id <= 0) {
-            logger.error("Invalid id provided: {}", id);
+            rateLimitedLogger.error("Invalid id provided: {}", id);
             throw new IllegalArgumentException("Id cannot be null or less than or equal to 0");
         }
 
-        if (requestCountMap.containsKey(id) && requestCountMap.get(id) >= CACHE_THRESHOLD) {
-            logger.info("Returning City info with id {} from Redis cache", id);
-            CityCountry cityCountry = redisRepository.getDataByName(requestNameMap.get(id));
-            return DataTransformer.fromJsonToCityEntity(cityCountry);
+        Span span = Tracing.tracer().startSpan("city.findById").setAttribute("id", id);
+        try {
+            return loadById(id, span);
+        } finally {
+            span.end();
+        }
+    }
+
+    public boolean existsById(Integer id) {
+        if (isNull(id) || id <= 0) {
+            throw new IllegalArgumentException("Id cannot be null or less than or equal to 0");
+        }
+        if (requestNameMap.containsKey(id)) {
+            return true;
+        }
+        if (negativeCache != null && negativeCache.isMissing(id)) {
+            return false;
+        }
+        boolean exists = repository.existsById(id);
+        if (!exists && negativeCache != null) {
+            negativeCache.markMissing(id);
+        }
+        return exists;
+    }
+
+    private Optional<City> loadById(int id, Span span) {
+        Tracer tracer = Tracing.tracer();
+        Span child = tracer.startSpan("city.requestCount");
+        int requestCount = requestCountMap.get(id);
+        child.end();
+        if (requestCount >= CACHE_THRESHOLD) {
+            child = tracer.startSpan("city.nearCache.get");
+            CityCountry cityCountry = nearCache.get(id);
+            child.end();
+            if (cityCountry != null) {
+                nearCacheHits.increment();
+                span.setAttribute("tier", "near_cache");
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Returning City info with id {} from near cache", id);
+                }
+                return Optional.of(toEntity(tracer, cityCountry));
+            }
+            if (normalizedCache != null) {
+                cityCountry = normalizedCache.getCity(id);
+            } else {
+                String name = requestNameMap.get(id);
+                cityCountry = name == null ? null : redisRepository.getDataByName(name);
+            }
+            if (cityCountry != null && !Integer.valueOf(id).equals(cityCountry.getId())) {
+                cityCountry = null;
+            }
+            if (cityCountry != null) {
+                redisHits.increment();
+                span.setAttribute("tier", "redis");
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Returning City info with id {} from Redis cache", id);
+                }
+                nearCache.put(cityCountry);
+                return Optional.of(toEntity(tracer, cityCountry));
+            }
         }
 
-        requestCountMap.put(id, requestCountMap.getOrDefault(id, 0) + 1);
+        if (negativeCache != null && negativeCache.isMissing(id)) {
+            span.setAttribute("tier", "negative");
+            return Optional.empty();
+        }
 
-        City city;
+        misses.increment();
+        span.setAttribute("tier", "db");
+        requestCount = requestCountMap.addAndGet(id, 1);
+
+        Optional<City> found;
+        CityCountry admitted = null;
         try {
-            city = repository.getById(id);
+            if (requestCount >= CACHE_THRESHOLD) {
+                admitted = repository.getCityCountryById(id);
+                found = admitted == null ? Optional.empty() : Optional.of(toEntity(tracer, admitted));
+            } else {
+                found = repository.findById(id);
+            }
+        } catch (OverloadException e) {
+            throw e;
         } catch (Exception e) {
-            logger.error("City with id {} not found", id);
-            throw new EntityNotFoundException("City with id " + id + " not found");
+            rateLimitedLogger.error("Could not load City with id {}: {}", id, e.getMessage());
+            throw new DatabaseOperationException("Error loading city");
         }
-
-        if (requestCountMap.get(id) >= CACHE_THRESHOLD) {
-            requestNameMap.put(id, city.getName());
-            CityCountry cityCountry = DataTransformer.transformDataToJson(city);
-            redisRepository.cacheData(cityCountry);
-            logger.info("Frequent City and Country data with id {} cached in Redis", id);
+        if (found.isEmpty()) {
+            requestCountMap.remove(id);
+            if (negativeCache != null) {
+                negativeCache.markMissing(id);
+            }
+            rateLimitedLogger.warn("City with id {} not found", id);
+            return found;
         }
+        if (admitted != null) {
+            requestNameMap.put(id, admitted.getName());
+            if (normalizedCache != null) {
+                normalizedCache.put(admitted);
+            } else {
+                redisRepository.cacheIfNewer(admitted);
+            }
+            nearCache.put(admitted);
+            admissions.increment();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Frequent City and Country data with id {} cached in Redis", id);
+            }
+        }
+
+        return found;
+    }
 
-        return city;
+    private static City toEntity(Tracer tracer, CityCountry cityCountry) {
+        Span span = tracer.startSpan("city.transform");
+        try {
+            return DataTransformer.fromJsonToCityEntity(cityCountry);
+        } finally {
+            span.end();
+        }
     }
 
     public City save(City entity) {
         if (entity == null) {
             throw new IllegalArgumentException("City entity cannot be null");
         }
-        return repository.save(entity);
+        City saved = repository.save(entity);
+        markPresent(saved);
+        return saved;
+    }
+
+    public List<City> saveAll(List<City> entities) {
+        if (entities == null || entities.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("City entities cannot be null");
+        }
+        List<City> saved = repository.saveAll(entities);
+        saved.forEach(this::markPresent);
+        return saved;
+    }
+
+    public int deleteAllById(Collection<Integer> ids) {
+        if (ids == null || ids.stream().anyMatch(id -> isNull(id) || id <= 0)) {
+            logger.error("Invalid ids provided: {}", ids);
+            throw new IllegalArgumentException("Ids cannot be null or less than or equal to 0");
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = repository.deleteAllById(ids);
+        ids.forEach(this::invalidateCache);
+        logger.info("Deleted {} of {} requested cities", deleted, ids.size());
+        return deleted;
     }
 
     public void deleteById(Integer id) {
@@ -79,13 +252,11 @@ public class CityService {
             throw new IllegalArgumentException("Id cannot be null or less than or equal to 0");
         }
         logger.info("Attempting to delete city with id: {}", id);
-        try {
-            repository.getById(id);
-        } catch (Exception e) {
+        if (!repository.deleteById(id)) {
             logger.error("City with id {} not found", id);
             throw new EntityNotFoundException("City with id " + id + " not found");
         }
-        repository.deleteById(id);
+        invalidateCache(id);
         logger.info("Successfully deleted city with id {}", id);
     }
 
@@ -99,6 +270,7 @@ public class CityService {
         } catch (Exception e) {
             throw new DatabaseOperationException("Error deleting city");
         }
+        invalidateCache(entity.getId());
     }
 
     public void update(City entity) {
@@ -108,9 +280,13 @@ public class CityService {
         try {
             repository.update(entity);
             logger.info("Successfully updated City entity");
+        } catch (OptimisticLockException | StaleStateException e) {
+            logger.warn("City with id {} was modified concurrently", entity.getId());
+            throw new OptimisticLockException("City with id " + entity.getId() + " was modified concurrently", e);
         } catch (Exception e) {
             throw new DatabaseOperationException("Error updating city");
         }
+        refreshCache(entity.getId());
     }
 
     public void updateById(Integer id, City entity) {
@@ -118,18 +294,11 @@ public class CityService {
             logger.error("Invalid id or city entity provided: {}, {}", id, entity);
             throw new IllegalArgumentException("Invalid id or city entity");
         }
-        City existingCity;
-        try {
-            existingCity = repository.getById(id);
-        } catch (Exception e) {
+        if (!repository.updateById(id, entity)) {
+            logger.error("City with id {} not found", id);
             throw new EntityNotFoundException("City with id " + id + " not found");
         }
-        existingCity.setId(id);
-        existingCity.setCountry(entity.getCountry());
-        existingCity.setName(entity.getName());
-        existingCity.setDistrict(entity.getDistrict());
-        existingCity.setPopulation(entity.getPopulation());
-        repository.update(existingCity);
+        refreshCache(id);
         logger.info("Successfully updated city with id {}", id);
     }
 
@@ -144,11 +313,103 @@ public class CityService {
         return repository.getCount();
     }
 
-    public Map<Integer, Integer> getRequestCountMap() {
+    public void writeSnapshot(Path path) {
+        try {
+            CacheSnapshot.write(path, nearCache, requestCountMap, requestNameMap, repository.getMaxId(), repository.getCount(),
+                    repository.getVersionSum());
+            logger.info("Cache snapshot written to {}", path);
+        } catch (IOException e) {
+            logger.error("Could not write cache snapshot to {}", path, e);
+        }
+    }
+
+    public boolean restoreSnapshot(Path path) {
+        CacheSnapshot snapshot;
+        try {
+            snapshot = CacheSnapshot.map(path);
+        } catch (IOException e) {
+            logger.warn("Could not load cache snapshot {}: {}", path, e.getMessage());
+            return false;
+        }
+        if (!snapshot.isCurrent(repository.getMaxId(), repository.getCount(), repository.getVersionSum())) {
+            logger.info("Cache snapshot {} is stale, skipping restore", path);
+            return false;
+        }
+        int seeded = snapshot.seed(nearCache);
+        snapshot.restoreStatistics(requestCountMap, requestNameMap);
+        logger.info("Restored {} cities from cache snapshot {}", seeded, path);
+        return true;
+    }
+
+    public void rebuildIdFilter(double falsePositiveRate) {
+        if (negativeCache != null) {
+            negativeCache.rebuildKnownIds(repository::getAllIds, falsePositiveRate);
+        }
+    }
+
+    private void markPresent(City city) {
+        if (negativeCache != null && city != null && city.getId() != null) {
+            negativeCache.markPresent(city.getId());
+        }
+    }
+
+    private void refreshCache(Integer id) {
+        String name = id == null ? null : requestNameMap.get(id);
+        if (name == null) {
+            invalidateCache(id);
+            return;
+        }
+        nearCache.invalidate(id);
+        CityCountry cityCountry = repository.getCityCountryById(id);
+        if (cityCountry == null) {
+            invalidateCache(id);
+            return;
+        }
+        requestNameMap.put(id, cityCountry.getName());
+        if (normalizedCache != null) {
+            normalizedCache.put(cityCountry);
+        } else if (name.equals(cityCountry.getName())) {
+            redisRepository.updateFields(cityCountry, CityCountryField.CITY);
+        } else {
+            redisRepository.evictData(name);
+            redisRepository.cacheIfNewer(cityCountry);
+        }
+        nearCache.put(cityCountry);
+    }
+
+    private void invalidateCache(Integer id) {
+        if (id == null) {
+            return;
+        }
+        nearCache.invalidate(id);
+        requestCountMap.remove(id);
+        String name = requestNameMap.remove(id);
+        if (normalizedCache != null) {
+            normalizedCache.evictCity(id);
+        } else if (name != null) {
+            redisRepository.evictData(name);
+        }
+    }
+
+    @Override
+    public void cityChanged(int cityId) {
+        if (negativeCache != null) {
+            negativeCache.markPresent(cityId);
+        }
+        nearCache.invalidate(cityId);
+        requestNameMap.remove(cityId);
+    }
+
+    @Override
+    public void countryChanged(int countryId) {
+        nearCache.invalidateCountry(countryId);
+    }
+
+    public IntIntMap getRequestCountMap() {
         return requestCountMap;
     }
 
-    public Map<Integer, String> getRequestNameMap() {
+    public IntObjectMap<String> getRequestNameMap() {
         return requestNameMap;
     }
 }
@@ -1,33 +1,59 @@
 package ua.java.service;
 
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.StaleStateException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ua.java.cache.NormalizedCityCache;
 import ua.java.cache.RedisRepository;
-import ua.java.domain.entity.City;
+import ua.java.collection.ConcurrentIntIntMap;
+import ua.java.collection.ConcurrentIntObjectMap;
+import ua.java.collection.IntIntMap;
+import ua.java.collection.IntObjectMap;
 import ua.java.domain.entity.Country;
 import ua.java.domain.exception.DatabaseOperationException;
+import ua.java.domain.exception.OverloadException;
+import ua.java.logging.RateLimitedLogger;
+import ua.java.metrics.Counter;
+import ua.java.metrics.MeterRegistry;
+import ua.java.metrics.Metrics;
 import ua.java.redis.CityCountry;
+import ua.java.redis.CityCountryField;
 import ua.java.redis.DataTransformer;
 import ua.java.repository.CountryRepository;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Objects.isNull;
 
 public class CountryService {
     private static final Logger logger = LoggerFactory.getLogger(CountryService.class);
+    private static final RateLimitedLogger rateLimitedLogger = new RateLimitedLogger(logger, 10, TimeUnit.SECONDS);
     private final CountryRepository repository;
     private final RedisRepository redisRepository;
-    private final Map<Integer, Integer> requestCountMap = new HashMap<>();
-    private final Map<Integer, String> requestNameMap = new HashMap<>();
+    private final NormalizedCityCache normalizedCache;
+    private final Counter redisHits;
+    private final Counter misses;
+    private final Counter admissions;
+    private final IntIntMap requestCountMap = new ConcurrentIntIntMap();
+    private final IntObjectMap<String> requestNameMap = new ConcurrentIntObjectMap<>();
     private final int CACHE_THRESHOLD = 2;
 
     public CountryService(CountryRepository repository, RedisRepository redisRepository) {
+        this(repository, redisRepository, null);
+    }
+
+    public CountryService(CountryRepository repository, RedisRepository redisRepository, NormalizedCityCache normalizedCache) {
         this.repository = repository;
         this.redisRepository = redisRepository;
+        this.normalizedCache = normalizedCache;
+        MeterRegistry registry = Metrics.registry();
+        this.redisHits = registry.counter("cache.requests", "entity", "country", "result", "redis");
+        this.misses = registry.counter("cache.requests", "entity", "country", "result", "miss");
+        this.admissions = registry.counter("cache.admissions", "entity", "country");
     }
 
     public List<Country> getAll() {
@@ -35,36 +61,79 @@ public class CountryService {
     }
 
     public Country getById(Integer id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("Country with id " + id + " not found"));
+    }
+
+    public Optional<Country> findById(Integer id) {
         if (isNull(id) || id <= 0) {
-            logger.error("Invalid id provided: {}", id);
+            rateLimitedLogger.error("Invalid id provided: {}", id);
             throw new IllegalArgumentException("Id cannot be null or less than or equal to 0");
         }
 
-        if (requestCountMap.containsKey(id) && requestCountMap.get(id) >= CACHE_THRESHOLD) {
-            logger.info("Returning Country info with id {} from Redis cache", id);
-            CityCountry cityCountry = redisRepository.getDataByName(requestNameMap.get(id));
-            return DataTransformer.fromJsonToCountryEntity(cityCountry);
+        int requestCount = requestCountMap.get(id);
+        if (requestCount >= CACHE_THRESHOLD) {
+            CityCountry cityCountry;
+            if (normalizedCache != null) {
+                cityCountry = normalizedCache.getCountry(id);
+            } else {
+                String name = requestNameMap.get(id);
+                cityCountry = name == null ? null : redisRepository.getDataByName(name, CityCountryField.COUNTRY);
+            }
+            if (cityCountry != null && !id.equals(cityCountry.getCountryId())) {
+                cityCountry = null;
+            }
+            if (cityCountry != null) {
+                redisHits.increment();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Returning Country info with id {} from Redis cache", id);
+                }
+                return Optional.of(DataTransformer.fromJsonToCountryEntity(cityCountry));
+            }
         }
 
-        requestCountMap.put(id, requestCountMap.getOrDefault(id, 0) + 1);
+        misses.increment();
+        requestCount = requestCountMap.addAndGet(id, 1);
 
-        Country country;
+        Optional<Country> found;
         try {
-            country = repository.getById(id);
+            found = repository.findById(id);
+        } catch (OverloadException e) {
+            throw e;
         } catch (Exception e) {
-            logger.error("Country with id {} not found", id);
-            throw new EntityNotFoundException("Country with id " + id + " not found");
+            rateLimitedLogger.error("Could not load Country with id {}: {}", id, e.getMessage());
+            throw new DatabaseOperationException("Error loading Country");
         }
-
-        if (requestCountMap.get(id) >= CACHE_THRESHOLD) {
-            City city = repository.getCityByCountryId(country.getId());
-            requestNameMap.put(id, city.getName());
-            CityCountry cityCountry = DataTransformer.transformDataToJson(city);
-            redisRepository.cacheData(cityCountry);
-            logger.info("Frequent City and Country data with id {} cached in Redis", id);
+        if (found.isEmpty()) {
+            requestCountMap.remove(id);
+            rateLimitedLogger.warn("Country with id {} not found", id);
+            return found;
+        }
+        Country country = found.get();
+
+        if (requestCount >= CACHE_THRESHOLD) {
+            CityCountry cityCountry = repository.getCapitalCityCountry(country.getId());
+            if (cityCountry != null) {
+                requestNameMap.put(id, cityCountry.getName());
+                if (normalizedCache != null) {
+                    normalizedCache.putCountry(cityCountry);
+                } else {
+                    redisRepository.cacheIfNewer(cityCountry);
+                }
+                admissions.increment();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Frequent City and Country data with id {} cached in Redis", id);
+                }
+            }
         }
 
-        return country;
+        return found;
+    }
+
+    public boolean existsById(Integer id) {
+        if (isNull(id) || id <= 0) {
+            throw new IllegalArgumentException("Id cannot be null or less than or equal to 0");
+        }
+        return requestNameMap.containsKey(id) || repository.existsById(id);
     }
 
     public Country save(Country entity) {
@@ -79,13 +148,11 @@ public class CountryService {
             logger.error("Invalid id provided: {}", id);
             throw new IllegalArgumentException("Id cannot be null or less than or equal to 0");
         }
-        try {
-            repository.getById(id);
-        } catch (Exception e) {
+        if (!repository.deleteById(id)) {
             logger.error("Country with id {} not found", id);
             throw new EntityNotFoundException("Country with id " + id + " not found");
         }
-        repository.deleteById(id);
+        invalidateCache(id);
         logger.info("Successfully deleted city with id {}", id);
     }
 
@@ -99,6 +166,7 @@ public class CountryService {
         } catch (Exception e) {
             throw new DatabaseOperationException("Error deleting Country");
         }
+        invalidateCache(entity.getId());
     }
 
     public void update(Country entity) {
@@ -108,9 +176,13 @@ public class CountryService {
         try {
             repository.update(entity);
             logger.info("Successfully updated Country entity");
+        } catch (OptimisticLockException | StaleStateException e) {
+            logger.warn("Country with id {} was modified concurrently", entity.getId());
+            throw new OptimisticLockException("Country with id " + entity.getId() + " was modified concurrently", e);
         } catch (Exception e) {
             throw new DatabaseOperationException("Error updating Country");
         }
+        invalidateCache(entity.getId());
     }
 
     public void updateById(Integer id, Country entity) {
@@ -118,30 +190,11 @@ public class CountryService {
             logger.error("Invalid id or city entity provided: {}, {}", id, entity);
             throw new IllegalArgumentException("Invalid id or Country entity");
         }
-        Country existingCountry;
-        try {
-            existingCountry = repository.getById(id);
-        } catch (Exception e) {
+        if (!repository.updateById(id, entity)) {
+            logger.error("Country with id {} not found", id);
             throw new EntityNotFoundException("Country with id " + id + " not found");
         }
-        existingCountry.setId(id);
-        existingCountry.setCode(entity.getCode());
-        existingCountry.setSecondCode(entity.getSecondCode());
-        existingCountry.setName(entity.getName());
-        existingCountry.setContinent(entity.getContinent());
-        existingCountry.setRegion(entity.getRegion());
-        existingCountry.setSurfaceArea(entity.getSurfaceArea());
-        existingCountry.setIndependenceYear(entity.getIndependenceYear());
-        existingCountry.setPopulation(entity.getPopulation());
-        existingCountry.setLifeExpectancy(entity.getLifeExpectancy());
-        existingCountry.setGnp(entity.getGnp());
-        existingCountry.setGnpoId(entity.getGnpoId());
-        existingCountry.setLocalName(entity.getLocalName());
-        existingCountry.setGovernmentForm(entity.getGovernmentForm());
-        existingCountry.setHeadOfState(entity.getHeadOfState());
-        existingCountry.setCapital(entity.getCapital());
-        existingCountry.setLanguages(entity.getLanguages());
-        repository.update(existingCountry);
+        invalidateCache(id);
         logger.info("Successfully updated country with id {}", id);
     }
 
@@ -156,11 +209,24 @@ public class CountryService {
         return repository.getCount();
     }
 
-    public Map<Integer, Integer> getRequestCountMap() {
+    private void invalidateCache(Integer id) {
+        if (id == null) {
+            return;
+        }
+        requestCountMap.remove(id);
+        String name = requestNameMap.remove(id);
+        if (normalizedCache != null) {
+            normalizedCache.evictCountry(id);
+        } else if (name != null) {
+            redisRepository.evictData(name);
+        }
+    }
+
+    public IntIntMap getRequestCountMap() {
         return requestCountMap;
     }
 
-    public Map<Integer, String> getRequestNameMap() {
+    public IntObjectMap<String> getRequestNameMap() {
         return requestNameMap;
     }
 }
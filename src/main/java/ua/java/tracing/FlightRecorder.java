@@ -0,0 +1,66 @@
+package ua.java.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class FlightRecorder {
+
+    private final TraceRecord[] ring;
+    private long written;
+
+    public FlightRecorder(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.ring = new TraceRecord[capacity];
+    }
+
+    public synchronized void record(TraceRecord trace) {
+        ring[(int) (written++ % ring.length)] = trace;
+    }
+
+    public synchronized List<TraceRecord> dump() {
+        int size = (int) Math.min(written, ring.length);
+        List<TraceRecord> result = new ArrayList<>(size);
+        for (long i = written - size; i < written; i++) {
+            result.add(ring[(int) (i % ring.length)]);
+        }
+        return result;
+    }
+
+    public synchronized long getRecordedCount() {
+        return written;
+    }
+
+    public String dumpAsText() {
+        StringBuilder out = new StringBuilder();
+        for (TraceRecord trace : dump()) {
+            out.append(format(trace)).append('\n');
+        }
+        return out.toString();
+    }
+
+    static String format(TraceRecord trace) {
+        StringBuilder out = new StringBuilder();
+        out.append("trace ").append(trace.traceId())
+                .append(" at ").append(trace.startEpochMillis())
+                .append(" took ").append(TimeUnit.NANOSECONDS.toMicros(trace.durationNanos())).append(" us\n");
+        List<SpanRecord> spans = trace.spans();
+        for (SpanRecord span : spans) {
+            int depth = 0;
+            for (int parent = span.parentIndex(); parent >= 0; parent = spans.get(parent).parentIndex()) {
+                depth++;
+            }
+            out.append("  ".repeat(depth + 1))
+                    .append(span.name())
+                    .append(" +").append(TimeUnit.NANOSECONDS.toMicros(span.startOffsetNanos())).append(" us")
+                    .append(' ').append(TimeUnit.NANOSECONDS.toMicros(span.durationNanos())).append(" us");
+            if (!span.attributes().isEmpty()) {
+                out.append(' ').append(span.attributes());
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,16 @@
+package ua.java.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class LoggingSpanExporter implements SpanExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoggingSpanExporter.class);
+
+    @Override
+    public void export(TraceRecord trace) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("{}", FlightRecorder.format(trace));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package ua.java.tracing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+public class RecordingTracer implements Tracer {
+
+    static final int MAX_SPANS = 64;
+    static final int MAX_ATTRIBUTES = 4;
+
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final FlightRecorder flightRecorder;
+    private final SpanExporter exporter;
+    private final ThreadLocal<TraceBuffer> buffers = ThreadLocal.withInitial(TraceBuffer::new);
+
+    public RecordingTracer(double sampleRate, long slowThreshold, TimeUnit unit, FlightRecorder flightRecorder) {
+        this(sampleRate, slowThreshold, unit, flightRecorder, new LoggingSpanExporter());
+    }
+
+    public RecordingTracer(double sampleRate, long slowThreshold, TimeUnit unit,
+                           FlightRecorder flightRecorder, SpanExporter exporter) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1");
+        }
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = unit.toNanos(slowThreshold);
+        this.flightRecorder = flightRecorder;
+        this.exporter = exporter;
+    }
+
+    @Override
+    public Span startSpan(String name) {
+        return buffers.get().start(name);
+    }
+
+    public FlightRecorder getFlightRecorder() {
+        return flightRecorder;
+    }
+
+    private void complete(TraceBuffer buffer) {
+        long duration = buffer.ends[0] - buffer.starts[0];
+        boolean slow = duration >= slowThresholdNanos;
+        boolean sampled = sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        if (!slow && !sampled) {
+            return;
+        }
+        TraceRecord trace = buffer.snapshot(duration);
+        if (slow) {
+            flightRecorder.record(trace);
+        }
+        if (sampled) {
+            exporter.export(trace);
+        }
+    }
+
+    private final class TraceBuffer {
+
+        private final String[] names = new String[MAX_SPANS];
+        private final long[] starts = new long[MAX_SPANS];
+        private final long[] ends = new long[MAX_SPANS];
+        private final int[] parents = new int[MAX_SPANS];
+        private final int[] attributeCounts = new int[MAX_SPANS];
+        private final String[] attributeKeys = new String[MAX_SPANS * MAX_ATTRIBUTES];
+        private final Object[] attributeObjects = new Object[MAX_SPANS * MAX_ATTRIBUTES];
+        private final long[] attributeLongs = new long[MAX_SPANS * MAX_ATTRIBUTES];
+        private final BufferedSpan[] spans = new BufferedSpan[MAX_SPANS];
+        private int count;
+        private int current = -1;
+        private long startEpochMillis;
+
+        private TraceBuffer() {
+            for (int i = 0; i < MAX_SPANS; i++) {
+                spans[i] = new BufferedSpan(this, i);
+            }
+        }
+
+        private Span start(String name) {
+            if (count == MAX_SPANS) {
+                return NoopTracer.NOOP_SPAN;
+            }
+            if (current < 0) {
+                count = 0;
+                startEpochMillis = System.currentTimeMillis();
+            }
+            int index = count++;
+            names[index] = name;
+            parents[index] = current;
+            attributeCounts[index] = 0;
+            ends[index] = 0;
+            current = index;
+            starts[index] = System.nanoTime();
+            return spans[index];
+        }
+
+        private void end(int index) {
+            if (ends[index] != 0 || index >= count) {
+                return;
+            }
+            ends[index] = System.nanoTime();
+            if (current == index) {
+                current = parents[index];
+            }
+            if (index == 0) {
+                current = -1;
+                complete(this);
+                count = 0;
+            }
+        }
+
+        private void attribute(int index, String key, Object value, long longValue) {
+            int attributes = attributeCounts[index];
+            if (attributes == MAX_ATTRIBUTES) {
+                return;
+            }
+            int slot = index * MAX_ATTRIBUTES + attributes;
+            attributeKeys[slot] = key;
+            attributeObjects[slot] = value;
+            attributeLongs[slot] = longValue;
+            attributeCounts[index] = attributes + 1;
+        }
+
+        private TraceRecord snapshot(long duration) {
+            String traceId = SpanIds.traceId();
+            List<SpanRecord> records = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Map<String, Object> attributes = Collections.emptyMap();
+                if (attributeCounts[i] > 0) {
+                    attributes = new LinkedHashMap<>();
+                    for (int a = 0; a < attributeCounts[i]; a++) {
+                        int slot = i * MAX_ATTRIBUTES + a;
+                        Object value = attributeObjects[slot];
+                        attributes.put(attributeKeys[slot], value != null ? value : attributeLongs[slot]);
+                        attributeObjects[slot] = null;
+                    }
+                }
+                long end = ends[i] != 0 ? ends[i] : ends[0];
+                records.add(new SpanRecord(SpanIds.spanId(), parents[i], names[i],
+                        starts[i] - starts[0], end - starts[i], attributes));
+            }
+            return new TraceRecord(traceId, startEpochMillis, duration, Collections.unmodifiableList(records));
+        }
+    }
+
+    private static final class BufferedSpan implements Span {
+
+        private final TraceBuffer buffer;
+        private final int index;
+
+        private BufferedSpan(TraceBuffer buffer, int index) {
+            this.buffer = buffer;
+            this.index = index;
+        }
+
+        @Override
+        public Span setAttribute(String key, long value) {
+            buffer.attribute(index, key, null, value);
+            return this;
+        }
+
+        @Override
+        public Span setAttribute(String key, String value) {
+            buffer.attribute(index, key, value, 0);
+            return this;
+        }
+
+        @Override
+        public void end() {
+            buffer.end(index);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ua.java.tracing;
+
+public interface Span extends AutoCloseable {
+
+    Span setAttribute(String key, long value);
+
+    Span setAttribute(String key, String value);
+
+    void end();
+
+    @Override
+    default void close() {
+        end();
+    }
+}
@@ -0,0 +1,6 @@
+package ua.java.tracing;
+
+public interface SpanExporter {
+
+    void export(TraceRecord trace);
+}
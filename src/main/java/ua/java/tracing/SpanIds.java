@@ -0,0 +1,21 @@
+package ua.java.tracing;
+
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+
+final class SpanIds {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private SpanIds() {
+    }
+
+    static String traceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return HEX.toHexDigits(random.nextLong()) + HEX.toHexDigits(random.nextLong());
+    }
+
+    static String spanId() {
+        return HEX.toHexDigits(ThreadLocalRandom.current().nextLong());
+    }
+}
@@ -0,0 +1,7 @@
+package ua.java.tracing;
+
+import java.util.Map;
+
+public record SpanRecord(String spanId, int parentIndex, String name, long startOffsetNanos, long durationNanos,
+                         Map<String, Object> attributes) {
+}
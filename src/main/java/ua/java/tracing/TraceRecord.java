@@ -0,0 +1,10 @@
+package ua.java.tracing;
+
+import java.util.List;
+
+public record TraceRecord(String traceId, long startEpochMillis, long durationNanos, List<SpanRecord> spans) {
+
+    public SpanRecord root() {
+        return spans.get(0);
+    }
+}
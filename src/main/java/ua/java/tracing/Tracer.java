@@ -0,0 +1,6 @@
+package ua.java.tracing;
+
+public interface Tracer {
+
+    Span startSpan(String name);
+}
@@ -0,0 +1,19 @@
+package ua.java.tracing;
+
+import java.util.Objects;
+
+public final class Tracing {
+
+    private static volatile Tracer tracer = NoopTracer.INSTANCE;
+
+    private Tracing() {
+    }
+
+    public static Tracer tracer() {
+        return tracer;
+    }
+
+    public static void setTracer(Tracer newTracer) {
+        tracer = Objects.requireNonNull(newTracer);
+    }
+}
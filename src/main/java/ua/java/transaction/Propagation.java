@@ -0,0 +1,6 @@
+package ua.java.transaction;
+
+public enum Propagation {
+    REQUIRED,
+    REQUIRES_NEW
+}
@@ -0,0 +1,176 @@
+package ua.java.transaction;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.context.internal.ThreadLocalSessionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.java.limit.ConcurrencyLimiter;
+import ua.java.limit.Priority;
+import ua.java.metrics.Counter;
+import ua.java.metrics.MeterRegistry;
+import ua.java.metrics.Metrics;
+import ua.java.metrics.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class TransactionTemplate {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionTemplate.class);
+
+    private final SessionFactory sessionFactory;
+    private final Counter committed;
+    private final Counter rolledBack;
+    private final Timer readOnlyTimer;
+    private final Timer readWriteTimer;
+    private final ConcurrencyLimiter limiter;
+
+    public TransactionTemplate(SessionFactory sessionFactory) {
+        this(sessionFactory, Metrics.registry());
+    }
+
+    public TransactionTemplate(SessionFactory sessionFactory, MeterRegistry registry) {
+        this(sessionFactory, registry, null);
+    }
+
+    public TransactionTemplate(SessionFactory sessionFactory, MeterRegistry registry, ConcurrencyLimiter limiter) {
+        this.sessionFactory = sessionFactory;
+        this.limiter = limiter;
+        this.committed = registry.counter("transaction.completed", "outcome", "commit");
+        this.rolledBack = registry.counter("transaction.completed", "outcome", "rollback");
+        this.readOnlyTimer = registry.timer("transaction.duration", "mode", "read_only");
+        this.readWriteTimer = registry.timer("transaction.duration", "mode", "read_write");
+    }
+
+    public <T> T execute(Function<Session, T> work) {
+        return execute(Propagation.REQUIRED, false, work);
+    }
+
+    public <T> T executeReadOnly(Function<Session, T> work) {
+        return execute(Propagation.REQUIRED, true, work);
+    }
+
+    public <T> T executeBulkReadOnly(Function<Session, T> work) {
+        return execute(Priority.BULK, Propagation.REQUIRED, true, work);
+    }
+
+    public void executeWithoutResult(Consumer<Session> work) {
+        execute(Propagation.REQUIRED, false, session -> {
+            work.accept(session);
+            return null;
+        });
+    }
+
+    public <T> T execute(Propagation propagation, boolean readOnly, Function<Session, T> work) {
+        return execute(readOnly ? Priority.NORMAL : Priority.CRITICAL, propagation, readOnly, work);
+    }
+
+    public <T> T execute(Priority priority, Propagation propagation, boolean readOnly, Function<Session, T> work) {
+        if (propagation == Propagation.REQUIRES_NEW) {
+            return limited(priority, () -> {
+                try (Session session = sessionFactory.openSession()) {
+                    return runBound(session, readOnly, work);
+                }
+            });
+        }
+        Session session = sessionFactory.getCurrentSession();
+        if (session.getTransaction().isActive()) {
+            if (!readOnly && session.isDefaultReadOnly()) {
+                throw new IllegalStateException("Cannot join a read-only transaction for a write");
+            }
+            return work.apply(session);
+        }
+        return limited(priority, () -> runInNewTransaction(session, readOnly, work));
+    }
+
+    public ConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    public boolean isTransactionActive() {
+        return sessionFactory.getCurrentSession().getTransaction().isActive();
+    }
+
+    public long getCommittedCount() {
+        return committed.count();
+    }
+
+    public long getRolledBackCount() {
+        return rolledBack.count();
+    }
+
+    public double getTotalTime(TimeUnit unit) {
+        return readOnlyTimer.totalTime(unit) + readWriteTimer.totalTime(unit);
+    }
+
+    public double getMaxTime(TimeUnit unit) {
+        return Math.max(readOnlyTimer.max(unit), readWriteTimer.max(unit));
+    }
+
+    private <T> T limited(Priority priority, Supplier<T> work) {
+        return limiter == null ? work.get() : limiter.call(priority, work);
+    }
+
+    private <T> T runBound(Session session, boolean readOnly, Function<Session, T> work) {
+        Session outer = ThreadLocalSessionContext.unbind(sessionFactory);
+        ThreadLocalSessionContext.bind(session);
+        try {
+            return runInNewTransaction(session, readOnly, work);
+        } finally {
+            ThreadLocalSessionContext.unbind(sessionFactory);
+            if (outer != null) {
+                ThreadLocalSessionContext.bind(outer);
+            }
+        }
+    }
+
+    private <T> T runInNewTransaction(Session session, boolean readOnly, Function<Session, T> work) {
+        long start = System.nanoTime();
+        Transaction transaction = session.beginTransaction();
+        try {
+            if (readOnly) {
+                session.setDefaultReadOnly(true);
+                session.setHibernateFlushMode(FlushMode.MANUAL);
+                session.doWork(connection -> connection.setReadOnly(true));
+            }
+            T result = work.apply(session);
+            if (readOnly) {
+                session.doWork(connection -> connection.setReadOnly(false));
+            }
+            transaction.commit();
+            committed.increment();
+            return result;
+        } catch (RuntimeException | Error e) {
+            if (readOnly && transaction.isActive()) {
+                try {
+                    session.doWork(connection -> connection.setReadOnly(false));
+                } catch (RuntimeException resetFailure) {
+                    e.addSuppressed(resetFailure);
+                }
+            }
+            rollback(transaction, e);
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            (readOnly ? readOnlyTimer : readWriteTimer).record(elapsed);
+            logger.debug("Transaction finished in {} us (readOnly={})", elapsed / 1_000, readOnly);
+        }
+    }
+
+    private void rollback(Transaction transaction, Throwable cause) {
+        rolledBack.increment();
+        try {
+            if (transaction.isActive() && transaction.getStatus().canRollback()) {
+                transaction.rollback();
+            }
+        } catch (RuntimeException rollbackFailure) {
+            cause.addSuppressed(rollbackFailure);
+            logger.error("Transaction rollback failed", rollbackFailure);
+        }
+    }
+}
@@ -1,42 +1,123 @@
 package ua.java.util;
 
 import org.hibernate.SessionFactory;
-import org.hibernate.cfg.Configuration;
-import org.hibernate.cfg.Environment;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.tool.hbm2ddl.SchemaValidator;
 import ua.java.domain.entity.City;
 import ua.java.domain.entity.Country;
 import ua.java.domain.entity.CountryLanguage;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
 import java.util.Properties;
 
 public class HibernateUtil {
 
-    private static HibernateUtil instance;
+    private static final String RESOURCE = "database.properties";
 
+    public enum SchemaValidation {
+        OFF,
+        STARTUP,
+        BACKGROUND
+    }
+
+    private static volatile boolean started;
+
+    private final StandardServiceRegistry serviceRegistry;
+    private final Metadata metadata;
     private final SessionFactory sessionFactory;
 
     private HibernateUtil() {
-        Properties properties = new Properties();
-        properties.put(Environment.DIALECT, "org.hibernate.dialect.MySQL8Dialect");
-        properties.put(Environment.DRIVER, "com.p6spy.engine.spy.P6SpyDriver");
-        properties.put(Environment.URL, "jdbc:p6spy:mysql://localhost:3307/world");
-        properties.put(Environment.USER, "root");
-        properties.put(Environment.PASS, "root");
-        properties.put(Environment.CURRENT_SESSION_CONTEXT_CLASS, "thread");
-        properties.put(Environment.HBM2DDL_AUTO, "validate");
-
-        sessionFactory = new Configuration()
+        this(new StandardServiceRegistryBuilder()
+                .applySettings(loadProperties())
+                .build());
+    }
+
+    private HibernateUtil(StandardServiceRegistry serviceRegistry) {
+        this.serviceRegistry = serviceRegistry;
+        metadata = new MetadataSources(serviceRegistry)
                 .addAnnotatedClass(City.class)
                 .addAnnotatedClass(CountryLanguage.class)
                 .addAnnotatedClass(Country.class)
-                .addProperties(properties)
-                .buildSessionFactory();
+                .buildMetadata();
+        sessionFactory = metadata.buildSessionFactory();
     }
 
     public static SessionFactory getSessionFactory() {
-        if (instance == null) {
-            instance = new HibernateUtil();
+        return Holder.INSTANCE.sessionFactory;
+    }
+
+    public static SessionFactory buildSessionFactory(Properties overrides) {
+        Properties properties = loadProperties();
+        properties.putAll(overrides);
+        StandardServiceRegistryBuilder builder = new StandardServiceRegistryBuilder().applySettings(properties);
+        builder.enableAutoClose();
+        return new HibernateUtil(builder.build()).sessionFactory;
+    }
+
+    public static void validateSchema() {
+        Holder.INSTANCE.validate();
+    }
+
+    public static void shutdown() {
+        if (!started) {
+            return;
+        }
+        Holder.INSTANCE.close();
+    }
+
+    public static SchemaValidation getSchemaValidation() {
+        String value = System.getProperty("schema.validation", loadProperties().getProperty("schema.validation", "startup"));
+        return SchemaValidation.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    static Properties loadProperties() {
+        Properties properties = new Properties();
+        try (InputStream in = HibernateUtil.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + RESOURCE, e);
+        }
+        System.getProperties().stringPropertyNames().stream()
+                .filter(key -> key.startsWith("hibernate."))
+                .forEach(key -> properties.setProperty(key, System.getProperty(key)));
+        return properties;
+    }
+
+    private void close() {
+        if (!sessionFactory.isClosed()) {
+            sessionFactory.close();
+            StandardServiceRegistryBuilder.destroy(serviceRegistry);
+        }
+    }
+
+    private void validate() {
+        new SchemaValidator().validate(metadata, serviceRegistry);
+    }
+
+    private static final class Holder {
+
+        private static final HibernateUtil INSTANCE = start();
+
+        private static HibernateUtil start() {
+            HibernateUtil instance = new HibernateUtil();
+            if (getSchemaValidation() == SchemaValidation.STARTUP) {
+                try {
+                    instance.validate();
+                } catch (RuntimeException e) {
+                    instance.close();
+                    throw e;
+                }
+            }
+            started = true;
+            return instance;
         }
-        return instance.sessionFactory;
     }
 }
@@ -0,0 +1,2 @@
+ALTER TABLE world.city ADD COLUMN version INT NOT NULL DEFAULT 0;
+ALTER TABLE world.country ADD COLUMN version INT NOT NULL DEFAULT 0;
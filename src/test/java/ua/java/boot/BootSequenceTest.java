@@ -0,0 +1,93 @@
+package ua.java.boot;
+
+import org.junit.jupiter.api.Test;
+import ua.java.metrics.SimpleMeterRegistry;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BootSequenceTest {
+
+    @Test
+    void testPhasesRunInParallelAndAreTimed() throws InterruptedException {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        try (BootSequence boot = new BootSequence(new SimpleMeterRegistry())) {
+            CompletableFuture<String> hibernate = boot.start("hibernate", () -> awaitOther(bothStarted, "sessionFactory"));
+            CompletableFuture<String> redis = boot.start("redis", () -> awaitOther(bothStarted, "redis"));
+
+            assertEquals("sessionFactory", BootSequence.await(hibernate));
+            assertEquals("redis", BootSequence.await(redis));
+            boot.run("snapshot", () -> null);
+            assertFalse(boot.readiness().isReady());
+            boot.ready();
+
+            assertTrue(boot.readiness().awaitReady(1, TimeUnit.SECONDS));
+            assertEquals(List.of("hibernate", "redis", "snapshot", "total"),
+                    boot.getDurationsMs().keySet().stream().sorted().toList());
+            assertTrue(boot.report().contains("total="));
+        }
+    }
+
+    @Test
+    void testFailedPhaseIsRethrownAndMarksNotReady() throws InterruptedException {
+        try (BootSequence boot = new BootSequence(new SimpleMeterRegistry())) {
+            CompletableFuture<Object> phase = boot.start("hibernate", () -> {
+                throw new IllegalStateException("no database");
+            });
+
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> BootSequence.await(phase));
+            boot.failed(e);
+            boot.ready();
+
+            assertFalse(boot.readiness().awaitReady(1, TimeUnit.SECONDS));
+            assertEquals(Readiness.State.FAILED, boot.readiness().getState());
+            assertTrue(boot.readiness().describe().contains("no database"));
+        }
+    }
+
+    @Test
+    void testFailedCriticalBackgroundPhaseMarksReadyInstanceFailed() throws InterruptedException {
+        try (BootSequence boot = new BootSequence(new SimpleMeterRegistry())) {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch finished = new CountDownLatch(2);
+            boot.background("idFilter", () -> {
+                finished.countDown();
+                throw new IllegalStateException("bloom");
+            });
+            boot.backgroundCritical("schemaValidation", () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                finished.countDown();
+                throw new IllegalStateException("missing column version");
+            });
+            boot.ready();
+            assertTrue(boot.readiness().isReady());
+
+            release.countDown();
+            assertTrue(finished.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 100 && boot.readiness().isReady(); i++) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(Readiness.State.FAILED, boot.readiness().getState());
+            assertTrue(boot.readiness().describe().contains("missing column version"));
+        }
+    }
+
+    private static String awaitOther(CountDownLatch bothStarted, String result) {
+        bothStarted.countDown();
+        try {
+            assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,85 @@
+package ua.java.boot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LifecycleTest {
+
+    @Test
+    void testStopsInReverseOrderOnlyOnce() {
+        List<String> stopped = new ArrayList<>();
+        Lifecycle lifecycle = new Lifecycle();
+        lifecycle.register("redis", () -> stopped.add("redis"));
+        lifecycle.register("hibernate", () -> stopped.add("hibernate"));
+        lifecycle.register("cdc", () -> stopped.add("cdc"));
+
+        lifecycle.shutdown();
+        lifecycle.shutdown();
+
+        assertEquals(List.of("cdc", "hibernate", "redis"), stopped);
+        assertTrue(lifecycle.isStopped());
+        assertThrows(IllegalStateException.class, () -> lifecycle.register("late", () -> { }));
+    }
+
+    @Test
+    void testFailingStepDoesNotStopTheRest() {
+        List<String> stopped = new ArrayList<>();
+        Lifecycle lifecycle = new Lifecycle();
+        lifecycle.register("redis", () -> stopped.add("redis"));
+        lifecycle.register("broken", () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        lifecycle.shutdown();
+
+        assertEquals(List.of("redis"), stopped);
+    }
+
+    @Test
+    void testStepThrowingErrorDoesNotStopTheRest() {
+        List<String> stopped = new ArrayList<>();
+        Lifecycle lifecycle = new Lifecycle();
+        lifecycle.register("redis", () -> stopped.add("redis"));
+        lifecycle.register("hibernate", () -> {
+            throw new NoClassDefFoundError("ua/java/util/HibernateUtil$Holder");
+        });
+
+        lifecycle.shutdown();
+
+        assertEquals(List.of("redis"), stopped);
+    }
+
+    @Test
+    void testDrainWaitsForInflightWork() throws Exception {
+        AtomicInteger inflight = new AtomicInteger(1);
+        Thread worker = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inflight.set(0);
+        });
+        worker.start();
+
+        long start = System.nanoTime();
+        Lifecycle.drain(inflight::get, 5, TimeUnit.SECONDS).close();
+
+        assertEquals(0, inflight.get());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    void testDrainGivesUpAtTimeout() throws Exception {
+        long start = System.nanoTime();
+        Lifecycle.drain(() -> 1, 30, TimeUnit.MILLISECONDS).close();
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30));
+    }
+}
@@ -0,0 +1,81 @@
+package ua.java.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ua.java.collection.IntIntHashMap;
+import ua.java.collection.IntIntMap;
+import ua.java.collection.IntObjectHashMap;
+import ua.java.collection.IntObjectMap;
+import ua.java.redis.CityCountry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWriteAndRestore() throws IOException {
+        Path path = tempDir.resolve("cache.snapshot");
+        OffHeapCityCache nearCache = new OffHeapCityCache(64 * 1024);
+        nearCache.put(cityCountry(1, "Kabul"));
+        nearCache.put(cityCountry(2, "Qandahar"));
+        IntIntMap requestCounts = new IntIntHashMap();
+        requestCounts.put(1, 5);
+        requestCounts.put(7, 1);
+        IntObjectMap<String> requestNames = new IntObjectHashMap<>();
+        requestNames.put(1, "Kabul");
+
+        CacheSnapshot.write(path, nearCache, requestCounts, requestNames, 4079, 4079, 12);
+
+        CacheSnapshot snapshot = CacheSnapshot.map(path);
+        assertTrue(snapshot.isCurrent(4079, 4079, 12));
+        assertFalse(snapshot.isCurrent(4080, 4080, 12));
+        assertFalse(snapshot.isCurrent(4079, 4079, 13));
+        assertEquals(2, snapshot.getRecordCount());
+
+        OffHeapCityCache restoredCache = new OffHeapCityCache(64 * 1024);
+        IntIntMap restoredCounts = new IntIntHashMap();
+        IntObjectMap<String> restoredNames = new IntObjectHashMap<>();
+        assertEquals(2, snapshot.seed(restoredCache));
+        snapshot.restoreStatistics(restoredCounts, restoredNames);
+
+        assertEquals("Kabul", restoredCache.get(1).getName());
+        assertEquals("Qandahar", restoredCache.get(2).getName());
+        assertEquals(2, restoredCounts.size());
+        assertEquals(5, restoredCounts.get(1));
+        assertEquals(1, restoredCounts.get(7));
+        assertEquals(1, restoredNames.size());
+        assertEquals("Kabul", restoredNames.get(1));
+    }
+
+    @Test
+    void testCorruptedSnapshotIsRejected() throws IOException {
+        Path path = tempDir.resolve("cache.snapshot");
+        OffHeapCityCache nearCache = new OffHeapCityCache(64 * 1024);
+        nearCache.put(cityCountry(1, "Kabul"));
+        CacheSnapshot.write(path, nearCache, new IntIntHashMap(), new IntObjectHashMap<>(), 1, 1, 0);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), channel.size() - 1);
+        }
+
+        IOException exception = assertThrows(IOException.class, () -> CacheSnapshot.map(path));
+        assertTrue(exception.getMessage().startsWith("Snapshot checksum mismatch"));
+    }
+
+    private CityCountry cityCountry(int id, String name) {
+        CityCountry cityCountry = new CityCountry();
+        cityCountry.setId(id);
+        cityCountry.setName(name);
+        cityCountry.setCountryCode("AFG");
+        return cityCountry;
+    }
+}
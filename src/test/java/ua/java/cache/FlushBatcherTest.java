@@ -0,0 +1,50 @@
+package ua.java.cache;
+
+import io.lettuce.core.api.StatefulConnection;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FlushBatcherTest {
+
+    @Mock
+    private StatefulConnection<String, byte[]> connection;
+
+    @Test
+    void testQueuedCommandsAreFlushedInBatches() {
+        FlushBatcher batcher = new FlushBatcher(connection, 3);
+        verify(connection).setAutoFlushCommands(false);
+
+        batcher.commandQueued();
+        verify(connection, timeout(1_000)).flushCommands();
+
+        batcher.close();
+        verifyNoMoreInteractions(connection);
+    }
+
+    @Test
+    void testFullBatchIsFlushedInline() {
+        FlushBatcher batcher = new FlushBatcher(connection, 1);
+
+        batcher.commandQueued();
+        batcher.commandQueued();
+
+        verify(connection, timeout(1_000).atLeast(1)).flushCommands();
+        batcher.close();
+    }
+
+    @Test
+    void testUnknownClientIsRejected() {
+        Properties properties = new Properties();
+        properties.setProperty("redis.client", "memcached");
+
+        assertThrows(IllegalArgumentException.class, () -> RedisRepositoryFactory.create(new RedisSettings(properties)));
+    }
+}
@@ -0,0 +1,152 @@
+package ua.java.cache;
+
+import org.junit.jupiter.api.Test;
+import ua.java.metrics.SimpleMeterRegistry;
+import ua.java.redis.CityCountry;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NegativeCacheTest {
+
+    private final InMemoryRedisRepository redis = new InMemoryRedisRepository();
+    private final AtomicLong clock = new AtomicLong(1_000);
+    private final NegativeCache cache = new NegativeCache("city", redis, 30, TimeUnit.SECONDS, 100, clock::get, new SimpleMeterRegistry());
+
+    @Test
+    void testTombstoneIsServedLocallyUntilItExpires() {
+        assertFalse(cache.isMissing(7));
+
+        cache.markMissing(7);
+        redis.reads.set(0);
+
+        assertTrue(cache.isMissing(7));
+        assertEquals(0, redis.reads.get());
+        assertEquals(30_000, redis.ttls.get("missing:city:7"));
+
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(31));
+        redis.values.clear();
+
+        assertFalse(cache.isMissing(7));
+        assertEquals(0, cache.getLocalSize());
+    }
+
+    @Test
+    void testTombstoneFromAnotherInstanceIsCopiedToLocal() {
+        redis.values.put("missing:city:9", "1");
+
+        assertTrue(cache.isMissing(9));
+        assertTrue(cache.isMissing(9));
+
+        assertEquals(1, redis.reads.get());
+    }
+
+    @Test
+    void testMarkPresentRemovesTombstone() {
+        cache.markMissing(5);
+
+        cache.markPresent(5);
+
+        assertFalse(cache.isMissing(5));
+        assertFalse(redis.values.containsKey("missing:city:5"));
+    }
+
+    @Test
+    void testKnownIdsRejectUnknownIdsWithoutRedis() {
+        cache.rebuildKnownIds(() -> List.of(1, 2, 3), 0.001);
+        redis.reads.set(0);
+
+        assertTrue(cache.isMissing(1_000_000));
+        assertEquals(0, redis.reads.get());
+
+        assertFalse(cache.isMissing(2));
+        cache.markPresent(1_000_000);
+        assertFalse(cache.isMissing(1_000_000));
+    }
+
+    @Test
+    void testIdsSavedDuringRebuildAreKept() {
+        cache.rebuildKnownIds(() -> {
+            cache.markPresent(42);
+            return List.of(1);
+        }, 0.001);
+
+        assertTrue(cache.hasKnownIds());
+        assertFalse(cache.isMissing(42));
+    }
+
+    @Test
+    void testLocalTombstonesAreBounded() {
+        for (int id = 1; id <= 250; id++) {
+            cache.markMissing(id);
+        }
+
+        assertTrue(cache.getLocalSize() <= 100);
+    }
+
+    private static final class InMemoryRedisRepository implements RedisRepository {
+
+        private final Map<String, String> values = new ConcurrentHashMap<>();
+        private final Map<String, Long> ttls = new ConcurrentHashMap<>();
+        private final AtomicInteger reads = new AtomicInteger();
+
+        @Override
+        public CityCountry getDataByName(String name) {
+            return null;
+        }
+
+        @Override
+        public void cacheData(CityCountry data) {
+        }
+
+        @Override
+        public void evictData(String name) {
+        }
+
+        @Override
+        public Map<String, String> getValues(Collection<String> keys) {
+            reads.incrementAndGet();
+            Map<String, String> result = new HashMap<>();
+            keys.forEach(key -> {
+                String value = values.get(key);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            });
+            return result;
+        }
+
+        @Override
+        public void setValues(Map<String, String> entries) {
+            values.putAll(entries);
+        }
+
+        @Override
+        public void setValuesIfNewer(Map<String, VersionedValue> entries) {
+            entries.forEach((key, value) -> values.put(key, value.value()));
+        }
+
+        @Override
+        public void setValue(String key, String value, long ttlMs) {
+            values.put(key, value);
+            ttls.put(key, ttlMs);
+        }
+
+        @Override
+        public void deleteValues(Collection<String> keys) {
+            keys.forEach(values::remove);
+        }
+
+        @Override
+        public void ping() {
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package ua.java.cache;
+
+import org.junit.jupiter.api.Test;
+import ua.java.domain.enums.Continent;
+import ua.java.metrics.SimpleMeterRegistry;
+import ua.java.redis.CityCountry;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NormalizedCityCacheTest {
+
+    private final InMemoryRedisRepository redis = new InMemoryRedisRepository();
+    private final AtomicLong clock = new AtomicLong();
+    private final NormalizedCityCache cache =
+            new NormalizedCityCache(redis, 1, TimeUnit.SECONDS, clock::get, new SimpleMeterRegistry());
+
+    @Test
+    void testCountryIsStoredOnceAndAssembledOnRead() {
+        cache.putAll(List.of(cityCountry(1, "Kabul", 2), cityCountry(2, "Qandahar", 2)));
+
+        assertEquals(Set.of("city:1", "city:2", "country:2"), redis.values.keySet());
+        assertFalse(redis.values.get("city:1").contains("Afghanistan"));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        Map<Integer, CityCountry> cities = cache.getCities(List.of(1, 2, 3));
+
+        assertEquals(Set.of(1, 2), cities.keySet());
+        assertEquals("Qandahar", cities.get(2).getName());
+        assertEquals("Afghanistan", cities.get(2).getCountryName());
+        assertEquals(Continent.ASIA, cities.get(1).getContinent());
+        assertEquals(2, redis.batches.get());
+    }
+
+    @Test
+    void testVersionsSurviveRoundTrip() {
+        CityCountry kabul = cityCountry(1, "Kabul", 2);
+        kabul.setVersion(4);
+        kabul.setCountryVersion(9);
+        cache.put(kabul);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        CityCountry city = cache.getCity(1);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        CityCountry country = cache.getCountry(2);
+
+        assertEquals(4, city.getVersion());
+        assertEquals(9, city.getCountryVersion());
+        assertEquals(9, country.getCountryVersion());
+        assertEquals(9, cache.getCity(1).getCountryVersion());
+    }
+
+    @Test
+    void testLocalCountryAvoidsSecondRoundTrip() {
+        cache.put(cityCountry(1, "Kabul", 2));
+        redis.batches.set(0);
+
+        assertEquals("Afghanistan", cache.getCity(1).getCountryName());
+        assertEquals(1, redis.batches.get());
+    }
+
+    @Test
+    void testCountryEvictionInvalidatesEveryCity() {
+        cache.putAll(List.of(cityCountry(1, "Kabul", 2), cityCountry(2, "Qandahar", 2)));
+
+        cache.evictCountry(2);
+
+        assertNull(cache.getCity(1));
+        assertNull(cache.getCity(2));
+        assertTrue(redis.values.containsKey("city:1"));
+        assertNull(cache.getCountry(2));
+    }
+
+    private static CityCountry cityCountry(int id, String name, int countryId) {
+        CityCountry cityCountry = new CityCountry();
+        cityCountry.setId(id);
+        cityCountry.setName(name);
+        cityCountry.setPopulation(1000 * id);
+        cityCountry.setCountryId(countryId);
+        cityCountry.setCountryCode("AFG");
+        cityCountry.setCountryName("Afghanistan");
+        cityCountry.setContinent(Continent.ASIA);
+        cityCountry.setLanguages(Set.of());
+        return cityCountry;
+    }
+
+    private static final class InMemoryRedisRepository implements RedisRepository {
+
+        private final Map<String, String> values = new ConcurrentHashMap<>();
+        private final AtomicInteger batches = new AtomicInteger();
+
+        @Override
+        public CityCountry getDataByName(String name) {
+            return null;
+        }
+
+        @Override
+        public void cacheData(CityCountry data) {
+        }
+
+        @Override
+        public void evictData(String name) {
+        }
+
+        @Override
+        public Map<String, String> getValues(Collection<String> keys) {
+            batches.incrementAndGet();
+            Map<String, String> result = new HashMap<>();
+            keys.forEach(key -> {
+                String value = values.get(key);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            });
+            return result;
+        }
+
+        @Override
+        public void setValues(Map<String, String> entries) {
+            values.putAll(entries);
+        }
+
+        @Override
+        public void setValuesIfNewer(Map<String, VersionedValue> entries) {
+            entries.forEach((key, value) -> values.put(key, value.value()));
+        }
+
+        @Override
+        public void setValue(String key, String value, long ttlMs) {
+            values.put(key, value);
+        }
+
+        @Override
+        public void deleteValues(Collection<String> keys) {
+            keys.forEach(values::remove);
+        }
+
+        @Override
+        public void ping() {
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package ua.java.cache;
+
+import org.junit.jupiter.api.Test;
+import ua.java.domain.enums.Continent;
+import ua.java.redis.CityCountry;
+import ua.java.redis.Language;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapCityCacheTest {
+
+    @Test
+    void testPutAndGet() {
+        OffHeapCityCache cache = new OffHeapCityCache(64 * 1024);
+        CityCountry cityCountry = cityCountry(1, "Kyiv");
+
+        assertTrue(cache.put(cityCountry));
+
+        CityCountry result = cache.get(1);
+        assertNotNull(result);
+        assertEquals("Kyiv", result.getName());
+        assertEquals("Kyiv", result.getDistrict());
+        assertEquals(2_900_000, result.getPopulation());
+        assertEquals("UKR", result.getCountryCode());
+        assertEquals(Continent.EUROPE, result.getContinent());
+        assertEquals(new BigDecimal("603700.00"), result.getCountrySurfaceArea());
+        assertNull(result.getCountryPopulation());
+        assertEquals(1, result.getLanguages().size());
+        Language language = result.getLanguages().iterator().next();
+        assertEquals("Ukrainian", language.getLanguage());
+        assertTrue(language.getOfficial());
+        assertEquals(new BigDecimal("64.7"), language.getPercentage());
+    }
+
+    @Test
+    void testGetMissingId() {
+        OffHeapCityCache cache = new OffHeapCityCache(64 * 1024);
+
+        assertNull(cache.get(42));
+        assertFalse(cache.contains(42));
+    }
+
+    @Test
+    void testOverwriteAndInvalidate() {
+        OffHeapCityCache cache = new OffHeapCityCache(64 * 1024);
+        cache.put(cityCountry(1, "Kyiv"));
+        cache.put(cityCountry(1, "Kiev"));
+
+        assertEquals("Kiev", cache.get(1).getName());
+        assertEquals(1, cache.size());
+
+        cache.invalidate(1);
+
+        assertNull(cache.get(1));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testInvalidateCountryKeepsOtherCountries() {
+        OffHeapCityCache cache = new OffHeapCityCache(64 * 1024);
+        CityCountry kyiv = cityCountry(1, "Kyiv");
+        kyiv.setCountryId(7);
+        CityCountry lviv = cityCountry(2, "Lviv");
+        lviv.setCountryId(7);
+        CityCountry warsaw = cityCountry(3, "Warsaw");
+        warsaw.setCountryId(8);
+        cache.put(kyiv);
+        cache.put(lviv);
+        cache.put(warsaw);
+
+        assertEquals(2, cache.invalidateCountry(7));
+
+        assertNull(cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals("Warsaw", cache.get(3).getName());
+        assertEquals(0, cache.invalidateCountry(7));
+    }
+
+    @Test
+    void testOldestSegmentIsEvictedWhenFull() {
+        OffHeapCityCache cache = new OffHeapCityCache(4 * 1024, 4);
+        int count = 200;
+        for (int id = 1; id <= count; id++) {
+            cache.put(cityCountry(id, "City" + id));
+        }
+
+        assertTrue(cache.getEvictions() > 0);
+        assertTrue(cache.size() < count);
+        assertNull(cache.get(1));
+        assertEquals("City" + count, cache.get(count).getName());
+    }
+
+    private CityCountry cityCountry(int id, String name) {
+        Language language = new Language();
+        language.setLanguage("Ukrainian");
+        language.setOfficial(true);
+        language.setPercentage(new BigDecimal("64.7"));
+
+        CityCountry cityCountry = new CityCountry();
+        cityCountry.setId(id);
+        cityCountry.setName(name);
+        cityCountry.setDistrict("Kyiv");
+        cityCountry.setPopulation(2_900_000);
+        cityCountry.setCountryCode("UKR");
+        cityCountry.setAlternativeCountryCode("UA");
+        cityCountry.setCountryName("Ukraine");
+        cityCountry.setContinent(Continent.EUROPE);
+        cityCountry.setCountryRegion("Eastern Europe");
+        cityCountry.setCountrySurfaceArea(new BigDecimal("603700.00"));
+        cityCountry.setLanguages(Set.of(language));
+        return cityCountry;
+    }
+}
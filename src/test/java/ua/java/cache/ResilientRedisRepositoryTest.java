@@ -0,0 +1,191 @@
+package ua.java.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import ua.java.metrics.SimpleMeterRegistry;
+import ua.java.redis.CityCountry;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResilientRedisRepositoryTest {
+
+    @Mock
+    private RedisRepository delegate;
+
+    @Test
+    void testBreakerOpensAfterConsecutiveFailuresAndRecovers() {
+        AtomicLong clock = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, 1, TimeUnit.SECONDS, clock::get);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ResilientRedisRepository repository = new ResilientRedisRepository(delegate, breaker, 2, 500, 500, 500, registry);
+        CityCountry cityCountry = new CityCountry();
+        when(delegate.getDataByName("Kabul"))
+                .thenThrow(new JedisConnectionException("down"))
+                .thenThrow(new JedisConnectionException("down"))
+                .thenReturn(cityCountry);
+
+        assertNull(repository.getDataByName("Kabul"));
+        assertNull(repository.getDataByName("Kabul"));
+        assertEquals(CircuitBreaker.State.OPEN, repository.getBreakerState());
+        assertTrue(repository.isDegraded());
+
+        assertNull(repository.getDataByName("Kabul"));
+        verify(delegate, times(2)).getDataByName("Kabul");
+        assertEquals(1, registry.counter("cache.redis.fallbacks", "reason", "circuit_open").count());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertSame(cityCountry, repository.getDataByName("Kabul"));
+        assertEquals(CircuitBreaker.State.CLOSED, repository.getBreakerState());
+        assertFalse(repository.isDegraded());
+    }
+
+    @Test
+    void testSlowCallTimesOut() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 5, 1, TimeUnit.SECONDS);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ResilientRedisRepository repository = new ResilientRedisRepository(delegate, breaker, 2, 20, 20, 20, registry);
+        when(delegate.getDataByName("Kabul")).thenAnswer(invocation -> {
+            Thread.sleep(500);
+            return new CityCountry();
+        });
+
+        long start = System.nanoTime();
+        assertNull(repository.getDataByName("Kabul"));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 400);
+        assertEquals(1, registry.counter("cache.redis.fallbacks", "reason", "timeout").count());
+    }
+
+    @Test
+    void testHalfOpenFailureReopensBreaker() {
+        AtomicLong clock = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, 1, TimeUnit.SECONDS, clock::get);
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(2, breaker.getRejectedCount());
+    }
+
+    @Test
+    void testBulkheadRejectionDoesNotCountAsFailure() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, 1, TimeUnit.SECONDS);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ResilientRedisRepository repository = new ResilientRedisRepository(delegate, breaker, 1, 500, 500, 500, registry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.getDataByName("Kabul")).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return new CityCountry();
+        });
+        Thread busy = Thread.ofPlatform().start(() -> repository.getDataByName("Kabul"));
+        started.await();
+
+        assertNull(repository.getDataByName("Herat"));
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(1, registry.counter("cache.redis.fallbacks", "reason", "bulkhead_full").count());
+        assertEquals(0, registry.counter("cache.redis.fallbacks", "reason", "error").count());
+        release.countDown();
+        busy.join();
+        verify(delegate, never()).getDataByName("Herat");
+    }
+
+    @Test
+    void testInterruptedHalfOpenTrialIsReleased() {
+        AtomicLong clock = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, 1, TimeUnit.SECONDS, clock::get);
+        ResilientRedisRepository repository = new ResilientRedisRepository(delegate, breaker, 2, 500, 500, 500, new SimpleMeterRegistry());
+        CityCountry cityCountry = new CityCountry();
+        lenient().when(delegate.getDataByName("Kabul")).thenReturn(cityCountry);
+        breaker.onFailure();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        Thread.currentThread().interrupt();
+        assertNull(repository.getDataByName("Kabul"));
+
+        assertTrue(Thread.interrupted());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertSame(cityCountry, repository.getDataByName("Kabul"));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void testUpdateWhileBreakerIsOpenIsEvictedAfterRecovery() {
+        AtomicLong clock = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, 1, TimeUnit.SECONDS, clock::get);
+        ResilientRedisRepository repository = new ResilientRedisRepository(delegate, breaker, 2, 500, 500, 500, new SimpleMeterRegistry());
+        CityCountry updated = new CityCountry();
+        updated.setName("Kabul");
+        breaker.onFailure();
+
+        assertFalse(repository.cacheIfNewer(updated));
+        repository.evictData("Herat");
+        repository.deleteValues(List.of("city:7"));
+
+        verifyNoInteractions(delegate);
+        assertEquals(3, repository.getPendingEvictions());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertNull(repository.getDataByName("Kandahar"));
+
+        InOrder inOrder = inOrder(delegate);
+        inOrder.verify(delegate).getDataByName("Kandahar");
+        inOrder.verify(delegate).evictAll(argThat(names -> Set.copyOf(names).equals(Set.of("Kabul", "Herat"))));
+        inOrder.verify(delegate).deleteValues(List.of("city:7"));
+        assertEquals(0, repository.getPendingEvictions());
+    }
+
+    @Test
+    void testFailedReplayKeepsEvictionsPending() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 5, 1, TimeUnit.SECONDS);
+        ResilientRedisRepository repository = new ResilientRedisRepository(delegate, breaker, 2, 500, 500, 500, new SimpleMeterRegistry());
+        doThrow(new JedisConnectionException("down")).doNothing().when(delegate).evictData("Kabul");
+        doThrow(new JedisConnectionException("down")).doNothing().when(delegate).evictAll(List.of("Kabul"));
+
+        repository.evictData("Kabul");
+        repository.getDataByName("Herat");
+        assertEquals(1, repository.getPendingEvictions());
+
+        repository.getDataByName("Herat");
+        assertEquals(0, repository.getPendingEvictions());
+        verify(delegate, times(2)).evictAll(List.of("Kabul"));
+    }
+
+    @Test
+    void testCloseWaitsForRunningCallsThenClosesDelegate() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 5, 1, TimeUnit.SECONDS);
+        ResilientRedisRepository repository = new ResilientRedisRepository(delegate, breaker, 2, 500, 500, 500, new SimpleMeterRegistry());
+        CityCountry cityCountry = new CityCountry();
+        cityCountry.setName("Kabul");
+
+        repository.cacheData(cityCountry);
+        repository.close();
+
+        InOrder order = inOrder(delegate);
+        order.verify(delegate).cacheData(cityCountry);
+        order.verify(delegate).close();
+        repository.cacheData(cityCountry);
+        verify(delegate, times(1)).cacheData(cityCountry);
+    }
+}
@@ -0,0 +1,87 @@
+package ua.java.cache;
+
+import org.junit.jupiter.api.Test;
+import ua.java.redis.CityCountry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class ShardedRedisRepositoryTest {
+
+    @Test
+    void testKeysSpreadAcrossShardsAndRoutingIsStable() {
+        List<ShardedRedisRepository.Shard> shards = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            shards.add(new ShardedRedisRepository.Shard("node-" + i, mock(RedisRepository.class), List.of()));
+        }
+        ShardedRedisRepository repository = new ShardedRedisRepository(shards, 160);
+
+        Map<String, Integer> perShard = new HashMap<>();
+        for (int i = 0; i < 3000; i++) {
+            String name = "City" + i;
+            ShardedRedisRepository.Shard shard = repository.shardFor(name);
+            assertSame(shard, repository.shardFor(name));
+            perShard.merge(shard.getName(), 1, Integer::sum);
+        }
+
+        assertEquals(3, perShard.size());
+        perShard.values().forEach(count -> assertTrue(count > 600, "unbalanced ring: " + perShard));
+    }
+
+    @Test
+    void testReadsGoToReplicasAndFallBackToPrimary() {
+        RedisRepository primary = mock(RedisRepository.class);
+        RedisRepository replica = mock(RedisRepository.class);
+        CityCountry cityCountry = new CityCountry();
+        when(replica.getDataByName("Kabul")).thenReturn(cityCountry).thenThrow(new IllegalStateException("down"));
+        when(primary.getDataByName("Kabul")).thenReturn(cityCountry);
+        ShardedRedisRepository repository = new ShardedRedisRepository(
+                List.of(new ShardedRedisRepository.Shard("node-0", primary, List.of(replica))), 16);
+
+        assertSame(cityCountry, repository.getDataByName("Kabul"));
+        verifyNoInteractions(primary);
+        assertSame(cityCountry, repository.getDataByName("Kabul"));
+        verify(primary).getDataByName("Kabul");
+
+        CityCountry update = new CityCountry();
+        update.setName("Kabul");
+        repository.cacheData(update);
+        verify(primary).cacheData(update);
+        verify(replica, never()).cacheData(any());
+    }
+
+    @Test
+    void testBatchIsSplitPerShard() {
+        RedisRepository first = mock(RedisRepository.class);
+        RedisRepository second = mock(RedisRepository.class);
+        when(first.getDataByNames(anyCollection())).thenAnswer(invocation -> answer(invocation.getArgument(0)));
+        when(second.getDataByNames(anyCollection())).thenAnswer(invocation -> answer(invocation.getArgument(0)));
+        ShardedRedisRepository repository = new ShardedRedisRepository(List.of(
+                new ShardedRedisRepository.Shard("node-0", first, List.of()),
+                new ShardedRedisRepository.Shard("node-1", second, List.of())), 160);
+        Set<String> names = Set.of("Kabul", "Kyiv", "Lviv", "Paris", "Tokyo", "Lima", "Oslo", "Rome");
+
+        Map<String, CityCountry> result = repository.getDataByNames(names);
+
+        assertEquals(names, result.keySet());
+        verify(first).getDataByNames(anyCollection());
+        verify(second).getDataByNames(anyCollection());
+    }
+
+    private static Map<String, CityCountry> answer(List<String> names) {
+        Map<String, CityCountry> result = new HashMap<>();
+        for (String name : names) {
+            CityCountry cityCountry = new CityCountry();
+            cityCountry.setName(name);
+            result.put(name, cityCountry);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,87 @@
+package ua.java.cdc;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ua.java.cache.RedisRepository;
+import ua.java.redis.CityCountry;
+import ua.java.repository.CityRepository;
+import ua.java.repository.CountryRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheChangeApplierTest {
+
+    @Mock
+    private RedisRepository redisRepository;
+    @Mock
+    private CityRepository cityRepository;
+    @Mock
+    private CountryRepository countryRepository;
+    @Mock
+    private CacheChangeListener listener;
+
+    @Test
+    void testLastEventPerKeyWins() {
+        CacheChangeApplier applier = new CacheChangeApplier(redisRepository, null, cityRepository, countryRepository,
+                CacheChangeApplier.Mode.INVALIDATE);
+
+        CacheChangeApplier.Changes changes = applier.coalesce(List.of(
+                event(1, "city", ChangeEvent.Operation.UPDATE, Map.of("id", "7", "name", "Old"), Map.of("id", "7", "name", "New")),
+                event(2, "city", ChangeEvent.Operation.DELETE, Map.of("id", "7", "name", "New"), null),
+                event(3, "city", ChangeEvent.Operation.INSERT, null, Map.of("id", "8", "name", "Lviv")),
+                event(4, "country_language", ChangeEvent.Operation.INSERT, null, Map.of("country_id", "2", "language", "Dari")),
+                event(5, "country", ChangeEvent.Operation.DELETE, Map.of("id", "2"), null),
+                event(6, "country_language", ChangeEvent.Operation.DELETE, Map.of("country_id", "2"), null)));
+
+        assertEquals(Set.of(7), changes.deletedCities);
+        assertEquals(Set.of(8), changes.changedCities);
+        assertEquals(Set.of(2), changes.deletedCountries);
+        assertTrue(changes.changedCountries.isEmpty());
+        assertEquals(Set.of("Old", "New", "Lviv"), changes.staleNames);
+    }
+
+    @Test
+    void testInvalidateEvictsEveryCityOfChangedCountry() {
+        CacheChangeApplier applier = new CacheChangeApplier(redisRepository, null, cityRepository, countryRepository,
+                CacheChangeApplier.Mode.INVALIDATE).addListener(listener);
+        when(cityRepository.getNamesByCountryIds(Set.of(2))).thenReturn(List.of("Kabul", "Qandahar"));
+
+        applier.apply(List.of(
+                event(1, "country", ChangeEvent.Operation.UPDATE, Map.of("id", "2"), Map.of("id", "2", "name", "Afghanistan")),
+                event(2, "city", ChangeEvent.Operation.UPDATE, Map.of("id", "5", "name", "Kyiv"), Map.of("id", "5", "name", "Kiev"))));
+
+        verify(redisRepository).evictAll(Set.of("Kyiv", "Kiev", "Kabul", "Qandahar"));
+        verify(redisRepository, never()).cacheAllIfNewer(any());
+        verify(listener).countryChanged(2);
+        verify(listener).cityChanged(5);
+    }
+
+    @Test
+    void testRefreshRewritesChangedCitiesAndEvictsRenamedKeys() {
+        CacheChangeApplier applier = new CacheChangeApplier(redisRepository, null, cityRepository, countryRepository,
+                CacheChangeApplier.Mode.REFRESH);
+        CityCountry kiev = new CityCountry();
+        kiev.setId(5);
+        kiev.setName("Kiev");
+        when(cityRepository.getCityCountriesByIds(Set.of(5))).thenReturn(List.of(kiev));
+
+        applier.apply(List.of(
+                event(1, "city", ChangeEvent.Operation.UPDATE, Map.of("id", "5", "name", "Kyiv"), Map.of("id", "5", "name", "Kiev"))));
+
+        verify(redisRepository).evictAll(Set.of("Kyiv"));
+        verify(redisRepository).cacheAllIfNewer(List.of(kiev));
+    }
+
+    static ChangeEvent event(long position, String table, ChangeEvent.Operation operation,
+                             Map<String, String> before, Map<String, String> after) {
+        return new ChangeEvent(position, System.currentTimeMillis(), table, operation, before, after);
+    }
+}
@@ -0,0 +1,135 @@
+package ua.java.cdc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import ua.java.cache.RedisRepository;
+import ua.java.metrics.SimpleMeterRegistry;
+import ua.java.repository.CityRepository;
+import ua.java.repository.CountryRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static ua.java.cdc.CacheChangeApplierTest.event;
+
+class ChangeEventConsumerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testFailedBatchIsReplayedFromCheckpoint() throws InterruptedException {
+        QueueChangeEventSource source = new QueueChangeEventSource();
+        InMemoryCheckpointStore checkpoints = new InMemoryCheckpointStore();
+        CacheChangeApplier applier = mock(CacheChangeApplier.class);
+        List<Long> applied = new ArrayList<>();
+        AtomicBoolean failOnce = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            List<ChangeEvent> batch = invocation.getArgument(0);
+            if (batch.get(0).position() == 3 && failOnce.getAndSet(false)) {
+                throw new IllegalStateException("redis down");
+            }
+            batch.forEach(event -> applied.add(event.position()));
+            return null;
+        }).when(applier).apply(anyList());
+        for (int i = 1; i <= 4; i++) {
+            source.publish(event(i, "city", ChangeEvent.Operation.UPDATE, null, Map.of("id", String.valueOf(i))));
+        }
+        ChangeEventConsumer consumer = new ChangeEventConsumer(source, applier, checkpoints, 2, 10, new SimpleMeterRegistry());
+        consumer.rewind();
+
+        assertEquals(2, consumer.pollOnce());
+        assertEquals(2, checkpoints.position.get());
+        assertThrows(IllegalStateException.class, consumer::pollOnce);
+        assertEquals(2, checkpoints.position.get());
+
+        consumer.rewind();
+        assertEquals(2, consumer.pollOnce());
+        assertEquals(0, consumer.pollOnce());
+        assertEquals(List.of(1L, 2L, 3L, 4L), applied);
+        assertEquals(4, consumer.getPosition());
+    }
+
+    @Test
+    void testBatchIsNotCheckpointedWhenRedisFails() throws InterruptedException {
+        QueueChangeEventSource source = new QueueChangeEventSource();
+        InMemoryCheckpointStore checkpoints = new InMemoryCheckpointStore();
+        RedisRepository redisRepository = mock(RedisRepository.class);
+        doThrow(new JedisConnectionException("redis down")).doNothing().when(redisRepository).evictAll(anyCollection());
+        CacheChangeApplier applier = new CacheChangeApplier(redisRepository, null, mock(CityRepository.class),
+                mock(CountryRepository.class), CacheChangeApplier.Mode.INVALIDATE);
+        source.publish(event(1, "city", ChangeEvent.Operation.UPDATE, Map.of("id", "5", "name", "Kyiv"),
+                Map.of("id", "5", "name", "Kiev")));
+        ChangeEventConsumer consumer = new ChangeEventConsumer(source, applier, checkpoints, 10, 10, new SimpleMeterRegistry());
+        consumer.rewind();
+
+        assertThrows(JedisConnectionException.class, consumer::pollOnce);
+        assertEquals(CheckpointStore.NONE, checkpoints.position.get());
+
+        consumer.rewind();
+        assertEquals(1, consumer.pollOnce());
+        assertEquals(1, checkpoints.position.get());
+        verify(redisRepository, times(2)).evictAll(Set.of("Kyiv", "Kiev"));
+    }
+
+    @Test
+    void testFileSourceTailsAppendedEventsAndResumesFromCheckpoint() throws Exception {
+        Path events = directory.resolve("events.jsonl");
+        ObjectMapper mapper = new ObjectMapper();
+        append(events, mapper, event(1, "city", ChangeEvent.Operation.INSERT, null, Map.of("id", "1", "name", "Київ")));
+        append(events, mapper, event(2, "city", ChangeEvent.Operation.DELETE, Map.of("id", "1"), null));
+
+        FileChangeEventSource source = new FileChangeEventSource(events);
+        source.seek(CheckpointStore.NONE);
+        List<ChangeEvent> first = source.poll(10, 10, TimeUnit.MILLISECONDS);
+        assertEquals(2, first.size());
+        assertEquals("Київ", first.get(0).value("name"));
+        assertTrue(source.poll(10, 10, TimeUnit.MILLISECONDS).isEmpty());
+
+        append(events, mapper, event(3, "country", ChangeEvent.Operation.UPDATE, null, Map.of("id", "2")));
+        assertEquals(3, source.poll(10, 10, TimeUnit.MILLISECONDS).get(0).position());
+
+        FileCheckpointStore checkpoints = new FileCheckpointStore(directory.resolve("events.checkpoint"));
+        checkpoints.save(2);
+        FileChangeEventSource resumed = new FileChangeEventSource(events);
+        resumed.seek(checkpoints.load());
+        List<ChangeEvent> replay = resumed.poll(10, 10, TimeUnit.MILLISECONDS);
+        assertEquals(1, replay.size());
+        assertEquals(3, replay.get(0).position());
+    }
+
+    private static void append(Path file, ObjectMapper mapper, ChangeEvent event) throws Exception {
+        Files.writeString(file, mapper.writeValueAsString(event) + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static final class InMemoryCheckpointStore implements CheckpointStore {
+
+        private final AtomicLong position = new AtomicLong(NONE);
+
+        @Override
+        public long load() {
+            return position.get();
+        }
+
+        @Override
+        public void save(long position) {
+            this.position.set(position);
+        }
+    }
+}
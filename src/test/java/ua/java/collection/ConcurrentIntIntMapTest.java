@@ -0,0 +1,102 @@
+package ua.java.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentIntIntMapTest {
+
+    @Test
+    void testBasicOperationsIncludingZeroKey() {
+        ConcurrentIntIntMap map = new ConcurrentIntIntMap(4, 16, -1);
+
+        assertEquals(-1, map.get(0));
+        assertEquals(-1, map.put(0, 3));
+        assertEquals(3, map.get(0));
+        assertEquals(5, map.addAndGet(7, 6));
+        assertEquals(6, map.addAndGet(7, 1));
+        assertFalse(map.remove(7, 5));
+        assertTrue(map.remove(7, 6));
+        assertEquals(-1, map.get(7));
+        assertEquals(3, map.remove(0));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void testRemovedSlotsAreReclaimed() {
+        ConcurrentIntIntMap map = new ConcurrentIntIntMap();
+
+        for (int round = 0; round < 50; round++) {
+            for (int id = 1; id <= 1000; id++) {
+                map.put(round * 1000 + id, id);
+            }
+            for (int id = 1; id <= 1000; id++) {
+                assertEquals(id, map.remove(round * 1000 + id));
+            }
+        }
+        map.put(42, 1);
+
+        assertEquals(1, map.size());
+        assertEquals(1, map.get(42));
+        int[] visited = new int[1];
+        map.forEach((key, value) -> visited[0]++);
+        assertEquals(1, visited[0]);
+    }
+
+    @Test
+    void testConcurrentIncrementsAreNotLost() throws InterruptedException {
+        ConcurrentIntIntMap map = new ConcurrentIntIntMap();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    map.addAndGet(1 + i % 500, 1);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int id = 1; id <= 500; id++) {
+            assertEquals(80, map.get(id));
+        }
+    }
+
+    @Test
+    void testReadersNeverMissStableKeysWhileOthersChurn() throws InterruptedException {
+        ConcurrentIntIntMap map = new ConcurrentIntIntMap();
+        for (int id = 1; id <= 200; id++) {
+            map.put(id, id);
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        Thread writer = Thread.ofPlatform().start(() -> {
+            started.countDown();
+            for (int i = 0; i < 200_000; i++) {
+                int id = 1_000 + i % 20_000;
+                map.put(id, i);
+                map.remove(id);
+            }
+            running.set(false);
+        });
+        started.await();
+        while (running.get()) {
+            for (int id = 1; id <= 200; id++) {
+                if (map.get(id) != id) {
+                    misses.incrementAndGet();
+                }
+            }
+        }
+        writer.join();
+
+        assertEquals(0, misses.get());
+    }
+}
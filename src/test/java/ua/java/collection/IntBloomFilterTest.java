@@ -0,0 +1,45 @@
+package ua.java.collection;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntBloomFilterTest {
+
+    @Test
+    void testAddedValuesAreAlwaysFound() {
+        IntBloomFilter filter = new IntBloomFilter(10_000, 0.01);
+
+        for (int id = 1; id <= 10_000; id++) {
+            filter.add(id);
+        }
+
+        for (int id = 1; id <= 10_000; id++) {
+            assertTrue(filter.mightContain(id));
+        }
+    }
+
+    @Test
+    void testFalsePositiveRateStaysNearTarget() {
+        IntBloomFilter filter = new IntBloomFilter(10_000, 0.01);
+        for (int id = 1; id <= 10_000; id++) {
+            filter.add(id);
+        }
+
+        int falsePositives = 0;
+        for (int id = 1_000_000; id < 1_100_000; id++) {
+            if (filter.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        assertEquals(7, filter.getHashCount());
+    }
+
+    @Test
+    void testInvalidRateIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new IntBloomFilter(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new IntBloomFilter(10, 1));
+    }
+}
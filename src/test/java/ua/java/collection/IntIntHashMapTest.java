@@ -0,0 +1,116 @@
+package ua.java.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntIntHashMapTest {
+
+    @Test
+    void testPutGetAndMissingValue() {
+        IntIntHashMap map = new IntIntHashMap(4, -1);
+
+        assertEquals(-1, map.get(5));
+        assertEquals(-1, map.put(5, 10));
+        assertEquals(10, map.put(5, 11));
+        assertEquals(11, map.get(5));
+        assertTrue(map.containsKey(5));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void testZeroKeyIsSupported() {
+        IntIntHashMap map = new IntIntHashMap();
+
+        map.put(0, 7);
+
+        assertTrue(map.containsKey(0));
+        assertEquals(7, map.get(0));
+        assertEquals(1, map.size());
+        assertEquals(7, map.remove(0));
+        assertFalse(map.containsKey(0));
+    }
+
+    @Test
+    void testAddAndGet() {
+        IntIntHashMap map = new IntIntHashMap();
+
+        assertEquals(1, map.addAndGet(3, 1));
+        assertEquals(2, map.addAndGet(3, 1));
+        assertEquals(2, map.get(3));
+    }
+
+    @Test
+    void testConditionalRemove() {
+        IntIntHashMap map = new IntIntHashMap();
+        map.put(3, 30);
+
+        assertFalse(map.remove(3, 31));
+        assertTrue(map.remove(3, 30));
+        assertFalse(map.containsKey(3));
+    }
+
+    @Test
+    void testRandomOperationsMatchHashMap() {
+        IntIntHashMap map = new IntIntHashMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertEquals(removed == null ? 0 : removed, map.remove(key));
+            } else {
+                expected.merge(key, 1, Integer::sum);
+                map.addAndGet(key, 1);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        map.forEach((key, value) -> assertEquals(expected.get(key), value));
+    }
+
+    @Test
+    void testIntObjectMapRemoveKeepsProbeChains() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            map.put(i, "v" + i);
+        }
+        for (int i = 0; i < 1_000; i += 2) {
+            assertEquals("v" + i, map.remove(i));
+        }
+
+        assertEquals(500, map.size());
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(i % 2 == 0 ? null : "v" + i, map.get(i));
+        }
+    }
+
+    @Test
+    void testConcurrentMapCountsAllIncrements() throws InterruptedException {
+        ConcurrentIntIntMap map = new ConcurrentIntIntMap();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    map.addAndGet(i % 100, 1);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(100, map.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(400, map.get(i));
+        }
+    }
+}
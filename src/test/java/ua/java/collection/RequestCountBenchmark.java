@@ -0,0 +1,109 @@
+package ua.java.collection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the request-count bookkeeping done by CityService.getById.
+ * Run with {@code -prof gc} to compare allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestCountBenchmark {
+
+    private static final int CACHE_THRESHOLD = 2;
+
+    @Param({"4079", "1000000"})
+    private int idRange;
+
+    private int[] ids;
+    private int cursor;
+
+    private Map<Integer, Integer> boxedCounts;
+    private Map<Integer, Integer> concurrentBoxedCounts;
+    private IntIntMap primitiveCounts;
+    private IntIntMap concurrentCounts;
+
+    @Setup
+    public void setUp() {
+        ids = new int[1 << 16];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = 1 + ThreadLocalRandom.current().nextInt(idRange);
+        }
+        boxedCounts = new HashMap<>();
+        concurrentBoxedCounts = new ConcurrentHashMap<>();
+        primitiveCounts = new IntIntHashMap();
+        concurrentCounts = new ConcurrentIntIntMap();
+    }
+
+    @Benchmark
+    public boolean boxedHashMap() {
+        return countBoxed(boxedCounts);
+    }
+
+    @Benchmark
+    public boolean concurrentBoxedHashMap() {
+        return countBoxed(concurrentBoxedCounts);
+    }
+
+    @Benchmark
+    public boolean primitiveMap() {
+        return countRequest(primitiveCounts);
+    }
+
+    @Benchmark
+    public boolean concurrentPrimitiveMap() {
+        return countRequest(concurrentCounts);
+    }
+
+    private boolean countBoxed(Map<Integer, Integer> counts) {
+        Integer id = nextId();
+        if (counts.containsKey(id) && counts.get(id) >= CACHE_THRESHOLD) {
+            return true;
+        }
+        counts.put(id, counts.getOrDefault(id, 0) + 1);
+        return false;
+    }
+
+    private boolean countRequest(IntIntMap counts) {
+        int id = nextId();
+        if (counts.get(id) >= CACHE_THRESHOLD) {
+            return true;
+        }
+        counts.addAndGet(id, 1);
+        return false;
+    }
+
+    private int nextId() {
+        return ids[cursor++ & (ids.length - 1)];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RequestCountBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
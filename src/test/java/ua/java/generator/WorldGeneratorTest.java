@@ -0,0 +1,136 @@
+package ua.java.generator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ua.java.domain.enums.Continent;
+import ua.java.redis.CityCountry;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorldGeneratorTest {
+
+    @Test
+    void testSameSeedProducesSameWorld() {
+        RecordingSink first = new RecordingSink();
+        RecordingSink second = new RecordingSink();
+
+        WorldGenerator.Summary summary = new WorldGenerator(2, 7).generate(first);
+        new WorldGenerator(2, 7).generate(second);
+
+        assertEquals(WorldGenerator.BASE_COUNTRIES, summary.countries());
+        assertEquals(2 * WorldGenerator.BASE_CITIES, summary.cities());
+        assertEquals(summary.cities(), first.cities.size());
+        assertEquals(summary.languages(), first.languages.size());
+        assertEquals(first.countries, second.countries);
+        assertEquals(first.cities, second.cities);
+        assertEquals(first.languages, second.languages);
+        assertTrue(first.finished);
+    }
+
+    @Test
+    void testWorldIsConsistentAndSkewed() {
+        RecordingSink sink = new RecordingSink();
+        new WorldGenerator(5, 11).generate(sink);
+
+        Map<Integer, BigDecimal> languageShare = new HashMap<>();
+        Set<Integer> withOfficialLanguage = new HashSet<>();
+        for (LanguageRow language : sink.languages) {
+            languageShare.merge(language.countryId(), language.percentage(), BigDecimal::add);
+            if (language.official()) {
+                withOfficialLanguage.add(language.countryId());
+            }
+        }
+        for (CountryRow country : sink.countries) {
+            assertEquals(country.id(), sink.cities.get(country.capitalId() - 1).countryId());
+            assertTrue(withOfficialLanguage.contains(country.id()));
+            assertTrue(languageShare.get(country.id()).compareTo(BigDecimal.valueOf(100)) <= 0);
+        }
+
+        List<CityRow> byPopulation = new ArrayList<>(sink.cities);
+        byPopulation.sort(Comparator.comparingInt(CityRow::population).reversed());
+        long total = byPopulation.stream().mapToLong(CityRow::population).sum();
+        long top = byPopulation.subList(0, byPopulation.size() / 100).stream().mapToLong(CityRow::population).sum();
+        assertTrue(top * 5 > total, "top 1% of cities should hold over 20% of the population");
+
+        Set<String> names = new HashSet<>();
+        long duplicates = sink.cities.stream().filter(city -> !names.add(city.name())).count();
+        assertTrue(duplicates > sink.cities.size() / 50, "expected duplicate city names, got " + duplicates);
+    }
+
+    @Test
+    void testCsvSinkWritesLoadDataFiles(@TempDir Path directory) throws IOException {
+        try (CsvWorldSink sink = new CsvWorldSink(directory)) {
+            sink.country(new CountryRow(1, "UKR", "UA", "Ukra\"ine", Continent.EUROPE, "Eastern Europe",
+                    new BigDecimal("603700.00"), null, 50456000, new BigDecimal("66.0"), new BigDecimal("42168.00"),
+                    "Ukrajina", "Republic", null, 1));
+            sink.language(new LanguageRow(1, 1, "Ukrainian", true, new BigDecimal("64.7")));
+            sink.city(new CityRow(1, "Kyiv", "Kyiv", 1, 2624000));
+            sink.finish();
+        }
+
+        assertEquals(List.of("1,\"UKR\",\"UA\",\"Ukra\\\"ine\",1,\"Eastern Europe\",603700.00,\\N,50456000,66.0,42168.00," +
+                        "\"Ukrajina\",\"Republic\",\\N,1"),
+                Files.readAllLines(directory.resolve(CsvWorldSink.COUNTRY_FILE)));
+        assertEquals(List.of("1,1,\"Ukrainian\",1,64.7"), Files.readAllLines(directory.resolve(CsvWorldSink.LANGUAGE_FILE)));
+        assertEquals(List.of("1,\"Kyiv\",\"Kyiv\",1,2624000"), Files.readAllLines(directory.resolve(CsvWorldSink.CITY_FILE)));
+        String script = Files.readString(directory.resolve(CsvWorldSink.SCRIPT_FILE));
+        assertTrue(script.contains("INTO TABLE world.city"));
+        assertTrue(script.startsWith("SET FOREIGN_KEY_CHECKS = 0;"));
+    }
+
+    @Test
+    void testCacheSinkWritesJoinedRecordsInBatches() {
+        List<Collection<CityCountry>> batches = new ArrayList<>();
+        CacheWorldSink sink = new CacheWorldSink(batch -> batches.add(List.copyOf(batch)), 1000);
+
+        WorldGenerator.Summary summary = new WorldGenerator(0.5, 3).generate(sink);
+
+        assertEquals((summary.cities() + 999) / 1000, batches.size());
+        CityCountry first = batches.get(0).iterator().next();
+        assertEquals(1, first.getId());
+        assertEquals(1, first.getCountryId());
+        assertEquals(WorldGenerator.code(1, 3), first.getCountryCode());
+        assertFalse(first.getLanguages().isEmpty());
+    }
+
+    private static final class RecordingSink implements WorldSink {
+
+        private final List<CountryRow> countries = new ArrayList<>();
+        private final List<CityRow> cities = new ArrayList<>();
+        private final List<LanguageRow> languages = new ArrayList<>();
+        private boolean finished;
+
+        @Override
+        public void country(CountryRow country) {
+            countries.add(country);
+        }
+
+        @Override
+        public void language(LanguageRow language) {
+            languages.add(language);
+        }
+
+        @Override
+        public void city(CityRow city) {
+            cities.add(city);
+        }
+
+        @Override
+        public void finish() {
+            finished = true;
+        }
+    }
+}
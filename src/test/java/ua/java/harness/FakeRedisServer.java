@@ -0,0 +1,582 @@
+package ua.java.harness;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ua.java.cache.VersionedScripts;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in that speaks enough RESP2 for the Jedis and Lettuce repositories:
+ * strings, hashes, expiry, pipelining and the versioned-write scripts. Commands run one at a time, like a real server.
+ */
+public class FakeRedisServer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FakeRedisServer.class);
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final Map<String, Entry> data = new HashMap<>();
+    private final Map<String, String> scripts = new HashMap<>();
+    private final LongAdder commands = new LongAdder();
+    private volatile boolean closed;
+
+    private FakeRedisServer(ServerSocket serverSocket) {
+        this.serverSocket = serverSocket;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.connections = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-redis-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.connections.execute(this::acceptLoop);
+    }
+
+    public static FakeRedisServer start() throws IOException {
+        return new FakeRedisServer(new ServerSocket(0, 128, InetAddress.getLoopbackAddress()));
+    }
+
+    public String getHost() {
+        return serverSocket.getInetAddress().getHostAddress();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getCommandCount() {
+        return commands.sum();
+    }
+
+    public synchronized int size() {
+        purgeExpired();
+        return data.size();
+    }
+
+    public synchronized void flushAll() {
+        data.clear();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            logger.debug("Could not close fake Redis listener: {}", e.getMessage());
+        }
+        for (Socket socket : sockets) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.debug("Could not close fake Redis connection: {}", e.getMessage());
+            }
+        }
+        connections.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                sockets.add(socket);
+                connections.execute(() -> serve(socket));
+            } catch (SocketException e) {
+                return;
+            } catch (IOException e) {
+                logger.warn("Fake Redis accept failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             InputStream in = new BufferedInputStream(socket.getInputStream(), 64 * 1024);
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024)) {
+            List<byte[]> command;
+            while ((command = readCommand(in)) != null) {
+                if (command.isEmpty()) {
+                    continue;
+                }
+                commands.increment();
+                boolean quit = "QUIT".equalsIgnoreCase(text(command.get(0)));
+                Object reply = quit ? "+OK" : execute(command);
+                writeReply(out, reply);
+                if (quit) {
+                    out.flush();
+                    return;
+                }
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                logger.debug("Fake Redis connection closed: {}", e.getMessage());
+            }
+        } finally {
+            sockets.remove(socket);
+        }
+    }
+
+    private synchronized Object execute(List<byte[]> command) {
+        String name = text(command.get(0)).toUpperCase(Locale.ROOT);
+        try {
+            return switch (name) {
+                case "PING" -> command.size() > 1 ? command.get(1) : "+PONG";
+                case "ECHO" -> arg(command, 1);
+                case "SELECT", "CLIENT", "READONLY", "READWRITE" -> "+OK";
+                case "INFO" -> "# Server\r\nredis_version:7.0.0\r\nredis_mode:standalone\r\n".getBytes(StandardCharsets.UTF_8);
+                case "COMMAND" -> List.of();
+                case "DBSIZE" -> (long) size();
+                case "FLUSHALL", "FLUSHDB" -> {
+                    data.clear();
+                    yield "+OK";
+                }
+                case "GET" -> getString(text(arg(command, 1)));
+                case "SET" -> set(command);
+                case "SETEX" -> {
+                    put(text(arg(command, 1)), arg(command, 3), System.currentTimeMillis() + seconds(arg(command, 2)));
+                    yield "+OK";
+                }
+                case "PSETEX" -> {
+                    put(text(arg(command, 1)), arg(command, 3), System.currentTimeMillis() + number(arg(command, 2)));
+                    yield "+OK";
+                }
+                case "MGET" -> {
+                    List<Object> values = new ArrayList<>(command.size() - 1);
+                    for (int i = 1; i < command.size(); i++) {
+                        Entry entry = live(text(command.get(i)));
+                        values.add(entry != null && entry.value instanceof byte[] bytes ? bytes : null);
+                    }
+                    yield values;
+                }
+                case "MSET" -> {
+                    for (int i = 1; i + 1 < command.size(); i += 2) {
+                        put(text(command.get(i)), command.get(i + 1), 0);
+                    }
+                    yield "+OK";
+                }
+                case "DEL", "UNLINK" -> {
+                    long deleted = 0;
+                    for (int i = 1; i < command.size(); i++) {
+                        if (live(text(command.get(i))) != null && data.remove(text(command.get(i))) != null) {
+                            deleted++;
+                        }
+                    }
+                    yield deleted;
+                }
+                case "EXISTS" -> {
+                    long found = 0;
+                    for (int i = 1; i < command.size(); i++) {
+                        if (live(text(command.get(i))) != null) {
+                            found++;
+                        }
+                    }
+                    yield found;
+                }
+                case "EXPIRE" -> expire(text(arg(command, 1)), seconds(arg(command, 2)));
+                case "PEXPIRE" -> expire(text(arg(command, 1)), number(arg(command, 2)));
+                case "TTL" -> ttl(text(arg(command, 1)), 1000);
+                case "PTTL" -> ttl(text(arg(command, 1)), 1);
+                case "HSET", "HMSET" -> {
+                    Map<String, byte[]> hash = hashForWrite(text(arg(command, 1)));
+                    long added = 0;
+                    for (int i = 2; i + 1 < command.size(); i += 2) {
+                        if (hash.put(text(command.get(i)), command.get(i + 1)) == null) {
+                            added++;
+                        }
+                    }
+                    yield "HMSET".equals(name) ? "+OK" : added;
+                }
+                case "HGET" -> {
+                    Map<String, byte[]> hash = hashForRead(text(arg(command, 1)));
+                    yield hash.get(text(arg(command, 2)));
+                }
+                case "HMGET" -> {
+                    Map<String, byte[]> hash = hashForRead(text(arg(command, 1)));
+                    List<Object> values = new ArrayList<>(command.size() - 2);
+                    for (int i = 2; i < command.size(); i++) {
+                        values.add(hash.get(text(command.get(i))));
+                    }
+                    yield values;
+                }
+                case "HGETALL" -> {
+                    List<Object> values = new ArrayList<>();
+                    hashForRead(text(arg(command, 1))).forEach((field, value) -> {
+                        values.add(field.getBytes(StandardCharsets.UTF_8));
+                        values.add(value);
+                    });
+                    yield values;
+                }
+                case "HDEL" -> {
+                    Map<String, byte[]> hash = hashForRead(text(arg(command, 1)));
+                    long deleted = 0;
+                    for (int i = 2; i < command.size(); i++) {
+                        if (hash.remove(text(command.get(i))) != null) {
+                            deleted++;
+                        }
+                    }
+                    if (hash.isEmpty()) {
+                        data.remove(text(arg(command, 1)));
+                    }
+                    yield deleted;
+                }
+                case "EVAL" -> eval(text(arg(command, 1)), command);
+                case "EVALSHA" -> {
+                    String script = scripts.get(text(arg(command, 1)).toLowerCase(Locale.ROOT));
+                    if (script == null) {
+                        throw new ErrorReply("NOSCRIPT No matching script. Please use EVAL.");
+                    }
+                    yield eval(script, command);
+                }
+                case "SCRIPT" -> switch (text(arg(command, 1)).toUpperCase(Locale.ROOT)) {
+                    case "LOAD" -> load(text(arg(command, 2))).getBytes(StandardCharsets.UTF_8);
+                    case "FLUSH" -> {
+                        scripts.clear();
+                        yield "+OK";
+                    }
+                    default -> throw new ErrorReply("ERR unknown SCRIPT subcommand");
+                };
+                default -> new ErrorReply("ERR unknown command '" + name + "'");
+            };
+        } catch (ErrorReply e) {
+            return e;
+        }
+    }
+
+    private Object set(List<byte[]> command) {
+        String key = text(arg(command, 1));
+        byte[] value = arg(command, 2);
+        long expireAt = 0;
+        boolean onlyIfAbsent = false;
+        boolean onlyIfPresent = false;
+        for (int i = 3; i < command.size(); i++) {
+            switch (text(command.get(i)).toUpperCase(Locale.ROOT)) {
+                case "EX" -> expireAt = System.currentTimeMillis() + seconds(arg(command, ++i));
+                case "PX" -> expireAt = System.currentTimeMillis() + number(arg(command, ++i));
+                case "NX" -> onlyIfAbsent = true;
+                case "XX" -> onlyIfPresent = true;
+                default -> throw new ErrorReply("ERR syntax error");
+            }
+        }
+        boolean exists = live(key) != null;
+        if ((onlyIfAbsent && exists) || (onlyIfPresent && !exists)) {
+            return null;
+        }
+        put(key, value, expireAt);
+        return "+OK";
+    }
+
+    private String load(String script) {
+        String sha;
+        try {
+            sha = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        scripts.put(sha, script);
+        return sha;
+    }
+
+    private Object eval(String script, List<byte[]> command) {
+        load(script);
+        if (number(arg(command, 2)) != 1) {
+            throw new ErrorReply("ERR only single-key scripts are emulated");
+        }
+        String key = text(arg(command, 3));
+        String id = text(arg(command, 4));
+        long version = number(arg(command, 5));
+        if (VersionedScripts.HSET_FIELDS_IF_NEWER.equals(script)) {
+            if (live(key) == null) {
+                return 0L;
+            }
+            Map<String, byte[]> cached = hashForRead(key);
+            if (cached.get("id") == null || !id.equals(text(cached.get("id")))) {
+                return 0L;
+            }
+            if (cached.get("countryId") == null || !text(arg(command, 6)).equals(text(cached.get("countryId")))) {
+                data.remove(key);
+                return 0L;
+            }
+            if (version <= hashNumber(cached.get("version"))) {
+                return 0L;
+            }
+            Map<String, byte[]> hash = hashForWrite(key);
+            for (int i = 7; i + 1 < command.size(); i += 2) {
+                hash.put(text(command.get(i)), command.get(i + 1));
+            }
+            return 1L;
+        }
+        long countryVersion = number(arg(command, 6));
+        if (VersionedScripts.SET_IF_NEWER.equals(script)) {
+            byte[] current = getString(key);
+            if (current != null) {
+                try {
+                    JsonNode cached = JSON.readTree(current);
+                    if ((id.isEmpty() || id.equals(cached.path("id").asText())) && !VersionedScripts.isNewer(version, countryVersion, cached.path("version").asLong(VersionedScripts.NO_VERSION),
+                            cached.path("countryVersion").asLong(VersionedScripts.NO_VERSION))) {
+                        return 0L;
+                    }
+                } catch (IOException e) {
+                    logger.debug("Overwriting unreadable value of {}", key);
+                }
+            }
+            put(key, arg(command, 7), 0);
+            return 1L;
+        }
+        if (VersionedScripts.HSET_IF_NEWER.equals(script)) {
+            if (live(key) != null) {
+                Map<String, byte[]> cached = hashForRead(key);
+                byte[] cachedId = cached.get("id");
+                if (!id.isEmpty() && (cachedId == null || !id.equals(text(cachedId)))) {
+                    data.remove(key);
+                } else if (!VersionedScripts.isNewer(version, countryVersion, hashNumber(cached.get("version")),
+                        hashNumber(cached.get("countryVersion")))) {
+                    return 0L;
+                }
+            }
+            Map<String, byte[]> hash = hashForWrite(key);
+            for (int i = 7; i + 1 < command.size(); i += 2) {
+                hash.put(text(command.get(i)), command.get(i + 1));
+            }
+            return 1L;
+        }
+        throw new ErrorReply("NOSCRIPT only the versioned cache writes are emulated");
+    }
+
+    private static long hashNumber(byte[] value) {
+        try {
+            return value == null ? VersionedScripts.NO_VERSION : Long.parseLong(text(value));
+        } catch (NumberFormatException e) {
+            return VersionedScripts.NO_VERSION;
+        }
+    }
+
+    private void put(String key, byte[] value, long expireAt) {
+        data.put(key, new Entry(value, expireAt));
+    }
+
+    private byte[] getString(String key) {
+        Entry entry = live(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.value instanceof byte[] bytes) {
+            return bytes;
+        }
+        throw wrongType();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, byte[]> hashForRead(String key) {
+        Entry entry = live(key);
+        if (entry == null) {
+            return new LinkedHashMap<>();
+        }
+        if (entry.value instanceof Map<?, ?> hash) {
+            return (Map<String, byte[]>) hash;
+        }
+        throw wrongType();
+    }
+
+    private Map<String, byte[]> hashForWrite(String key) {
+        Entry entry = live(key);
+        if (entry == null) {
+            Map<String, byte[]> hash = new LinkedHashMap<>();
+            data.put(key, new Entry(hash, 0));
+            return hash;
+        }
+        return hashForRead(key);
+    }
+
+    private long expire(String key, long millis) {
+        Entry entry = live(key);
+        if (entry == null) {
+            return 0;
+        }
+        entry.expireAt = System.currentTimeMillis() + millis;
+        return 1;
+    }
+
+    private long ttl(String key, long unitMillis) {
+        Entry entry = live(key);
+        if (entry == null) {
+            return -2;
+        }
+        if (entry.expireAt == 0) {
+            return -1;
+        }
+        return Math.max(0, entry.expireAt - System.currentTimeMillis()) / unitMillis;
+    }
+
+    private Entry live(String key) {
+        Entry entry = data.get(key);
+        if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+            data.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Entry> iterator = data.values().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().isExpired(now)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static byte[] arg(List<byte[]> command, int index) {
+        if (index >= command.size()) {
+            throw new ErrorReply("ERR wrong number of arguments for '" + text(command.get(0)).toLowerCase(Locale.ROOT) + "' command");
+        }
+        return command.get(index);
+    }
+
+    private static long seconds(byte[] value) {
+        return number(value) * 1000;
+    }
+
+    private static long number(byte[] value) {
+        try {
+            return Long.parseLong(text(value));
+        } catch (NumberFormatException e) {
+            throw new ErrorReply("ERR value is not an integer or out of range");
+        }
+    }
+
+    private static ErrorReply wrongType() {
+        return new ErrorReply("WRONGTYPE Operation against a key holding the wrong kind of value");
+    }
+
+    private static String text(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        int marker = in.read();
+        if (marker == -1) {
+            return null;
+        }
+        if (marker != '*') {
+            String line = (char) marker + readLine(in);
+            List<byte[]> inline = new ArrayList<>();
+            for (String part : line.trim().split("\\s+")) {
+                if (!part.isEmpty()) {
+                    inline.add(part.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            return inline;
+        }
+        int count = Integer.parseInt(readLine(in));
+        List<byte[]> args = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("Protocol error: expected bulk string");
+            }
+            int length = Integer.parseInt(readLine(in));
+            byte[] arg = in.readNBytes(length);
+            if (arg.length != length || in.read() != '\r' || in.read() != '\n') {
+                throw new IOException("Protocol error: truncated bulk string");
+            }
+            args.add(arg);
+        }
+        return args;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b == -1) {
+                throw new IOException("Connection closed mid-command");
+            }
+            line.append((char) b);
+        }
+        in.read();
+        return line.toString();
+    }
+
+    private static void writeReply(OutputStream out, Object reply) throws IOException {
+        if (reply == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+        } else if (reply instanceof String status) {
+            out.write(status.getBytes(StandardCharsets.UTF_8));
+            out.write(CRLF);
+        } else if (reply instanceof ErrorReply error) {
+            out.write(('-' + error.getMessage()).getBytes(StandardCharsets.UTF_8));
+            out.write(CRLF);
+        } else if (reply instanceof Long number) {
+            out.write((":" + number).getBytes(StandardCharsets.US_ASCII));
+            out.write(CRLF);
+        } else if (reply instanceof byte[] bulk) {
+            out.write(("$" + bulk.length).getBytes(StandardCharsets.US_ASCII));
+            out.write(CRLF);
+            out.write(bulk);
+            out.write(CRLF);
+        } else if (reply instanceof List<?> items) {
+            out.write(("*" + items.size()).getBytes(StandardCharsets.US_ASCII));
+            out.write(CRLF);
+            for (Object item : items) {
+                writeReply(out, item);
+            }
+        } else {
+            throw new IllegalStateException("Unsupported reply type " + reply.getClass());
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private long expireAt;
+
+        private Entry(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired(long now) {
+            return expireAt != 0 && now >= expireAt;
+        }
+    }
+
+    private static final class ErrorReply extends RuntimeException {
+
+        private ErrorReply(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ua.java.harness;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.params.SetParams;
+import ua.java.cache.RedisRepository;
+import ua.java.cache.RedisRepositoryFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FakeRedisServerTest {
+
+    private FakeRedisServer server;
+    private Jedis jedis;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = FakeRedisServer.start();
+        jedis = new Jedis(server.getHost(), server.getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jedis.close();
+        server.close();
+    }
+
+    @Test
+    void testStringCommands() {
+        assertEquals("PONG", jedis.ping());
+        assertEquals("OK", jedis.set("cityName:Kabul", "{\"id\":1}"));
+        jedis.mset("a", "1", "b", "2");
+
+        assertEquals("{\"id\":1}", jedis.get("cityName:Kabul"));
+        assertEquals(Arrays.asList("1", null, "2"), jedis.mget("a", "missing", "b"));
+        assertEquals(2, jedis.del("a", "missing", "b"));
+        assertNull(jedis.get("a"));
+        assertNull(jedis.set("cityName:Kabul", "other", SetParams.setParams().nx()));
+        assertEquals(1, jedis.dbSize());
+    }
+
+    @Test
+    void testRepositoryPingReachesServerThroughResilientWrapper() {
+        for (String client : List.of("jedis", "lettuce")) {
+            try (RedisRepository repository = RedisRepositoryFactory.createResilient(HarnessEnvironment.redisSettings(server, client))) {
+                assertDoesNotThrow(repository::ping);
+            }
+        }
+        RedisRepository repository = RedisRepositoryFactory.createResilient(HarnessEnvironment.redisSettings(server, "jedis"));
+        server.close();
+
+        assertThrows(RuntimeException.class, repository::ping);
+        repository.close();
+    }
+
+    @Test
+    void testHashCommandsAndWrongType() {
+        jedis.hset("cityHash:Kabul", Map.of("name", "Kabul", "population", "1780000"));
+
+        assertEquals("Kabul", jedis.hget("cityHash:Kabul", "name"));
+        assertEquals(Arrays.asList("1780000", null), jedis.hmget("cityHash:Kabul", "population", "district"));
+        assertEquals(Map.of("name", "Kabul", "population", "1780000"), jedis.hgetAll("cityHash:Kabul"));
+        assertThrows(Exception.class, () -> jedis.get("cityHash:Kabul"));
+    }
+
+    @Test
+    void testExpiry() throws InterruptedException {
+        jedis.psetex("tombstone", 30, "1");
+        jedis.set("plain", "1");
+
+        assertTrue(jedis.pttl("tombstone") > 0);
+        assertEquals(-1, jedis.ttl("plain"));
+        Thread.sleep(60);
+        assertNull(jedis.get("tombstone"));
+        assertEquals(-2, jedis.ttl("tombstone"));
+    }
+
+    @Test
+    void testPipelinedRepliesArriveInOrder() {
+        Pipeline pipeline = jedis.pipelined();
+        for (int i = 0; i < 200; i++) {
+            pipeline.set("key" + i, String.valueOf(i));
+        }
+        List<Object> replies = pipeline.syncAndReturnAll();
+        pipeline = jedis.pipelined();
+        for (int i = 0; i < 200; i++) {
+            pipeline.get("key" + i);
+        }
+        List<Object> values = pipeline.syncAndReturnAll();
+
+        assertEquals(200, replies.size());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(String.valueOf(i), values.get(i));
+        }
+        assertTrue(server.getCommandCount() >= 400);
+    }
+}
@@ -0,0 +1,119 @@
+package ua.java.harness;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import ua.java.cache.OffHeapCityCache;
+import ua.java.cache.RedisRepository;
+import ua.java.cache.RedisRepositoryFactory;
+import ua.java.cache.RedisSettings;
+import ua.java.repository.CityRepository;
+import ua.java.repository.CountryRepository;
+import ua.java.service.CityService;
+import ua.java.service.CountryService;
+import ua.java.transaction.TransactionTemplate;
+import ua.java.util.HibernateUtil;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HarnessEnvironment implements AutoCloseable {
+
+    private static final AtomicInteger databaseCount = new AtomicInteger();
+
+    private final FakeRedisServer redisServer;
+    private final SessionFactory sessionFactory;
+    private final RedisRepository redisRepository;
+    private final WorldDataset dataset;
+    private final CityService cityService;
+    private final CountryService countryService;
+
+    private HarnessEnvironment(FakeRedisServer redisServer, SessionFactory sessionFactory, RedisRepository redisRepository,
+                               WorldDataset dataset) {
+        this.redisServer = redisServer;
+        this.sessionFactory = sessionFactory;
+        this.redisRepository = redisRepository;
+        this.dataset = dataset;
+        TransactionTemplate transactionTemplate = new TransactionTemplate(sessionFactory);
+        this.cityService = new CityService(new CityRepository(transactionTemplate), redisRepository,
+                new OffHeapCityCache(16 * 1024 * 1024));
+        this.countryService = new CountryService(new CountryRepository(transactionTemplate), redisRepository);
+    }
+
+    public static HarnessEnvironment start(LoadConfig config) throws IOException {
+        FakeRedisServer redisServer = FakeRedisServer.start();
+        SessionFactory sessionFactory = null;
+        try {
+            sessionFactory = HibernateUtil.buildSessionFactory(h2Properties(config.threads() + 2));
+            WorldDataset dataset = WorldDataset.generate(config.scale(), config.seed());
+            try (Session session = sessionFactory.openSession()) {
+                session.doWork(dataset::load);
+            }
+            RedisRepository redisRepository = RedisRepositoryFactory.createResilient(redisSettings(redisServer, config.redisClient()));
+            return new HarnessEnvironment(redisServer, sessionFactory, redisRepository, dataset);
+        } catch (RuntimeException e) {
+            if (sessionFactory != null) {
+                sessionFactory.close();
+            }
+            redisServer.close();
+            throw e;
+        }
+    }
+
+    public FakeRedisServer getRedisServer() {
+        return redisServer;
+    }
+
+    public SessionFactory getSessionFactory() {
+        return sessionFactory;
+    }
+
+    public RedisRepository getRedisRepository() {
+        return redisRepository;
+    }
+
+    public WorldDataset getDataset() {
+        return dataset;
+    }
+
+    public CityService getCityService() {
+        return cityService;
+    }
+
+    public CountryService getCountryService() {
+        return countryService;
+    }
+
+    @Override
+    public void close() {
+        redisRepository.close();
+        sessionFactory.close();
+        redisServer.close();
+    }
+
+    static Properties h2Properties(int poolSize) {
+        Properties properties = new Properties();
+        properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+        properties.setProperty("hibernate.connection.url",
+                "jdbc:h2:mem:world" + databaseCount.incrementAndGet() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        properties.setProperty("hibernate.connection.username", "sa");
+        properties.setProperty("hibernate.connection.password", "");
+        properties.setProperty("hibernate.connection.pool_size", String.valueOf(poolSize));
+        properties.setProperty("hibernate.hbm2ddl.auto", "create");
+        properties.setProperty("hibernate.hbm2ddl.create_namespaces", "true");
+        return properties;
+    }
+
+    static RedisSettings redisSettings(FakeRedisServer redisServer, String client) {
+        Properties properties = new Properties();
+        properties.setProperty("redis.client", client);
+        properties.setProperty("redis.host", redisServer.getHost());
+        properties.setProperty("redis.port", String.valueOf(redisServer.getPort()));
+        properties.setProperty("redis.timeout.getMs", "1000");
+        properties.setProperty("redis.timeout.setMs", "1000");
+        properties.setProperty("redis.timeout.delMs", "1000");
+        properties.setProperty("redis.socketTimeoutMs", "1000");
+        return new RedisSettings(properties);
+    }
+}
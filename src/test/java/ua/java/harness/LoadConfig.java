@@ -0,0 +1,35 @@
+package ua.java.harness;
+
+import java.util.Locale;
+
+public record LoadConfig(double scale, int threads, int operationsPerThread, int warmupOperationsPerThread,
+                         double readRatio, double countryShare, double zipfExponent, long seed, String redisClient) {
+
+    public LoadConfig {
+        if (threads <= 0 || operationsPerThread <= 0 || warmupOperationsPerThread < 0) {
+            throw new IllegalArgumentException("threads and operations must be positive");
+        }
+        if (readRatio < 0 || readRatio > 1 || countryShare < 0 || countryShare > 1) {
+            throw new IllegalArgumentException("readRatio and countryShare must be between 0 and 1");
+        }
+    }
+
+    public static LoadConfig fromSystemProperties() {
+        return new LoadConfig(
+                Double.parseDouble(System.getProperty("load.scale", "1")),
+                Integer.getInteger("load.threads", 8),
+                Integer.getInteger("load.operations", 20_000),
+                Integer.getInteger("load.warmup", 2_000),
+                Double.parseDouble(System.getProperty("load.readRatio", "0.95")),
+                Double.parseDouble(System.getProperty("load.countryShare", "0.2")),
+                Double.parseDouble(System.getProperty("load.zipf", "0.99")),
+                Long.getLong("load.seed", 42L),
+                System.getProperty("load.redis.client", "jedis"));
+    }
+
+    public String describe() {
+        return String.format(Locale.ROOT,
+                "scale=%s threads=%d operations=%d warmup=%d readRatio=%s countryShare=%s zipf=%s seed=%d redis=%s",
+                scale, threads, operationsPerThread, warmupOperationsPerThread, readRatio, countryShare, zipfExponent, seed, redisClient);
+    }
+}
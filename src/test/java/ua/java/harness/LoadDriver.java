@@ -0,0 +1,144 @@
+package ua.java.harness;
+
+import ua.java.domain.entity.City;
+import ua.java.domain.entity.Country;
+import ua.java.generator.CityRow;
+import ua.java.generator.CountryRow;
+import ua.java.metrics.Histogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LoadDriver {
+
+    public enum Operation {
+        CITY_READ,
+        COUNTRY_READ,
+        CITY_WRITE
+    }
+
+    private final HarnessEnvironment environment;
+    private final LoadConfig config;
+    private final List<CityRow> citiesByRank;
+    private final List<CountryRow> countriesByRank;
+    private final ZipfGenerator cityKeys;
+    private final ZipfGenerator countryKeys;
+
+    public LoadDriver(HarnessEnvironment environment, LoadConfig config) {
+        this.environment = environment;
+        this.config = config;
+        Random shuffle = new Random(config.seed());
+        this.citiesByRank = shuffled(environment.getDataset().getCities(), shuffle);
+        this.countriesByRank = shuffled(environment.getDataset().getCountries(), shuffle);
+        this.cityKeys = new ZipfGenerator(citiesByRank.size(), config.zipfExponent());
+        this.countryKeys = new ZipfGenerator(countriesByRank.size(), config.zipfExponent());
+    }
+
+    public LoadReport run() {
+        runPhase(config.warmupOperationsPerThread(), null, null);
+        Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new Histogram());
+            errors.put(operation, new LongAdder());
+        }
+        long start = System.nanoTime();
+        runPhase(config.operationsPerThread(), latencies, errors);
+        return new LoadReport(config, latencies, errors, System.nanoTime() - start);
+    }
+
+    private void runPhase(int operationsPerThread, Map<Operation, Histogram> latencies, Map<Operation, LongAdder> errors) {
+        if (operationsPerThread == 0) {
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(config.threads(), runnable -> {
+            Thread thread = new Thread(runnable, "load-driver-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Void>> results = new ArrayList<>(config.threads());
+            for (int worker = 0; worker < config.threads(); worker++) {
+                long seed = config.seed() * 31 + worker + (latencies == null ? 0 : 1_000_003);
+                results.add(workers.submit(worker(new SplittableRandom(seed), operationsPerThread, latencies, errors)));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Load run interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load worker failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private Callable<Void> worker(SplittableRandom random, int operations, Map<Operation, Histogram> latencies,
+                                  Map<Operation, LongAdder> errors) {
+        return () -> {
+            for (int i = 0; i < operations; i++) {
+                Operation operation = nextOperation(random);
+                long start = System.nanoTime();
+                try {
+                    execute(operation, random);
+                } catch (RuntimeException e) {
+                    if (errors != null) {
+                        errors.get(operation).increment();
+                    }
+                    continue;
+                }
+                if (latencies != null) {
+                    latencies.get(operation).record(System.nanoTime() - start);
+                }
+            }
+            return null;
+        };
+    }
+
+    private Operation nextOperation(SplittableRandom random) {
+        if (random.nextDouble() >= config.readRatio()) {
+            return Operation.CITY_WRITE;
+        }
+        return random.nextDouble() < config.countryShare() ? Operation.COUNTRY_READ : Operation.CITY_READ;
+    }
+
+    private void execute(Operation operation, SplittableRandom random) {
+        switch (operation) {
+            case CITY_READ -> environment.getCityService().getById(citiesByRank.get(cityKeys.next(random)).id());
+            case COUNTRY_READ -> environment.getCountryService().getById(countriesByRank.get(countryKeys.next(random)).id());
+            case CITY_WRITE -> {
+                CityRow row = citiesByRank.get(cityKeys.next(random));
+                Country country = new Country();
+                country.setId(row.countryId());
+                City city = new City();
+                city.setId(row.id());
+                city.setName(row.name());
+                city.setDistrict(row.district());
+                city.setCountry(country);
+                city.setPopulation(1_000 + random.nextInt(5_000_000));
+                environment.getCityService().updateById(row.id(), city);
+            }
+        }
+    }
+
+    private static <T> List<T> shuffled(List<T> rows, Random random) {
+        List<T> copy = new ArrayList<>(rows);
+        Collections.shuffle(copy, random);
+        return copy;
+    }
+}
@@ -0,0 +1,36 @@
+package ua.java.harness;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Offline end-to-end load run against H2 (MySQL mode) and the in-process Redis stand-in.
+ * Tune with -Dload.scale, load.threads, load.operations, load.readRatio, load.zipf, load.seed;
+ * -Dload.baseline=file compares against a stored run, or records one if the file does not exist.
+ */
+public class LoadHarness {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadHarness.class);
+
+    public static void main(String[] args) throws IOException {
+        LoadConfig config = LoadConfig.fromSystemProperties();
+        try (HarnessEnvironment environment = HarnessEnvironment.start(config)) {
+            LoadReport report = new LoadDriver(environment, config).run();
+            logger.info("Load run finished\n{}", report.format());
+            String baseline = System.getProperty("load.baseline");
+            if (baseline != null) {
+                Path path = Path.of(baseline);
+                if (Files.exists(path)) {
+                    logger.info("Compared with baseline {}\n{}", path, report.compare(LoadReport.load(path)));
+                } else {
+                    report.save(path);
+                    logger.info("Baseline recorded to {}", path);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package ua.java.harness;
+
+import org.junit.jupiter.api.Test;
+import ua.java.domain.entity.City;
+import ua.java.domain.entity.Country;
+import ua.java.generator.CityRow;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadHarnessTest {
+
+    @Test
+    void testEndToEndRunAgainstEmbeddedStandIns() throws IOException {
+        LoadConfig config = new LoadConfig(0.05, 4, 300, 50, 0.9, 0.2, 0.99, 42, "jedis");
+
+        try (HarnessEnvironment environment = HarnessEnvironment.start(config)) {
+            CityRow firstCity = environment.getDataset().getCities().get(0);
+            City city = environment.getCityService().getById(firstCity.id());
+            Country country = environment.getCountryService().getById(firstCity.countryId());
+            assertEquals(firstCity.name(), city.getName());
+            assertEquals(firstCity.countryId(), country.getId());
+            assertTrue(environment.getCityService().findById(Integer.MAX_VALUE).isEmpty());
+            assertTrue(environment.getCountryService().findById(Integer.MAX_VALUE).isEmpty());
+            assertTrue(environment.getCityService().existsById(firstCity.id()));
+            assertFalse(environment.getCityService().existsById(Integer.MAX_VALUE));
+
+            LoadReport report = new LoadDriver(environment, config).run();
+
+            assertEquals(0, report.getTotalErrors(), report.format());
+            assertEquals(4 * 300, report.getTotalCount());
+            assertTrue(report.getCount(LoadDriver.Operation.CITY_WRITE) > 0);
+            assertTrue(report.getThroughput() > 0);
+            assertTrue(environment.getRedisServer().size() > 0, "hot keys should have been admitted to Redis");
+            assertTrue(report.compare(report.toProperties()).contains("(+0.0%)"));
+        }
+    }
+}
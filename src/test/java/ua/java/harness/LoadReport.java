@@ -0,0 +1,129 @@
+package ua.java.harness;
+
+import ua.java.metrics.Histogram;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LoadReport {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final LoadConfig config;
+    private final Map<LoadDriver.Operation, Histogram> latencies;
+    private final Map<LoadDriver.Operation, LongAdder> errors;
+    private final long elapsedNanos;
+
+    LoadReport(LoadConfig config, Map<LoadDriver.Operation, Histogram> latencies, Map<LoadDriver.Operation, LongAdder> errors,
+               long elapsedNanos) {
+        this.config = config;
+        this.latencies = latencies;
+        this.errors = errors;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getCount(LoadDriver.Operation operation) {
+        return latencies.get(operation).count();
+    }
+
+    public long getErrors(LoadDriver.Operation operation) {
+        return errors.get(operation).sum();
+    }
+
+    public long getTotalCount() {
+        return latencies.values().stream().mapToLong(Histogram::count).sum();
+    }
+
+    public long getTotalErrors() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : getTotalCount() * 1e9 / elapsedNanos;
+    }
+
+    public long getPercentileMicros(LoadDriver.Operation operation, double quantile) {
+        return TimeUnit.NANOSECONDS.toMicros(latencies.get(operation).percentile(quantile));
+    }
+
+    public String format() {
+        StringBuilder out = new StringBuilder();
+        out.append(config.describe()).append('\n');
+        out.append(String.format(Locale.ROOT, "elapsed %d ms, %d ops, %d errors, %.1f ops/s%n",
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), getTotalCount(), getTotalErrors(), getThroughput()));
+        out.append(String.format(Locale.ROOT, "%-13s %9s %7s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "p50 us", "p90 us", "p99 us", "p999 us", "max us"));
+        for (LoadDriver.Operation operation : LoadDriver.Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            out.append(String.format(Locale.ROOT, "%-13s %9d %7d", operation.name().toLowerCase(Locale.ROOT),
+                    histogram.count(), getErrors(operation)));
+            for (double quantile : QUANTILES) {
+                out.append(String.format(Locale.ROOT, " %9d", getPercentileMicros(operation, quantile)));
+            }
+            out.append(String.format(Locale.ROOT, " %9d%n", TimeUnit.NANOSECONDS.toMicros(histogram.max())));
+        }
+        return out.toString();
+    }
+
+    public Properties toProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("config", config.describe());
+        properties.setProperty("throughput", String.format(Locale.ROOT, "%.1f", getThroughput()));
+        for (LoadDriver.Operation operation : LoadDriver.Operation.values()) {
+            String prefix = operation.name().toLowerCase(Locale.ROOT) + ".";
+            properties.setProperty(prefix + "count", String.valueOf(getCount(operation)));
+            properties.setProperty(prefix + "errors", String.valueOf(getErrors(operation)));
+            properties.setProperty(prefix + "p50", String.valueOf(getPercentileMicros(operation, 0.5)));
+            properties.setProperty(prefix + "p99", String.valueOf(getPercentileMicros(operation, 0.99)));
+        }
+        return properties;
+    }
+
+    public String compare(Properties baseline) {
+        StringBuilder out = new StringBuilder();
+        if (!config.describe().equals(baseline.getProperty("config"))) {
+            out.append("warning: baseline was recorded with ").append(baseline.getProperty("config")).append('\n');
+        }
+        Properties current = toProperties();
+        appendDelta(out, "throughput", baseline, current);
+        for (LoadDriver.Operation operation : LoadDriver.Operation.values()) {
+            String prefix = operation.name().toLowerCase(Locale.ROOT) + ".";
+            appendDelta(out, prefix + "p50", baseline, current);
+            appendDelta(out, prefix + "p99", baseline, current);
+        }
+        return out.toString();
+    }
+
+    public void save(Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            toProperties().store(writer, "load harness baseline");
+        }
+    }
+
+    public static Properties load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    private static void appendDelta(StringBuilder out, String key, Properties baseline, Properties current) {
+        String before = baseline.getProperty(key);
+        if (before == null) {
+            return;
+        }
+        double was = Double.parseDouble(before);
+        double now = Double.parseDouble(current.getProperty(key));
+        double change = was == 0 ? 0 : (now - was) * 100 / was;
+        out.append(String.format(Locale.ROOT, "%-18s %12s -> %12s (%+.1f%%)%n", key, before, current.getProperty(key), change));
+    }
+}
@@ -0,0 +1,207 @@
+package ua.java.harness;
+
+import jakarta.persistence.OptimisticLockException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ua.java.cache.RedisRepository;
+import ua.java.cache.RedisRepositoryFactory;
+import ua.java.cache.RedisSettings;
+import ua.java.cache.VersionedValue;
+import ua.java.domain.entity.City;
+import ua.java.domain.entity.Country;
+import ua.java.generator.CityRow;
+import ua.java.redis.CityCountry;
+import ua.java.redis.CityCountryField;
+import ua.java.redis.DataTransformer;
+import ua.java.service.CityService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionedCacheTest {
+
+    @Test
+    void testJedisJsonWritesOnlyNewerVersions() throws IOException {
+        assertOnlyNewerVersionsOverwrite("jedis", "json");
+    }
+
+    @Test
+    void testJedisHashWritesOnlyNewerVersions() throws IOException {
+        assertOnlyNewerVersionsOverwrite("jedis", "hash");
+    }
+
+    @Test
+    void testLettuceWritesOnlyNewerVersions() throws IOException {
+        assertOnlyNewerVersionsOverwrite("lettuce", "json");
+    }
+
+    @Test
+    void testJedisJsonBatchWritesOnlyNewerVersions() throws IOException {
+        assertBatchWritesOnlyNewerVersions("jedis", "json");
+    }
+
+    @Test
+    void testJedisHashBatchWritesOnlyNewerVersions() throws IOException {
+        assertBatchWritesOnlyNewerVersions("jedis", "hash");
+    }
+
+    @Test
+    void testLettuceBatchWritesOnlyNewerVersions() throws IOException {
+        assertBatchWritesOnlyNewerVersions("lettuce", "json");
+    }
+
+    @Test
+    void testJedisHashPartialUpdateIsVersionChecked() throws IOException {
+        try (FakeRedisServer server = FakeRedisServer.start();
+             RedisRepository repository = RedisRepositoryFactory.create(settings(server, "jedis", "hash"))) {
+            CityCountry cached = cityCountry(1, 5, 1_000);
+            cached.setCountryId(1);
+            cached.setCountryName("Afghanistan");
+            repository.cacheIfNewer(cached);
+
+            CityCountry updated = cityCountry(2, 5, 2_000);
+            updated.setCountryId(1);
+            repository.updateFields(updated, CityCountryField.CITY);
+            CityCountry stale = cityCountry(1, 5, 1_500);
+            stale.setCountryId(1);
+            repository.updateFields(stale, CityCountryField.CITY);
+
+            CityCountry result = repository.getDataByName("Kabul");
+            assertEquals(2_000, result.getPopulation());
+            assertEquals(2, result.getVersion());
+            assertEquals("Afghanistan", result.getCountryName());
+
+            CityCountry moved = cityCountry(3, 5, 2_000);
+            moved.setCountryId(2);
+            repository.updateFields(moved, CityCountryField.CITY);
+
+            assertNull(repository.getDataByName("Kabul"));
+        }
+    }
+
+    @Test
+    void testRawValueBatchKeepsNewerCountryVersion() throws IOException {
+        for (String client : List.of("jedis", "lettuce")) {
+            try (FakeRedisServer server = FakeRedisServer.start();
+                 RedisRepository repository = RedisRepositoryFactory.create(settings(server, client, "json"))) {
+                repository.setValuesIfNewer(Map.of("country:1", new VersionedValue("{\"countryVersion\":3}", -1, 3)));
+                repository.setValuesIfNewer(Map.of("country:1", new VersionedValue("{\"countryVersion\":2}", -1, 2)));
+
+                assertEquals("{\"countryVersion\":3}", repository.getValues(List.of("country:1")).get("country:1"), client);
+            }
+        }
+    }
+
+    @Test
+    void testStaleUpdateIsRejectedAndCacheKeepsNewestVersion() throws IOException {
+        try (HarnessEnvironment environment = HarnessEnvironment.start(new LoadConfig(0.02, 1, 1, 0, 1, 0, 0.99, 7, "jedis"))) {
+            CityRow row = environment.getDataset().getCities().get(0);
+            CityService service = environment.getCityService();
+            RedisRepository redisRepository = environment.getRedisRepository();
+            service.getById(row.id());
+            service.getById(row.id());
+            CityCountry cached = redisRepository.getDataByName(row.name());
+            assertEquals(0, cached.getVersion());
+
+            City stale = DataTransformer.fromJsonToCityEntity(cached);
+            Country country = new Country();
+            country.setId(row.countryId());
+            stale.setCountry(country);
+            stale.setPopulation(row.population() + 1);
+            service.updateById(row.id(), stale);
+
+            CityCountry refreshed = redisRepository.getDataByName(row.name());
+            assertEquals(1, refreshed.getVersion());
+            assertEquals(row.population() + 1, refreshed.getPopulation());
+            assertThrows(OptimisticLockException.class, () -> service.updateById(row.id(), stale));
+            assertFalse(redisRepository.cacheIfNewer(cached));
+            assertEquals(row.population() + 1, redisRepository.getDataByName(row.name()).getPopulation());
+        }
+    }
+
+    @Test
+    void testSnapshotIsStaleAfterRowUpdate(@TempDir Path tempDir) throws IOException {
+        try (HarnessEnvironment environment = HarnessEnvironment.start(new LoadConfig(0.02, 1, 1, 0, 1, 0, 0.99, 7, "jedis"))) {
+            CityRow row = environment.getDataset().getCities().get(0);
+            CityService service = environment.getCityService();
+            Path snapshot = tempDir.resolve("city-cache.snapshot");
+            service.getById(row.id());
+            service.getById(row.id());
+            service.writeSnapshot(snapshot);
+            assertTrue(service.restoreSnapshot(snapshot));
+
+            City city = service.getById(row.id());
+            city.setPopulation(row.population() + 1);
+            service.updateById(row.id(), city);
+
+            assertFalse(service.restoreSnapshot(snapshot));
+        }
+    }
+
+    private static void assertOnlyNewerVersionsOverwrite(String client, String layout) throws IOException {
+        try (FakeRedisServer server = FakeRedisServer.start()) {
+            try (RedisRepository repository = RedisRepositoryFactory.create(settings(server, client, layout))) {
+                assertTrue(repository.cacheIfNewer(cityCountry(2, 5, 3_000)));
+                assertFalse(repository.cacheIfNewer(cityCountry(1, 5, 1_000)));
+                assertFalse(repository.cacheIfNewer(cityCountry(2, 5, 2_000)));
+                assertFalse(repository.cacheIfNewer(cityCountry(3, 4, 2_000)));
+                assertEquals(3_000, repository.getDataByName("Kabul").getPopulation());
+
+                assertTrue(repository.cacheIfNewer(cityCountry(2, 6, 4_000)));
+                CityCountry cached = repository.getDataByName("Kabul");
+                assertEquals(4_000, cached.getPopulation());
+                assertEquals(2, cached.getVersion());
+                assertEquals(6, cached.getCountryVersion());
+
+                assertTrue(repository.cacheIfNewer(cityCountry(2, "Kabul", 0, 0, 500)));
+                cached = repository.getDataByName("Kabul");
+                assertEquals(2, cached.getId());
+                assertEquals(500, cached.getPopulation());
+            }
+        }
+    }
+
+    private static void assertBatchWritesOnlyNewerVersions(String client, String layout) throws IOException {
+        try (FakeRedisServer server = FakeRedisServer.start();
+             RedisRepository repository = RedisRepositoryFactory.create(settings(server, client, layout))) {
+            repository.cacheAllIfNewer(List.of(cityCountry(2, 5, 3_000)));
+            repository.cacheAllIfNewer(List.of(cityCountry(1, 5, 1_000), cityCountry(2, "Herat", 0, 5, 2_000)));
+
+            assertEquals(3_000, repository.getDataByName("Kabul").getPopulation());
+            assertEquals(2_000, repository.getDataByName("Herat").getPopulation());
+
+            repository.cacheAllIfNewer(List.of(cityCountry(2, 6, 4_000)));
+
+            assertEquals(4_000, repository.getDataByName("Kabul").getPopulation());
+        }
+    }
+
+    private static RedisSettings settings(FakeRedisServer server, String client, String layout) {
+        Properties properties = new Properties();
+        properties.setProperty("redis.client", client);
+        properties.setProperty("redis.layout", layout);
+        properties.setProperty("redis.host", server.getHost());
+        properties.setProperty("redis.port", String.valueOf(server.getPort()));
+        properties.setProperty("redis.socketTimeoutMs", "1000");
+        return new RedisSettings(properties);
+    }
+
+    private static CityCountry cityCountry(int version, int countryVersion, int population) {
+        return cityCountry(1, "Kabul", version, countryVersion, population);
+    }
+
+    private static CityCountry cityCountry(int id, String name, int version, int countryVersion, int population) {
+        CityCountry cityCountry = new CityCountry();
+        cityCountry.setId(id);
+        cityCountry.setName(name);
+        cityCountry.setPopulation(population);
+        cityCountry.setVersion(version);
+        cityCountry.setCountryVersion(countryVersion);
+        return cityCountry;
+    }
+}
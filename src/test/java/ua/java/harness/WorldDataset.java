@@ -0,0 +1,69 @@
+package ua.java.harness;
+
+import ua.java.generator.CityRow;
+import ua.java.generator.CountryRow;
+import ua.java.generator.JdbcWorldSink;
+import ua.java.generator.LanguageRow;
+import ua.java.generator.WorldGenerator;
+import ua.java.generator.WorldSink;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+public class WorldDataset implements WorldSink {
+
+    private static final int ROWS_PER_INSERT = 500;
+
+    private final List<CountryRow> countries = new ArrayList<>();
+    private final List<CityRow> cities = new ArrayList<>();
+    private final List<LanguageRow> languages = new ArrayList<>();
+
+    public static WorldDataset generate(double scale, long seed) {
+        WorldDataset dataset = new WorldDataset();
+        new WorldGenerator(scale, seed).generate(dataset);
+        return dataset;
+    }
+
+    @Override
+    public void country(CountryRow country) {
+        countries.add(country);
+    }
+
+    @Override
+    public void language(LanguageRow language) {
+        languages.add(language);
+    }
+
+    @Override
+    public void city(CityRow city) {
+        cities.add(city);
+    }
+
+    public void load(Connection connection) throws SQLException {
+        try (JdbcWorldSink sink = new JdbcWorldSink(connection, ROWS_PER_INSERT)) {
+            countries.forEach(sink::country);
+            languages.forEach(sink::language);
+            cities.forEach(sink::city);
+            sink.finish();
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table world.city alter column id restart with " + (cities.size() + 1));
+            statement.execute("alter table world.country_language alter column id restart with " + (languages.size() + 1));
+        }
+    }
+
+    public List<CountryRow> getCountries() {
+        return countries;
+    }
+
+    public List<CityRow> getCities() {
+        return cities;
+    }
+
+    public List<LanguageRow> getLanguages() {
+        return languages;
+    }
+}
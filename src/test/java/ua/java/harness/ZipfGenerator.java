@@ -0,0 +1,33 @@
+package ua.java.harness;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class ZipfGenerator {
+
+    private final double[] cumulative;
+
+    public ZipfGenerator(int size, double exponent) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        cumulative = new double[size];
+        double total = 0;
+        for (int rank = 0; rank < size; rank++) {
+            total += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= total;
+        }
+    }
+
+    public int size() {
+        return cumulative.length;
+    }
+
+    public int next(SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+    }
+}
@@ -0,0 +1,39 @@
+package ua.java.harness;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipfGeneratorTest {
+
+    @Test
+    void testSkewAndRepeatability() {
+        ZipfGenerator generator = new ZipfGenerator(1000, 0.99);
+        int[] first = sample(generator, 7);
+        int[] second = sample(generator, 7);
+
+        assertArrayEquals(first, second);
+        assertTrue(first[0] > first[9] * 5, "rank 0 should be far hotter than rank 9");
+        assertTrue(first[9] > first[999], "rank 9 should be hotter than the tail");
+    }
+
+    @Test
+    void testZeroExponentIsUniform() {
+        int[] counts = sample(new ZipfGenerator(10, 0), 11);
+
+        for (int count : counts) {
+            assertEquals(10_000, count, 500);
+        }
+    }
+
+    private static int[] sample(ZipfGenerator generator, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] counts = new int[generator.size()];
+        for (int i = 0; i < 100_000; i++) {
+            counts[generator.next(random)]++;
+        }
+        return counts;
+    }
+}
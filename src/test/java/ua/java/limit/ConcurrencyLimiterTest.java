@@ -0,0 +1,166 @@
+package ua.java.limit;
+
+import org.junit.jupiter.api.Test;
+import ua.java.domain.exception.OverloadException;
+import ua.java.metrics.SimpleMeterRegistry;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    @Test
+    void testRejectsWhenQueueIsFull() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new FixedLimit(1), 0, 1.0, 1_000, 1_000, 1_000, new SimpleMeterRegistry());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread holder = new Thread(() -> limiter.call(Priority.NORMAL, () -> {
+            started.countDown();
+            await(finish);
+            return null;
+        }));
+        holder.start();
+        started.await();
+
+        assertThrows(OverloadException.class, () -> limiter.call(Priority.NORMAL, () -> "rejected"));
+
+        finish.countDown();
+        holder.join();
+        assertEquals("ok", limiter.call(Priority.NORMAL, () -> "ok"));
+        assertEquals(0, limiter.getInflight());
+    }
+
+    @Test
+    void testQueuedRequestTimesOutAtDeadline() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new FixedLimit(1), 10, 1.0, 50, 50, 50, new SimpleMeterRegistry());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread holder = new Thread(() -> limiter.call(Priority.NORMAL, () -> {
+            started.countDown();
+            await(finish);
+            return null;
+        }));
+        holder.start();
+        started.await();
+
+        long start = System.nanoTime();
+        assertThrows(OverloadException.class, () -> limiter.call(Priority.NORMAL, () -> "late"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 40);
+        assertEquals(0, limiter.getQueued(Priority.NORMAL));
+
+        finish.countDown();
+        holder.join();
+    }
+
+    @Test
+    void testInterruptedWaiterLeavesQueue() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new FixedLimit(1), 10, 1.0, 10_000, 10_000, 10_000, new SimpleMeterRegistry());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread holder = new Thread(() -> limiter.call(Priority.NORMAL, () -> {
+            started.countDown();
+            await(finish);
+            return null;
+        }));
+        holder.start();
+        started.await();
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        List<Boolean> interruptFlags = new CopyOnWriteArrayList<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.call(Priority.NORMAL, () -> "queued");
+            } catch (OverloadException e) {
+                failures.add(e);
+                interruptFlags.add(Thread.currentThread().isInterrupted());
+            }
+        });
+        waiter.start();
+        while (limiter.getQueued(Priority.NORMAL) == 0) {
+            Thread.onSpinWait();
+        }
+
+        waiter.interrupt();
+        waiter.join(2_000);
+
+        assertFalse(waiter.isAlive());
+        assertEquals(1, failures.size());
+        assertEquals(List.of(true), interruptFlags);
+        assertEquals(0, limiter.getQueued(Priority.NORMAL));
+        finish.countDown();
+        holder.join();
+        assertEquals(0, limiter.getInflight());
+    }
+
+    @Test
+    void testCriticalWaitersAreServedBeforeBulk() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new FixedLimit(1), 10, 1.0, 5_000, 5_000, 5_000, new SimpleMeterRegistry());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        List<Priority> order = new CopyOnWriteArrayList<>();
+        Thread holder = new Thread(() -> limiter.call(Priority.NORMAL, () -> {
+            started.countDown();
+            await(finish);
+            return null;
+        }));
+        holder.start();
+        started.await();
+
+        Thread bulk = new Thread(() -> limiter.call(Priority.BULK, () -> order.add(Priority.BULK)));
+        bulk.start();
+        waitForQueued(limiter, Priority.BULK);
+        Thread critical = new Thread(() -> limiter.call(Priority.CRITICAL, () -> order.add(Priority.CRITICAL)));
+        critical.start();
+        waitForQueued(limiter, Priority.CRITICAL);
+
+        finish.countDown();
+        holder.join();
+        bulk.join();
+        critical.join();
+
+        assertEquals(List.of(Priority.CRITICAL, Priority.BULK), order);
+    }
+
+    @Test
+    void testBulkIsCappedToItsShare() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new FixedLimit(4), 0, 0.5, 1_000, 1_000, 1_000, new SimpleMeterRegistry());
+
+        limiter.call(Priority.BULK, () -> limiter.call(Priority.BULK, () ->
+                assertThrows(OverloadException.class, () -> limiter.call(Priority.BULK, () -> null))));
+        limiter.call(Priority.BULK, () -> limiter.call(Priority.BULK, () -> limiter.call(Priority.NORMAL, () -> "ok")));
+    }
+
+    @Test
+    void testVegasLimitGrowsWithoutQueueingAndShrinksWhenLatencyRises() {
+        VegasLimit limit = new VegasLimit(10, 1, 100);
+        limit.onSample(TimeUnit.MILLISECONDS.toNanos(1), 10, false);
+        for (int i = 0; i < 5; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(1), limit.getLimit(), false);
+        }
+        int grown = limit.getLimit();
+        assertTrue(grown > 10);
+
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), limit.getLimit(), false);
+        }
+        assertTrue(limit.getLimit() < grown);
+    }
+
+    private static void waitForQueued(ConcurrencyLimiter limiter, Priority priority) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.getQueued(priority) == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
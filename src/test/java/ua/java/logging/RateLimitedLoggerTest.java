@@ -0,0 +1,47 @@
+package ua.java.logging;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitedLoggerTest {
+
+    @Mock
+    private Logger delegate;
+
+    @Test
+    void testRepeatedMessagesAreSuppressedWithinInterval() {
+        AtomicLong clock = new AtomicLong();
+        when(delegate.isWarnEnabled()).thenReturn(true);
+        RateLimitedLogger logger = new RateLimitedLogger(delegate, 1, TimeUnit.SECONDS, clock::get);
+
+        logger.warn("City with id {} not found", 1);
+        logger.warn("City with id {} not found", 2);
+        logger.warn("City with id {} not found", 3);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        logger.warn("City with id {} not found", 4);
+
+        verify(delegate).warn("City with id {} not found", new Object[]{1});
+        verify(delegate).warn("City with id {} not found ({} similar messages suppressed)", new Object[]{4, 2L});
+        verify(delegate, times(2)).warn(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void testDisabledLevelSkipsBookkeeping() {
+        when(delegate.isErrorEnabled()).thenReturn(false);
+        RateLimitedLogger logger = new RateLimitedLogger(delegate, 1, TimeUnit.SECONDS);
+
+        logger.error("Invalid id provided: {}", -1);
+
+        verify(delegate, never()).error(anyString(), any(Object[].class));
+    }
+}
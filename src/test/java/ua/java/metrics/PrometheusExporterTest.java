@@ -0,0 +1,104 @@
+package ua.java.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrometheusExporterTest {
+
+    @Test
+    void testHistogramPercentiles() {
+        Timer timer = new SimpleMeterRegistry().timer("test.timer");
+        for (int i = 1; i <= 1000; i++) {
+            timer.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        assertEquals(1000, timer.count());
+        assertEquals(500, timer.percentile(0.5, TimeUnit.MICROSECONDS), 500 * 0.125);
+        assertEquals(990, timer.percentile(0.99, TimeUnit.MICROSECONDS), 990 * 0.125);
+        assertEquals(1000, timer.max(TimeUnit.MICROSECONDS), 0.001);
+    }
+
+    @Test
+    void testRegistryReturnsSameMeterForSameId() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        assertSame(registry.counter("hits", "entity", "city"), registry.counter("hits", "entity", "city"));
+        assertNotSame(registry.counter("hits", "entity", "city"), registry.counter("hits", "entity", "country"));
+        assertThrows(IllegalStateException.class, () -> registry.timer("hits", "entity", "city"));
+    }
+
+    @Test
+    void testScrapeFormat() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        registry.counter("cache.requests", "entity", "city", "result", "redis").increment(3);
+        registry.timer("cache.redis.latency", "operation", "get").record(TimeUnit.MILLISECONDS.toNanos(2));
+        registry.summary("cache.redis.payload.size", "operation", "get").record(512);
+        registry.gauge("cache.redis.breaker.state", () -> 1);
+
+        String scrape = new PrometheusExporter(registry, 0).scrape();
+
+        assertTrue(scrape.contains("# TYPE cache_requests_total counter"));
+        assertTrue(scrape.contains("cache_requests_total{entity=\"city\",result=\"redis\"} 3"));
+        assertTrue(scrape.contains("# TYPE cache_redis_latency_seconds summary"));
+        assertTrue(scrape.contains("cache_redis_latency_seconds_count{operation=\"get\"} 1"));
+        assertTrue(scrape.contains("cache_redis_latency_seconds{operation=\"get\",quantile=\"0.99\"}"));
+        assertTrue(scrape.contains("cache_redis_payload_size_sum{operation=\"get\"} 512"));
+        assertTrue(scrape.contains("# TYPE cache_redis_payload_size_max gauge\ncache_redis_payload_size_max{operation=\"get\"} 512"));
+        assertTrue(scrape.contains("# TYPE cache_redis_latency_seconds_max gauge"));
+        int summaryFamily = scrape.indexOf("# TYPE cache_redis_latency_seconds summary");
+        String summaryBody = scrape.substring(summaryFamily, scrape.indexOf("# TYPE", summaryFamily + 1));
+        assertFalse(summaryBody.contains("_max"));
+        assertTrue(scrape.contains("# TYPE cache_redis_breaker_state gauge"));
+        assertTrue(scrape.contains("cache_redis_breaker_state 1"));
+    }
+
+    @Test
+    void testHttpEndpoint() throws IOException, InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        registry.counter("cache.admissions", "entity", "city").increment();
+
+        try (PrometheusExporter exporter = new PrometheusExporter(registry, 0)) {
+            exporter.start();
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + exporter.getPort() + "/metrics")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("cache_admissions_total{entity=\"city\"} 1"));
+        }
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("prometheus-exporter")) {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+                assertFalse(thread.isAlive());
+            }
+        }
+    }
+
+    @Test
+    void testProbeReportsUnavailableUntilHealthy() throws IOException, InterruptedException {
+        AtomicBoolean ready = new AtomicBoolean();
+
+        try (PrometheusExporter exporter = new PrometheusExporter(new SimpleMeterRegistry(), 0)) {
+            exporter.addProbe("/ready", ready::get, () -> ready.get() ? "READY" : "STARTING").start();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + exporter.getPort() + "/ready")).build();
+
+            HttpResponse<String> starting = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+            ready.set(true);
+            HttpResponse<String> started = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(503, starting.statusCode());
+            assertEquals("STARTING\n", starting.body());
+            assertEquals(200, started.statusCode());
+            assertEquals("READY\n", started.body());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ua.java.query;
+
+import org.junit.jupiter.api.Test;
+import ua.java.metrics.SimpleMeterRegistry;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowQueryAnalyzerTest {
+
+    private static final String SELECT_LANGUAGES = "select * from country_language where country_id=?";
+
+    @Test
+    void testSlowStatementsAreFlagged() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SlowQueryAnalyzer analyzer = new SlowQueryAnalyzer(10, TimeUnit.MILLISECONDS, 5, false, registry);
+
+        String previous = QueryAnalysis.enter("city.getById");
+        try {
+            analyzer.record(1, "select * from city where id=?", TimeUnit.MILLISECONDS.toNanos(2), null, () -> null);
+            analyzer.record(1, "select * from city where id=?", TimeUnit.MILLISECONDS.toNanos(50), null, () -> null);
+        } finally {
+            QueryAnalysis.exit(previous);
+        }
+
+        List<StatementStats> statements = analyzer.getStatements();
+        assertEquals(1, statements.size());
+        StatementStats stats = statements.get(0);
+        assertEquals("city.getById", stats.getOrigin());
+        assertEquals(2, stats.getCount());
+        assertEquals(1, stats.getSlowCount());
+        assertTrue(stats.getMaxTime(TimeUnit.MILLISECONDS) >= 50);
+        assertEquals(1, registry.counter("repository.sql.slow").count());
+        assertTrue(analyzer.report(5).contains("city.getById"));
+    }
+
+    @Test
+    void testRepeatedSelectsInOneTransactionAreReportedAsNPlusOne() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SlowQueryAnalyzer analyzer = new SlowQueryAnalyzer(1, TimeUnit.SECONDS, 3, false, registry);
+
+        for (int i = 0; i < 5; i++) {
+            analyzer.record(7, SELECT_LANGUAGES, 1_000, null, () -> null);
+        }
+        analyzer.endUnitOfWork(7);
+        for (int i = 0; i < 2; i++) {
+            analyzer.record(7, SELECT_LANGUAGES, 1_000, null, () -> null);
+        }
+
+        StatementStats stats = analyzer.getStatements().get(0);
+        assertEquals(7, stats.getCount());
+        assertEquals(1, stats.getNPlusOneCount());
+        assertEquals(1, registry.counter("repository.sql.n_plus_one").count());
+    }
+
+    @Test
+    void testInListsOfDifferentSizesShareOneEntry() {
+        assertEquals("select * from city where id in (?...)", SlowQueryAnalyzer.normalize("select * from city where id in (?, ?, ?)"));
+        assertEquals("select * from city where id in (?...)", SlowQueryAnalyzer.normalize("select * from city where id in (?,?)"));
+        assertEquals("select * from city where id=?", SlowQueryAnalyzer.normalize(" select * from city where id=? "));
+    }
+}
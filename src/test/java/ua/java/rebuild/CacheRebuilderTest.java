@@ -0,0 +1,157 @@
+package ua.java.rebuild;
+
+import org.junit.jupiter.api.Test;
+import ua.java.cache.RedisRepository;
+import ua.java.cdc.CheckpointStore;
+import ua.java.metrics.SimpleMeterRegistry;
+import ua.java.redis.CityCountry;
+import ua.java.repository.CityRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class CacheRebuilderTest {
+
+    @Test
+    void testRebuildWritesEveryRowFromSeveralWorkers() {
+        CityRepository repository = repository(1, 1000, new AtomicBoolean(false));
+        Map<Integer, CityCountry> cached = new ConcurrentHashMap<>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        RedisRepository redisRepository = redisRepository(cached, threads);
+        InMemoryCheckpointStore checkpoints = new InMemoryCheckpointStore();
+
+        CacheRebuilder rebuilder = new CacheRebuilder(repository, redisRepository, checkpoints, 4, 50, 20, 0, new SimpleMeterRegistry());
+        CacheRebuilder.Result result = rebuilder.rebuild();
+
+        assertTrue(result.completed());
+        assertEquals(20, result.partitions());
+        assertEquals(1000, result.rows());
+        assertEquals(1000, cached.size());
+        assertEquals(1.0, rebuilder.getProgress());
+        assertEquals(CheckpointStore.NONE, checkpoints.position.get());
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("cache-rebuild-")));
+        verify(repository, times(20)).getCityCountriesByIdRange(anyInt(), anyInt());
+    }
+
+    @Test
+    void testFailedPartitionKeepsWatermarkAndNextRunResumes() {
+        AtomicBoolean broken = new AtomicBoolean(true);
+        CityRepository repository = repository(1, 100, broken);
+        Map<Integer, CityCountry> cached = new ConcurrentHashMap<>();
+        InMemoryCheckpointStore checkpoints = new InMemoryCheckpointStore();
+        CacheRebuilder rebuilder = new CacheRebuilder(repository, redisRepository(cached, ConcurrentHashMap.newKeySet()),
+                checkpoints, 1, 10, 10, 0, new SimpleMeterRegistry());
+
+        assertThrows(IllegalStateException.class, rebuilder::rebuild);
+        assertEquals(51, checkpoints.position.get());
+
+        broken.set(false);
+        CacheRebuilder.Result result = rebuilder.rebuild();
+
+        assertTrue(result.completed());
+        assertEquals(51, result.firstId());
+        assertEquals(5, result.partitions());
+        assertEquals(50, result.rows());
+        assertEquals(100, cached.size());
+        assertEquals(CheckpointStore.NONE, checkpoints.position.get());
+    }
+
+    @Test
+    void testRebuildWritesThroughGivenWriter() {
+        CityRepository repository = repository(1, 100, new AtomicBoolean(false));
+        Set<Integer> written = ConcurrentHashMap.newKeySet();
+
+        CacheRebuilder.Result result = new CacheRebuilder(repository, rows -> rows.forEach(row -> written.add(row.getId())),
+                new InMemoryCheckpointStore(), 2, 10, 5, 0, new SimpleMeterRegistry()).rebuild();
+
+        assertTrue(result.completed());
+        assertEquals(100, written.size());
+    }
+
+    @Test
+    void testEmptyTableCompletesImmediately() {
+        CityRepository repository = mock(CityRepository.class);
+        InMemoryCheckpointStore checkpoints = new InMemoryCheckpointStore();
+        checkpoints.save(42);
+
+        CacheRebuilder.Result result = new CacheRebuilder(repository, mock(RedisRepository.class), checkpoints,
+                2, 10, 10, 0, new SimpleMeterRegistry()).rebuild();
+
+        assertTrue(result.completed());
+        assertEquals(0, result.rows());
+        assertEquals(CheckpointStore.NONE, checkpoints.position.get());
+        verify(repository, never()).getCityCountriesByIdRange(anyInt(), anyInt());
+    }
+
+    @Test
+    void testThrottleSpacesReservationsByRowRate() {
+        RebuildThrottle throttle = new RebuildThrottle(1000);
+        long now = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+
+        assertEquals(0, throttle.reserve(500, now));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), throttle.reserve(500, now));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), throttle.reserve(10, now));
+        assertEquals(0, new RebuildThrottle(0).reserve(1_000_000, now));
+    }
+
+    private static CityRepository repository(int minId, int maxId, AtomicBoolean brokenAboveHalf) {
+        CityRepository repository = mock(CityRepository.class);
+        when(repository.getMinId()).thenReturn(minId);
+        when(repository.getMaxId()).thenReturn(maxId);
+        when(repository.getCityCountriesByIdRange(anyInt(), anyInt())).thenAnswer(invocation -> {
+            int from = invocation.getArgument(0);
+            int to = invocation.getArgument(1);
+            if (brokenAboveHalf.get() && from > maxId / 2) {
+                throw new IllegalStateException("connection reset");
+            }
+            List<CityCountry> rows = new ArrayList<>();
+            for (int id = from; id < to; id++) {
+                CityCountry cityCountry = new CityCountry();
+                cityCountry.setId(id);
+                cityCountry.setName("City " + id);
+                rows.add(cityCountry);
+            }
+            return rows;
+        });
+        return repository;
+    }
+
+    private static RedisRepository redisRepository(Map<Integer, CityCountry> cached, Set<String> threads) {
+        RedisRepository redisRepository = mock(RedisRepository.class);
+        doAnswer(invocation -> {
+            Collection<CityCountry> batch = invocation.getArgument(0);
+            assertTrue(batch.size() <= 20);
+            batch.forEach(cityCountry -> cached.put(cityCountry.getId(), cityCountry));
+            threads.add(Thread.currentThread().getName());
+            return null;
+        }).when(redisRepository).cacheAllIfNewer(anyCollection());
+        return redisRepository;
+    }
+
+    private static final class InMemoryCheckpointStore implements CheckpointStore {
+
+        private final AtomicLong position = new AtomicLong(NONE);
+
+        @Override
+        public long load() {
+            return position.get();
+        }
+
+        @Override
+        public void save(long position) {
+            this.position.set(position);
+        }
+    }
+}
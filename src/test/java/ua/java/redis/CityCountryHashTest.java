@@ -0,0 +1,85 @@
+package ua.java.redis;
+
+import org.junit.jupiter.api.Test;
+import ua.java.domain.enums.Continent;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CityCountryHashTest {
+
+    @Test
+    void testFullRoundTrip() {
+        CityCountry cityCountry = cityCountry();
+        String[] fields = CityCountryHash.fieldNames(CityCountryField.ALL);
+        Map<String, String> hash = CityCountryHash.encode(cityCountry, CityCountryField.ALL);
+
+        CityCountry decoded = CityCountryHash.decode(fields, valuesOf(hash, fields));
+
+        assertEquals(1, decoded.getId());
+        assertEquals("Kabul", decoded.getName());
+        assertNull(decoded.getDistrict());
+        assertEquals(Continent.ASIA, decoded.getContinent());
+        assertEquals(new BigDecimal("652090.00"), decoded.getCountrySurfaceArea());
+        assertEquals(2, decoded.getLanguages().size());
+        Language pashto = decoded.getLanguages().stream().filter(l -> "Pashto".equals(l.getLanguage())).findFirst().orElseThrow();
+        assertTrue(pashto.getOfficial());
+        assertEquals(new BigDecimal("52.4"), pashto.getPercentage());
+    }
+
+    @Test
+    void testProjectionOnlyDecodesRequestedFields() {
+        Map<String, String> hash = CityCountryHash.encode(cityCountry(), CityCountryField.ALL);
+        String[] fields = CityCountryHash.fieldNames(CityCountryField.CITY);
+
+        CityCountry decoded = CityCountryHash.decode(fields, valuesOf(hash, fields));
+
+        assertEquals("Kabul", decoded.getName());
+        assertEquals(1780000, decoded.getPopulation());
+        assertNull(decoded.getCountryName());
+        assertNull(decoded.getLanguages());
+    }
+
+    @Test
+    void testEmptyLanguagesAreKept() {
+        CityCountry cityCountry = cityCountry();
+        cityCountry.setLanguages(Set.of());
+        String[] fields = CityCountryHash.fieldNames(Set.of(CityCountryField.LANGUAGES));
+        Map<String, String> hash = CityCountryHash.encode(cityCountry, Set.of(CityCountryField.LANGUAGES));
+
+        assertEquals(Set.of(), CityCountryHash.decode(fields, valuesOf(hash, fields)).getLanguages());
+    }
+
+    private static List<String> valuesOf(Map<String, String> hash, String[] fields) {
+        List<String> values = new ArrayList<>();
+        Arrays.stream(fields).forEach(field -> values.add(hash.get(field)));
+        return values;
+    }
+
+    private static CityCountry cityCountry() {
+        CityCountry cityCountry = new CityCountry();
+        cityCountry.setId(1);
+        cityCountry.setName("Kabul");
+        cityCountry.setPopulation(1780000);
+        cityCountry.setCountryCode("AFG");
+        cityCountry.setCountryName("Afghanistan");
+        cityCountry.setContinent(Continent.ASIA);
+        cityCountry.setCountrySurfaceArea(new BigDecimal("652090.00"));
+        Language pashto = new Language();
+        pashto.setLanguage("Pashto");
+        pashto.setOfficial(true);
+        pashto.setPercentage(new BigDecimal("52.4"));
+        Language dari = new Language();
+        dari.setLanguage("Dari");
+        dari.setOfficial(true);
+        dari.setPercentage(new BigDecimal("32.1"));
+        cityCountry.setLanguages(Set.of(pashto, dari));
+        return cityCountry;
+    }
+}
@@ -6,14 +6,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ua.java.cache.NegativeCache;
+import ua.java.cache.OffHeapCityCache;
 import ua.java.cache.RedisRepository;
 import ua.java.domain.entity.City;
+import ua.java.domain.entity.Country;
 import ua.java.domain.exception.DatabaseOperationException;
 import ua.java.redis.CityCountry;
+import ua.java.redis.CityCountryField;
 import ua.java.repository.CityRepository;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,6 +33,9 @@ class CityServiceTest {
     @Mock
     private RedisRepository redisRepository;
 
+    @Mock
+    private OffHeapCityCache nearCache;
+
     @InjectMocks
     private CityService cityService;
 
@@ -50,12 +59,12 @@ class CityServiceTest {
         City city = new City();
         city.setId(id);
 
-        when(repository.getById(id)).thenReturn(city);
+        when(repository.findById(id)).thenReturn(Optional.of(city));
 
         City result = cityService.getById(id);
 
         assertNotNull(result);
-        verify(repository, times(1)).getById(id);
+        verify(repository, times(1)).findById(id);
         verify(redisRepository, never()).getDataByName(any());
     }
 
@@ -64,6 +73,7 @@ class CityServiceTest {
         Integer validId = 2;
         int CACHE_THRESHOLD = 2;
         CityCountry cityCountry = new CityCountry();
+        cityCountry.setId(validId);
         cityCountry.setName("TestCityFromCache");
 
         cityService.getRequestNameMap().put(validId, "TestCityFromCache");
@@ -75,7 +85,71 @@ class CityServiceTest {
 
         assertNotNull(result);
         verify(redisRepository, times(1)).getDataByName("TestCityFromCache");
-        verify(repository, never()).getById(validId);
+        verify(repository, never()).findById(validId);
+    }
+
+    @Test
+    void testRedisEntryOfSameNamedCityIsAMiss() {
+        Integer validId = 2;
+        CityCountry other = new CityCountry();
+        other.setId(3);
+        other.setName("Springfield");
+        CityCountry own = new CityCountry();
+        own.setId(validId);
+        own.setName("Springfield");
+
+        cityService.getRequestNameMap().put(validId, "Springfield");
+        cityService.getRequestCountMap().put(validId, 3);
+
+        when(redisRepository.getDataByName("Springfield")).thenReturn(other);
+        when(repository.getCityCountryById(validId)).thenReturn(own);
+
+        assertEquals(validId, cityService.getById(validId).getId());
+        verify(nearCache, never()).put(other);
+        verify(nearCache).put(own);
+    }
+
+    @Test
+    void testGetByIdFallsBackToDatabaseWhenRedisUnavailable() {
+        Integer validId = 2;
+        int CACHE_THRESHOLD = 2;
+
+        cityService.getRequestNameMap().put(validId, "TestCityFromCache");
+        cityService.getRequestCountMap().put(validId, CACHE_THRESHOLD + 1);
+
+        CityCountry projected = new CityCountry();
+        projected.setId(validId);
+        projected.setName("TestCityFromCache");
+
+        when(redisRepository.getDataByName("TestCityFromCache")).thenReturn(null);
+        when(repository.getCityCountryById(validId)).thenReturn(projected);
+
+        City result = cityService.getById(validId);
+
+        assertEquals(validId, result.getId());
+        assertEquals("TestCityFromCache", result.getName());
+        verify(repository, never()).findById(validId);
+        verify(repository, times(1)).getCityCountryById(validId);
+        verify(redisRepository, times(1)).cacheIfNewer(projected);
+    }
+
+    @Test
+    void testGetByIdFromNearCache() {
+        Integer validId = 2;
+        int CACHE_THRESHOLD = 2;
+        CityCountry cityCountry = new CityCountry();
+        cityCountry.setId(validId);
+        cityCountry.setName("TestCityFromNearCache");
+
+        cityService.getRequestCountMap().put(validId, CACHE_THRESHOLD + 1);
+
+        when(nearCache.get(validId)).thenReturn(cityCountry);
+
+        City result = cityService.getById(validId);
+
+        assertEquals("TestCityFromNearCache", result.getName());
+        verify(redisRepository, never()).getDataByName(any());
+        verify(repository, never()).findById(validId);
     }
 
     @Test
@@ -83,7 +157,7 @@ class CityServiceTest {
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> cityService.getById(null));
 
         assertEquals("Id cannot be null or less than or equal to 0", exception.getMessage());
-        verify(repository, never()).getById(any());
+        verify(repository, never()).findById(any());
         verify(redisRepository, never()).getDataByName(any());
     }
 
@@ -94,7 +168,7 @@ class CityServiceTest {
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> cityService.getById(invalidId));
 
         assertEquals("Id cannot be null or less than or equal to 0", exception.getMessage());
-        verify(repository, never()).getById(any());
+        verify(repository, never()).findById(any());
         verify(redisRepository, never()).getDataByName(any());
     }
 
@@ -102,15 +176,52 @@ class CityServiceTest {
     void testGetByIdCityNotFound() {
         Integer validId = 3;
 
-        when(repository.getById(validId)).thenThrow(new EntityNotFoundException("City with id " + validId + " not found"));
+        when(repository.findById(validId)).thenReturn(Optional.empty());
 
         EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> cityService.getById(validId));
 
         assertEquals("City with id " + validId + " not found", exception.getMessage());
-        verify(repository, times(1)).getById(validId);
+        verify(repository, times(1)).findById(validId);
         verify(redisRepository, never()).getDataByName(any());
     }
 
+    @Test
+    void testFindByIdMissingCityReturnsEmpty() {
+        when(repository.findById(5)).thenReturn(Optional.empty());
+
+        assertTrue(cityService.findById(5).isEmpty());
+        assertFalse(cityService.getRequestCountMap().containsKey(5));
+    }
+
+    @Test
+    void testGetByIdDatabaseErrorIsNotReportedAsNotFound() {
+        when(repository.findById(5)).thenThrow(new IllegalStateException("connection reset"));
+
+        assertThrows(DatabaseOperationException.class, () -> cityService.getById(5));
+    }
+
+    @Test
+    void testExistsByIdUsesRepositoryProbe() {
+        when(repository.existsById(5)).thenReturn(true);
+
+        assertTrue(cityService.existsById(5));
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    void testGetByIdMissingIdIsAnsweredByNegativeCache() {
+        NegativeCache negativeCache = new NegativeCache("city", redisRepository, 30, TimeUnit.SECONDS, 100);
+        CityService service = new CityService(repository, redisRepository, nearCache, null, negativeCache);
+        when(repository.findById(404)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> service.getById(404));
+        assertThrows(EntityNotFoundException.class, () -> service.getById(404));
+
+        verify(repository, times(1)).findById(404);
+        verify(redisRepository).setValue("missing:city:404", "1", 30_000);
+        assertFalse(service.getRequestCountMap().containsKey(404));
+    }
+
     @Test
     void testSaveCity() {
         City city = new City();
@@ -138,14 +249,79 @@ class CityServiceTest {
     void testDeleteById() {
         Integer id = 1;
 
-        when(repository.getById(id)).thenReturn(new City());
+        when(repository.deleteById(id)).thenReturn(true);
 
         cityService.deleteById(id);
 
-        verify(repository, times(1)).getById(id);
+        verify(repository, never()).findById(any());
         verify(repository, times(1)).deleteById(id);
     }
 
+    @Test
+    void testDeleteByIdNotFound() {
+        Integer id = 1;
+
+        when(repository.deleteById(id)).thenReturn(false);
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> cityService.deleteById(id));
+
+        assertEquals("City with id " + id + " not found", exception.getMessage());
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    void testDeleteByIdEvictsCachedEntry() {
+        Integer id = 1;
+        cityService.getRequestCountMap().put(id, 3);
+        cityService.getRequestNameMap().put(id, "CachedCity");
+
+        when(repository.deleteById(id)).thenReturn(true);
+
+        cityService.deleteById(id);
+
+        verify(redisRepository, times(1)).evictData("CachedCity");
+        assertFalse(cityService.getRequestCountMap().containsKey(id));
+        assertNull(cityService.getRequestNameMap().get(id));
+    }
+
+    @Test
+    void testSaveAll() {
+        List<City> cities = Arrays.asList(new City(), new City());
+
+        when(repository.saveAll(cities)).thenReturn(cities);
+
+        List<City> result = cityService.saveAll(cities);
+
+        assertEquals(2, result.size());
+        verify(repository, times(1)).saveAll(cities);
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void testSaveAllWithNullEntity() {
+        List<City> cities = Arrays.asList(new City(), null);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> cityService.saveAll(cities));
+
+        assertEquals("City entities cannot be null", exception.getMessage());
+        verify(repository, never()).saveAll(any());
+    }
+
+    @Test
+    void testDeleteAllById() {
+        List<Integer> ids = List.of(1, 2, 3);
+        cityService.getRequestNameMap().put(2, "CachedCity");
+
+        when(repository.deleteAllById(ids)).thenReturn(3);
+
+        int deleted = cityService.deleteAllById(ids);
+
+        assertEquals(3, deleted);
+        verify(repository, times(1)).deleteAllById(ids);
+        verify(repository, never()).deleteById(any());
+        verify(redisRepository, times(1)).evictData("CachedCity");
+    }
+
     @Test
     void testDeleteByInvalidId() {
         Integer invalidId = 0;
@@ -153,7 +329,7 @@ class CityServiceTest {
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> cityService.deleteById(invalidId));
 
         assertEquals("Id cannot be null or less than or equal to 0", exception.getMessage());
-        verify(repository, never()).getById(any());
+        verify(repository, never()).findById(any());
     }
 
     @Test
@@ -192,6 +368,47 @@ class CityServiceTest {
         verify(repository, times(1)).update(city);
     }
 
+    @Test
+    void testUpdateRefreshesHotCityWithoutResettingItsCount() {
+        Integer id = 2;
+        City city = new City();
+        city.setId(id);
+        cityService.getRequestNameMap().put(id, "OldName");
+        cityService.getRequestCountMap().put(id, 5);
+
+        CityCountry projected = new CityCountry();
+        projected.setId(id);
+        projected.setName("NewName");
+        when(repository.getCityCountryById(id)).thenReturn(projected);
+
+        cityService.update(city);
+
+        assertEquals(5, cityService.getRequestCountMap().get(id));
+        assertEquals("NewName", cityService.getRequestNameMap().get(id));
+        verify(redisRepository).evictData("OldName");
+        verify(redisRepository).cacheIfNewer(projected);
+        verify(nearCache).put(projected);
+    }
+
+    @Test
+    void testUpdateWritesOnlyCityFieldsWhenNameIsUnchanged() {
+        Integer id = 2;
+        City city = new City();
+        city.setId(id);
+        cityService.getRequestNameMap().put(id, "Kabul");
+
+        CityCountry projected = new CityCountry();
+        projected.setId(id);
+        projected.setName("Kabul");
+        when(repository.getCityCountryById(id)).thenReturn(projected);
+
+        cityService.update(city);
+
+        verify(redisRepository).updateFields(projected, CityCountryField.CITY);
+        verify(redisRepository, never()).evictData(any());
+        verify(redisRepository, never()).cacheIfNewer(any());
+    }
+
     @Test
     void testUpdateWithException() {
         City city = new City();
@@ -207,20 +424,16 @@ class CityServiceTest {
     @Test
     void testUpdateById() {
         Integer id = 1;
-        City existingCity = new City();
-        existingCity.setId(id);
-
         City updatedCity = new City();
         updatedCity.setName("NewCityName");
 
-        when(repository.getById(id)).thenReturn(existingCity);
-        doNothing().when(repository).update(existingCity);
+        when(repository.updateById(id, updatedCity)).thenReturn(true);
 
         cityService.updateById(id, updatedCity);
 
-        verify(repository, times(1)).getById(id);
-        verify(repository, times(1)).update(existingCity);
-        assertEquals("NewCityName", existingCity.getName());
+        verify(repository, never()).findById(any());
+        verify(repository, never()).update(any());
+        verify(repository, times(1)).updateById(id, updatedCity);
     }
 
     @Test
@@ -233,7 +446,7 @@ class CityServiceTest {
 
         assertEquals("Invalid id or city entity", exception.getMessage());
 
-        verify(repository, never()).getById(any());
+        verify(repository, never()).findById(any());
         verify(repository, never()).update(any());
     }
 
@@ -245,7 +458,7 @@ class CityServiceTest {
 
         assertEquals("Invalid id or city entity", exception.getMessage());
 
-        verify(repository, never()).getById(any());
+        verify(repository, never()).findById(any());
         verify(repository, never()).update(any());
     }
 
@@ -255,12 +468,12 @@ class CityServiceTest {
         City updatedCity = new City();
         updatedCity.setName("NewCityName");
 
-        when(repository.getById(id)).thenThrow(new RuntimeException("Entity not found"));
+        when(repository.updateById(id, updatedCity)).thenReturn(false);
 
         EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> cityService.updateById(id, updatedCity));
 
         assertEquals("City with id " + id + " not found", exception.getMessage());
-        verify(repository, times(1)).getById(id);
+        verify(repository, never()).findById(any());
         verify(repository, never()).update(any());
     }
 
@@ -11,10 +11,12 @@ import ua.java.domain.entity.City;
 import ua.java.domain.entity.Country;
 import ua.java.domain.exception.DatabaseOperationException;
 import ua.java.redis.CityCountry;
+import ua.java.redis.CityCountryField;
 import ua.java.repository.CountryRepository;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -53,13 +55,13 @@ class CountryServiceTest {
         City city = new City();
         city.setName("TestCity");
 
-        when(repository.getById(id)).thenReturn(country);
+        when(repository.findById(id)).thenReturn(Optional.of(country));
 
         Country result = countryService.getById(id);
 
         assertNotNull(result);
-        verify(repository, times(1)).getById(id);
-        verify(redisRepository, never()).cacheData(any());
+        verify(repository, times(1)).findById(id);
+        verify(redisRepository, never()).cacheIfNewer(any());
     }
 
     @Test
@@ -68,18 +70,39 @@ class CountryServiceTest {
         int CACHE_THRESHOLD = 2;
         CityCountry cityCountry = new CityCountry();
         cityCountry.setName("TestCityFromCache");
+        cityCountry.setCountryId(validId);
 
         countryService.getRequestNameMap().put(validId, "TestCityFromCache");
 
         countryService.getRequestCountMap().put(validId, CACHE_THRESHOLD + 1);
 
-        when(redisRepository.getDataByName("TestCityFromCache")).thenReturn(cityCountry);
+        when(redisRepository.getDataByName("TestCityFromCache", CityCountryField.COUNTRY)).thenReturn(cityCountry);
 
         Country result = countryService.getById(validId);
 
         assertNotNull(result);
-        verify(redisRepository, times(1)).getDataByName("TestCityFromCache");
-        verify(repository, never()).getById(validId);
+        verify(redisRepository, times(1)).getDataByName("TestCityFromCache", CityCountryField.COUNTRY);
+        verify(repository, never()).findById(validId);
+    }
+
+    @Test
+    void testGetByIdCachesCapitalProjection() {
+        Integer id = 1;
+        Country country = new Country();
+        country.setId(id);
+        CityCountry capital = new CityCountry();
+        capital.setId(1);
+        capital.setName("Kabul");
+
+        countryService.getRequestCountMap().put(id, 1);
+        when(repository.findById(id)).thenReturn(Optional.of(country));
+        when(repository.getCapitalCityCountry(id)).thenReturn(capital);
+
+        countryService.getById(id);
+
+        verify(redisRepository, times(1)).cacheIfNewer(capital);
+        verify(repository, never()).getCityByCountryId(any());
+        assertEquals("Kabul", countryService.getRequestNameMap().get(id));
     }
 
     @Test
@@ -88,8 +111,8 @@ class CountryServiceTest {
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> countryService.getById(null));
 
         assertEquals("Id cannot be null or less than or equal to 0", exception.getMessage());
-        verify(repository, never()).getById(any());
-        verify(redisRepository, never()).getDataByName(any());
+        verify(repository, never()).findById(any());
+        verify(redisRepository, never()).getDataByName(any(), any());
     }
 
     @Test
@@ -99,21 +122,21 @@ class CountryServiceTest {
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> countryService.getById(invalidId));
 
         assertEquals("Id cannot be null or less than or equal to 0", exception.getMessage());
-        verify(repository, never()).getById(any());
-        verify(redisRepository, never()).getDataByName(any());
+        verify(repository, never()).findById(any());
+        verify(redisRepository, never()).getDataByName(any(), any());
     }
 
     @Test
     void testGetByIdCountryNotFound() {
         Integer validId = 3;
 
-        when(repository.getById(validId)).thenThrow(new EntityNotFoundException("Country with id " + validId + " not found"));
+        when(repository.findById(validId)).thenReturn(Optional.empty());
 
         EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> countryService.getById(validId));
 
         assertEquals("Country with id " + validId + " not found", exception.getMessage());
-        verify(repository, times(1)).getById(validId);
-        verify(redisRepository, never()).getDataByName(any());
+        verify(repository, times(1)).findById(validId);
+        verify(redisRepository, never()).getDataByName(any(), any());
     }
 
     @Test
@@ -144,14 +167,41 @@ class CountryServiceTest {
     void testDeleteById() {
         Integer id = 1;
 
-        when(repository.getById(id)).thenReturn(new Country());
+        when(repository.deleteById(id)).thenReturn(true);
 
         countryService.deleteById(id);
 
-        verify(repository, times(1)).getById(id);
+        verify(repository, never()).findById(any());
         verify(repository, times(1)).deleteById(id);
     }
 
+    @Test
+    void testDeleteByIdNotFound() {
+        Integer id = 1;
+
+        when(repository.deleteById(id)).thenReturn(false);
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> countryService.deleteById(id));
+
+        assertEquals("Country with id " + id + " not found", exception.getMessage());
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    void testDeleteByIdEvictsCachedEntry() {
+        Integer id = 1;
+        countryService.getRequestCountMap().put(id, 3);
+        countryService.getRequestNameMap().put(id, "CachedCity");
+
+        when(repository.deleteById(id)).thenReturn(true);
+
+        countryService.deleteById(id);
+
+        verify(redisRepository, times(1)).evictData("CachedCity");
+        assertFalse(countryService.getRequestCountMap().containsKey(id));
+        assertNull(countryService.getRequestNameMap().get(id));
+    }
+
     @Test
     void testDeleteByInvalidId() {
         Integer invalidId = 0;
@@ -159,8 +209,8 @@ class CountryServiceTest {
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> countryService.getById(invalidId));
 
         assertEquals("Id cannot be null or less than or equal to 0", exception.getMessage());
-        verify(repository, never()).getById(any());
-        verify(redisRepository, never()).getDataByName(any());
+        verify(repository, never()).findById(any());
+        verify(redisRepository, never()).getDataByName(any(), any());
     }
 
     @Test
@@ -215,20 +265,16 @@ class CountryServiceTest {
     @Test
     void testUpdateById() {
         Integer id = 1;
-        Country existingCountry = new Country();
-        existingCountry.setId(id);
-
         Country updatedCountry = new Country();
         updatedCountry.setCode("NEW_CODE");
 
-        when(repository.getById(id)).thenReturn(existingCountry);
-        doNothing().when(repository).update(existingCountry);
+        when(repository.updateById(id, updatedCountry)).thenReturn(true);
 
         countryService.updateById(id, updatedCountry);
 
-        verify(repository, times(1)).getById(id);
-        verify(repository, times(1)).update(existingCountry);
-        assertEquals("NEW_CODE", existingCountry.getCode());
+        verify(repository, never()).findById(any());
+        verify(repository, never()).update(any());
+        verify(repository, times(1)).updateById(id, updatedCountry);
     }
 
     @Test
@@ -241,7 +287,7 @@ class CountryServiceTest {
 
         assertEquals("Invalid id or Country entity", exception.getMessage());
 
-        verify(repository, never()).getById(any());
+        verify(repository, never()).findById(any());
         verify(repository, never()).update(any());
     }
 
@@ -253,7 +299,7 @@ class CountryServiceTest {
 
         assertEquals("Invalid id or Country entity", exception.getMessage());
 
-        verify(repository, never()).getById(any());
+        verify(repository, never()).findById(any());
         verify(repository, never()).update(any());
     }
 
@@ -263,12 +309,12 @@ class CountryServiceTest {
         Country updatedCountry = new Country();
         updatedCountry.setCode("NEW_CODE");
 
-        when(repository.getById(id)).thenThrow(new RuntimeException("Entity not found"));
+        when(repository.updateById(id, updatedCountry)).thenReturn(false);
 
         EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> countryService.updateById(id, updatedCountry));
 
         assertEquals("Country with id " + id + " not found", exception.getMessage());
-        verify(repository, times(1)).getById(id);
+        verify(repository, never()).findById(any());
         verify(repository, never()).update(any());
     }
 
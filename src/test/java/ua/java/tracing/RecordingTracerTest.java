@@ -0,0 +1,83 @@
+package ua.java.tracing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordingTracerTest {
+
+    @Test
+    void testSlowTraceIsWrittenToFlightRecorder() {
+        FlightRecorder recorder = new FlightRecorder(4);
+        RecordingTracer tracer = new RecordingTracer(0, 0, TimeUnit.NANOSECONDS, recorder, trace -> fail());
+
+        try (Span root = tracer.startSpan("city.getById").setAttribute("id", 3)) {
+            tracer.startSpan("city.requestCount").end();
+            try (Span query = tracer.startSpan("db.query").setAttribute("query", "getById")) {
+                tracer.startSpan("db.fetch").end();
+            }
+        }
+
+        List<TraceRecord> traces = recorder.dump();
+        assertEquals(1, traces.size());
+        TraceRecord trace = traces.get(0);
+        assertEquals(32, trace.traceId().length());
+        assertEquals(4, trace.spans().size());
+        assertEquals("city.getById", trace.root().name());
+        assertEquals(3L, trace.root().attributes().get("id"));
+        assertEquals(-1, trace.spans().get(0).parentIndex());
+        assertEquals(0, trace.spans().get(1).parentIndex());
+        assertEquals(0, trace.spans().get(2).parentIndex());
+        assertEquals("getById", trace.spans().get(2).attributes().get("query"));
+        assertEquals(2, trace.spans().get(3).parentIndex());
+        assertTrue(recorder.dumpAsText().contains("db.fetch"));
+    }
+
+    @Test
+    void testFastUnsampledTraceIsDropped() {
+        FlightRecorder recorder = new FlightRecorder(4);
+        RecordingTracer tracer = new RecordingTracer(0, 1, TimeUnit.HOURS, recorder, trace -> fail());
+
+        tracer.startSpan("city.getById").end();
+
+        assertTrue(recorder.dump().isEmpty());
+    }
+
+    @Test
+    void testSampledTraceIsExported() {
+        List<TraceRecord> exported = new ArrayList<>();
+        RecordingTracer tracer = new RecordingTracer(1, 1, TimeUnit.HOURS, new FlightRecorder(4), exported::add);
+
+        tracer.startSpan("first").end();
+        tracer.startSpan("second").end();
+
+        assertEquals(2, exported.size());
+        assertEquals("second", exported.get(1).root().name());
+        assertEquals(1, exported.get(1).spans().size());
+    }
+
+    @Test
+    void testFlightRecorderKeepsMostRecentTraces() {
+        FlightRecorder recorder = new FlightRecorder(2);
+        RecordingTracer tracer = new RecordingTracer(0, 0, TimeUnit.NANOSECONDS, recorder, trace -> fail());
+
+        tracer.startSpan("first").end();
+        tracer.startSpan("second").end();
+        tracer.startSpan("third").end();
+
+        List<TraceRecord> traces = recorder.dump();
+        assertEquals(3, recorder.getRecordedCount());
+        assertEquals(2, traces.size());
+        assertEquals("second", traces.get(0).root().name());
+        assertEquals("third", traces.get(1).root().name());
+    }
+
+    @Test
+    void testNoopTracerReturnsSharedSpan() {
+        assertSame(NoopTracer.INSTANCE.startSpan("a"), NoopTracer.INSTANCE.startSpan("b").setAttribute("id", 1));
+    }
+}
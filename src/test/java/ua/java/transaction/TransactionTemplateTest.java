@@ -0,0 +1,148 @@
+package ua.java.transaction;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.context.internal.ThreadLocalSessionContext;
+import org.hibernate.resource.transaction.spi.TransactionStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import ua.java.metrics.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TransactionTemplateTest {
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Transaction transaction;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        when(sessionFactory.getCurrentSession()).thenReturn(session);
+        when(session.getTransaction()).thenReturn(transaction);
+        when(session.beginTransaction()).thenReturn(transaction);
+        transactionTemplate = new TransactionTemplate(sessionFactory, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testExecuteCommitsNewTransaction() {
+        when(transaction.isActive()).thenReturn(false);
+
+        String result = transactionTemplate.execute(s -> "done");
+
+        assertEquals("done", result);
+        verify(session, times(1)).beginTransaction();
+        verify(transaction, times(1)).commit();
+        assertEquals(1, transactionTemplate.getCommittedCount());
+    }
+
+    @Test
+    void testExecuteJoinsActiveTransaction() {
+        when(transaction.isActive()).thenReturn(true);
+
+        transactionTemplate.executeWithoutResult(s -> { });
+
+        verify(session, never()).beginTransaction();
+        verify(transaction, never()).commit();
+    }
+
+    @Test
+    void testReadOnlyHintsAreApplied() {
+        when(transaction.isActive()).thenReturn(false);
+
+        transactionTemplate.executeReadOnly(s -> 1);
+
+        verify(session, times(1)).setDefaultReadOnly(true);
+        verify(session, times(1)).setHibernateFlushMode(FlushMode.MANUAL);
+        verify(session, times(2)).doWork(any());
+        verify(transaction, times(1)).commit();
+    }
+
+    @Test
+    void testFailureRollsBack() {
+        when(transaction.isActive()).thenReturn(false, true);
+        when(transaction.getStatus()).thenReturn(TransactionStatus.ACTIVE);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> transactionTemplate.execute(s -> {
+                    throw new IllegalStateException("boom");
+                }));
+
+        assertEquals("boom", exception.getMessage());
+        verify(transaction, times(1)).rollback();
+        verify(transaction, never()).commit();
+        assertEquals(1, transactionTemplate.getRolledBackCount());
+    }
+
+    @Test
+    void testRequiresNewOpensSeparateSession() {
+        Session newSession = mock(Session.class);
+        Transaction newTransaction = mock(Transaction.class);
+        when(sessionFactory.openSession()).thenReturn(newSession);
+        when(newSession.getSessionFactory()).thenReturn(sessionFactory);
+        when(newSession.beginTransaction()).thenReturn(newTransaction);
+
+        transactionTemplate.execute(Propagation.REQUIRES_NEW, false, s -> {
+            assertSame(newSession, s);
+            return null;
+        });
+
+        verify(newTransaction, times(1)).commit();
+        verify(newSession, times(1)).close();
+        verify(session, never()).beginTransaction();
+    }
+
+    @Test
+    void testWriteCannotJoinReadOnlyTransaction() {
+        when(transaction.isActive()).thenReturn(true);
+        when(session.isDefaultReadOnly()).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.execute(s -> "write"));
+        assertEquals("read", transactionTemplate.executeReadOnly(s -> "read"));
+        verify(session, never()).beginTransaction();
+    }
+
+    @Test
+    void testRequiresNewSessionIsCurrentForCallback() {
+        Session newSession = mock(Session.class);
+        Transaction newTransaction = mock(Transaction.class);
+        when(session.getSessionFactory()).thenReturn(sessionFactory);
+        when(sessionFactory.openSession()).thenReturn(newSession);
+        when(newSession.getSessionFactory()).thenReturn(sessionFactory);
+        when(newSession.beginTransaction()).thenReturn(newTransaction);
+        ThreadLocalSessionContext.bind(session);
+        try {
+            transactionTemplate.execute(Propagation.REQUIRES_NEW, false, s -> {
+                assertSame(newSession, boundSession());
+                return null;
+            });
+
+            assertSame(session, boundSession());
+        } finally {
+            ThreadLocalSessionContext.unbind(sessionFactory);
+        }
+    }
+
+    private Session boundSession() {
+        Session bound = ThreadLocalSessionContext.unbind(sessionFactory);
+        ThreadLocalSessionContext.bind(bound);
+        return bound;
+    }
+}